@@ -0,0 +1,191 @@
+package io.temporal.benchmarks;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.payload.context.ActivitySerializationContext;
+import io.temporal.payload.context.SerializationContext;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures serialization and deserialization of a POJO, a string and a byte array through {@link
+ * DefaultDataConverter}, which is the path every workflow and activity argument and result goes
+ * through.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataConverterBenchmark {
+
+  /** Number of items in the serialized POJO, controls the payload size. */
+  @Param({"1", "100", "10000"})
+  public int items;
+
+  private final DataConverter converter = DefaultDataConverter.newDefaultInstance();
+
+  private Order order;
+  private String string;
+  private byte[] bytes;
+  private Payload orderPayload;
+  private Optional<Payloads> arguments;
+  private SerializationContext activityContext;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    order = Order.newOrder(items);
+    string = order.toString();
+    bytes = string.getBytes(StandardCharsets.UTF_8);
+    orderPayload = converter.toPayload(order).get();
+    arguments = converter.toPayloads(order, string, bytes);
+    activityContext =
+        new ActivitySerializationContext(
+            "default", "workflow-id", "OrderWorkflow", "ProcessOrder", "orders", false);
+  }
+
+  @Benchmark
+  public Optional<Payload> pojoToPayload() {
+    return converter.toPayload(order);
+  }
+
+  @Benchmark
+  public Order pojoFromPayload() {
+    return converter.fromPayload(orderPayload, Order.class, Order.class);
+  }
+
+  @Benchmark
+  public Optional<Payload> stringToPayload() {
+    return converter.toPayload(string);
+  }
+
+  @Benchmark
+  public Optional<Payload> bytesToPayload() {
+    return converter.toPayload(bytes);
+  }
+
+  @Benchmark
+  public Optional<Payloads> argumentsToPayloads() {
+    return converter.toPayloads(order, string, bytes);
+  }
+
+  /** Serializes the arguments of an activity the way its invocation does. */
+  @Benchmark
+  public Optional<Payloads> activityArgumentsToPayloads() {
+    return converter.withContext(activityContext).toPayloads(order, string, bytes);
+  }
+
+  @Benchmark
+  public Object[] argumentsFromPayloads() {
+    return converter.fromPayloads(
+        arguments,
+        new Class<?>[] {Order.class, String.class, byte[].class},
+        new Type[] {Order.class, String.class, byte[].class});
+  }
+
+  public static class Order {
+    private String id;
+    private String customer;
+    private List<Item> items;
+
+    public Order() {}
+
+    static Order newOrder(int itemCount) {
+      Order order = new Order();
+      order.id = "order-" + itemCount;
+      order.customer = "customer@example.com";
+      order.items = new ArrayList<>(itemCount);
+      for (int i = 0; i < itemCount; i++) {
+        Item item = new Item();
+        item.sku = "sku-" + i;
+        item.quantity = i % 7 + 1;
+        item.price = 9.99 * (i % 13 + 1);
+        order.items.add(item);
+      }
+      return order;
+    }
+
+    public String getId() {
+      return id;
+    }
+
+    public void setId(String id) {
+      this.id = id;
+    }
+
+    public String getCustomer() {
+      return customer;
+    }
+
+    public void setCustomer(String customer) {
+      this.customer = customer;
+    }
+
+    public List<Item> getItems() {
+      return items;
+    }
+
+    public void setItems(List<Item> items) {
+      this.items = items;
+    }
+
+    @Override
+    public String toString() {
+      return "Order{id='" + id + "', customer='" + customer + "', items=" + items + '}';
+    }
+  }
+
+  public static class Item {
+    private String sku;
+    private int quantity;
+    private double price;
+
+    public String getSku() {
+      return sku;
+    }
+
+    public void setSku(String sku) {
+      this.sku = sku;
+    }
+
+    public int getQuantity() {
+      return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+      this.quantity = quantity;
+    }
+
+    public double getPrice() {
+      return price;
+    }
+
+    public void setPrice(double price) {
+      this.price = price;
+    }
+
+    @Override
+    public String toString() {
+      return "Item{sku='" + sku + "', quantity=" + quantity + ", price=" + price + '}';
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package io.temporal.benchmarks;
+
+import com.github.luben.zstd.ZstdDictTrainer;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.benchmarks.DataConverterBenchmark.Order;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.payload.codec.PayloadCodec;
+import io.temporal.payload.codec.PooledZlibPayloadCodec;
+import io.temporal.payload.codec.ZlibPayloadCodec;
+import io.temporal.payload.codec.ZstdPayloadCodec;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the CPU cost of {@link ZlibPayloadCodec}, {@link PooledZlibPayloadCodec} and {@link
+ * ZstdPayloadCodec}, with and without a dictionary, on JSON payloads. The compressed sizes are
+ * checked by the unit tests of the codecs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadCodecBenchmark {
+
+  @Param({"zlib", "pooled", "pooled-dictionary", "zstd", "zstd-dictionary"})
+  public String codecType;
+
+  /** Number of items in the serialized POJO, controls the payload size. */
+  @Param({"1", "100", "10000"})
+  public int items;
+
+  private PayloadCodec codec;
+  private List<Payload> payloads;
+  private List<Payload> encodedPayloads;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    DataConverter converter = DefaultDataConverter.newDefaultInstance();
+    switch (codecType) {
+      case "zlib":
+        codec = new ZlibPayloadCodec();
+        break;
+      case "pooled":
+        codec = new PooledZlibPayloadCodec();
+        break;
+      case "pooled-dictionary":
+        // a sample of the typical payload as the dictionary
+        byte[] dictionary = converter.toPayload(Order.newOrder(10)).get().toByteArray();
+        codec = PooledZlibPayloadCodec.newBuilder().setDictionary(dictionary).build();
+        break;
+      case "zstd":
+        codec = new ZstdPayloadCodec();
+        break;
+      case "zstd-dictionary":
+        // zstd dictionaries are trained on samples of the typical payloads
+        ZstdDictTrainer trainer = new ZstdDictTrainer(1024 * 1024, 16 * 1024);
+        for (int i = 1; i <= 100; i++) {
+          trainer.addSample(converter.toPayload(Order.newOrder(i)).get().toByteArray());
+        }
+        codec = ZstdPayloadCodec.newBuilder().setDictionary(trainer.trainSamples()).build();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown codec: " + codecType);
+    }
+    payloads = Collections.singletonList(converter.toPayload(Order.newOrder(items)).get());
+    encodedPayloads = codec.encode(payloads);
+  }
+
+  @Benchmark
+  public List<Payload> encode() {
+    return codec.encode(payloads);
+  }
+
+  @Benchmark
+  public List<Payload> decode() {
+    return codec.decode(encodedPayloads);
+  }
+}
@@ -0,0 +1,65 @@
+package io.temporal.benchmarks;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.benchmarks.DataConverterBenchmark.Order;
+import io.temporal.common.converter.JacksonJsonPayloadConverter;
+import io.temporal.common.converter.JacksonSmilePayloadConverter;
+import io.temporal.common.converter.PayloadConverter;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the encode and decode throughput of the JSON and Smile payload converters. The sizes of
+ * the payloads are compared by {@code JacksonSmilePayloadConverterTest}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadConverterBenchmark {
+
+  @Param({"json", "smile"})
+  public String format;
+
+  /** Number of items in the serialized POJO, controls the payload size. */
+  @Param({"1", "100", "10000"})
+  public int items;
+
+  private PayloadConverter converter;
+  private Order order;
+  private Payload payload;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    converter =
+        "smile".equals(format)
+            ? new JacksonSmilePayloadConverter()
+            : new JacksonJsonPayloadConverter();
+    order = Order.newOrder(items);
+    payload = converter.toData(order).get();
+  }
+
+  @Benchmark
+  public Optional<Payload> encode() {
+    return converter.toData(order);
+  }
+
+  @Benchmark
+  public Order decode() {
+    return converter.fromData(payload, Order.class, Order.class);
+  }
+}
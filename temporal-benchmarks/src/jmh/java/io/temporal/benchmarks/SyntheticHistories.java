@@ -0,0 +1,130 @@
+package io.temporal.benchmarks;
+
+import com.google.common.base.Preconditions;
+import io.temporal.api.common.v1.WorkflowType;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.History;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.history.v1.WorkflowExecutionSignaledEventAttributes;
+import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
+import io.temporal.api.history.v1.WorkflowTaskCompletedEventAttributes;
+import io.temporal.api.history.v1.WorkflowTaskScheduledEventAttributes;
+import io.temporal.api.history.v1.WorkflowTaskStartedEventAttributes;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates synthetic but valid workflow histories for benchmarks.
+ *
+ * <p>A generated history consists of a workflow start followed by repeated "signal received,
+ * workflow task completed without commands" cycles and always ends with a scheduled and started
+ * workflow task, which is the shape of a history that a worker receives on a sticky cache miss.
+ */
+public final class SyntheticHistories {
+  public static final String WORKFLOW_TYPE = "BenchmarkWorkflow";
+  public static final String SIGNAL_NAME = "benchmarkSignal";
+
+  private SyntheticHistories() {}
+
+  /**
+   * @param approximateEventCount desired number of events in the history, should be at least 3.
+   *     The resulting history is never longer than this number and is shorter by at most 3 events.
+   */
+  public static History signalsHistory(int approximateEventCount) {
+    Preconditions.checkArgument(
+        approximateEventCount >= 3, "history should have at least 3 events");
+    Builder builder = new Builder();
+    builder.workflowExecutionStarted();
+    // every cycle takes 4 events and 2 events are reserved for the last workflow task
+    while (builder.size() + 4 + 2 <= approximateEventCount) {
+      builder.workflowTaskScheduled().workflowTaskStarted().workflowTaskCompleted().signaled();
+    }
+    builder.workflowTaskScheduled().workflowTaskStarted();
+    return builder.build();
+  }
+
+  /**
+   * @return eventId of the last {@link EventType#EVENT_TYPE_WORKFLOW_TASK_STARTED} event of the
+   *     history
+   */
+  public static long lastWorkflowTaskStartedEventId(History history) {
+    for (int i = history.getEventsCount() - 1; i >= 0; i--) {
+      HistoryEvent event = history.getEvents(i);
+      if (event.getEventType() == EventType.EVENT_TYPE_WORKFLOW_TASK_STARTED) {
+        return event.getEventId();
+      }
+    }
+    throw new IllegalArgumentException("History doesn't contain a started workflow task");
+  }
+
+  private static final class Builder {
+    private final List<HistoryEvent> events = new ArrayList<>();
+    private long scheduledEventId;
+    private long startedEventId;
+
+    int size() {
+      return events.size();
+    }
+
+    Builder workflowExecutionStarted() {
+      add(
+          newEvent(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_STARTED)
+              .setWorkflowExecutionStartedEventAttributes(
+                  WorkflowExecutionStartedEventAttributes.newBuilder()
+                      .setWorkflowType(WorkflowType.newBuilder().setName(WORKFLOW_TYPE))));
+      return this;
+    }
+
+    Builder workflowTaskScheduled() {
+      scheduledEventId =
+          add(
+              newEvent(EventType.EVENT_TYPE_WORKFLOW_TASK_SCHEDULED)
+                  .setWorkflowTaskScheduledEventAttributes(
+                      WorkflowTaskScheduledEventAttributes.getDefaultInstance()));
+      return this;
+    }
+
+    Builder workflowTaskStarted() {
+      startedEventId =
+          add(
+              newEvent(EventType.EVENT_TYPE_WORKFLOW_TASK_STARTED)
+                  .setWorkflowTaskStartedEventAttributes(
+                      WorkflowTaskStartedEventAttributes.newBuilder()
+                          .setScheduledEventId(scheduledEventId)));
+      return this;
+    }
+
+    Builder workflowTaskCompleted() {
+      add(
+          newEvent(EventType.EVENT_TYPE_WORKFLOW_TASK_COMPLETED)
+              .setWorkflowTaskCompletedEventAttributes(
+                  WorkflowTaskCompletedEventAttributes.newBuilder()
+                      .setScheduledEventId(scheduledEventId)
+                      .setStartedEventId(startedEventId)));
+      return this;
+    }
+
+    Builder signaled() {
+      add(
+          newEvent(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_SIGNALED)
+              .setWorkflowExecutionSignaledEventAttributes(
+                  WorkflowExecutionSignaledEventAttributes.newBuilder()
+                      .setSignalName(SIGNAL_NAME)));
+      return this;
+    }
+
+    History build() {
+      return History.newBuilder().addAllEvents(events).build();
+    }
+
+    private HistoryEvent.Builder newEvent(EventType eventType) {
+      return HistoryEvent.newBuilder().setEventId(events.size() + 1).setEventType(eventType);
+    }
+
+    private long add(HistoryEvent.Builder event) {
+      HistoryEvent built = event.build();
+      events.add(built);
+      return built.getEventId();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package io.temporal.benchmarks;
+
+import com.uber.m3.tally.NoopScope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.history.v1.History;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponseOrBuilder;
+import io.temporal.internal.replay.QueryResult;
+import io.temporal.internal.replay.WorkflowHistoryIterator;
+import io.temporal.internal.replay.WorkflowRunTaskHandler;
+import io.temporal.internal.replay.WorkflowTaskResult;
+import io.temporal.internal.worker.WorkflowExecutorCache;
+import io.temporal.internal.worker.WorkflowRunLockManager;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link WorkflowExecutorCache#getOrCreate} for sticky cache hits, cache misses that
+ * replace an existing entry and full history tasks, with several workflow task executor threads
+ * hitting the cache concurrently.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class WorkflowExecutorCacheBenchmark {
+
+  @Param({"600"})
+  public int cacheSize;
+
+  /** Number of events in histories attached to full history workflow tasks. */
+  @Param({"10", "1000", "50000"})
+  public int historyLength;
+
+  private final AtomicLong runIdSequence = new AtomicLong();
+  private WorkflowExecutorCache cache;
+  private PollWorkflowTaskQueueResponse[] cachedRunTasks;
+  private PollWorkflowTaskQueueResponse fullHistoryTask;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    cache = new WorkflowExecutorCache(cacheSize, new WorkflowRunLockManager(), new NoopScope());
+    cachedRunTasks = new PollWorkflowTaskQueueResponse[cacheSize];
+    for (int i = 0; i < cacheSize; i++) {
+      PollWorkflowTaskQueueResponse task = newStickyTask(newExecution());
+      cachedRunTasks[i] = task;
+      cache.addToCache(task.getWorkflowExecution(), new NoopWorkflowRunTaskHandler());
+    }
+    History history = SyntheticHistories.signalsHistory(historyLength);
+    fullHistoryTask =
+        PollWorkflowTaskQueueResponse.newBuilder()
+            .setWorkflowExecution(newExecution())
+            .setHistory(history)
+            .build();
+  }
+
+  @Benchmark
+  public WorkflowRunTaskHandler hit() throws Exception {
+    PollWorkflowTaskQueueResponse task =
+        cachedRunTasks[ThreadLocalRandom.current().nextInt(cachedRunTasks.length)];
+    return cache.getOrCreate(task, new NoopScope(), NoopWorkflowRunTaskHandler::new);
+  }
+
+  @Benchmark
+  public WorkflowRunTaskHandler missAndAdd() throws Exception {
+    PollWorkflowTaskQueueResponse task = newStickyTask(newExecution());
+    WorkflowRunTaskHandler handler =
+        cache.getOrCreate(task, new NoopScope(), NoopWorkflowRunTaskHandler::new);
+    cache.addToCache(task.getWorkflowExecution(), handler);
+    return handler;
+  }
+
+  @Benchmark
+  public WorkflowRunTaskHandler fullHistory() throws Exception {
+    return cache.getOrCreate(fullHistoryTask, new NoopScope(), NoopWorkflowRunTaskHandler::new);
+  }
+
+  private WorkflowExecution newExecution() {
+    long id = runIdSequence.incrementAndGet();
+    return WorkflowExecution.newBuilder()
+        .setWorkflowId("workflow-" + id)
+        .setRunId("run-" + id)
+        .build();
+  }
+
+  private static PollWorkflowTaskQueueResponse newStickyTask(WorkflowExecution execution) {
+    // a sticky task carries only new events, so its history doesn't start from the first event
+    return PollWorkflowTaskQueueResponse.newBuilder().setWorkflowExecution(execution).build();
+  }
+
+  private static final class NoopWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
+    @Override
+    public WorkflowTaskResult handleWorkflowTask(
+        PollWorkflowTaskQueueResponseOrBuilder workflowTask,
+        WorkflowHistoryIterator historyIterator) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public QueryResult handleDirectQueryWorkflowTask(
+        PollWorkflowTaskQueueResponseOrBuilder workflowTask,
+        WorkflowHistoryIterator historyIterator) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void resetStartedEventId(Long eventId) {}
+
+    @Override
+    public long getHistorySizeBytes() {
+      return 0;
+    }
+
+    @Override
+    public int getWorkflowThreadCount() {
+      return 0;
+    }
+
+    @Override
+    public long getLastWorkflowTaskStartedEventId() {
+      return 0;
+    }
+
+    @Override
+    public void close() {}
+  }
+}
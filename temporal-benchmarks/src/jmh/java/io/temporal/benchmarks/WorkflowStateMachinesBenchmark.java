@@ -0,0 +1,95 @@
+package io.temporal.benchmarks;
+
+import io.temporal.api.history.v1.History;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.workflowservice.v1.GetSystemInfoResponse;
+import io.temporal.internal.common.UpdateMessage;
+import io.temporal.internal.statemachines.StatesMachinesCallback;
+import io.temporal.internal.statemachines.WorkflowStateMachines;
+import io.temporal.worker.WorkflowImplementationOptions;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures a full replay of a synthetic history through {@link
+ * WorkflowStateMachines#handleEvent(HistoryEvent, boolean)}, which is the work a worker performs
+ * on every sticky cache miss.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkflowStateMachinesBenchmark {
+
+  @Param({"10", "1000", "50000"})
+  public int historyLength;
+
+  private List<HistoryEvent> events;
+  private long lastWorkflowTaskStartedEventId;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    History history = SyntheticHistories.signalsHistory(historyLength);
+    this.events = history.getEventsList();
+    this.lastWorkflowTaskStartedEventId =
+        SyntheticHistories.lastWorkflowTaskStartedEventId(history);
+  }
+
+  @Benchmark
+  public void replayHistory(Blackhole blackhole) {
+    CountingCallbacks callbacks = new CountingCallbacks();
+    WorkflowStateMachines stateMachines =
+        new WorkflowStateMachines(
+            callbacks,
+            GetSystemInfoResponse.Capabilities.getDefaultInstance(),
+            WorkflowImplementationOptions.getDefaultInstance());
+    stateMachines.setWorkflowStartedEventId(lastWorkflowTaskStartedEventId);
+    stateMachines.setReplaying(true);
+    int size = events.size();
+    for (int i = 0; i < size; i++) {
+      stateMachines.handleEvent(events.get(i), i < size - 1);
+    }
+    blackhole.consume(stateMachines.takeCommands());
+    blackhole.consume(callbacks.signals);
+    blackhole.consume(callbacks.eventLoops);
+  }
+
+  private static final class CountingCallbacks implements StatesMachinesCallback {
+    int signals;
+    int eventLoops;
+
+    @Override
+    public void start(HistoryEvent startWorkflowEvent) {}
+
+    @Override
+    public void signal(HistoryEvent signalEvent) {
+      signals++;
+    }
+
+    @Override
+    public void update(UpdateMessage message) {}
+
+    @Override
+    public void cancel(HistoryEvent cancelEvent) {}
+
+    @Override
+    public void eventLoop() {
+      eventLoops++;
+    }
+  }
+}
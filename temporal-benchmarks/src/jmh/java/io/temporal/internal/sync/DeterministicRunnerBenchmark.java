@@ -0,0 +1,138 @@
+package io.temporal.internal.sync;
+
+import io.temporal.workflow.CompletablePromise;
+import io.temporal.workflow.Workflow;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link DeterministicRunner#runUntilAllBlocked(long)} with a varying number of workflow
+ * threads.
+ *
+ * <p>{@link #wakeUpAllThreads()} unblocks every parked workflow thread once per operation, so the
+ * score divided by {@link #threads} is the cost of a single yield round-trip. {@link
+ * #wakeUpOneThread()} completes the promise a single thread out of {@link #threads} is blocked on,
+ * like an activity result arriving to a workflow that fanned out with {@code Async.function}. The
+ * other threads stay blocked, so the score shows how the cost of the event loop grows with the
+ * number of blocked threads. {@link #spawnAndComplete()} measures creation, execution and disposal
+ * of a runner with short-lived threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeterministicRunnerBenchmark {
+
+  @Param({"1", "100", "1000"})
+  public int threads;
+
+  private ExecutorService threadPool;
+  private DeterministicRunner parkedRunner;
+  private volatile int epoch;
+  private DeterministicRunner promisesRunner;
+  private CompletablePromise<Void>[] promises;
+  private int nextPromise;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    threadPool =
+        new ThreadPoolExecutor(1, Integer.MAX_VALUE, 1, TimeUnit.MINUTES, new SynchronousQueue<>());
+    parkedRunner =
+        DeterministicRunner.newRunner(
+            threadPool::submit,
+            DummySyncWorkflowContext.newDummySyncWorkflowContext(),
+            () -> {
+              for (int i = 0; i < threads; i++) {
+                WorkflowThread.newThread(this::awaitEpochsForever, false).start();
+              }
+            });
+    parkedRunner.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+
+    @SuppressWarnings("unchecked")
+    CompletablePromise<Void>[] promises = new CompletablePromise[threads];
+    this.promises = promises;
+    promisesRunner =
+        DeterministicRunner.newRunner(
+            threadPool::submit,
+            DummySyncWorkflowContext.newDummySyncWorkflowContext(),
+            () -> {
+              for (int i = 0; i < threads; i++) {
+                int index = i;
+                WorkflowThread.newThread(() -> awaitPromisesForever(index), false).start();
+              }
+            });
+    promisesRunner.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    parkedRunner.close();
+    promisesRunner.close();
+    threadPool.shutdownNow();
+  }
+
+  @Benchmark
+  public void wakeUpAllThreads() {
+    epoch++;
+    parkedRunner.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+  }
+
+  @Benchmark
+  public void wakeUpOneThread() {
+    CompletablePromise<Void> promise = promises[nextPromise];
+    nextPromise = (nextPromise + 1) % threads;
+    promisesRunner.executeInWorkflowThread("complete promise", () -> promise.complete(null));
+    promisesRunner.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+  }
+
+  @Benchmark
+  public boolean spawnAndComplete() {
+    DeterministicRunner runner =
+        DeterministicRunner.newRunner(
+            threadPool::submit,
+            DummySyncWorkflowContext.newDummySyncWorkflowContext(),
+            () -> {
+              for (int i = 0; i < threads; i++) {
+                WorkflowThread.newThread(() -> {}, false).start();
+              }
+            });
+    try {
+      runner.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+      return runner.isDone();
+    } finally {
+      runner.close();
+    }
+  }
+
+  private void awaitPromisesForever(int index) {
+    while (true) {
+      CompletablePromise<Void> promise = Workflow.newPromise();
+      promises[index] = promise;
+      promise.get();
+    }
+  }
+
+  private void awaitEpochsForever() {
+    while (true) {
+      int seen = epoch;
+      WorkflowThread.await("benchmark epoch", () -> epoch != seen);
+    }
+  }
+}
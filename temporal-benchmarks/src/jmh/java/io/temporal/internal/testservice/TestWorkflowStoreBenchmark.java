@@ -0,0 +1,177 @@
+package io.temporal.internal.testservice;
+
+import io.temporal.api.common.v1.Priority;
+import io.temporal.api.common.v1.WorkflowType;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.history.v1.WorkflowExecutionSignaledEventAttributes;
+import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryRequest;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryResponse;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueRequest;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Stress benchmark of {@link TestWorkflowStoreImpl} with as many threads as there are cores, each
+ * thread working on its own workflow executions and task queue like independent workflows of a load
+ * test running against the in-process test server.
+ *
+ * <p>As the threads don't share executions or task queues, the scores should grow with the number
+ * of cores. Compare with a run limited to a single thread ({@code -t 1}) to see how the store
+ * scales.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class TestWorkflowStoreBenchmark {
+  private static final String NAMESPACE = "benchmark";
+  private static final int READ_HISTORY_LENGTH = 20;
+
+  @State(Scope.Benchmark)
+  public static class StoreState {
+    SelfAdvancingTimerImpl timer;
+    TestWorkflowStoreImpl store;
+
+    // a new store every iteration as the histories appended by save() are never deleted
+    @Setup(Level.Iteration)
+    public void setUp() {
+      timer = new SelfAdvancingTimerImpl(0, Clock.systemDefaultZone());
+      store = new TestWorkflowStoreImpl(timer);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+      store.close();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    Execution appended;
+    Execution read;
+    TestWorkflowStore.TaskQueueId taskQueueId;
+    PollWorkflowTaskQueueRequest pollRequest;
+    GetWorkflowExecutionHistoryRequest historyRequest;
+
+    @Setup(Level.Iteration)
+    public void setUp(StoreState storeState) {
+      appended = new Execution(storeState);
+      read = new Execution(storeState);
+      for (int i = 1; i < READ_HISTORY_LENGTH; i++) {
+        read.signal();
+      }
+      String taskQueue = UUID.randomUUID().toString();
+      taskQueueId = new TestWorkflowStore.TaskQueueId(NAMESPACE, taskQueue);
+      pollRequest =
+          PollWorkflowTaskQueueRequest.newBuilder()
+              .setNamespace(NAMESPACE)
+              .setTaskQueue(io.temporal.api.taskqueue.v1.TaskQueue.newBuilder().setName(taskQueue))
+              .build();
+      historyRequest =
+          GetWorkflowExecutionHistoryRequest.newBuilder()
+              .setNamespace(NAMESPACE)
+              .setExecution(read.executionId.getExecution())
+              .build();
+    }
+  }
+
+  @Benchmark
+  public long save(ThreadState state) {
+    return state.appended.signal();
+  }
+
+  @Benchmark
+  public GetWorkflowExecutionHistoryResponse getWorkflowExecutionHistory(
+      StoreState storeState, ThreadState state) {
+    return storeState.store.getWorkflowExecutionHistory(
+        state.read.executionId, state.historyRequest, null);
+  }
+
+  @Benchmark
+  public PollWorkflowTaskQueueResponse.Builder pollWorkflowTaskQueue(
+      StoreState storeState, ThreadState state) throws ExecutionException, InterruptedException {
+    storeState.store.sendQueryTask(
+        state.read.executionId,
+        state.taskQueueId,
+        PollWorkflowTaskQueueResponse.newBuilder(),
+        Priority.getDefaultInstance());
+    return storeState.store.pollWorkflowTaskQueue(state.pollRequest).get();
+  }
+
+  private static final class Execution {
+    private final StoreState storeState;
+    private final ExecutionId executionId;
+    private final TestWorkflowMutableState mutableState;
+    private long nextEventId = 1;
+
+    Execution(StoreState storeState) {
+      this.storeState = storeState;
+      this.executionId =
+          new ExecutionId(NAMESPACE, UUID.randomUUID().toString(), UUID.randomUUID().toString());
+      this.mutableState = newMutableState(executionId);
+      save(
+          HistoryEvent.newBuilder()
+              .setEventType(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_STARTED)
+              .setWorkflowExecutionStartedEventAttributes(
+                  WorkflowExecutionStartedEventAttributes.newBuilder()
+                      .setWorkflowType(WorkflowType.newBuilder().setName("BenchmarkWorkflow")))
+              .build());
+    }
+
+    long signal() {
+      return save(
+          HistoryEvent.newBuilder()
+              .setEventType(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_SIGNALED)
+              .setWorkflowExecutionSignaledEventAttributes(
+                  WorkflowExecutionSignaledEventAttributes.newBuilder().setSignalName("signal"))
+              .build());
+    }
+
+    private long save(HistoryEvent event) {
+      RequestContext ctx =
+          new RequestContext(storeState.timer.getClock(), mutableState, nextEventId);
+      ctx.addEvent(event);
+      nextEventId = storeState.store.save(ctx);
+      return nextEventId;
+    }
+  }
+
+  /** The store only needs the execution id and the terminal state of the mutable state. */
+  private static TestWorkflowMutableState newMutableState(ExecutionId executionId) {
+    return (TestWorkflowMutableState)
+        Proxy.newProxyInstance(
+            TestWorkflowMutableState.class.getClassLoader(),
+            new Class<?>[] {TestWorkflowMutableState.class},
+            (proxy, method, args) -> {
+              switch (method.getName()) {
+                case "getExecutionId":
+                  return executionId;
+                case "isTerminalState":
+                  return false;
+                default:
+                  throw new UnsupportedOperationException(method.getName());
+              }
+            });
+  }
+}
@@ -60,6 +60,31 @@ public class OpenTracingWorkflowClientCallsInterceptor extends WorkflowClientCal
     }
   }
 
+  @Override
+  public WorkflowSignalAsyncOutput signalAsync(WorkflowSignalInput input) {
+    Span workflowSignalSpan =
+        contextAccessor.writeSpanContextToHeader(
+            () ->
+                spanFactory
+                    .createWorkflowSignalSpan(
+                        tracer,
+                        input.getSignalName(),
+                        input.getWorkflowExecution().getWorkflowId(),
+                        input.getWorkflowExecution().getRunId())
+                    .start(),
+            input.getHeader(),
+            tracer);
+    WorkflowSignalAsyncOutput output;
+    try (Scope ignored = tracer.scopeManager().activate(workflowSignalSpan)) {
+      output = super.signalAsync(input);
+    } catch (Throwable e) {
+      workflowSignalSpan.finish();
+      throw e;
+    }
+    output.getResult().whenComplete((r, e) -> workflowSignalSpan.finish());
+    return output;
+  }
+
   @Override
   public WorkflowSignalWithStartOutput signalWithStart(WorkflowSignalWithStartInput input) {
     WorkflowStartInput workflowStartInput = input.getWorkflowStartInput();
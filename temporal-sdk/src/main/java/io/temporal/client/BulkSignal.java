@@ -0,0 +1,82 @@
+package io.temporal.client;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.common.Experimental;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * A signal to send to a workflow execution with {@link WorkflowClient#signalAll}.
+ *
+ * @see BulkSignalResult
+ */
+@Experimental
+public final class BulkSignal {
+  /**
+   * @param workflowId id of the workflow to signal, the signal is delivered to the current run
+   * @param signalName name of the signal
+   * @param args signal arguments
+   */
+  public static BulkSignal of(
+      @Nonnull String workflowId, @Nonnull String signalName, Object... args) {
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(workflowId), "workflowId is required");
+    return of(WorkflowExecution.newBuilder().setWorkflowId(workflowId).build(), signalName, args);
+  }
+
+  /**
+   * @param execution workflow execution to signal, the signal is delivered to the current run if
+   *     the run id is empty
+   * @param signalName name of the signal
+   * @param args signal arguments
+   */
+  public static BulkSignal of(
+      @Nonnull WorkflowExecution execution, @Nonnull String signalName, Object... args) {
+    Preconditions.checkArgument(
+        !execution.getWorkflowId().isEmpty(), "execution.workflowId is required");
+    Preconditions.checkArgument(!Strings.isNullOrEmpty(signalName), "signalName is required");
+    return new BulkSignal(execution, signalName, args);
+  }
+
+  private final WorkflowExecution execution;
+  private final String signalName;
+  private final Object[] args;
+
+  private BulkSignal(WorkflowExecution execution, String signalName, Object[] args) {
+    this.execution = execution;
+    this.signalName = signalName;
+    this.args = args;
+  }
+
+  @Nonnull
+  public WorkflowExecution getExecution() {
+    return execution;
+  }
+
+  @Nonnull
+  public String getSignalName() {
+    return signalName;
+  }
+
+  public Object[] getArgs() {
+    return args;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkSignal{"
+        + "workflowId='"
+        + execution.getWorkflowId()
+        + '\''
+        + ", runId='"
+        + execution.getRunId()
+        + '\''
+        + ", signalName='"
+        + signalName
+        + '\''
+        + ", args="
+        + Arrays.toString(args)
+        + '}';
+  }
+}
@@ -0,0 +1,109 @@
+package io.temporal.client;
+
+import com.google.common.base.Preconditions;
+import io.temporal.common.Experimental;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import javax.annotation.Nonnull;
+
+/** Options of {@link WorkflowClient#signalAll}. */
+@Experimental
+public final class BulkSignalOptions {
+  public static BulkSignalOptions.Builder newBuilder() {
+    return new BulkSignalOptions.Builder();
+  }
+
+  public static BulkSignalOptions.Builder newBuilder(BulkSignalOptions options) {
+    return new BulkSignalOptions.Builder(options);
+  }
+
+  public static BulkSignalOptions getDefaultInstance() {
+    return DEFAULT_INSTANCE;
+  }
+
+  public static final int DEFAULT_MAX_IN_FLIGHT = 100;
+
+  private static final BulkSignalOptions DEFAULT_INSTANCE;
+
+  static {
+    DEFAULT_INSTANCE = BulkSignalOptions.newBuilder().build();
+  }
+
+  private final int maxInFlight;
+  private final Executor serializationExecutor;
+
+  private BulkSignalOptions(int maxInFlight, Executor serializationExecutor) {
+    this.maxInFlight = maxInFlight;
+    this.serializationExecutor = serializationExecutor;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  @Nonnull
+  public Executor getSerializationExecutor() {
+    return serializationExecutor;
+  }
+
+  public static final class Builder {
+    private int maxInFlight;
+    private Executor serializationExecutor;
+
+    private Builder() {}
+
+    private Builder(BulkSignalOptions options) {
+      this.maxInFlight = options.maxInFlight;
+      this.serializationExecutor = options.serializationExecutor;
+    }
+
+    /**
+     * Maximum number of signals that are being serialized or sent to the server at the same time.
+     * Default is {@link #DEFAULT_MAX_IN_FLIGHT}.
+     */
+    public Builder setMaxInFlight(int maxInFlight) {
+      Preconditions.checkArgument(maxInFlight > 0, "maxInFlight should be positive");
+      this.maxInFlight = maxInFlight;
+      return this;
+    }
+
+    /**
+     * Executor converting the signal arguments to payloads and invoking the client interceptors.
+     * Default is {@link ForkJoinPool#commonPool()}.
+     */
+    public Builder setSerializationExecutor(@Nonnull Executor serializationExecutor) {
+      this.serializationExecutor = Objects.requireNonNull(serializationExecutor);
+      return this;
+    }
+
+    public BulkSignalOptions build() {
+      return new BulkSignalOptions(
+          maxInFlight == 0 ? DEFAULT_MAX_IN_FLIGHT : maxInFlight,
+          serializationExecutor == null ? ForkJoinPool.commonPool() : serializationExecutor);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "BulkSignalOptions{"
+        + "maxInFlight="
+        + maxInFlight
+        + ", serializationExecutor="
+        + serializationExecutor
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == null || getClass() != o.getClass()) return false;
+    BulkSignalOptions that = (BulkSignalOptions) o;
+    return maxInFlight == that.maxInFlight
+        && Objects.equals(serializationExecutor, that.serializationExecutor);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(maxInFlight, serializationExecutor);
+  }
+}
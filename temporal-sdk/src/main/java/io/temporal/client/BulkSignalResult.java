@@ -0,0 +1,41 @@
+package io.temporal.client;
+
+import io.temporal.common.Experimental;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/** Outcome of one of the signals sent with {@link WorkflowClient#signalAll}. */
+@Experimental
+public final class BulkSignalResult {
+  private final BulkSignal signal;
+  private final @Nullable WorkflowException failure;
+
+  public BulkSignalResult(@Nonnull BulkSignal signal, @Nullable WorkflowException failure) {
+    this.signal = signal;
+    this.failure = failure;
+  }
+
+  @Nonnull
+  public BulkSignal getSignal() {
+    return signal;
+  }
+
+  public boolean isSuccess() {
+    return failure == null;
+  }
+
+  /**
+   * @return null if the signal was delivered, {@link WorkflowNotFoundException} if the workflow
+   *     execution doesn't exist or is already closed, {@link WorkflowServiceException} for other
+   *     failures
+   */
+  @Nullable
+  public WorkflowException getFailure() {
+    return failure;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkSignalResult{" + "signal=" + signal + ", failure=" + failure + '}';
+  }
+}
@@ -0,0 +1,94 @@
+package io.temporal.client;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.common.interceptors.Header;
+import io.temporal.common.interceptors.WorkflowClientCallsInterceptor;
+import io.temporal.serviceclient.CheckedExceptionWrapper;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Sends the signals of {@link WorkflowClient#signalAll} keeping up to {@link
+ * BulkSignalOptions#getMaxInFlight()} of them in flight and iterates over the results in the order
+ * the signals complete.
+ *
+ * <p>The signals are taken from the source iterator by the thread consuming the results, so a slow
+ * consumer slows down the sending instead of buffering an unbounded number of results.
+ */
+final class BulkSignalSender implements Iterator<BulkSignalResult> {
+  private final Iterator<BulkSignal> signals;
+  private final WorkflowClientCallsInterceptor invoker;
+  private final BulkSignalOptions options;
+  private final BlockingQueue<BulkSignalResult> completed = new LinkedBlockingQueue<>();
+  // accessed only by the consuming thread
+  private int inFlight;
+
+  BulkSignalSender(
+      Iterator<BulkSignal> signals,
+      WorkflowClientCallsInterceptor invoker,
+      BulkSignalOptions options) {
+    this.signals = signals;
+    this.invoker = invoker;
+    this.options = options;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (inFlight < options.getMaxInFlight() && signals.hasNext()) {
+      send(signals.next());
+      inFlight++;
+    }
+    return inFlight > 0;
+  }
+
+  @Override
+  public BulkSignalResult next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    BulkSignalResult result;
+    try {
+      result = completed.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+    inFlight--;
+    return result;
+  }
+
+  private void send(BulkSignal signal) {
+    WorkflowClientCallsInterceptor.WorkflowSignalInput input =
+        new WorkflowClientCallsInterceptor.WorkflowSignalInput(
+            signal.getExecution(), signal.getSignalName(), Header.empty(), signal.getArgs());
+    // Arguments serialization and interceptors run on the serialization executor, the calls are
+    // pipelined over the channel without blocking any thread.
+    CompletableFuture.supplyAsync(
+            () -> invoker.signalAsync(input).getResult(), options.getSerializationExecutor())
+        .thenCompose(f -> f)
+        .whenComplete(
+            (r, e) ->
+                completed.add(
+                    new BulkSignalResult(signal, e == null ? null : toFailure(signal, e))));
+  }
+
+  private static WorkflowException toFailure(BulkSignal signal, Throwable failure) {
+    if (failure instanceof CompletionException) {
+      failure = failure.getCause();
+    }
+    failure = CheckedExceptionWrapper.unwrap(failure);
+    if (failure instanceof WorkflowException) {
+      return (WorkflowException) failure;
+    }
+    if (failure instanceof StatusRuntimeException
+        && Status.Code.NOT_FOUND.equals(((StatusRuntimeException) failure).getStatus().getCode())) {
+      return new WorkflowNotFoundException(signal.getExecution(), null, failure);
+    }
+    return new WorkflowServiceException(signal.getExecution(), null, failure);
+  }
+}
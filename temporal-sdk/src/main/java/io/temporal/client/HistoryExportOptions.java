@@ -0,0 +1,113 @@
+package io.temporal.client;
+
+import com.google.common.base.Preconditions;
+import io.temporal.common.Experimental;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+
+/** Options of {@link WorkflowClient#exportHistories}. */
+@Experimental
+public final class HistoryExportOptions {
+  public static HistoryExportOptions.Builder newBuilder() {
+    return new HistoryExportOptions.Builder();
+  }
+
+  public static HistoryExportOptions.Builder newBuilder(HistoryExportOptions options) {
+    return new HistoryExportOptions.Builder(options);
+  }
+
+  public static HistoryExportOptions getDefaultInstance() {
+    return DEFAULT_INSTANCE;
+  }
+
+  public static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+  public static final String DEFAULT_FILE_NAME_PREFIX = "histories";
+
+  private static final HistoryExportOptions DEFAULT_INSTANCE;
+
+  static {
+    DEFAULT_INSTANCE = HistoryExportOptions.newBuilder().build();
+  }
+
+  private final int maxConcurrency;
+  private final String fileNamePrefix;
+
+  private HistoryExportOptions(int maxConcurrency, String fileNamePrefix) {
+    this.maxConcurrency = maxConcurrency;
+    this.fileNamePrefix = fileNamePrefix;
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  @Nonnull
+  public String getFileNamePrefix() {
+    return fileNamePrefix;
+  }
+
+  public static final class Builder {
+    private int maxConcurrency;
+    private String fileNamePrefix;
+
+    private Builder() {}
+
+    private Builder(HistoryExportOptions options) {
+      this.maxConcurrency = options.maxConcurrency;
+      this.fileNamePrefix = options.fileNamePrefix;
+    }
+
+    /**
+     * Maximum number of histories fetched at the same time. Every concurrent fetch writes to its
+     * own file. Default is {@link #DEFAULT_MAX_CONCURRENCY}.
+     */
+    public Builder setMaxConcurrency(int maxConcurrency) {
+      Preconditions.checkArgument(maxConcurrency > 0, "maxConcurrency should be positive");
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    /**
+     * Prefix of the names of the written files, followed by the index of the file and {@link
+     * io.temporal.common.WorkflowHistoryWriter#FILE_EXTENSION}. Default is {@link
+     * #DEFAULT_FILE_NAME_PREFIX}.
+     */
+    public Builder setFileNamePrefix(@Nonnull String fileNamePrefix) {
+      Preconditions.checkArgument(
+          !Objects.requireNonNull(fileNamePrefix).isEmpty(), "fileNamePrefix is empty");
+      this.fileNamePrefix = fileNamePrefix;
+      return this;
+    }
+
+    public HistoryExportOptions build() {
+      return new HistoryExportOptions(
+          maxConcurrency == 0 ? DEFAULT_MAX_CONCURRENCY : maxConcurrency,
+          fileNamePrefix == null ? DEFAULT_FILE_NAME_PREFIX : fileNamePrefix);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "HistoryExportOptions{"
+        + "maxConcurrency="
+        + maxConcurrency
+        + ", fileNamePrefix='"
+        + fileNamePrefix
+        + '\''
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == null || getClass() != o.getClass()) return false;
+    HistoryExportOptions that = (HistoryExportOptions) o;
+    return maxConcurrency == that.maxConcurrency
+        && Objects.equals(fileNamePrefix, that.fileNamePrefix);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(maxConcurrency, fileNamePrefix);
+  }
+}
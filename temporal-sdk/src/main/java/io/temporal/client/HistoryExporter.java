@@ -0,0 +1,176 @@
+package io.temporal.client;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.common.WorkflowHistoryWriter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exports the histories of {@link WorkflowClient#exportHistories}. Each of the {@link
+ * HistoryExportOptions#getMaxConcurrency()} exporting threads takes the next execution from the
+ * shared visibility listing and streams its history page by page into the file of the thread, so no
+ * more than a page of events per thread is held in memory. The files of an earlier export with the
+ * same prefix are deleted first, so the directory only holds the histories of this export.
+ */
+final class HistoryExporter {
+  private static final Logger log = LoggerFactory.getLogger(HistoryExporter.class);
+
+  private final WorkflowClientInternalImpl client;
+  private final String query;
+  private final Path directory;
+  private final HistoryExportOptions options;
+  private final AtomicLong exported = new AtomicLong();
+  private volatile boolean failed;
+  // guarded by this
+  private Iterator<WorkflowExecutionMetadata> executions;
+
+  HistoryExporter(
+      WorkflowClientInternalImpl client,
+      String query,
+      Path directory,
+      HistoryExportOptions options) {
+    this.client = client;
+    this.query = query;
+    this.directory = directory;
+    this.options = options;
+  }
+
+  long export() throws IOException {
+    Files.createDirectories(directory);
+    deleteExportedFiles();
+    int concurrency = options.getMaxConcurrency();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            concurrency,
+            r -> {
+              Thread thread = new Thread(r, "history-exporter");
+              thread.setDaemon(true);
+              return thread;
+            });
+    try (Stream<WorkflowExecutionMetadata> listing = client.listExecutions(query)) {
+      executions = listing.iterator();
+      List<Future<?>> files = new ArrayList<>(concurrency);
+      for (int i = 0; i < concurrency; i++) {
+        Path file = directory.resolve(fileName(i));
+        files.add(
+            executor.submit(
+                () -> {
+                  exportTo(file);
+                  return null;
+                }));
+      }
+      Throwable failure = null;
+      for (Future<?> file : files) {
+        try {
+          file.get();
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          } else {
+            failure.addSuppressed(e.getCause());
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(e);
+        }
+      }
+      if (failure instanceof IOException) {
+        throw (IOException) failure;
+      }
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      }
+      if (failure != null) {
+        throw new RuntimeException(failure);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return exported.get();
+  }
+
+  private String fileName(int index) {
+    return options.getFileNamePrefix() + "-" + index + WorkflowHistoryWriter.FILE_EXTENSION;
+  }
+
+  /**
+   * Deletes the files of an earlier export with the same prefix, including the ones of threads that
+   * don't exist in this export or that won't export anything.
+   */
+  private void deleteExportedFiles() throws IOException {
+    Pattern fileNamePattern =
+        Pattern.compile(
+            Pattern.quote(options.getFileNamePrefix())
+                + "-\\d+"
+                + Pattern.quote(WorkflowHistoryWriter.FILE_EXTENSION));
+    DirectoryStream.Filter<Path> filter =
+        file ->
+            fileNamePattern.matcher(file.getFileName().toString()).matches()
+                && Files.isRegularFile(file);
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, filter)) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  private void exportTo(Path file) throws IOException {
+    WorkflowHistoryWriter writer = null;
+    try {
+      WorkflowExecution execution;
+      while ((execution = nextExecution()) != null) {
+        Iterator<HistoryEvent> events;
+        try {
+          events = client.streamHistory(execution).iterator();
+        } catch (StatusRuntimeException e) {
+          if (Status.Code.NOT_FOUND.equals(e.getStatus().getCode())) {
+            // deleted after it was listed
+            log.debug("Skipping the history of {}, it's not found", execution);
+            continue;
+          }
+          throw e;
+        }
+        if (writer == null) {
+          writer = WorkflowHistoryWriter.open(file);
+        }
+        writer.startHistory(execution);
+        while (events.hasNext()) {
+          writer.writeEvent(events.next());
+        }
+        writer.endHistory();
+        exported.incrementAndGet();
+      }
+    } catch (IOException | RuntimeException e) {
+      failed = true;
+      throw e;
+    } finally {
+      if (writer != null) {
+        writer.close();
+      }
+    }
+  }
+
+  private synchronized WorkflowExecution nextExecution() {
+    if (failed || !executions.hasNext()) {
+      return null;
+    }
+    return executions.next().getExecution();
+  }
+}
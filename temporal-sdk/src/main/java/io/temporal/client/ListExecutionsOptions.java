@@ -0,0 +1,134 @@
+package io.temporal.client;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.temporal.common.Experimental;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/** Options of {@link WorkflowClient#listExecutions(String, ListExecutionsOptions)}. */
+@Experimental
+public final class ListExecutionsOptions {
+  public static ListExecutionsOptions.Builder newBuilder() {
+    return new ListExecutionsOptions.Builder();
+  }
+
+  public static ListExecutionsOptions.Builder newBuilder(ListExecutionsOptions options) {
+    return new ListExecutionsOptions.Builder(options);
+  }
+
+  public static ListExecutionsOptions getDefaultInstance() {
+    return DEFAULT_INSTANCE;
+  }
+
+  public static final int DEFAULT_PREFETCH_PAGES = 2;
+
+  private static final ListExecutionsOptions DEFAULT_INSTANCE;
+
+  static {
+    DEFAULT_INSTANCE = ListExecutionsOptions.newBuilder().build();
+  }
+
+  private final @Nullable Integer pageSize;
+  private final int prefetchPages;
+  private final Executor decodingExecutor;
+
+  private ListExecutionsOptions(
+      @Nullable Integer pageSize, int prefetchPages, Executor decodingExecutor) {
+    this.pageSize = pageSize;
+    this.prefetchPages = prefetchPages;
+    this.decodingExecutor = decodingExecutor;
+  }
+
+  @Nullable
+  public Integer getPageSize() {
+    return pageSize;
+  }
+
+  public int getPrefetchPages() {
+    return prefetchPages;
+  }
+
+  @Nonnull
+  public Executor getDecodingExecutor() {
+    return decodingExecutor;
+  }
+
+  public static final class Builder {
+    private Integer pageSize;
+    private int prefetchPages;
+    private Executor decodingExecutor;
+
+    private Builder() {}
+
+    private Builder(ListExecutionsOptions options) {
+      this.pageSize = options.pageSize;
+      this.prefetchPages = options.prefetchPages;
+      this.decodingExecutor = options.decodingExecutor;
+    }
+
+    /** Maximum number of executions in a page. Default is the page size of the server. */
+    public Builder setPageSize(int pageSize) {
+      Preconditions.checkArgument(pageSize > 0, "pageSize should be positive");
+      this.pageSize = pageSize;
+      return this;
+    }
+
+    /**
+     * Maximum number of pages fetched ahead of the consumer of the stream. As the token of a page
+     * comes with the previous one, the pages are still requested one after another, but the next
+     * request is sent as soon as a page arrives instead of when the consumer reaches it. Default is
+     * {@link #DEFAULT_PREFETCH_PAGES}.
+     */
+    public Builder setPrefetchPages(int prefetchPages) {
+      Preconditions.checkArgument(prefetchPages > 0, "prefetchPages should be positive");
+      this.prefetchPages = prefetchPages;
+      return this;
+    }
+
+    /**
+     * Executor building the {@link WorkflowExecutionMetadata} of a fetched page and decoding its
+     * search attributes, so that several pages can be decoded at the same time off the consuming
+     * thread. Default is the thread completing the page request.
+     */
+    public Builder setDecodingExecutor(@Nonnull Executor decodingExecutor) {
+      this.decodingExecutor = Objects.requireNonNull(decodingExecutor);
+      return this;
+    }
+
+    public ListExecutionsOptions build() {
+      return new ListExecutionsOptions(
+          pageSize,
+          prefetchPages == 0 ? DEFAULT_PREFETCH_PAGES : prefetchPages,
+          decodingExecutor == null ? MoreExecutors.directExecutor() : decodingExecutor);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ListExecutionsOptions{"
+        + "pageSize="
+        + pageSize
+        + ", prefetchPages="
+        + prefetchPages
+        + ", decodingExecutor="
+        + decodingExecutor
+        + '}';
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == null || getClass() != o.getClass()) return false;
+    ListExecutionsOptions that = (ListExecutionsOptions) o;
+    return prefetchPages == that.prefetchPages
+        && Objects.equals(pageSize, that.pageSize)
+        && Objects.equals(decodingExecutor, that.decodingExecutor);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(pageSize, prefetchPages, decodingExecutor);
+  }
+}
@@ -19,6 +19,8 @@ import io.temporal.workflow.Functions.Proc4;
 import io.temporal.workflow.Functions.Proc5;
 import io.temporal.workflow.Functions.Proc6;
 import io.temporal.workflow.WorkflowMethod;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
@@ -269,6 +271,34 @@ public interface WorkflowClient {
    */
   WorkflowExecution signalWithStart(BatchRequest signalWithStartBatch);
 
+  /**
+   * Sends signals to many workflow executions without waiting for each signal to be delivered
+   * before sending the next one. Equivalent to {@link #signalAll(Stream, BulkSignalOptions)} with
+   * the default options.
+   */
+  @Experimental
+  Stream<BulkSignalResult> signalAll(@Nonnull Stream<BulkSignal> signals);
+
+  /**
+   * Sends signals to many workflow executions without waiting for each signal to be delivered
+   * before sending the next one. Up to {@link BulkSignalOptions#getMaxInFlight()} signals are
+   * serialized in parallel on {@link BulkSignalOptions#getSerializationExecutor()} and pipelined
+   * over the service channel. The signals go through the {@link
+   * io.temporal.common.interceptors.WorkflowClientCallsInterceptor#signalAsync} interceptors.
+   *
+   * <p>The returned stream is lazy: the signals are taken from {@code signals} and sent as the
+   * results are consumed, so the whole stream of results has to be consumed to send all the
+   * signals. A failure of a signal doesn't stop the sending of the others, it's reported by its
+   * {@link BulkSignalResult}.
+   *
+   * @param signals signals to send
+   * @param options options of the sending
+   * @return results of the signals in the order the signals are completed
+   */
+  @Experimental
+  Stream<BulkSignalResult> signalAll(
+      @Nonnull Stream<BulkSignal> signals, @Nonnull BulkSignalOptions options);
+
   /**
    * A wrapper around {WorkflowServiceStub#listWorkflowExecutions(ListWorkflowExecutionsRequest)}
    *
@@ -278,6 +308,24 @@ public interface WorkflowClient {
    */
   Stream<WorkflowExecutionMetadata> listExecutions(@Nullable String query);
 
+  /**
+   * Lists the executions like {@link #listExecutions(String)}, but fetches the pages ahead of the
+   * consumption of the stream. Up to {@link ListExecutionsOptions#getPrefetchPages()} pages are
+   * requested before they are reached, each one as soon as the page with its token arrives. The
+   * metadata of the fetched pages, including their search attributes, is decoded on {@link
+   * ListExecutionsOptions#getDecodingExecutor()}.
+   *
+   * <p>Closing the returned stream stops the prefetching of the remaining pages.
+   *
+   * @param query Temporal Visibility Query, for syntax see <a
+   *     href="https://docs.temporal.io/visibility#list-filter">Visibility docs</a>
+   * @param options options of the listing
+   * @return sequential stream that prefetches the pages under the hood
+   */
+  @Experimental
+  Stream<WorkflowExecutionMetadata> listExecutions(
+      @Nullable String query, @Nonnull ListExecutionsOptions options);
+
   /**
    * Count workflow executions using the Visibility API.
    *
@@ -334,6 +382,38 @@ public interface WorkflowClient {
    */
   WorkflowExecutionHistory fetchHistory(@Nonnull String workflowId, @Nullable String runId);
 
+  /**
+   * Exports the histories of the workflow executions matching a visibility query. Equivalent to
+   * {@link #exportHistories(String, Path, HistoryExportOptions)} with the default options.
+   */
+  @Experimental
+  long exportHistories(@Nullable String query, @Nonnull Path directory) throws IOException;
+
+  /**
+   * Exports the histories of the workflow executions matching a visibility query into gzip
+   * compressed files of length-delimited protobuf messages in {@code directory}, see {@link
+   * io.temporal.common.WorkflowHistoryWriter} for the format. The files can be read back lazily
+   * with {@link io.temporal.common.WorkflowHistoryReader}.
+   *
+   * <p>Up to {@link HistoryExportOptions#getMaxConcurrency()} histories are fetched at the same
+   * time, each one written to the file of its fetching thread as its pages arrive, so neither JSON
+   * nor whole histories are held in memory. Executions deleted between the listing and the fetch of
+   * their history are skipped. The first failure stops the export and is thrown, the files may then
+   * contain a truncated history.
+   *
+   * @param query Temporal Visibility query, for syntax see <a
+   *     href="https://docs.temporal.io/visibility#list-filter">Visibility docs</a>
+   * @param directory directory to write the files to, created if it doesn't exist. The files of
+   *     earlier exports with the same file name prefix are deleted first.
+   * @param options options of the export
+   * @return number of exported histories
+   * @throws IOException if a file can't be written
+   */
+  @Experimental
+  long exportHistories(
+      @Nullable String query, @Nonnull Path directory, @Nonnull HistoryExportOptions options)
+      throws IOException;
+
   /**
    * Allows you to update the worker-build-id based version sets for a particular task queue. This
    * is used in conjunction with workers who specify their build id and thus opt into the feature.
@@ -28,9 +28,11 @@ import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.serviceclient.WorkflowServiceStubsPlugin;
 import io.temporal.worker.WorkerFactory;
 import io.temporal.workflow.*;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -116,7 +118,7 @@ final class WorkflowClientInternalImpl implements WorkflowClient, WorkflowClient
 
   private WorkflowClientCallsInterceptor initializeClientInvoker() {
     WorkflowClientCallsInterceptor workflowClientInvoker =
-        new RootWorkflowClientInvoker(genericClient, options, workerFactoryRegistry);
+        new RootWorkflowClientInvoker(genericClient, options, workerFactoryRegistry, metricsScope);
     for (WorkflowClientInterceptor clientInterceptor : interceptors) {
       workflowClientInvoker =
           clientInterceptor.workflowClientCallsInterceptor(workflowClientInvoker);
@@ -328,11 +330,38 @@ final class WorkflowClientInternalImpl implements WorkflowClient, WorkflowClient
     return ((SignalWithStartBatchRequest) signalWithStartBatch).invoke();
   }
 
+  @Override
+  public Stream<BulkSignalResult> signalAll(@Nonnull Stream<BulkSignal> signals) {
+    return signalAll(signals, BulkSignalOptions.getDefaultInstance());
+  }
+
+  @Override
+  public Stream<BulkSignalResult> signalAll(
+      @Nonnull Stream<BulkSignal> signals, @Nonnull BulkSignalOptions options) {
+    Preconditions.checkNotNull(signals, "signals is required");
+    Preconditions.checkNotNull(options, "options is required");
+    BulkSignalSender sender =
+        new BulkSignalSender(signals.iterator(), workflowClientCallsInvoker, options);
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(sender, Spliterator.NONNULL), false)
+        .onClose(signals::close);
+  }
+
   @Override
   public Stream<WorkflowExecutionMetadata> listExecutions(@Nullable String query) {
     return listExecutions(query, null);
   }
 
+  @Override
+  public Stream<WorkflowExecutionMetadata> listExecutions(
+      @Nullable String query, @Nonnull ListExecutionsOptions options) {
+    Preconditions.checkNotNull(options, "options");
+    return workflowClientCallsInvoker
+        .listWorkflowExecutions(
+            new WorkflowClientCallsInterceptor.ListWorkflowExecutionsInput(query, options))
+        .getStream();
+  }
+
   @Override
   public WorkflowExecutionCount countWorkflows(@Nullable String query) {
     WorkflowClientCallsInterceptor.CountWorkflowsInput input =
@@ -384,6 +413,20 @@ final class WorkflowClientInternalImpl implements WorkflowClient, WorkflowClient
   }
 
   @SuppressWarnings("deprecation")
+  @Override
+  public long exportHistories(@Nullable String query, @Nonnull Path directory) throws IOException {
+    return exportHistories(query, directory, HistoryExportOptions.getDefaultInstance());
+  }
+
+  @Override
+  public long exportHistories(
+      @Nullable String query, @Nonnull Path directory, @Nonnull HistoryExportOptions options)
+      throws IOException {
+    Preconditions.checkNotNull(directory, "directory is required");
+    Preconditions.checkNotNull(options, "options is required");
+    return new HistoryExporter(this, query, directory, options).export();
+  }
+
   @Override
   public void updateWorkerBuildIdCompatability(
       @Nonnull String taskQueue, @Nonnull BuildIdOperation operation) {
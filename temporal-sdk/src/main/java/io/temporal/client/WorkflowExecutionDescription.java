@@ -1,72 +1,72 @@
 package io.temporal.client;
 
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.sdk.v1.UserMetadata;
 import io.temporal.api.workflowservice.v1.DescribeWorkflowExecutionResponse;
 import io.temporal.common.Experimental;
 import io.temporal.common.converter.DataConverter;
-import io.temporal.payload.context.WorkflowSerializationContext;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 /** Contains information about a workflow execution. */
 public class WorkflowExecutionDescription extends WorkflowExecutionMetadata {
-  private final @Nonnull DataConverter dataConverter;
   private final @Nonnull DescribeWorkflowExecutionResponse response;
+  // decoded on the first access
+  private volatile String staticSummary;
+  private volatile String staticDetails;
 
   public WorkflowExecutionDescription(
       @Nonnull DescribeWorkflowExecutionResponse response, @Nonnull DataConverter dataConverter) {
     super(response.getWorkflowExecutionInfo(), dataConverter);
-    this.dataConverter = dataConverter;
     this.response = response;
   }
 
   /**
    * Get the fixed summary for this workflow execution.
    *
-   * <p>Note: Will be decoded on each invocation, so it is recommended to cache the result if it is
-   * used multiple times.
+   * <p>Note: Decoded on the first invocation, the following ones return the same value.
    */
   @Experimental
   @Nullable
   public String getStaticSummary() {
-    if (!response.getExecutionConfig().getUserMetadata().hasSummary()) {
+    UserMetadata userMetadata = response.getExecutionConfig().getUserMetadata();
+    if (!userMetadata.hasSummary()) {
       return null;
     }
-    return dataConverter
-        .withContext(
-            new WorkflowSerializationContext(
-                response.getWorkflowExecutionInfo().getParentNamespaceId(),
-                response.getWorkflowExecutionInfo().getExecution().getWorkflowId()))
-        .fromPayload(
-            response.getExecutionConfig().getUserMetadata().getSummary(),
-            String.class,
-            String.class);
+    String result = staticSummary;
+    if (result == null) {
+      result = decode(userMetadata.getSummary());
+      staticSummary = result;
+    }
+    return result;
   }
 
   /**
    * Get the details summary for this workflow execution.
    *
-   * <p>Note: Will be decoded on each invocation, so it is recommended to cache the result if it is
-   * used multiple times.
+   * <p>Note: Decoded on the first invocation, the following ones return the same value.
    */
   @Experimental
   @Nullable
   public String getStaticDetails() {
-    if (!response.getExecutionConfig().getUserMetadata().hasDetails()) {
+    UserMetadata userMetadata = response.getExecutionConfig().getUserMetadata();
+    if (!userMetadata.hasDetails()) {
       return null;
     }
-    return dataConverter
-        .withContext(
-            new WorkflowSerializationContext(
-                response.getWorkflowExecutionInfo().getParentNamespaceId(),
-                response.getWorkflowExecutionInfo().getExecution().getWorkflowId()))
-        .fromPayload(
-            response.getExecutionConfig().getUserMetadata().getDetails(),
-            String.class,
-            String.class);
+    String result = staticDetails;
+    if (result == null) {
+      result = decode(userMetadata.getDetails());
+      staticDetails = result;
+    }
+    return result;
   }
 
   /** Returns the raw response from the Temporal service. */
   public DescribeWorkflowExecutionResponse getRawDescription() {
     return response;
   }
+
+  private String decode(Payload payload) {
+    return getWorkflowDataConverter().fromPayload(payload, String.class, String.class);
+  }
 }
@@ -20,10 +20,19 @@ import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-/** WorkflowExecutionMetadata contains information about a workflow execution. */
+/**
+ * WorkflowExecutionMetadata contains information about a workflow execution.
+ *
+ * <p>Search attributes and memo are decoded on the first access only, so listing executions costs
+ * no payload conversion for the fields that are never read.
+ */
 public class WorkflowExecutionMetadata {
   private final @Nonnull WorkflowExecutionInfo info;
   private final @Nonnull DataConverter dataConverter;
+  // decoded or created on the first access, a concurrent first access at worst repeats the work
+  private volatile SearchAttributes typedSearchAttributes;
+  private volatile Map<String, List<?>> searchAttributes;
+  private volatile DataConverter workflowDataConverter;
 
   public WorkflowExecutionMetadata(
       @Nonnull WorkflowExecutionInfo info, @Nonnull DataConverter dataConverter) {
@@ -103,13 +112,23 @@ public class WorkflowExecutionMetadata {
   @Deprecated
   @Nonnull
   public Map<String, List<?>> getSearchAttributes() {
-    return Collections.unmodifiableMap(SearchAttributesUtil.decode(info.getSearchAttributes()));
+    Map<String, List<?>> result = searchAttributes;
+    if (result == null) {
+      result = Collections.unmodifiableMap(SearchAttributesUtil.decode(info.getSearchAttributes()));
+      searchAttributes = result;
+    }
+    return result;
   }
 
   /** Get search attributes as a typed set. */
   @Nonnull
   public SearchAttributes getTypedSearchAttributes() {
-    return SearchAttributesUtil.decodeTyped(info.getSearchAttributes());
+    SearchAttributes result = typedSearchAttributes;
+    if (result == null) {
+      result = SearchAttributesUtil.decodeTyped(info.getSearchAttributes());
+      typedSearchAttributes = result;
+    }
+    return result;
   }
 
   @Nullable
@@ -119,15 +138,25 @@ public class WorkflowExecutionMetadata {
 
   @Nullable
   public <T> T getMemo(String key, Class<T> valueClass, Type genericType) {
-    Payload memo = info.getMemo().getFieldsMap().get(key);
+    Payload memo = info.getMemo().getFieldsOrDefault(key, null);
     if (memo == null) {
       return null;
     }
-    return dataConverter
-        .withContext(
-            new WorkflowSerializationContext(
-                info.getParentNamespaceId(), info.getExecution().getWorkflowId()))
-        .fromPayload(memo, valueClass, genericType);
+    return getWorkflowDataConverter().fromPayload(memo, valueClass, genericType);
+  }
+
+  /** Data converter with the serialization context of this workflow, created on the first use. */
+  @Nonnull
+  DataConverter getWorkflowDataConverter() {
+    DataConverter result = workflowDataConverter;
+    if (result == null) {
+      result =
+          dataConverter.withContext(
+              new WorkflowSerializationContext(
+                  info.getParentNamespaceId(), info.getExecution().getWorkflowId()));
+      workflowDataConverter = result;
+    }
+    return result;
   }
 
   @Nonnull
@@ -1,12 +1,16 @@
 package io.temporal.common;
 
-import com.google.protobuf.InvalidProtocolBufferException;
-import com.google.protobuf.util.JsonFormat;
 import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.api.history.v1.History;
 import io.temporal.api.history.v1.HistoryEvent;
-import io.temporal.common.converter.DataConverterException;
-import io.temporal.internal.common.HistoryJsonUtils;
+import io.temporal.internal.common.HistoryJsonReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -41,16 +45,32 @@ public final class WorkflowExecutionHistory
    * @return WorkflowExecutionHistory
    */
   public static WorkflowExecutionHistory fromJson(String serialized) {
-    String protoJson = HistoryJsonUtils.historyFormatJsonToProtoJson(serialized);
+    History history = new HistoryJsonReader(new StringReader(serialized)).readHistory();
+    String workflowId =
+        io.temporal.internal.common.WorkflowExecutionHistory.extractWorkflowId(history);
+    return new WorkflowExecutionHistory(history, workflowId);
+  }
 
-    JsonFormat.Parser parser = JsonFormat.parser().ignoringUnknownFields();
-    History.Builder historyBuilder = History.newBuilder();
+  /**
+   * Parses the history one event at a time, so neither the json nor its tree are held in memory as
+   * a whole.
+   *
+   * @param serialized stream of UTF-8 encoded history json (temporal CLI format) to import and
+   *     deserialize into {@link History}, not closed by this method
+   * @return WorkflowExecutionHistory
+   * @throws IOException if the stream can't be read
+   */
+  @Experimental
+  public static WorkflowExecutionHistory fromJson(InputStream serialized) throws IOException {
+    HistoryJsonReader reader =
+        new HistoryJsonReader(
+            new BufferedReader(new InputStreamReader(serialized, StandardCharsets.UTF_8)));
+    History history;
     try {
-      parser.merge(protoJson, historyBuilder);
-    } catch (InvalidProtocolBufferException e) {
-      throw new DataConverterException(e);
+      history = reader.readHistory();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
     }
-    History history = historyBuilder.build();
     String workflowId =
         io.temporal.internal.common.WorkflowExecutionHistory.extractWorkflowId(history);
     return new WorkflowExecutionHistory(history, workflowId);
@@ -63,16 +83,7 @@ public final class WorkflowExecutionHistory
    * @return WorkflowExecutionHistory
    */
   public static WorkflowExecutionHistory fromJson(String serialized, String workflowId) {
-    String protoJson = HistoryJsonUtils.historyFormatJsonToProtoJson(serialized);
-
-    JsonFormat.Parser parser = JsonFormat.parser().ignoringUnknownFields();
-    History.Builder historyBuilder = History.newBuilder();
-    try {
-      parser.merge(protoJson, historyBuilder);
-    } catch (InvalidProtocolBufferException e) {
-      throw new DataConverterException(e);
-    }
-    History history = historyBuilder.build();
+    History history = new HistoryJsonReader(new StringReader(serialized)).readHistory();
     return new WorkflowExecutionHistory(history, workflowId);
   }
 
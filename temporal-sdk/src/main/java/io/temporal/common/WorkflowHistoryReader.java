@@ -0,0 +1,98 @@
+package io.temporal.common;
+
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.history.v1.History;
+import io.temporal.api.history.v1.HistoryEvent;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+import javax.annotation.Nonnull;
+
+/**
+ * Reads lazily the histories written by {@link WorkflowHistoryWriter}, for example the files of
+ * {@link io.temporal.client.WorkflowClient#exportHistories}. Only the history returned by {@link
+ * #next()} is held in memory, the following ones are read from the stream when requested.
+ *
+ * <p>Failures to read the stream are thrown as {@link UncheckedIOException}. Not thread safe.
+ */
+@Experimental
+public final class WorkflowHistoryReader implements Iterator<WorkflowExecutionHistory>, Closeable {
+
+  private final InputStream in;
+  private WorkflowExecutionHistory next;
+
+  /**
+   * @param in stream with the compressed histories, closed by {@link #close()}
+   */
+  public WorkflowHistoryReader(@Nonnull InputStream in) throws IOException {
+    this.in =
+        new BufferedInputStream(
+            new GZIPInputStream(in, WorkflowHistoryWriter.BUFFER_SIZE),
+            WorkflowHistoryWriter.BUFFER_SIZE);
+  }
+
+  public static WorkflowHistoryReader open(@Nonnull Path file) throws IOException {
+    InputStream in = Files.newInputStream(file);
+    try {
+      return new WorkflowHistoryReader(in);
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      next = read();
+    }
+    return next != null;
+  }
+
+  @Override
+  public WorkflowExecutionHistory next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    WorkflowExecutionHistory result = next;
+    next = null;
+    return result;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private WorkflowExecutionHistory read() {
+    try {
+      WorkflowExecution execution = WorkflowExecution.parseDelimitedFrom(in);
+      if (execution == null) {
+        return null;
+      }
+      History.Builder history = History.newBuilder();
+      while (true) {
+        HistoryEvent event = HistoryEvent.parseDelimitedFrom(in);
+        if (event == null) {
+          throw new EOFException("Truncated history of " + execution.getWorkflowId());
+        }
+        if (event.getEventId() == 0) {
+          // end of the history
+          break;
+        }
+        history.addEvents(event);
+      }
+      return new WorkflowExecutionHistory(history.build(), execution.getWorkflowId());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package io.temporal.common;
+
+import com.google.common.base.Preconditions;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.history.v1.HistoryEvent;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nonnull;
+
+/**
+ * Writes workflow histories to a gzip compressed stream of length-delimited protobuf messages that
+ * can be read back with {@link WorkflowHistoryReader}. Events are written one at a time, so a
+ * history never has to be held in memory as a whole to be written.
+ *
+ * <p>Every history is written as a length-delimited {@link WorkflowExecution} followed by its
+ * length-delimited {@link HistoryEvent}s and terminated by a zero length, which can't be a valid
+ * event as every event has a positive id.
+ *
+ * <p>Not thread safe.
+ */
+@Experimental
+public final class WorkflowHistoryWriter implements Closeable {
+
+  /**
+   * Extension of the files written by {@link io.temporal.client.WorkflowClient#exportHistories}.
+   */
+  public static final String FILE_EXTENSION = ".binpb.gz";
+
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  private final OutputStream out;
+  private boolean inHistory;
+
+  /**
+   * @param out stream to write the compressed histories to, closed by {@link #close()}
+   */
+  public WorkflowHistoryWriter(@Nonnull OutputStream out) throws IOException {
+    this.out = new BufferedOutputStream(new GZIPOutputStream(out, BUFFER_SIZE), BUFFER_SIZE);
+  }
+
+  /** Creates the file or replaces its content. */
+  public static WorkflowHistoryWriter open(@Nonnull Path file) throws IOException {
+    OutputStream out = Files.newOutputStream(file);
+    try {
+      return new WorkflowHistoryWriter(out);
+    } catch (IOException e) {
+      out.close();
+      throw e;
+    }
+  }
+
+  /** Starts a new history, its events have to be written next. */
+  public void startHistory(@Nonnull WorkflowExecution execution) throws IOException {
+    Preconditions.checkState(!inHistory, "the previous history is not ended");
+    execution.writeDelimitedTo(out);
+    inHistory = true;
+  }
+
+  public void writeEvent(@Nonnull HistoryEvent event) throws IOException {
+    Preconditions.checkState(inHistory, "no history is started");
+    Preconditions.checkArgument(event.getEventId() > 0, "event id should be positive: %s", event);
+    event.writeDelimitedTo(out);
+  }
+
+  public void endHistory() throws IOException {
+    Preconditions.checkState(inHistory, "no history is started");
+    out.write(0);
+    inHistory = false;
+  }
+
+  /** Writes a whole history, equivalent to a start, a write of every event and an end. */
+  public void writeHistory(@Nonnull WorkflowExecutionHistory history) throws IOException {
+    startHistory(history.getWorkflowExecution());
+    for (HistoryEvent event : history.getEvents()) {
+      writeEvent(event);
+    }
+    endHistory();
+  }
+
+  /** Finishes the compressed stream and closes the underlying one. */
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+}
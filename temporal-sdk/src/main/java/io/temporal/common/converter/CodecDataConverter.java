@@ -9,7 +9,9 @@ import io.temporal.api.failure.v1.CanceledFailureInfo;
 import io.temporal.api.failure.v1.Failure;
 import io.temporal.api.failure.v1.ResetWorkflowFailureInfo;
 import io.temporal.api.failure.v1.TimeoutFailureInfo;
+import io.temporal.common.Experimental;
 import io.temporal.payload.codec.ChainCodec;
+import io.temporal.payload.codec.ParallelPayloadCodec;
 import io.temporal.payload.codec.PayloadCodec;
 import io.temporal.payload.context.SerializationContext;
 import java.lang.reflect.Type;
@@ -17,6 +19,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -32,7 +35,7 @@ public class CodecDataConverter implements DataConverter, PayloadCodec {
   private static final String ENCODED_FAILURE_MESSAGE = "Encoded failure";
 
   private final DataConverter dataConverter;
-  private final ChainCodec chainCodec;
+  private final PayloadCodec chainCodec;
   private final boolean encodeFailureAttributes;
   private final @Nullable SerializationContext serializationContext;
 
@@ -98,9 +101,33 @@ public class CodecDataConverter implements DataConverter, PayloadCodec {
     this(dataConverter, new ChainCodec(codecs), encodeFailureAttributes, null);
   }
 
+  /**
+   * Same as {@link #CodecDataConverter(DataConverter, Collection, boolean)}, but when several
+   * payloads are encoded or decoded together, like the arguments of a signal or the result of a
+   * query, they are split into batches that go through {@code codecs} in parallel on {@code
+   * codecExecutor}. The calling thread waits for the batches and processes some of them itself.
+   * Useful when CPU heavy codecs like encryption and compression slow down the conversion of large
+   * multi-argument payloads.
+   *
+   * @param codecExecutor bounded executor dedicated to the codecs, owned by the caller
+   * @see ParallelPayloadCodec
+   */
+  @Experimental
+  public CodecDataConverter(
+      DataConverter dataConverter,
+      Collection<PayloadCodec> codecs,
+      boolean encodeFailureAttributes,
+      @Nonnull Executor codecExecutor) {
+    this(
+        dataConverter,
+        new ParallelPayloadCodec(new ChainCodec(codecs), codecExecutor),
+        encodeFailureAttributes,
+        null);
+  }
+
   CodecDataConverter(
       DataConverter dataConverter,
-      ChainCodec codecs,
+      PayloadCodec codecs,
       boolean encodeFailureAttributes,
       @Nullable SerializationContext serializationContext) {
     this.dataConverter = dataConverter;
@@ -26,4 +26,8 @@ public class EncodingKeys {
   static final String METADATA_ENCODING_PROTOBUF_NAME = "binary/protobuf";
   static final ByteString METADATA_ENCODING_PROTOBUF =
       ByteString.copyFrom(METADATA_ENCODING_PROTOBUF_NAME, StandardCharsets.UTF_8);
+
+  static final String METADATA_ENCODING_SMILE_NAME = "binary/smile";
+  static final ByteString METADATA_ENCODING_SMILE =
+      ByteString.copyFrom(METADATA_ENCODING_SMILE_NAME, StandardCharsets.UTF_8);
 }
@@ -2,7 +2,6 @@ package io.temporal.common.converter;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -69,7 +68,11 @@ public class JacksonJsonPayloadConverter implements PayloadConverter {
    *     JacksonJsonPayloadConverter}.
    */
   public static ObjectMapper newDefaultObjectMapper() {
-    ObjectMapper mapper = new ObjectMapper();
+    return configureDefaultObjectMapper(new ObjectMapper());
+  }
+
+  /** Applies the default configuration to a mapper of any data format. */
+  static ObjectMapper configureDefaultObjectMapper(ObjectMapper mapper) {
     // preserve the original value of timezone coming from the server in Payload
     // without adjusting to the host timezone
     // may be important if the replay is happening on a host in another timezone
@@ -104,16 +107,18 @@ public class JacksonJsonPayloadConverter implements PayloadConverter {
       return delegate.toData(value);
     }
 
+    PayloadOutputBuffer buffer = PayloadOutputBuffer.acquire();
     try {
-      byte[] serialized = mapper.writeValueAsBytes(value);
+      mapper.writeValue(buffer, value);
       return Optional.of(
           Payload.newBuilder()
               .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, EncodingKeys.METADATA_ENCODING_JSON)
-              .setData(ByteString.copyFrom(serialized))
+              .setData(buffer.toByteString())
               .build());
-
-    } catch (JsonProcessingException e) {
+    } catch (IOException e) {
       throw new DataConverterException(e);
+    } finally {
+      buffer.release();
     }
   }
 
@@ -133,7 +138,7 @@ public class JacksonJsonPayloadConverter implements PayloadConverter {
     try {
       @SuppressWarnings("deprecation")
       JavaType reference = mapper.getTypeFactory().constructType(valueType, valueClass);
-      return mapper.readValue(content.getData().toByteArray(), reference);
+      return mapper.readValue(data.newInput(), reference);
     } catch (IOException e) {
       throw new DataConverterException(e);
     }
@@ -0,0 +1,104 @@
+package io.temporal.common.converter;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.base.Preconditions;
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.Experimental;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Optional;
+
+/**
+ * Converts values to Jackson's binary <a
+ * href="https://github.com/FasterXML/smile-format-specification">Smile</a> format, encoded as
+ * {@code binary/smile}. Smile uses the same data model as JSON, so the values supported by {@link
+ * JacksonJsonPayloadConverter} are supported as well, but it is faster to write and parse and its
+ * payloads are smaller, especially for lists of objects of the same type.
+ *
+ * <p>Like the JSON converter it accepts any value, so it has to be placed before {@link
+ * JacksonJsonPayloadConverter}, which is kept to decode the payloads written before the switch:
+ *
+ * <pre>{@code
+ * DataConverter converter =
+ *     new DefaultDataConverter(
+ *         new NullPayloadConverter(),
+ *         new ByteArrayPayloadConverter(),
+ *         new ProtobufJsonPayloadConverter(),
+ *         new ProtobufPayloadConverter(),
+ *         new JacksonSmilePayloadConverter(),
+ *         new JacksonJsonPayloadConverter());
+ * }</pre>
+ *
+ * <p>Only the Temporal SDKs and tools configured with a Smile converter can read these payloads.
+ * Requires {@code com.fasterxml.jackson.dataformat:jackson-dataformat-smile} on the classpath.
+ */
+@Experimental
+public class JacksonSmilePayloadConverter implements PayloadConverter {
+
+  private final ObjectMapper mapper;
+
+  /**
+   * Can be used as a starting point for custom user configurations of ObjectMapper.
+   *
+   * @return a Smile {@link ObjectMapper} with the configuration of {@link
+   *     JacksonJsonPayloadConverter#newDefaultObjectMapper()}
+   */
+  public static ObjectMapper newDefaultObjectMapper() {
+    return JacksonJsonPayloadConverter.configureDefaultObjectMapper(
+        new ObjectMapper(new SmileFactory()));
+  }
+
+  public JacksonSmilePayloadConverter() {
+    this(newDefaultObjectMapper());
+  }
+
+  /**
+   * @param mapper mapper created with a {@link SmileFactory}
+   */
+  public JacksonSmilePayloadConverter(ObjectMapper mapper) {
+    Preconditions.checkArgument(
+        mapper.getFactory() instanceof SmileFactory, "mapper should use a SmileFactory");
+    this.mapper = mapper;
+  }
+
+  @Override
+  public String getEncodingType() {
+    return EncodingKeys.METADATA_ENCODING_SMILE_NAME;
+  }
+
+  @Override
+  public Optional<Payload> toData(Object value) throws DataConverterException {
+    PayloadOutputBuffer buffer = PayloadOutputBuffer.acquire();
+    try {
+      mapper.writeValue(buffer, value);
+      return Optional.of(
+          Payload.newBuilder()
+              .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, EncodingKeys.METADATA_ENCODING_SMILE)
+              .setData(buffer.toByteString())
+              .build());
+    } catch (IOException e) {
+      throw new DataConverterException(e);
+    } finally {
+      buffer.release();
+    }
+  }
+
+  @Override
+  public <T> T fromData(Payload content, Class<T> valueClass, Type valueType)
+      throws DataConverterException {
+    ByteString data = content.getData();
+    if (data.isEmpty()) {
+      return null;
+    }
+    try {
+      @SuppressWarnings("deprecation")
+      JavaType reference = mapper.getTypeFactory().constructType(valueType, valueClass);
+      return mapper.readValue(data.newInput(), reference);
+    } catch (IOException e) {
+      throw new DataConverterException(e);
+    }
+  }
+}
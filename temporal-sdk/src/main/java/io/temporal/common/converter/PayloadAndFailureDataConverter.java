@@ -11,6 +11,8 @@ import io.temporal.failure.DefaultFailureConverter;
 import io.temporal.payload.context.SerializationContext;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -23,6 +25,11 @@ class PayloadAndFailureDataConverter implements DataConverter {
   volatile Map<String, PayloadConverter> convertersMap;
   volatile FailureConverter failureConverter;
   private final @Nullable SerializationContext serializationContext;
+  // shared with the instances created by withContext, replaced when the converters change
+  private volatile ConverterDispatch dispatch;
+  // the converters of boundDispatch bound to serializationContext, each bound on its first use
+  private final ConverterDispatch boundDispatch;
+  private final @Nullable AtomicReferenceArray<PayloadConverter> boundConverters;
 
   public PayloadAndFailureDataConverter(@Nonnull List<PayloadConverter> converters) {
     this(
@@ -37,10 +44,28 @@ class PayloadAndFailureDataConverter implements DataConverter {
       @Nonnull Map<String, PayloadConverter> convertersMap,
       @Nonnull FailureConverter failureConverter,
       @Nullable SerializationContext serializationContext) {
+    this(
+        converters,
+        convertersMap,
+        failureConverter,
+        serializationContext,
+        new ConverterDispatch(converters));
+  }
+
+  private PayloadAndFailureDataConverter(
+      @Nonnull List<PayloadConverter> converters,
+      @Nonnull Map<String, PayloadConverter> convertersMap,
+      @Nonnull FailureConverter failureConverter,
+      @Nullable SerializationContext serializationContext,
+      @Nonnull ConverterDispatch dispatch) {
     this.failureConverter = Preconditions.checkNotNull(failureConverter, "failureConverter");
     this.converters = Preconditions.checkNotNull(converters, "converters");
     this.convertersMap = Preconditions.checkNotNull(convertersMap, "converterMap");
     this.serializationContext = serializationContext;
+    this.dispatch = dispatch;
+    this.boundDispatch = dispatch;
+    this.boundConverters =
+        serializationContext != null ? new AtomicReferenceArray<>(converters.size()) : null;
   }
 
   @Override
@@ -51,11 +76,14 @@ class PayloadAndFailureDataConverter implements DataConverter {
       return Optional.of(rv.getPayload());
     }
 
-    for (PayloadConverter converter : converters) {
-      Optional<Payload> result =
-          (serializationContext != null ? converter.withContext(serializationContext) : converter)
-              .toData(value);
+    ConverterDispatch dispatch = getDispatch();
+    int firstCandidate = dispatch.getFirstCandidate(value);
+    for (int i = firstCandidate; i < dispatch.converters.size(); i++) {
+      Optional<Payload> result = getConverter(dispatch, i).toData(value);
       if (result.isPresent()) {
+        if (i != firstCandidate) {
+          dispatch.accepted(value, i);
+        }
         return result;
       }
     }
@@ -79,10 +107,7 @@ class PayloadAndFailureDataConverter implements DataConverter {
         throw new DataConverterException(
             "No PayloadConverter is registered for an encoding: " + encoding);
       }
-      return (serializationContext != null
-              ? converter.withContext(serializationContext)
-              : converter)
-          .fromData(payload, valueClass, valueType);
+      return bind(converter).fromData(payload, valueClass, valueType);
     } catch (DataConverterException e) {
       throw e;
     } catch (Exception e) {
@@ -145,7 +170,49 @@ class PayloadAndFailureDataConverter implements DataConverter {
 
   @Override
   public @Nonnull DataConverter withContext(@Nonnull SerializationContext context) {
-    return new PayloadAndFailureDataConverter(converters, convertersMap, failureConverter, context);
+    return new PayloadAndFailureDataConverter(
+        converters, convertersMap, failureConverter, context, getDispatch());
+  }
+
+  private ConverterDispatch getDispatch() {
+    List<PayloadConverter> converters = this.converters;
+    ConverterDispatch dispatch = this.dispatch;
+    if (dispatch.converters != converters) {
+      // replaced by DefaultDataConverter#withPayloadConverterOverrides
+      dispatch = new ConverterDispatch(converters);
+      this.dispatch = dispatch;
+    }
+    return dispatch;
+  }
+
+  private PayloadConverter getConverter(ConverterDispatch dispatch, int index) {
+    PayloadConverter converter = dispatch.converters.get(index);
+    if (serializationContext == null) {
+      return converter;
+    }
+    if (dispatch != boundDispatch) {
+      // the converters were replaced after this instance was created
+      return converter.withContext(serializationContext);
+    }
+    PayloadConverter bound = boundConverters.get(index);
+    if (bound == null) {
+      bound = converter.withContext(serializationContext);
+      boundConverters.set(index, bound);
+    }
+    return bound;
+  }
+
+  private PayloadConverter bind(PayloadConverter converter) {
+    if (serializationContext == null) {
+      return converter;
+    }
+    ConverterDispatch dispatch = getDispatch();
+    for (int i = 0; i < dispatch.converters.size(); i++) {
+      if (dispatch.converters.get(i) == converter) {
+        return getConverter(dispatch, i);
+      }
+    }
+    return converter.withContext(serializationContext);
   }
 
   static Map<String, PayloadConverter> createConvertersMap(List<PayloadConverter> converters) {
@@ -155,4 +222,50 @@ class PayloadAndFailureDataConverter implements DataConverter {
     }
     return newConverterMap;
   }
+
+  /**
+   * Saves {@link #toPayload(Object)} from trying all the converters for every value by remembering
+   * for every class of the converted values the first converter that may accept them.
+   */
+  private static final class ConverterDispatch {
+    final List<PayloadConverter> converters;
+    // the number of leading converters that accept or reject a value based on its type only
+    private final int typeBasedConverters;
+    private final ClassValue<AtomicInteger> firstCandidates =
+        new ClassValue<AtomicInteger>() {
+          @Override
+          protected AtomicInteger computeValue(Class<?> type) {
+            return new AtomicInteger();
+          }
+        };
+
+    ConverterDispatch(List<PayloadConverter> converters) {
+      this.converters = converters;
+      int typeBasedConverters = 0;
+      while (typeBasedConverters < converters.size()
+          && isTypeBased(converters.get(typeBasedConverters))) {
+        typeBasedConverters++;
+      }
+      this.typeBasedConverters = typeBasedConverters;
+    }
+
+    int getFirstCandidate(@Nullable Object value) {
+      return value == null ? 0 : firstCandidates.get(value.getClass()).get();
+    }
+
+    void accepted(@Nullable Object value, int index) {
+      if (value != null) {
+        // only the converters rejecting every value of the class can be skipped next time
+        firstCandidates.get(value.getClass()).set(Math.min(index, typeBasedConverters));
+      }
+    }
+
+    private static boolean isTypeBased(PayloadConverter converter) {
+      Class<?> type = converter.getClass();
+      return type == NullPayloadConverter.class
+          || type == ByteArrayPayloadConverter.class
+          || type == ProtobufJsonPayloadConverter.class
+          || type == ProtobufPayloadConverter.class;
+    }
+  }
 }
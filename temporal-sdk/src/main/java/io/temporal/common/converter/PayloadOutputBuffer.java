@@ -0,0 +1,55 @@
+package io.temporal.common.converter;
+
+import com.google.protobuf.ByteString;
+import java.io.ByteArrayOutputStream;
+import java.lang.ref.SoftReference;
+
+/**
+ * Growable buffer reused by the serializations done on a thread, so that serializing a payload
+ * allocates only the array of the resulting {@link ByteString} instead of the intermediate arrays
+ * of the serializer and a copy of its output.
+ *
+ * <p>Kept through a soft reference, so the buffers of idle threads can be reclaimed.
+ */
+final class PayloadOutputBuffer extends ByteArrayOutputStream {
+  private static final int INITIAL_SIZE = 1024;
+
+  /** Buffers grown larger than this are shrunk after use instead of being kept at their size. */
+  static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+  private static final ThreadLocal<SoftReference<PayloadOutputBuffer>> buffers =
+      new ThreadLocal<>();
+
+  private boolean inUse;
+
+  private PayloadOutputBuffer() {
+    super(INITIAL_SIZE);
+  }
+
+  /** Must be followed by {@link #release()} once the content is consumed. */
+  static PayloadOutputBuffer acquire() {
+    SoftReference<PayloadOutputBuffer> reference = buffers.get();
+    PayloadOutputBuffer buffer = reference != null ? reference.get() : null;
+    if (buffer == null) {
+      buffer = new PayloadOutputBuffer();
+      buffers.set(new SoftReference<>(buffer));
+    } else if (buffer.inUse) {
+      // a serializer converting a nested payload, the buffer of the thread is taken
+      return new PayloadOutputBuffer();
+    }
+    buffer.inUse = true;
+    return buffer;
+  }
+
+  ByteString toByteString() {
+    return ByteString.copyFrom(buf, 0, count);
+  }
+
+  void release() {
+    inUse = false;
+    count = 0;
+    if (buf.length > MAX_RETAINED_SIZE) {
+      buf = new byte[INITIAL_SIZE];
+    }
+  }
+}
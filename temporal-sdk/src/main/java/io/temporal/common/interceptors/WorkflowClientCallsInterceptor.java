@@ -40,6 +40,15 @@ public interface WorkflowClientCallsInterceptor {
    */
   WorkflowSignalOutput signal(WorkflowSignalInput input);
 
+  /**
+   * Intercepts the signals sent by {@link WorkflowClient#signalAll}. If you implement this method,
+   * {@link #signal} most likely needs to be implemented too.
+   *
+   * @see #signal
+   */
+  @Experimental
+  WorkflowSignalAsyncOutput signalAsync(WorkflowSignalInput input);
+
   WorkflowSignalWithStartOutput signalWithStart(WorkflowSignalWithStartInput input);
 
   /**
@@ -81,10 +90,23 @@ public interface WorkflowClientCallsInterceptor {
   final class ListWorkflowExecutionsInput {
     private final String query;
     private final Integer pageSize;
+    private final ListExecutionsOptions options;
 
     public ListWorkflowExecutionsInput(@Nullable String query, @Nullable Integer pageSize) {
       this.query = query;
       this.pageSize = pageSize;
+      this.options = null;
+    }
+
+    /**
+     * @param options options of a listing prefetching its pages, the page size is taken from them
+     */
+    @Experimental
+    public ListWorkflowExecutionsInput(
+        @Nullable String query, @Nonnull ListExecutionsOptions options) {
+      this.query = query;
+      this.pageSize = options.getPageSize();
+      this.options = options;
     }
 
     @Nullable
@@ -96,6 +118,15 @@ public interface WorkflowClientCallsInterceptor {
     public Integer getPageSize() {
       return pageSize;
     }
+
+    /**
+     * @return options of a listing prefetching its pages, null if the pages are fetched one by one
+     */
+    @Experimental
+    @Nullable
+    public ListExecutionsOptions getOptions() {
+      return options;
+    }
   }
 
   final class ListWorkflowExecutionsOutput {
@@ -210,6 +241,19 @@ public interface WorkflowClientCallsInterceptor {
 
   final class WorkflowSignalOutput {}
 
+  @Experimental
+  final class WorkflowSignalAsyncOutput {
+    private final CompletableFuture<WorkflowSignalOutput> result;
+
+    public WorkflowSignalAsyncOutput(CompletableFuture<WorkflowSignalOutput> result) {
+      this.result = result;
+    }
+
+    public CompletableFuture<WorkflowSignalOutput> getResult() {
+      return result;
+    }
+  }
+
   final class WorkflowSignalWithStartInput {
     private final WorkflowStartInput workflowStartInput;
     private final String signalName;
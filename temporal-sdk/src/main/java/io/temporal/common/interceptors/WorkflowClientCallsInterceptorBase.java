@@ -22,6 +22,11 @@ public class WorkflowClientCallsInterceptorBase implements WorkflowClientCallsIn
     return next.signal(input);
   }
 
+  @Override
+  public WorkflowSignalAsyncOutput signalAsync(WorkflowSignalInput input) {
+    return next.signalAsync(input);
+  }
+
   @Override
   public WorkflowSignalWithStartOutput signalWithStart(WorkflowSignalWithStartInput input) {
     return next.signalWithStart(input);
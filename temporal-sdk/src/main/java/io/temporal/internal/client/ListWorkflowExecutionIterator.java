@@ -32,6 +32,15 @@ class ListWorkflowExecutionIterator
   @Override
   protected CompletableFuture<ListWorkflowExecutionsResponse> performRequest(
       @Nonnull ByteString nextPageToken) {
+    return genericClient.listWorkflowExecutionsAsync(
+        newRequest(query, namespace, pageSize, nextPageToken));
+  }
+
+  static ListWorkflowExecutionsRequest newRequest(
+      @Nullable String query,
+      @Nonnull String namespace,
+      @Nullable Integer pageSize,
+      @Nonnull ByteString nextPageToken) {
     ListWorkflowExecutionsRequest.Builder request =
         ListWorkflowExecutionsRequest.newBuilder()
             .setNamespace(namespace)
@@ -45,7 +54,7 @@ class ListWorkflowExecutionIterator
       request.setPageSize(pageSize);
     }
 
-    return genericClient.listWorkflowExecutionsAsync(request.build());
+    return request.build();
   }
 
   @Override
@@ -0,0 +1,53 @@
+package io.temporal.internal.client;
+
+import com.google.protobuf.ByteString;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
+import io.temporal.client.ListExecutionsOptions;
+import io.temporal.internal.client.external.GenericWorkflowClient;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+class PrefetchingListWorkflowExecutionIterator<T>
+    extends PrefetchingPaginator<ListWorkflowExecutionsResponse, WorkflowExecutionInfo, T> {
+  private final @Nullable String query;
+  private final @Nonnull String namespace;
+  private final @Nullable Integer pageSize;
+  private final @Nonnull GenericWorkflowClient genericClient;
+
+  public PrefetchingListWorkflowExecutionIterator(
+      @Nullable String query,
+      @Nonnull String namespace,
+      @Nonnull ListExecutionsOptions options,
+      @Nonnull Function<WorkflowExecutionInfo, T> converter,
+      @Nonnull GenericWorkflowClient genericClient,
+      @Nonnull Scope metricsScope) {
+    super(options.getPrefetchPages(), options.getDecodingExecutor(), converter, metricsScope);
+    this.query = query;
+    this.namespace = Objects.requireNonNull(namespace, "namespace");
+    this.pageSize = options.getPageSize();
+    this.genericClient = Objects.requireNonNull(genericClient, "genericClient");
+  }
+
+  @Override
+  protected CompletableFuture<ListWorkflowExecutionsResponse> performRequest(
+      @Nonnull ByteString nextPageToken) {
+    return genericClient.listWorkflowExecutionsAsync(
+        ListWorkflowExecutionIterator.newRequest(query, namespace, pageSize, nextPageToken));
+  }
+
+  @Override
+  protected ByteString getNextPageToken(ListWorkflowExecutionsResponse response) {
+    return response.getNextPageToken();
+  }
+
+  @Override
+  protected List<WorkflowExecutionInfo> toElements(ListWorkflowExecutionsResponse response) {
+    return response.getExecutionsList();
+  }
+}
@@ -0,0 +1,217 @@
+package io.temporal.internal.client;
+
+import com.google.common.base.Preconditions;
+import com.google.protobuf.ByteString;
+import com.uber.m3.tally.Scope;
+import io.temporal.worker.MetricsType;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+
+/**
+ * Unlike {@link EagerPaginator} that requests the next page when the iteration through the previous
+ * one starts, this Iterator keeps requesting pages ahead of the consumer until {@code
+ * prefetchPages} pages are waiting to be consumed. The request of a page is sent as soon as the
+ * response with its token arrives. The elements of every page are converted on the {@code
+ * converterExecutor}, so the pages waiting to be consumed can be converted concurrently.
+ *
+ * <p>Records the latency of every page request and the time the consumer waited for a page. {@link
+ * #close()} stops the prefetching of an iteration that isn't completed.
+ */
+public abstract class PrefetchingPaginator<Resp, E, T> implements Iterator<T>, AutoCloseable {
+  private final int prefetchPages;
+  private final Executor converterExecutor;
+  private final Function<E, T> converter;
+  private final Scope metricsScope;
+  // completed with null after the last page or after the last page requested before close
+  private final BlockingQueue<CompletableFuture<List<T>>> pages = new LinkedBlockingQueue<>();
+
+  // guarded by this
+  private int bufferedPages;
+  private ByteString deferredToken;
+  private boolean closed;
+
+  // accessed only by the consumer
+  private Iterator<T> activePage = Collections.emptyIterator();
+  private boolean finished;
+
+  protected PrefetchingPaginator(
+      int prefetchPages,
+      @Nonnull Executor converterExecutor,
+      @Nonnull Function<E, T> converter,
+      @Nonnull Scope metricsScope) {
+    Preconditions.checkArgument(prefetchPages > 0, "prefetchPages should be positive");
+    this.prefetchPages = prefetchPages;
+    this.converterExecutor = converterExecutor;
+    this.converter = converter;
+    this.metricsScope = metricsScope;
+  }
+
+  public void init() {
+    request(ByteString.EMPTY);
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!activePage.hasNext()) {
+      if (finished) {
+        return false;
+      }
+      List<T> page = takePage();
+      if (page == null) {
+        finished = true;
+        return false;
+      }
+      activePage = page.iterator();
+    }
+    return true;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return activePage.next();
+  }
+
+  /**
+   * Stops requesting pages, the pages already requested are still delivered and the iteration ends
+   * after them.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (deferredToken != null) {
+      // no request is in flight, so no response is going to end the pages
+      deferredToken = null;
+      pages.add(CompletableFuture.completedFuture(null));
+    }
+  }
+
+  private List<T> takePage() {
+    long start = System.nanoTime();
+    List<T> page;
+    try {
+      page = pages.take().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      // a failed page is the last one
+      finished = true;
+      Throwable cause = e.getCause();
+      throw (cause instanceof RuntimeException
+          ? (RuntimeException) cause
+          : new RuntimeException(cause));
+    } finally {
+      metricsScope
+          .timer(MetricsType.LIST_WORKFLOW_EXECUTIONS_PAGE_WAIT_LATENCY)
+          .record(Duration.ofNanos(System.nanoTime() - start));
+    }
+    if (page != null) {
+      ByteString nextPageToken;
+      synchronized (this) {
+        bufferedPages--;
+        nextPageToken = deferredToken;
+        deferredToken = null;
+      }
+      if (nextPageToken != null) {
+        request(nextPageToken);
+      }
+    }
+    return page;
+  }
+
+  private void request(ByteString nextPageToken) {
+    long start = System.nanoTime();
+    CompletableFuture<Resp> response;
+    try {
+      response = performRequest(nextPageToken);
+    } catch (RuntimeException e) {
+      response = new CompletableFuture<>();
+      response.completeExceptionally(e);
+    }
+    response.whenComplete(
+        (r, failure) -> {
+          metricsScope
+              .timer(MetricsType.LIST_WORKFLOW_EXECUTIONS_PAGE_LATENCY)
+              .record(Duration.ofNanos(System.nanoTime() - start));
+          try {
+            if (failure != null) {
+              fail(failure);
+            } else {
+              onResponse(r);
+            }
+          } catch (RuntimeException e) {
+            fail(e);
+          }
+        });
+  }
+
+  private void fail(Throwable failure) {
+    if (failure instanceof CompletionException && failure.getCause() != null) {
+      failure = failure.getCause();
+    }
+    CompletableFuture<List<T>> failed = new CompletableFuture<>();
+    failed.completeExceptionally(failure);
+    pages.add(failed);
+  }
+
+  private void onResponse(Resp response) {
+    List<E> elements = toElements(response);
+    ByteString nextPageToken = getNextPageToken(response);
+    boolean last = nextPageToken == null || nextPageToken.isEmpty();
+    // empty pages with a token are skipped without being counted
+    CompletableFuture<List<T>> page =
+        elements.isEmpty()
+            ? null
+            : CompletableFuture.supplyAsync(() -> convert(elements), converterExecutor);
+    ByteString requested = null;
+    synchronized (this) {
+      if (page != null) {
+        // responses are handled one at a time as every request waits for the previous response
+        pages.add(page);
+        bufferedPages++;
+      }
+      if (last || closed) {
+        pages.add(CompletableFuture.completedFuture(null));
+      } else if (bufferedPages < prefetchPages) {
+        requested = nextPageToken;
+      } else {
+        deferredToken = nextPageToken;
+      }
+    }
+    if (requested != null) {
+      request(requested);
+    }
+  }
+
+  private List<T> convert(List<E> elements) {
+    List<T> result = new ArrayList<>(elements.size());
+    for (E element : elements) {
+      result.add(converter.apply(element));
+    }
+    return result;
+  }
+
+  protected abstract CompletableFuture<Resp> performRequest(@Nonnull ByteString nextPageToken);
+
+  protected abstract ByteString getNextPageToken(Resp response);
+
+  protected abstract List<E> toElements(Resp response);
+}
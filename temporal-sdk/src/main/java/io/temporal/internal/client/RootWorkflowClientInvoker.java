@@ -6,6 +6,7 @@ import static io.temporal.internal.common.HeaderUtils.intoPayloadMap;
 import static io.temporal.internal.common.WorkflowExecutionUtils.makeUserMetaData;
 
 import com.google.common.collect.Iterators;
+import com.uber.m3.tally.Scope;
 import io.grpc.Deadline;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
@@ -46,13 +47,16 @@ public class RootWorkflowClientInvoker implements WorkflowClientCallsInterceptor
   private final WorkflowClientOptions clientOptions;
   private final EagerWorkflowTaskDispatcher eagerWorkflowTaskDispatcher;
   private final WorkflowClientRequestFactory requestsHelper;
+  private final Scope metricsScope;
 
   public RootWorkflowClientInvoker(
       GenericWorkflowClient genericClient,
       WorkflowClientOptions clientOptions,
-      WorkerFactoryRegistry workerFactoryRegistry) {
+      WorkerFactoryRegistry workerFactoryRegistry,
+      Scope metricsScope) {
     this.genericClient = genericClient;
     this.clientOptions = clientOptions;
+    this.metricsScope = metricsScope;
     this.eagerWorkflowTaskDispatcher = new EagerWorkflowTaskDispatcher(workerFactoryRegistry);
     this.requestsHelper = new WorkflowClientRequestFactory(clientOptions);
   }
@@ -111,6 +115,19 @@ public class RootWorkflowClientInvoker implements WorkflowClientCallsInterceptor
 
   @Override
   public WorkflowSignalOutput signal(WorkflowSignalInput input) {
+    genericClient.signal(toSignalRequest(input));
+    return new WorkflowSignalOutput();
+  }
+
+  @Override
+  public WorkflowSignalAsyncOutput signalAsync(WorkflowSignalInput input) {
+    return new WorkflowSignalAsyncOutput(
+        genericClient
+            .signalAsync(toSignalRequest(input))
+            .thenApply(r -> new WorkflowSignalOutput()));
+  }
+
+  private SignalWorkflowExecutionRequest toSignalRequest(WorkflowSignalInput input) {
     SignalWorkflowExecutionRequest.Builder request =
         SignalWorkflowExecutionRequest.newBuilder()
             .setSignalName(input.getSignalName())
@@ -129,8 +146,7 @@ public class RootWorkflowClientInvoker implements WorkflowClientCallsInterceptor
 
     Optional<Payloads> inputArgs = dataConverterWitSignalContext.toPayloads(input.getArguments());
     inputArgs.ifPresent(request::setInput);
-    genericClient.signal(request.build());
-    return new WorkflowSignalOutput();
+    return request.build();
   }
 
   @Override
@@ -686,15 +702,9 @@ public class RootWorkflowClientInvoker implements WorkflowClientCallsInterceptor
                 .setExecution(input.getWorkflowExecution())
                 .build());
 
-    DataConverter dataConverterWithWorkflowContext =
-        clientOptions
-            .getDataConverter()
-            .withContext(
-                new WorkflowSerializationContext(
-                    clientOptions.getNamespace(), input.getWorkflowExecution().getWorkflowId()));
-
+    // the description binds the serialization context of the workflow when it decodes a payload
     return new DescribeWorkflowOutput(
-        new WorkflowExecutionDescription(response, dataConverterWithWorkflowContext));
+        new WorkflowExecutionDescription(response, clientOptions.getDataConverter()));
   }
 
   @Override
@@ -710,6 +720,9 @@ public class RootWorkflowClientInvoker implements WorkflowClientCallsInterceptor
 
   @Override
   public ListWorkflowExecutionsOutput listWorkflowExecutions(ListWorkflowExecutionsInput input) {
+    if (input.getOptions() != null) {
+      return listWorkflowExecutionsWithPrefetch(input.getQuery(), input.getOptions());
+    }
     ListWorkflowExecutionIterator iterator =
         new ListWorkflowExecutionIterator(
             input.getQuery(), clientOptions.getNamespace(), input.getPageSize(), genericClient);
@@ -731,6 +744,31 @@ public class RootWorkflowClientInvoker implements WorkflowClientCallsInterceptor
             Spliterators.spliteratorUnknownSize(wrappedIterator, CHARACTERISTICS), false));
   }
 
+  private ListWorkflowExecutionsOutput listWorkflowExecutionsWithPrefetch(
+      @Nullable String query, ListExecutionsOptions options) {
+    DataConverter dataConverter = clientOptions.getDataConverter();
+    PrefetchingListWorkflowExecutionIterator<WorkflowExecutionMetadata> iterator =
+        new PrefetchingListWorkflowExecutionIterator<>(
+            query,
+            clientOptions.getNamespace(),
+            options,
+            info -> {
+              WorkflowExecutionMetadata metadata =
+                  new WorkflowExecutionMetadata(info, dataConverter);
+              // decoded on the decoding executor instead of the consuming thread
+              metadata.getTypedSearchAttributes();
+              return metadata;
+            },
+            genericClient,
+            metricsScope);
+    iterator.init();
+
+    final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    return new ListWorkflowExecutionsOutput(
+        StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, CHARACTERISTICS), false)
+            .onClose(iterator::close));
+  }
+
   private static <R> R convertResultPayloads(
       Optional<Payloads> resultValue,
       Class<R> resultClass,
@@ -12,6 +12,10 @@ public interface GenericWorkflowClient {
 
   void signal(SignalWorkflowExecutionRequest request);
 
+  @Experimental
+  CompletableFuture<SignalWorkflowExecutionResponse> signalAsync(
+      SignalWorkflowExecutionRequest request);
+
   SignalWithStartWorkflowExecutionResponse signalWithStart(
       SignalWithStartWorkflowExecutionRequest request);
 
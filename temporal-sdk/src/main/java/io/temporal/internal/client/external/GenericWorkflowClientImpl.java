@@ -76,6 +76,25 @@ public final class GenericWorkflowClientImpl implements GenericWorkflowClient {
         grpcRetryerOptions);
   }
 
+  @Override
+  public CompletableFuture<SignalWorkflowExecutionResponse> signalAsync(
+      SignalWorkflowExecutionRequest request) {
+    Map<String, String> tags =
+        new ImmutableMap.Builder<String, String>(1)
+            .put(MetricsTag.SIGNAL_NAME, request.getSignalName())
+            .build();
+    Scope scope = metricsScope.tagged(tags);
+    return grpcRetryer.retryWithResultAsync(
+        asyncThrottlerExecutor,
+        () ->
+            toCompletableFuture(
+                service
+                    .futureStub()
+                    .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, scope)
+                    .signalWorkflowExecution(request)),
+        grpcRetryerOptions);
+  }
+
   @Override
   public SignalWithStartWorkflowExecutionResponse signalWithStart(
       SignalWithStartWorkflowExecutionRequest request) {
@@ -0,0 +1,124 @@
+package io.temporal.internal.common;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.util.JsonFormat;
+import io.temporal.api.history.v1.History;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.common.converter.DataConverterException;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Parses the events of a json serialized history, in the format of Temporal CLI or in the "Proto
+ * Json" format, one at a time from a character stream. Only the json tree of the event being parsed
+ * is held in memory, so unlike {@link HistoryJsonUtils#historyFormatJsonToProtoJson(String)} the
+ * memory needed doesn't depend on the size of the history.
+ *
+ * <p>Members of the history object other than "events" are skipped. Failures to read the stream are
+ * thrown as {@link UncheckedIOException}, malformed json and events as {@link
+ * DataConverterException}. Not thread safe.
+ */
+public final class HistoryJsonReader implements Iterator<HistoryEvent>, Closeable {
+  // we stay on using the old API that uses a JsonParser instance instead of static methods
+  // to give users a larger range of supported version
+  @SuppressWarnings("deprecation")
+  private static final JsonParser GSON_PARSER = new JsonParser();
+
+  private static final JsonFormat.Parser PROTO_PARSER = JsonFormat.parser().ignoringUnknownFields();
+
+  private final JsonReader reader;
+  private boolean started;
+  private boolean finished;
+
+  public HistoryJsonReader(Reader reader) {
+    this.reader = new JsonReader(reader);
+  }
+
+  /** Reads all the remaining events. */
+  public History readHistory() {
+    History.Builder history = History.newBuilder();
+    while (hasNext()) {
+      history.addEvents(next());
+    }
+    return history.build();
+  }
+
+  @Override
+  public boolean hasNext() {
+    try {
+      if (!started) {
+        started = true;
+        findEvents();
+      }
+      if (finished) {
+        return false;
+      }
+      if (reader.hasNext()) {
+        return true;
+      }
+      reader.endArray();
+      finished = true;
+      return false;
+    } catch (IOException e) {
+      throw toException(e);
+    } catch (IllegalStateException e) {
+      // unexpected json token
+      throw new DataConverterException(e);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public HistoryEvent next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    HistoryEvent.Builder event = HistoryEvent.newBuilder();
+    try {
+      JsonElement json = GSON_PARSER.parse(reader);
+      if (!json.isJsonObject()) {
+        throw new DataConverterException("History event is not an object: " + json);
+      }
+      HistoryJsonUtils.historyFormatEventToProtoEvent(json.getAsJsonObject());
+      PROTO_PARSER.merge(json.toString(), event);
+    } catch (JsonParseException | InvalidProtocolBufferException e) {
+      throw new DataConverterException(e);
+    }
+    return event.build();
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private void findEvents() throws IOException {
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if ("events".equals(reader.nextName())) {
+        reader.beginArray();
+        return;
+      }
+      reader.skipValue();
+    }
+    // history without events
+    finished = true;
+  }
+
+  private static RuntimeException toException(IOException e) {
+    if (e instanceof MalformedJsonException || e instanceof EOFException) {
+      return new DataConverterException(e);
+    }
+    return new UncheckedIOException(e);
+  }
+}
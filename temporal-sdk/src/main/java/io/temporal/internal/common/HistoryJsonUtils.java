@@ -1,9 +1,13 @@
 package io.temporal.internal.common;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.function.BiFunction;
 
 /**
@@ -12,29 +16,52 @@ import java.util.function.BiFunction;
  * supported by Temporal CLI and back.
  */
 public final class HistoryJsonUtils {
-  private static final Configuration JSON_PATH_CONFIGURATION =
-      Configuration.builder().options(Option.SUPPRESS_EXCEPTIONS).build();
-
   private enum EnumValueConversionPolicy {
-    EVENT_TYPE("EVENT_TYPE_", JsonPath.compile("$.events.*.eventType")),
-    TASK_QUEUE_KIND("TASK_QUEUE_KIND_", JsonPath.compile("$.events.*.*.taskQueue.kind")),
-    PARENT_CLOSE_POLICY("PARENT_CLOSE_POLICY_", JsonPath.compile("$.events.*.*.parentClosePolicy")),
-    WORKFLOW_ID_REUSE_POLICY(
-        "WORKFLOW_ID_REUSE_POLICY_", JsonPath.compile("$.events.*.*.workflowIdReusePolicy")),
-    INITIATOR("CONTINUE_AS_NEW_INITIATOR_", JsonPath.compile("$.events.*.*.initiator")),
+    EVENT_TYPE("EVENT_TYPE_", "eventType"),
+    TASK_QUEUE_KIND("TASK_QUEUE_KIND_", "*.taskQueue.kind"),
+    PARENT_CLOSE_POLICY("PARENT_CLOSE_POLICY_", "*.parentClosePolicy"),
+    WORKFLOW_ID_REUSE_POLICY("WORKFLOW_ID_REUSE_POLICY_", "*.workflowIdReusePolicy"),
+    INITIATOR("CONTINUE_AS_NEW_INITIATOR_", "*.initiator"),
     RETRY_STATE(
         "RETRY_STATE_",
         // can be inside workflowExecutionFailedEventAttributes
-        JsonPath.compile("$.events.*.*.retryState"),
+        "*.retryState",
         // or inside workflowExecutionFailedEventAttributes.childWorkflowExecutionFailureInfo
-        JsonPath.compile("$.events.*.*.*.retryState"));
+        "*.*.retryState");
 
     private final String protobufEnumPrefix;
-    private final JsonPath[] jsonPaths;
+    // paths relative to an event, used by the json path of the whole history and by the json tree
+    // of a single event
+    private final String[][] eventPaths;
 
-    EnumValueConversionPolicy(String protobufEnumPrefix, JsonPath... jsonPaths) {
-      this.jsonPaths = jsonPaths;
+    EnumValueConversionPolicy(String protobufEnumPrefix, String... eventPaths) {
       this.protobufEnumPrefix = protobufEnumPrefix;
+      this.eventPaths = new String[eventPaths.length][];
+      for (int i = 0; i < eventPaths.length; i++) {
+        this.eventPaths[i] = eventPaths[i].split("\\.");
+      }
+    }
+  }
+
+  /**
+   * Compiled lazily because json-path is an optional dependency that is not needed to convert
+   * single events.
+   */
+  private static final class HistoryJsonPaths {
+    private static final Configuration JSON_PATH_CONFIGURATION =
+        Configuration.builder().options(Option.SUPPRESS_EXCEPTIONS).build();
+
+    private static final Map<EnumValueConversionPolicy, JsonPath[]> JSON_PATHS =
+        new EnumMap<>(EnumValueConversionPolicy.class);
+
+    static {
+      for (EnumValueConversionPolicy policy : EnumValueConversionPolicy.values()) {
+        JsonPath[] jsonPaths = new JsonPath[policy.eventPaths.length];
+        for (int i = 0; i < jsonPaths.length; i++) {
+          jsonPaths[i] = JsonPath.compile("$.events.*." + String.join(".", policy.eventPaths[i]));
+        }
+        JSON_PATHS.put(policy, jsonPaths);
+      }
     }
   }
 
@@ -45,22 +72,37 @@ public final class HistoryJsonUtils {
   }
 
   public static String historyFormatJsonToProtoJson(String historyFormatJson) {
-    return convertEnumValues(
-        historyFormatJson,
-        (enumName, prefix) -> {
-          // Only convert if the enum name isn't already converted
-          if (enumName.indexOf('_') >= 0) {
-            return enumName;
-          }
-          return ProtoEnumNameUtils.simplifiedToUniqueName(enumName, prefix);
-        });
+    return convertEnumValues(historyFormatJson, HistoryJsonUtils::historyFormatToProtoEnumName);
+  }
+
+  /**
+   * Converts in place the enum values of a single event of a history in the format of Temporal CLI
+   * to the "Proto Json" format. Unlike {@link #historyFormatJsonToProtoJson(String)}, doesn't need
+   * the whole history in memory and doesn't need json-path.
+   *
+   * @param event json tree of a history event
+   */
+  public static void historyFormatEventToProtoEvent(JsonObject event) {
+    for (EnumValueConversionPolicy policy : EnumValueConversionPolicy.values()) {
+      for (String[] eventPath : policy.eventPaths) {
+        convertEnumValues(event, eventPath, 0, policy.protobufEnumPrefix);
+      }
+    }
+  }
+
+  private static String historyFormatToProtoEnumName(String enumName, String prefix) {
+    // Only convert if the enum name isn't already converted
+    if (enumName.indexOf('_') >= 0) {
+      return enumName;
+    }
+    return ProtoEnumNameUtils.simplifiedToUniqueName(enumName, prefix);
   }
 
   private static String convertEnumValues(
       String json, BiFunction<String, String, String> convertEnumValue) {
-    DocumentContext parsed = JsonPath.parse(json, JSON_PATH_CONFIGURATION);
+    DocumentContext parsed = JsonPath.parse(json, HistoryJsonPaths.JSON_PATH_CONFIGURATION);
     for (EnumValueConversionPolicy policy : EnumValueConversionPolicy.values()) {
-      for (JsonPath jsonPath : policy.jsonPaths) {
+      for (JsonPath jsonPath : HistoryJsonPaths.JSON_PATHS.get(policy)) {
         parsed.map(
             jsonPath,
             (currentValue, configuration) ->
@@ -69,4 +111,37 @@ public final class HistoryJsonUtils {
     }
     return parsed.jsonString();
   }
+
+  /** Follows {@code path} from {@code index} like a json path, "*" matching any member. */
+  private static void convertEnumValues(
+      JsonElement element, String[] path, int index, String protobufEnumPrefix) {
+    String name = path[index];
+    boolean last = index == path.length - 1;
+    if ("*".equals(name)) {
+      if (element.isJsonObject()) {
+        for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+          convertEnumValues(member.getValue(), path, index + 1, protobufEnumPrefix);
+        }
+      } else if (element.isJsonArray()) {
+        for (JsonElement item : element.getAsJsonArray()) {
+          convertEnumValues(item, path, index + 1, protobufEnumPrefix);
+        }
+      }
+      return;
+    }
+    if (!element.isJsonObject()) {
+      return;
+    }
+    JsonObject object = element.getAsJsonObject();
+    JsonElement member = object.get(name);
+    if (member == null) {
+      return;
+    }
+    if (!last) {
+      convertEnumValues(member, path, index + 1, protobufEnumPrefix);
+    } else if (member.isJsonPrimitive() && member.getAsJsonPrimitive().isString()) {
+      object.addProperty(
+          name, historyFormatToProtoEnumName(member.getAsString(), protobufEnumPrefix));
+    }
+  }
 }
@@ -42,6 +42,11 @@ public interface ReplayWorkflow {
 
   void close();
 
+  /**
+   * @return number of workflow threads currently owned by this workflow, including the parked ones
+   */
+  int getWorkflowThreadCount();
+
   /**
    * Called after all history is replayed and workflow cannot make any progress if workflow task is
    * a query.
@@ -445,4 +445,10 @@ public interface ReplayWorkflowContext extends ReplayAware {
    * @return the priority of the workflow task
    */
   Priority getPriority();
+
+  /**
+   * @return profile of the workflow tasks of this run, null if workflow task profiling is disabled
+   */
+  @Nullable
+  WorkflowTaskProfile getWorkflowTaskProfile();
 }
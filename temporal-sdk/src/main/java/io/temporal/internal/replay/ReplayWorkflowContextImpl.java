@@ -38,6 +38,7 @@ final class ReplayWorkflowContextImpl implements ReplayWorkflowContext {
   private final @Nullable String fullReplayDirectQueryName;
   private final Scope replayAwareWorkflowMetricsScope;
   private final SingleWorkerOptions workerOptions;
+  private final @Nullable WorkflowTaskProfile workflowTaskProfile;
 
   /**
    * @param fullReplayDirectQueryName query name if an execution is a full replay caused by a direct
@@ -51,7 +52,8 @@ final class ReplayWorkflowContextImpl implements ReplayWorkflowContext {
       long runStartedTimestampMillis,
       @Nullable String fullReplayDirectQueryName,
       SingleWorkerOptions workerOptions,
-      Scope workflowMetricsScope) {
+      Scope workflowMetricsScope,
+      @Nullable WorkflowTaskProfile workflowTaskProfile) {
     this.workflowStateMachines = workflowStateMachines;
     this.basicWorkflowContext =
         new BasicWorkflowContext(
@@ -61,6 +63,7 @@ final class ReplayWorkflowContextImpl implements ReplayWorkflowContext {
     this.replayAwareWorkflowMetricsScope =
         new ReplayAwareScope(workflowMetricsScope, this, workflowStateMachines::currentTimeMillis);
     this.workerOptions = workerOptions;
+    this.workflowTaskProfile = workflowTaskProfile;
   }
 
   @Override
@@ -470,4 +473,10 @@ final class ReplayWorkflowContextImpl implements ReplayWorkflowContext {
   public void failWorkflowTask(Throwable failure) {
     mutableState.failWorkflowTask(failure);
   }
+
+  @Nullable
+  @Override
+  public WorkflowTaskProfile getWorkflowTaskProfile() {
+    return workflowTaskProfile;
+  }
 }
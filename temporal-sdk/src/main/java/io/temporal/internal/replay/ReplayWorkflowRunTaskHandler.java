@@ -25,6 +25,7 @@ import io.temporal.internal.Config;
 import io.temporal.internal.common.FailureUtils;
 import io.temporal.internal.common.SdkFlag;
 import io.temporal.internal.common.UpdateMessage;
+import io.temporal.internal.replay.WorkflowTaskProfile.Phase;
 import io.temporal.internal.statemachines.ExecuteLocalActivityParameters;
 import io.temporal.internal.statemachines.StatesMachinesCallback;
 import io.temporal.internal.statemachines.WorkflowStateMachines;
@@ -40,6 +41,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
 
 /**
  * Implements workflow executor that relies on replay of a workflow code. An instance of this class
@@ -75,6 +77,8 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
 
   private final GetSystemInfoResponse.Capabilities capabilities;
 
+  private final @Nullable WorkflowTaskProfile profile;
+
   ReplayWorkflowRunTaskHandler(
       String namespace,
       ReplayWorkflow workflow,
@@ -102,6 +106,14 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
                 : workflow.getWorkflowContext().getWorkflowImplementationOptions());
     String fullReplayDirectQueryType =
         workflowTask.hasQuery() ? workflowTask.getQuery().getQueryType() : null;
+    this.profile =
+        workerOptions.isWorkflowTaskProfiling()
+            ? new WorkflowTaskProfile(
+                workflowTask.getWorkflowType().getName(),
+                workflowTask.getWorkflowExecution(),
+                metricsScope,
+                workerOptions.getSlowWorkflowTaskLogThreshold())
+            : null;
     this.context =
         new ReplayWorkflowContextImpl(
             workflowStateMachines,
@@ -111,7 +123,8 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
             Timestamps.toMillis(startedEvent.getEventTime()),
             fullReplayDirectQueryType,
             workerOptions,
-            metricsScope);
+            metricsScope,
+            profile);
 
     this.replayWorkflowExecutor =
         new ReplayWorkflowExecutor(workflow, workflowStateMachines, context);
@@ -125,6 +138,9 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
       PollWorkflowTaskQueueResponseOrBuilder workflowTask, WorkflowHistoryIterator historyIterator)
       throws Throwable {
     lock.lock();
+    if (profile != null) {
+      profile.startTask();
+    }
     try {
       localActivityMeteringHelper.newWFTStarting();
 
@@ -202,6 +218,9 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
       }
       return result.build();
     } finally {
+      if (profile != null) {
+        profile.endTask();
+      }
       lock.unlock();
     }
   }
@@ -234,6 +253,21 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
     workflowStateMachines.resetStartedEventId(eventId);
   }
 
+  @Override
+  public long getHistorySizeBytes() {
+    return workflowStateMachines.getHistorySize();
+  }
+
+  @Override
+  public int getWorkflowThreadCount() {
+    return workflow.getWorkflowThreadCount();
+  }
+
+  @Override
+  public long getLastWorkflowTaskStartedEventId() {
+    return workflowStateMachines.getLastWFTStartedEventId();
+  }
+
   private void handleWorkflowTaskImpl(
       PollWorkflowTaskQueueResponseOrBuilder workflowTask,
       WorkflowHistoryIterator historyIterator) {
@@ -251,12 +285,13 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
     Stopwatch sw = metricsScope.timer(MetricsType.WORKFLOW_TASK_REPLAY_LATENCY).start();
     long currentEventId = 0;
     try {
-      while (historyIterator.hasNext()) {
+      while (hasNextEvent(historyIterator)) {
         // iteration itself is intentionally left outside the try-catch below,
         // as gRPC exception happened during history iteration should never ever fail the workflow
         HistoryEvent event = historyIterator.next();
         currentEventId = event.getEventId();
-        boolean hasNext = historyIterator.hasNext();
+        boolean hasNext = hasNextEvent(historyIterator);
+        Phase previousPhase = enterPhase(Phase.EVENT_APPLICATION);
         try {
           workflowStateMachines.handleEvent(event, hasNext);
         } catch (Throwable e) {
@@ -279,6 +314,11 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
             metricsScope.counter(MetricsType.WORKFLOW_FAILED_COUNTER).inc(1);
           }
           throw wrap(e);
+        } finally {
+          exitPhase(previousPhase);
+        }
+        if (profile != null) {
+          profile.eventApplied();
         }
         if (!timerStopped && !workflowStateMachines.isReplaying()) {
           sw.stop();
@@ -293,6 +333,30 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
     }
   }
 
+  /** Checks for the next event, loading the next history page if needed. */
+  private boolean hasNextEvent(WorkflowHistoryIterator historyIterator) {
+    Phase previousPhase = enterPhase(Phase.HISTORY_FETCH);
+    try {
+      return historyIterator.hasNext();
+    } finally {
+      exitPhase(previousPhase);
+    }
+  }
+
+  /**
+   * @return the phase to pass to {@link #exitPhase(Phase)}, null if the task isn't profiled
+   */
+  @Nullable
+  private Phase enterPhase(Phase phase) {
+    return profile != null ? profile.enter(phase) : null;
+  }
+
+  private void exitPhase(@Nullable Phase previousPhase) {
+    if (profile != null) {
+      profile.exit(previousPhase);
+    }
+  }
+
   // Verify the received and processed all events up to the last one we knew about from the polled
   // task.
   // It is possible for the server to send fewer events than required if we are reading history from
@@ -310,6 +374,7 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
     Map<String, WorkflowQueryResult> queryResults = new HashMap<>();
     for (Map.Entry<String, WorkflowQuery> entry : queries.entrySet()) {
       WorkflowQuery query = entry.getValue();
+      Phase previousPhase = enterPhase(Phase.WORKFLOW_CODE);
       try {
         Optional<Payloads> queryResult = replayWorkflowExecutor.query(query);
         WorkflowQueryResult.Builder result =
@@ -327,6 +392,8 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
                 .setResultType(QueryResultType.QUERY_RESULT_TYPE_FAILED)
                 .setErrorMessage(e + "\n" + stackTrace)
                 .build());
+      } finally {
+        exitPhase(previousPhase);
       }
     }
     return queryResults;
@@ -391,7 +458,12 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
         throw laCompletion.getProcessingError().getThrowable();
       }
 
-      workflowStateMachines.handleLocalActivityCompletion(laCompletion);
+      Phase previousPhase = enterPhase(Phase.EVENT_APPLICATION);
+      try {
+        workflowStateMachines.handleLocalActivityCompletion(laCompletion);
+      } finally {
+        exitPhase(previousPhase);
+      }
       // handleLocalActivityCompletion triggers eventLoop.
       // After this call, there may be new local activity requests available in
       // workflowStateMachines.takeLocalActivityRequests()
@@ -422,7 +494,12 @@ class ReplayWorkflowRunTaskHandler implements WorkflowRunTaskHandler {
 
     @Override
     public void eventLoop() {
-      replayWorkflowExecutor.eventLoop();
+      Phase previousPhase = enterPhase(Phase.WORKFLOW_CODE);
+      try {
+        replayWorkflowExecutor.eventLoop();
+      } finally {
+        exitPhase(previousPhase);
+      }
     }
 
     @Override
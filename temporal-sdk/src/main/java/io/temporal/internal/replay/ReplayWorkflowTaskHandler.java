@@ -86,6 +86,7 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
     AtomicBoolean createdNew = new AtomicBoolean();
     WorkflowExecution execution = workflowTask.getWorkflowExecution();
     WorkflowRunTaskHandler workflowRunTaskHandler = null;
+    ServiceWorkflowHistoryIterator historyIterator = null;
     boolean useCache = stickyTaskQueue != null;
 
     try {
@@ -93,8 +94,13 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
           getOrCreateWorkflowExecutor(useCache, workflowTask, metricsScope, createdNew);
       logWorkflowTaskToBeProcessed(workflowTask, createdNew);
 
-      ServiceWorkflowHistoryIterator historyIterator =
-          new ServiceWorkflowHistoryIterator(service, namespace, workflowTask, metricsScope);
+      historyIterator =
+          new ServiceWorkflowHistoryIterator(
+              service,
+              namespace,
+              workflowTask,
+              metricsScope,
+              options.getWorkflowHistoryPrefetchPages());
       boolean finalCommand;
       Result result;
 
@@ -127,7 +133,9 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
           // don't invalidate execution from the cache if we were not using cached value here
           cache.invalidate(execution, metricsScope, "FinalCommand", null);
         } else if (createdNew.get()) {
-          cache.addToCache(execution, workflowRunTaskHandler);
+          cache.addToCache(execution, stickyTaskQueue.getNormalName(), workflowRunTaskHandler);
+        } else {
+          cache.updateWeight(execution, workflowRunTaskHandler);
         }
       }
 
@@ -163,6 +171,10 @@ public final class ReplayWorkflowTaskHandler implements WorkflowTaskHandler {
         return failureToWFTResult(workflowTask, e, dataConverterWithWorkflowContext);
       }
     } finally {
+      if (historyIterator != null) {
+        // the prefetched pages of a handled or failed workflow task aren't needed anymore
+        historyIterator.close();
+      }
       if (!useCache && workflowRunTaskHandler != null) {
         // we close the execution in finally only if we don't use cache, otherwise it stays open
         workflowRunTaskHandler.close();
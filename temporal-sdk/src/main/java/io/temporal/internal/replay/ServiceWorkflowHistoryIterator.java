@@ -1,7 +1,12 @@
 package io.temporal.internal.replay;
 
+import static io.temporal.internal.common.GrpcUtils.toCompletableFuture;
 import static io.temporal.serviceclient.MetricsTag.METRICS_TAGS_CALL_OPTIONS_KEY;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.protobuf.ByteString;
 import com.uber.m3.tally.Scope;
 import io.grpc.Deadline;
@@ -12,15 +17,41 @@ import io.temporal.api.history.v1.HistoryEvent;
 import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryRequest;
 import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryResponse;
 import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponseOrBuilder;
+import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc;
 import io.temporal.internal.retryer.GrpcRetryer;
 import io.temporal.serviceclient.RpcRetryOptions;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
-/** Supports iteration over history while loading new pages through calls to the service. */
+/**
+ * Supports iteration over history while loading new pages through calls to the service.
+ *
+ * <p>If {@code prefetchPages} is positive, up to that many pages following the current one are
+ * requested asynchronously, so the next pages are loaded while the current one is being replayed.
+ * The prefetch requests are bounded by the deadline set through {@link #initDeadline(Deadline)} and
+ * are cancelled by {@link #close()}.
+ */
 class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
+  private static final ScheduledExecutorService asyncThrottlerExecutor =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("history-iterator-async-throttler-%d")
+              .build());
+  // Ends a prefetch chain that reached the last page, it is never returned by the iterator
+  private static final CompletableFuture<GetWorkflowExecutionHistoryResponse> NO_MORE_PAGES =
+      CompletableFuture.completedFuture(GetWorkflowExecutionHistoryResponse.getDefaultInstance());
 
   private final Duration retryServiceOperationInitialInterval = Duration.ofMillis(200);
   private final Duration retryServiceOperationMaxInterval = Duration.ofSeconds(4);
@@ -29,6 +60,13 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
   private final Scope metricsScope;
   private final PollWorkflowTaskQueueResponseOrBuilder task;
   private final GrpcRetryer grpcRetryer;
+  private final int prefetchPages;
+  // Responses for the pages following the current one, in order
+  private final Deque<CompletableFuture<GetWorkflowExecutionHistoryResponse>> prefetchedPages =
+      new ArrayDeque<>();
+  // Prefetch calls to the service that haven't completed yet
+  private final Set<ListenableFuture<?>> inFlightCalls = ConcurrentHashMap.newKeySet();
+  private volatile boolean closed;
   private Deadline deadline;
   private Iterator<HistoryEvent> current;
   ByteString nextPageToken;
@@ -38,6 +76,15 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
       String namespace,
       PollWorkflowTaskQueueResponseOrBuilder task,
       Scope metricsScope) {
+    this(service, namespace, task, metricsScope, 0);
+  }
+
+  ServiceWorkflowHistoryIterator(
+      WorkflowServiceStubs service,
+      String namespace,
+      PollWorkflowTaskQueueResponseOrBuilder task,
+      Scope metricsScope,
+      int prefetchPages) {
     this.service = service;
     this.namespace = namespace;
     this.task = task;
@@ -46,6 +93,7 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
     //  `service == null` shouldn't be allowed as it's needed for a normal functioning of this
     // class.
     this.grpcRetryer = service != null ? new GrpcRetryer(service.getServerCapabilities()) : null;
+    this.prefetchPages = prefetchPages;
     History history = task.getHistory();
     current = history.getEventsList().iterator();
     nextPageToken = task.getNextPageToken();
@@ -62,10 +110,12 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
       // We need to verify that page is valid before returning true.
       // Otherwise, next() method would throw NoSuchElementException after hasNext() returning
       // true.
-      GetWorkflowExecutionHistoryResponse response = queryWorkflowExecutionHistory();
+      GetWorkflowExecutionHistoryResponse response =
+          prefetchPages > 0 ? takePrefetchedPage() : queryWorkflowExecutionHistory();
 
       current = response.getHistory().getEventsList().iterator();
       nextPageToken = response.getNextPageToken();
+      prefetch();
       // Server can return an empty page, but a valid nextPageToken that contains
       // more events.
       if (current.hasNext()) {
@@ -85,16 +135,72 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
 
   public void initDeadline(Deadline deadline) {
     this.deadline = deadline;
+    prefetch();
+  }
+
+  /**
+   * Cancels the prefetch requests that are still in flight, the pages they would load aren't needed
+   * once the workflow task is handled. The iterator shouldn't be used after this call.
+   */
+  public void close() {
+    closed = true;
+    for (CompletableFuture<GetWorkflowExecutionHistoryResponse> page : prefetchedPages) {
+      // also stops the chained requests of the following pages from being sent
+      page.cancel(false);
+    }
+    prefetchedPages.clear();
+    for (ListenableFuture<?> call : inFlightCalls) {
+      call.cancel(true);
+    }
+  }
+
+  /** Tops up the prefetched pages following {@link #nextPageToken} to {@link #prefetchPages}. */
+  private void prefetch() {
+    if (prefetchPages <= 0 || closed) {
+      return;
+    }
+    if (prefetchedPages.isEmpty()) {
+      if (nextPageToken.isEmpty()) {
+        return;
+      }
+      prefetchedPages.add(queryWorkflowExecutionHistoryAsync(nextPageToken));
+    }
+    while (prefetchedPages.size() < prefetchPages) {
+      CompletableFuture<GetWorkflowExecutionHistoryResponse> last = prefetchedPages.getLast();
+      if (last.isDone()
+          && !last.isCompletedExceptionally()
+          && last.join().getNextPageToken().isEmpty()) {
+        return;
+      }
+      prefetchedPages.add(
+          last.thenCompose(
+              r ->
+                  r.getNextPageToken().isEmpty()
+                      ? NO_MORE_PAGES
+                      : queryWorkflowExecutionHistoryAsync(r.getNextPageToken())));
+    }
+  }
+
+  private GetWorkflowExecutionHistoryResponse takePrefetchedPage() {
+    prefetch();
+    CompletableFuture<GetWorkflowExecutionHistoryResponse> page = prefetchedPages.poll();
+    try {
+      return page.join();
+    } catch (CompletionException e) {
+      // The rest of the chain depends on the failed page
+      prefetchedPages.clear();
+      Throwable cause = e.getCause();
+      if (cause instanceof StatusRuntimeException) {
+        throw toPaginationException((StatusRuntimeException) cause);
+      }
+      Throwables.throwIfUnchecked(cause);
+      throw new RuntimeException(cause);
+    }
   }
 
   GetWorkflowExecutionHistoryResponse queryWorkflowExecutionHistory() {
-    RpcRetryOptions retryOptions =
-        RpcRetryOptions.newBuilder()
-            .setInitialInterval(retryServiceOperationInitialInterval)
-            .setMaximumInterval(retryServiceOperationMaxInterval)
-            .validateBuildWithDefaults();
     GrpcRetryer.GrpcRetryerOptions grpcRetryerOptions =
-        new GrpcRetryer.GrpcRetryerOptions(retryOptions, deadline);
+        new GrpcRetryer.GrpcRetryerOptions(retryOptions(), deadline);
     GetWorkflowExecutionHistoryRequest request =
         GetWorkflowExecutionHistoryRequest.newBuilder()
             .setNamespace(namespace)
@@ -110,14 +216,60 @@ class ServiceWorkflowHistoryIterator implements WorkflowHistoryIterator {
                   .getWorkflowExecutionHistory(request),
           grpcRetryerOptions);
     } catch (StatusRuntimeException ex) {
-      if (Status.DEADLINE_EXCEEDED.equals(ex.getStatus())) {
-        throw Status.DEADLINE_EXCEEDED
-            .withDescription(
-                "getWorkflowExecutionHistory pagination took longer than workflow task timeout")
-            .withCause(ex)
-            .asRuntimeException();
-      }
-      throw ex;
+      throw toPaginationException(ex);
+    }
+  }
+
+  CompletableFuture<GetWorkflowExecutionHistoryResponse> queryWorkflowExecutionHistoryAsync(
+      ByteString pageToken) {
+    GetWorkflowExecutionHistoryRequest request =
+        GetWorkflowExecutionHistoryRequest.newBuilder()
+            .setNamespace(namespace)
+            .setExecution(task.getWorkflowExecution())
+            .setNextPageToken(pageToken)
+            .build();
+    return grpcRetryer.retryWithResultAsync(
+        asyncThrottlerExecutor,
+        () -> {
+          if (closed) {
+            CompletableFuture<GetWorkflowExecutionHistoryResponse> cancelled =
+                new CompletableFuture<>();
+            cancelled.completeExceptionally(new CancellationException("iterator is closed"));
+            return cancelled;
+          }
+          WorkflowServiceGrpc.WorkflowServiceFutureStub stub =
+              service.futureStub().withOption(METRICS_TAGS_CALL_OPTIONS_KEY, metricsScope);
+          if (deadline != null) {
+            stub = stub.withDeadline(deadline);
+          }
+          ListenableFuture<GetWorkflowExecutionHistoryResponse> call =
+              stub.getWorkflowExecutionHistory(request);
+          inFlightCalls.add(call);
+          call.addListener(() -> inFlightCalls.remove(call), MoreExecutors.directExecutor());
+          if (closed) {
+            // closed while the call was being sent
+            call.cancel(true);
+          }
+          return toCompletableFuture(call);
+        },
+        new GrpcRetryer.GrpcRetryerOptions(retryOptions(), deadline));
+  }
+
+  private RpcRetryOptions retryOptions() {
+    return RpcRetryOptions.newBuilder()
+        .setInitialInterval(retryServiceOperationInitialInterval)
+        .setMaximumInterval(retryServiceOperationMaxInterval)
+        .validateBuildWithDefaults();
+  }
+
+  private static StatusRuntimeException toPaginationException(StatusRuntimeException ex) {
+    if (Status.DEADLINE_EXCEEDED.equals(ex.getStatus())) {
+      return Status.DEADLINE_EXCEEDED
+          .withDescription(
+              "getWorkflowExecutionHistory pagination took longer than workflow task timeout")
+          .withCause(ex)
+          .asRuntimeException();
     }
+    return ex;
   }
 }
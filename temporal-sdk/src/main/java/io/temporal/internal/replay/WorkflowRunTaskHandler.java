@@ -43,5 +43,22 @@ public interface WorkflowRunTaskHandler {
    */
   void resetStartedEventId(Long eventId);
 
+  /**
+   * @return size of the workflow history processed by this handler in bytes as reported by the
+   *     server. Used to estimate the amount of memory retained by a cached workflow run.
+   */
+  long getHistorySizeBytes();
+
+  /**
+   * @return number of workflow threads currently owned by this workflow run, including the parked
+   *     ones
+   */
+  int getWorkflowThreadCount();
+
+  /**
+   * @return event id of the last workflow task started event processed by this handler
+   */
+  long getLastWorkflowTaskStartedEventId();
+
   void close();
 }
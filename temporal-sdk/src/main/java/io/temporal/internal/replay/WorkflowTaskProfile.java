@@ -0,0 +1,210 @@
+package io.temporal.internal.replay;
+
+import com.google.common.collect.ImmutableMap;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.serviceclient.MetricsTag;
+import io.temporal.worker.MetricsType;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Breaks down the time of the workflow tasks of a workflow run into the phases of {@link Phase}.
+ * The phases nest, the time of an inner phase isn't counted in the outer one, and the time outside
+ * any phase is reported as {@link Phase#OTHER}. Used by the run's {@link
+ * ReplayWorkflowRunTaskHandler} when {@link
+ * io.temporal.worker.WorkerOptions.Builder#setWorkflowTaskProfiling(boolean)} is enabled.
+ *
+ * <p>Not thread safe. The workflow threads of a run and the thread handling its workflow task never
+ * run at the same time, their handoffs make the updates of one visible to the others.
+ */
+public final class WorkflowTaskProfile {
+  private static final Logger log = LoggerFactory.getLogger(WorkflowTaskProfile.class);
+
+  /** Minimum interval between two slow task logs of the same workflow type. */
+  static final long SLOW_TASK_LOG_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  // workflow type -> the time the next slow task of the type can be logged and the number of
+  // slow tasks that weren't logged since the last log of the type
+  private static final Map<String, SlowTaskLogSampler> slowTaskLogSamplers =
+      new ConcurrentHashMap<>();
+
+  public enum Phase {
+    /** Loading the history pages that didn't come with the workflow task. */
+    HISTORY_FETCH("history_fetch"),
+    /** Applying the history events to the state machines of the run. */
+    EVENT_APPLICATION("event_application"),
+    /** Running the workflow code until all the workflow threads are blocked, and queries. */
+    WORKFLOW_CODE("workflow_code"),
+    /** Payload conversion by the data converter on the workflow threads. */
+    PAYLOAD_CONVERSION("payload_conversion"),
+    /** Everything else, like waiting for local activities. */
+    OTHER("other");
+
+    private final String tagValue;
+
+    Phase(String tagValue) {
+      this.tagValue = tagValue;
+    }
+
+    public String getTagValue() {
+      return tagValue;
+    }
+  }
+
+  private final String workflowType;
+  private final WorkflowExecution execution;
+  private final Scope metricsScope;
+  private final @Nullable Duration slowTaskLogThreshold;
+  private final long[] phaseNanos = new long[Phase.values().length];
+  private boolean active;
+  private Phase current;
+  private long currentSince;
+  private long taskStart;
+  private int events;
+
+  /**
+   * @param metricsScope scope tagged with the workflow type
+   * @param slowTaskLogThreshold tasks taking longer are logged with their breakdown, null to log
+   *     none
+   */
+  WorkflowTaskProfile(
+      String workflowType,
+      WorkflowExecution execution,
+      Scope metricsScope,
+      @Nullable Duration slowTaskLogThreshold) {
+    this.workflowType = workflowType;
+    this.execution = execution;
+    this.metricsScope = metricsScope;
+    this.slowTaskLogThreshold = slowTaskLogThreshold;
+  }
+
+  void startTask() {
+    Arrays.fill(phaseNanos, 0);
+    events = 0;
+    taskStart = System.nanoTime();
+    current = Phase.OTHER;
+    currentSince = taskStart;
+    active = true;
+  }
+
+  /**
+   * Starts to count the time in {@code phase}.
+   *
+   * @return the phase to restore by {@link #exit(Phase)} once {@code phase} ends, null if no task
+   *     is profiled
+   */
+  @Nullable
+  public Phase enter(Phase phase) {
+    if (!active) {
+      return null;
+    }
+    Phase previous = current;
+    switchTo(phase);
+    return previous;
+  }
+
+  /**
+   * @param previous the value returned by the matching {@link #enter(Phase)}
+   */
+  public void exit(@Nullable Phase previous) {
+    if (previous != null && active) {
+      switchTo(previous);
+    }
+  }
+
+  void eventApplied() {
+    events++;
+  }
+
+  /** Ends the profiled task, records its breakdown and logs it if the task is slow. */
+  void endTask() {
+    if (!active) {
+      return;
+    }
+    long end = System.nanoTime();
+    phaseNanos[current.ordinal()] += end - currentSince;
+    active = false;
+    long taskNanos = end - taskStart;
+    for (Phase phase : Phase.values()) {
+      metricsScope
+          .tagged(ImmutableMap.of(MetricsTag.WORKFLOW_TASK_PHASE, phase.getTagValue()))
+          .timer(MetricsType.WORKFLOW_TASK_PHASE_LATENCY)
+          .record(Duration.ofNanos(phaseNanos[phase.ordinal()]));
+    }
+    if (slowTaskLogThreshold != null && taskNanos >= slowTaskLogThreshold.toNanos()) {
+      logSlowTask(taskNanos, end);
+    }
+  }
+
+  long getNanos(Phase phase) {
+    return phaseNanos[phase.ordinal()];
+  }
+
+  private void switchTo(Phase phase) {
+    long now = System.nanoTime();
+    phaseNanos[current.ordinal()] += now - currentSince;
+    current = phase;
+    currentSince = now;
+  }
+
+  private void logSlowTask(long taskNanos, long now) {
+    if (!log.isWarnEnabled()) {
+      return;
+    }
+    long skipped =
+        slowTaskLogSamplers
+            .computeIfAbsent(workflowType, t -> new SlowTaskLogSampler())
+            .sample(now);
+    if (skipped < 0) {
+      return;
+    }
+    StringBuilder breakdown = new StringBuilder();
+    for (Phase phase : Phase.values()) {
+      if (breakdown.length() > 0) {
+        breakdown.append(", ");
+      }
+      breakdown
+          .append(phase.getTagValue())
+          .append('=')
+          .append(TimeUnit.NANOSECONDS.toMillis(phaseNanos[phase.ordinal()]))
+          .append("ms");
+    }
+    log.warn(
+        "Slow workflow task of {} workflowId={} runId={} took {}ms applying {} events: {}."
+            + " {} slow tasks of the type were not logged since the previous log",
+        workflowType,
+        execution.getWorkflowId(),
+        execution.getRunId(),
+        TimeUnit.NANOSECONDS.toMillis(taskNanos),
+        events,
+        breakdown,
+        skipped);
+  }
+
+  private static final class SlowTaskLogSampler {
+    private final AtomicLong nextLogNanos = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong skipped = new AtomicLong();
+
+    /**
+     * @return the number of slow tasks not logged since the last log if this one has to be logged,
+     *     -1 otherwise
+     */
+    long sample(long now) {
+      long next = nextLogNanos.get();
+      if ((next == Long.MIN_VALUE || now - next >= 0)
+          && nextLogNanos.compareAndSet(next, now + SLOW_TASK_LOG_INTERVAL_NANOS)) {
+        return skipped.getAndSet(0);
+      }
+      skipped.incrementAndGet();
+      return -1;
+    }
+  }
+}
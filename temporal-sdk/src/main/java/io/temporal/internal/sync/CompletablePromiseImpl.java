@@ -62,14 +62,16 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
 
   private V getImpl(boolean cancellable) {
     if (!completed) {
-      WorkflowThread.await(
-          "Feature.get",
-          () -> {
-            if (cancellable) {
+      if (cancellable) {
+        WorkflowThread.await(
+            "Feature.get",
+            () -> {
               CancellationScope.throwCanceled();
-            }
-            return completed;
-          });
+              return completed;
+            });
+      } else {
+        WorkflowThread.awaitThreadAgnostic("Feature.get", () -> completed);
+      }
     }
     if (failure != null) {
       unregisterWithRunner();
@@ -122,7 +124,7 @@ class CompletablePromiseImpl<V> implements CompletablePromise<V> {
   @Override
   public RuntimeException getFailure() {
     if (!completed) {
-      WorkflowThread.await("Feature.get", () -> completed);
+      WorkflowThread.awaitThreadAgnostic("Feature.get", () -> completed);
     }
     if (failure != null) {
       unregisterWithRunner();
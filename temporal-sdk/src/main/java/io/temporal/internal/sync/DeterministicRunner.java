@@ -72,6 +72,9 @@ interface DeterministicRunner {
   /** Stack trace of all threads owned by the DeterministicRunner instance */
   String stackTrace();
 
+  /** Number of not completed threads owned by the DeterministicRunner instance */
+  int getWorkflowThreadCount();
+
   /**
    * Executes a runnable in a specially created workflow thread. This newly created thread is given
    * chance to run before any other existing threads. This is used to ensure that some operations
@@ -405,6 +405,19 @@ class DeterministicRunnerImpl implements DeterministicRunner {
     return result.toString();
   }
 
+  @Override
+  public int getWorkflowThreadCount() {
+    lock.lock();
+    try {
+      if (closeFuture.isDone()) {
+        return 0;
+      }
+      return threads.size() + workflowThreadsToAdd.size() + callbackThreadsToAdd.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
   private void appendWorkflowThreadsLocked() {
     threads.addAll(workflowThreadsToAdd);
     workflowThreadsToAdd.clear();
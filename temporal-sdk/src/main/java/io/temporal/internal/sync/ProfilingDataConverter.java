@@ -0,0 +1,98 @@
+package io.temporal.internal.sync;
+
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.failure.v1.Failure;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.internal.replay.ReplayWorkflowContext;
+import io.temporal.internal.replay.WorkflowTaskProfile;
+import io.temporal.internal.replay.WorkflowTaskProfile.Phase;
+import io.temporal.payload.context.SerializationContext;
+import java.lang.reflect.Type;
+import java.util.Optional;
+import java.util.function.Supplier;
+import javax.annotation.Nonnull;
+
+/**
+ * Counts the time of the conversions done on a workflow thread as {@link Phase#PAYLOAD_CONVERSION}
+ * of the workflow task being profiled. Conversions on other threads are delegated without being
+ * measured.
+ */
+public final class ProfilingDataConverter implements DataConverter {
+  private final DataConverter delegate;
+
+  public ProfilingDataConverter(DataConverter delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public <T> Optional<Payload> toPayload(T value) {
+    return profile(() -> delegate.toPayload(value));
+  }
+
+  @Override
+  public <T> T fromPayload(Payload payload, Class<T> valueClass, Type valueType) {
+    return profile(() -> delegate.fromPayload(payload, valueClass, valueType));
+  }
+
+  @Override
+  public Optional<Payloads> toPayloads(Object... values) {
+    return profile(() -> delegate.toPayloads(values));
+  }
+
+  @Override
+  public <T> T fromPayloads(
+      int index, Optional<Payloads> content, Class<T> valueType, Type valueGenericType) {
+    return profile(() -> delegate.fromPayloads(index, content, valueType, valueGenericType));
+  }
+
+  @Override
+  public Object[] fromPayloads(
+      Optional<Payloads> content, Class<?>[] parameterTypes, Type[] genericParameterTypes) {
+    return profile(() -> delegate.fromPayloads(content, parameterTypes, genericParameterTypes));
+  }
+
+  @Nonnull
+  @Override
+  public RuntimeException failureToException(@Nonnull Failure failure) {
+    return profile(() -> delegate.failureToException(failure));
+  }
+
+  @Nonnull
+  @Override
+  public Failure exceptionToFailure(@Nonnull Throwable throwable) {
+    return profile(() -> delegate.exceptionToFailure(throwable));
+  }
+
+  @Nonnull
+  @Override
+  public DataConverter withContext(@Nonnull SerializationContext context) {
+    return new ProfilingDataConverter(delegate.withContext(context));
+  }
+
+  private static <R> R profile(Supplier<R> conversion) {
+    WorkflowTaskProfile profile = currentProfile();
+    if (profile == null) {
+      return conversion.get();
+    }
+    Phase previous = profile.enter(Phase.PAYLOAD_CONVERSION);
+    try {
+      return conversion.get();
+    } finally {
+      profile.exit(previous);
+    }
+  }
+
+  private static WorkflowTaskProfile currentProfile() {
+    WorkflowThread thread = DeterministicRunnerImpl.currentThreadInternalIfPresent().orElse(null);
+    if (thread == null) {
+      return null;
+    }
+    SyncWorkflowContext workflowContext = thread.getWorkflowContext();
+    if (workflowContext == null) {
+      return null;
+    }
+    ReplayWorkflowContext replayContext = workflowContext.getReplayContext();
+    return replayContext != null ? replayContext.getWorkflowTaskProfile() : null;
+  }
+}
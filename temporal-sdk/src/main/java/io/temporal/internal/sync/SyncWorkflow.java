@@ -212,6 +212,11 @@ class SyncWorkflow implements ReplayWorkflow {
     }
   }
 
+  @Override
+  public int getWorkflowThreadCount() {
+    return runner == null ? 0 : runner.getWorkflowThreadCount();
+  }
+
   @Override
   public Optional<Payloads> query(WorkflowQuery query) {
     if (WorkflowClient.QUERY_TYPE_REPLAY_ONLY.equals(query.getQueryType())) {
@@ -21,7 +21,7 @@ final class WorkflowQueueImpl<E> implements WorkflowQueue<E> {
 
   @Override
   public E take() {
-    WorkflowThread.await("WorkflowQueue.take", () -> !queue.isEmpty());
+    WorkflowThread.awaitThreadAgnostic("WorkflowQueue.take", () -> !queue.isEmpty());
     return queue.poll();
   }
 
@@ -89,7 +89,7 @@ final class WorkflowQueueImpl<E> implements WorkflowQueue<E> {
 
   @Override
   public void put(E e) {
-    WorkflowThread.await("WorkflowQueue.put", () -> queue.size() < capacity);
+    WorkflowThread.awaitThreadAgnostic("WorkflowQueue.put", () -> queue.size() < capacity);
     queue.addLast(e);
   }
 
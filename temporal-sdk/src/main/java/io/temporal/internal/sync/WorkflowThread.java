@@ -27,6 +27,29 @@ public interface WorkflowThread extends CancellationScope {
     currentThreadInternal().yield(reason, unblockCondition);
   }
 
+  /**
+   * Same as {@link #await(String, Supplier)}, but allows {@link DeterministicRunner} to evaluate
+   * {@code unblockCondition} on its own thread and to skip resuming the blocked thread while the
+   * condition is false. Resuming a blocked thread only to evaluate its condition is a handoff to
+   * another thread and back, which dominates the event loop of workflows with many blocked threads.
+   *
+   * @param reason reason for blocking
+   * @param unblockCondition condition that should return true to indicate that thread should
+   *     unblock.
+   * @throws DestroyWorkflowThreadError if thread was asked to be destroyed.
+   */
+  static void awaitThreadAgnostic(String reason, ThreadAgnosticCondition unblockCondition)
+      throws DestroyWorkflowThreadError {
+    currentThreadInternal().yield(reason, unblockCondition);
+  }
+
+  /**
+   * Unblock condition that can be evaluated by any thread holding the runner lock. It must have no
+   * side effects and must not depend on the thread it's called from, for example it can't check the
+   * current cancellation scope or use workflow thread locals.
+   */
+  interface ThreadAgnosticCondition extends Supplier<Boolean> {}
+
   /**
    * Creates a new thread instance.
    *
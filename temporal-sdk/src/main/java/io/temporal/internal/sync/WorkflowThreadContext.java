@@ -27,6 +27,8 @@ class WorkflowThreadContext {
   @Nullable private Thread currentThread;
 
   private Functions.Proc1<String> evaluationFunction;
+  // Unblock function of the current yield
+  @Nullable private Supplier<Boolean> unblockFunction;
   private Throwable unhandledException;
   private boolean inRunUntilBlocked;
   private boolean remainedBlocked;
@@ -64,6 +66,7 @@ class WorkflowThreadContext {
         throw new DestroyWorkflowThreadError();
       }
       yieldReason = reason;
+      this.unblockFunction = unblockFunction;
 
       while (!inRunUntilBlocked || !unblockFunction.get()) {
         status = Status.YIELDED;
@@ -84,6 +87,7 @@ class WorkflowThreadContext {
       }
     } finally {
       remainedBlocked = false;
+      this.unblockFunction = null;
       runnerLock.unlock();
     }
   }
@@ -230,6 +234,13 @@ class WorkflowThreadContext {
       }
       Preconditions.checkState(
           evaluationFunction == null, "Cannot runUntilBlocked while evaluating");
+      if (status == Status.YIELDED
+          && !destroyRequested
+          && unblockFunction instanceof WorkflowThread.ThreadAgnosticCondition
+          && !unblockFunction.get()) {
+        // The thread would yield again right away, no need to hand off to it
+        return false;
+      }
       inRunUntilBlocked = true;
       remainedBlocked = true;
       scheduler.scheduleLocked();
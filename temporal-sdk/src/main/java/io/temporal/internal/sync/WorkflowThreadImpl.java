@@ -367,7 +367,8 @@ class WorkflowThreadImpl implements WorkflowThread {
     StackTraceElement[] stackTrace = thread.getStackTrace();
     for (int i = omitTop; i < stackTrace.length - omitBottom; i++) {
       StackTraceElement e = stackTrace[i];
-      if (i == omitTop && "await".equals(e.getMethodName())) continue;
+      // WorkflowThread.await or WorkflowThread.awaitThreadAgnostic
+      if (i == omitTop && e.getMethodName().startsWith("await")) continue;
       result.append(e);
       result.append("\n");
     }
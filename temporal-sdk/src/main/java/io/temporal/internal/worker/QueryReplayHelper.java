@@ -2,6 +2,7 @@ package io.temporal.internal.worker;
 
 import com.google.protobuf.ByteString;
 import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.api.common.v1.WorkflowType;
 import io.temporal.api.history.v1.History;
 import io.temporal.api.history.v1.HistoryEvent;
@@ -18,7 +19,8 @@ import java.util.Optional;
  * io.temporal.worker.Worker#replayWorkflowExecution}
  *
  * <p>The implementation in this class doesn't execute under runId lock used in the main code path
- * of Worker, so it shouldn't be using the workflow cache either.
+ * of Worker, so it shouldn't be using the workflow cache either. The only exception is the workflow
+ * cache warm-up which takes the runId lock itself.
  */
 public class QueryReplayHelper {
   private final WorkflowTaskHandler handler;
@@ -46,6 +48,17 @@ public class QueryReplayHelper {
     return queryWorkflowExecution(queryType, args, history, ByteString.EMPTY);
   }
 
+  /**
+   * Unlike the other methods, uses the passed execution instead of a fake one. Used to replay
+   * workflows into the workflow cache.
+   */
+  public Optional<Payloads> queryWorkflowExecution(
+      WorkflowExecution execution, History history, String queryType, Optional<Payloads> args)
+      throws Exception {
+    return queryWorkflowExecution(
+        queryType, args, execution, history.getEventsList(), ByteString.EMPTY);
+  }
+
   @SuppressWarnings("deprecation")
   private Optional<Payloads> queryWorkflowExecution(
       String queryType,
@@ -53,16 +66,26 @@ public class QueryReplayHelper {
       io.temporal.internal.common.WorkflowExecutionHistory history,
       ByteString nextPageToken)
       throws Exception {
+    return queryWorkflowExecution(
+        queryType, args, history.getWorkflowExecution(), history.getEvents(), nextPageToken);
+  }
+
+  private Optional<Payloads> queryWorkflowExecution(
+      String queryType,
+      Optional<Payloads> args,
+      WorkflowExecution execution,
+      List<HistoryEvent> events,
+      ByteString nextPageToken)
+      throws Exception {
     WorkflowQuery.Builder query = WorkflowQuery.newBuilder().setQueryType(queryType);
     args.ifPresent(query::setQueryArgs);
     PollWorkflowTaskQueueResponse.Builder task =
         PollWorkflowTaskQueueResponse.newBuilder()
-            .setWorkflowExecution(history.getWorkflowExecution())
+            .setWorkflowExecution(execution)
             .setStartedEventId(Long.MAX_VALUE)
             .setPreviousStartedEventId(Long.MAX_VALUE)
             .setNextPageToken(nextPageToken)
             .setQuery(query);
-    List<HistoryEvent> events = history.getEvents();
     HistoryEvent startedEvent = events.get(0);
     if (!startedEvent.hasWorkflowExecutionStartedEventAttributes()) {
       throw new IllegalStateException(
@@ -79,7 +102,7 @@ public class QueryReplayHelper {
       if (!r.getErrorMessage().isEmpty()) {
         throw new RuntimeException(
             "query failure for "
-                + history.getWorkflowExecution()
+                + execution
                 + ", queryType="
                 + queryType
                 + ", args="
@@ -40,6 +40,10 @@ public final class SingleWorkerOptions {
     private Duration drainStickyTaskQueueTimeout;
     private boolean usingVirtualThreads;
     private WorkerDeploymentOptions deploymentOptions;
+    private int workflowHistoryPrefetchPages;
+    private boolean usingWorkflowTaskPipelining;
+    private boolean workflowTaskProfiling;
+    private Duration slowWorkflowTaskLogThreshold;
 
     private Builder() {}
 
@@ -64,6 +68,10 @@ public final class SingleWorkerOptions {
       this.drainStickyTaskQueueTimeout = options.getDrainStickyTaskQueueTimeout();
       this.usingVirtualThreads = options.isUsingVirtualThreads();
       this.deploymentOptions = options.getDeploymentOptions();
+      this.workflowHistoryPrefetchPages = options.getWorkflowHistoryPrefetchPages();
+      this.usingWorkflowTaskPipelining = options.isUsingWorkflowTaskPipelining();
+      this.workflowTaskProfiling = options.isWorkflowTaskProfiling();
+      this.slowWorkflowTaskLogThreshold = options.getSlowWorkflowTaskLogThreshold();
     }
 
     public Builder setIdentity(String identity) {
@@ -155,6 +163,26 @@ public final class SingleWorkerOptions {
       return this;
     }
 
+    public Builder setWorkflowHistoryPrefetchPages(int workflowHistoryPrefetchPages) {
+      this.workflowHistoryPrefetchPages = workflowHistoryPrefetchPages;
+      return this;
+    }
+
+    public Builder setUsingWorkflowTaskPipelining(boolean usingWorkflowTaskPipelining) {
+      this.usingWorkflowTaskPipelining = usingWorkflowTaskPipelining;
+      return this;
+    }
+
+    public Builder setWorkflowTaskProfiling(boolean workflowTaskProfiling) {
+      this.workflowTaskProfiling = workflowTaskProfiling;
+      return this;
+    }
+
+    public Builder setSlowWorkflowTaskLogThreshold(Duration slowWorkflowTaskLogThreshold) {
+      this.slowWorkflowTaskLogThreshold = slowWorkflowTaskLogThreshold;
+      return this;
+    }
+
     public SingleWorkerOptions build() {
       PollerOptions pollerOptions = this.pollerOptions;
       if (pollerOptions == null) {
@@ -193,7 +221,11 @@ public final class SingleWorkerOptions {
           this.defaultHeartbeatThrottleInterval,
           drainStickyTaskQueueTimeout,
           usingVirtualThreads,
-          this.deploymentOptions);
+          this.deploymentOptions,
+          this.workflowHistoryPrefetchPages,
+          this.usingWorkflowTaskPipelining,
+          this.workflowTaskProfiling,
+          this.slowWorkflowTaskLogThreshold);
     }
   }
 
@@ -214,6 +246,10 @@ public final class SingleWorkerOptions {
   private final Duration drainStickyTaskQueueTimeout;
   private final boolean usingVirtualThreads;
   private final WorkerDeploymentOptions deploymentOptions;
+  private final int workflowHistoryPrefetchPages;
+  private final boolean usingWorkflowTaskPipelining;
+  private final boolean workflowTaskProfiling;
+  private final Duration slowWorkflowTaskLogThreshold;
 
   private SingleWorkerOptions(
       String identity,
@@ -232,7 +268,11 @@ public final class SingleWorkerOptions {
       Duration defaultHeartbeatThrottleInterval,
       Duration drainStickyTaskQueueTimeout,
       boolean usingVirtualThreads,
-      WorkerDeploymentOptions deploymentOptions) {
+      WorkerDeploymentOptions deploymentOptions,
+      int workflowHistoryPrefetchPages,
+      boolean usingWorkflowTaskPipelining,
+      boolean workflowTaskProfiling,
+      Duration slowWorkflowTaskLogThreshold) {
     this.identity = identity;
     this.binaryChecksum = binaryChecksum;
     this.buildId = buildId;
@@ -250,6 +290,10 @@ public final class SingleWorkerOptions {
     this.drainStickyTaskQueueTimeout = drainStickyTaskQueueTimeout;
     this.usingVirtualThreads = usingVirtualThreads;
     this.deploymentOptions = deploymentOptions;
+    this.workflowHistoryPrefetchPages = workflowHistoryPrefetchPages;
+    this.usingWorkflowTaskPipelining = usingWorkflowTaskPipelining;
+    this.workflowTaskProfiling = workflowTaskProfiling;
+    this.slowWorkflowTaskLogThreshold = slowWorkflowTaskLogThreshold;
   }
 
   public String getIdentity() {
@@ -320,6 +364,22 @@ public final class SingleWorkerOptions {
     return defaultHeartbeatThrottleInterval;
   }
 
+  public int getWorkflowHistoryPrefetchPages() {
+    return workflowHistoryPrefetchPages;
+  }
+
+  public boolean isUsingWorkflowTaskPipelining() {
+    return usingWorkflowTaskPipelining;
+  }
+
+  public boolean isWorkflowTaskProfiling() {
+    return workflowTaskProfiling;
+  }
+
+  public Duration getSlowWorkflowTaskLogThreshold() {
+    return slowWorkflowTaskLogThreshold;
+  }
+
   public WorkerVersionStamp workerVersionStamp() {
     return WorkerVersionStamp.newBuilder()
         .setBuildId(this.getBuildId())
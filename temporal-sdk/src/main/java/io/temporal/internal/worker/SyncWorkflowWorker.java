@@ -3,6 +3,8 @@ package io.temporal.internal.worker;
 import static io.temporal.internal.common.InternalUtils.createStickyTaskQueue;
 
 import io.temporal.api.common.v1.Payloads;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.history.v1.History;
 import io.temporal.api.taskqueue.v1.TaskQueue;
 import io.temporal.client.WorkflowClient;
 import io.temporal.common.converter.DataConverter;
@@ -51,6 +53,10 @@ public class SyncWorkflowWorker implements SuspendableWorker {
 
   private final WorkflowWorker workflowWorker;
   private final QueryReplayHelper queryReplayHelper;
+  // null if sticky execution is disabled
+  private final @Nullable QueryReplayHelper cacheWarmUpReplayHelper;
+  private final WorkflowRunLockManager runLocks;
+  private final WorkflowExecutorCache cache;
   private final LocalActivityWorker laWorker;
   private final POJOWorkflowImplementationFactory factory;
   private final DataConverter dataConverter;
@@ -75,6 +81,8 @@ public class SyncWorkflowWorker implements SuspendableWorker {
     this.namespace = namespace;
     this.taskQueue = taskQueue;
     this.dataConverter = singleWorkerOptions.getDataConverter();
+    this.runLocks = runLocks;
+    this.cache = cache;
 
     factory =
         new POJOWorkflowImplementationFactory(
@@ -141,6 +149,9 @@ public class SyncWorkflowWorker implements SuspendableWorker {
             laWorker.getLocalActivityScheduler());
 
     queryReplayHelper = new QueryReplayHelper(nonStickyReplayTaskHandler);
+    // Uses the sticky handler to leave the replayed workflow in the cache, the runId lock is taken
+    // by #warmUpWorkflowCache
+    cacheWarmUpReplayHelper = stickyTaskQueue != null ? new QueryReplayHelper(taskHandler) : null;
   }
 
   public void registerWorkflowImplementationTypes(
@@ -214,6 +225,36 @@ public class SyncWorkflowWorker implements SuspendableWorker {
     return dataConverter.fromPayloads(0, result, resultClass, resultType);
   }
 
+  /**
+   * Replays the history and leaves the workflow in the workflow cache, so the next workflow task of
+   * the run doesn't need a full replay. The history must end with a workflow task completed event.
+   *
+   * @return true if the workflow has been added to the cache, false if the workflow is already
+   *     cached or being processed, sticky execution is disabled, or the workflow completed during
+   *     the replay
+   */
+  public boolean warmUpWorkflowCache(WorkflowExecution execution, History history)
+      throws Exception {
+    if (cacheWarmUpReplayHelper == null) {
+      return false;
+    }
+    String runId = execution.getRunId();
+    // don't wait for the lock, a workflow task is already processing this run
+    if (!runLocks.tryLock(runId)) {
+      return false;
+    }
+    try {
+      if (cache.contains(execution)) {
+        return false;
+      }
+      cacheWarmUpReplayHelper.queryWorkflowExecution(
+          execution, history, WorkflowClient.QUERY_TYPE_REPLAY_ONLY, Optional.empty());
+      return cache.markWarmedUp(execution);
+    } finally {
+      runLocks.unlock(runId);
+    }
+  }
+
   @Override
   public boolean isSuspended() {
     return workflowWorker.isSuspended();
@@ -11,6 +11,8 @@ class WorkerThreadsNameHelper {
 
   public static final String LOCAL_ACTIVITY_SCHEDULER_THREAD_NAME_PREFIX =
       "LocalActivityScheduler-";
+  public static final String WORKFLOW_TASK_COMPLETION_THREAD_NAME_PREFIX =
+      "TemporalWorkflowTaskCompletion-";
 
   public static String getWorkflowPollerThreadPrefix(String namespace, String taskQueue) {
     return WORKFLOW_POLL_THREAD_NAME_PREFIX
@@ -47,6 +49,10 @@ class WorkerThreadsNameHelper {
     return LOCAL_ACTIVITY_SCHEDULER_THREAD_NAME_PREFIX + namespace + "-" + taskQueue;
   }
 
+  public static String getWorkflowTaskCompletionThreadPrefix(String namespace, String taskQueue) {
+    return WORKFLOW_TASK_COMPLETION_THREAD_NAME_PREFIX + namespace + "-" + taskQueue;
+  }
+
   public static String getNexusPollerThreadPrefix(String namespace, String taskQueue) {
     return NEXUS_POLL_THREAD_NAME_PREFIX + "\"" + taskQueue + "\", namespace=\"" + namespace + "\"";
   }
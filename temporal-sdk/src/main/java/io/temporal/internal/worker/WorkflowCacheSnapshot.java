@@ -0,0 +1,179 @@
+package io.temporal.internal.worker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Hot workflow runs of a {@link WorkflowExecutorCache} saved to a local file on a graceful shutdown
+ * of a worker and used to warm up the cache of the next worker started on the same host.
+ *
+ * <p>The file is a UTF-8 text file with a header line followed by one line per workflow run, the
+ * hottest runs first. Each line contains URL-encoded task queue, workflow id, run id and the last
+ * processed workflow task started event id separated by tabs.
+ */
+public final class WorkflowCacheSnapshot {
+  private static final String HEADER = "temporal-workflow-cache-snapshot-v1";
+  private static final String SEPARATOR = "\t";
+
+  private final List<Entry> entries;
+
+  public WorkflowCacheSnapshot(List<Entry> entries) {
+    this.entries = Collections.unmodifiableList(new ArrayList<>(entries));
+  }
+
+  /**
+   * @return cached workflow runs, ordered from the hottest to the coldest
+   */
+  public List<Entry> getEntries() {
+    return entries;
+  }
+
+  /** Writes the snapshot replacing the file atomically if the file system supports it. */
+  public void write(Path file) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+      writer.write(HEADER);
+      writer.newLine();
+      for (Entry entry : entries) {
+        writer.write(encode(entry.getTaskQueue()));
+        writer.write(SEPARATOR);
+        writer.write(encode(entry.getWorkflowId()));
+        writer.write(SEPARATOR);
+        writer.write(encode(entry.getRunId()));
+        writer.write(SEPARATOR);
+        writer.write(Long.toString(entry.getLastWorkflowTaskStartedEventId()));
+        writer.newLine();
+      }
+    }
+    try {
+      Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * @throws IOException if the file can't be read or has an unexpected format
+   */
+  public static WorkflowCacheSnapshot read(Path file) throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String header = reader.readLine();
+      if (!HEADER.equals(header)) {
+        throw new IOException(
+            "Unexpected workflow cache snapshot header in " + file + ": " + header);
+      }
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        String[] fields = line.split(SEPARATOR, -1);
+        if (fields.length != 4) {
+          throw new IOException("Malformed workflow cache snapshot line in " + file + ": " + line);
+        }
+        try {
+          entries.add(
+              new Entry(
+                  decode(fields[0]),
+                  decode(fields[1]),
+                  decode(fields[2]),
+                  Long.parseLong(fields[3])));
+        } catch (IllegalArgumentException e) {
+          throw new IOException(
+              "Malformed workflow cache snapshot line in " + file + ": " + line, e);
+        }
+      }
+    }
+    return new WorkflowCacheSnapshot(entries);
+  }
+
+  private static String encode(String value) throws UnsupportedEncodingException {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+  }
+
+  private static String decode(String value) throws UnsupportedEncodingException {
+    return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+  }
+
+  public static final class Entry {
+    private final String taskQueue;
+    private final String workflowId;
+    private final String runId;
+    private final long lastWorkflowTaskStartedEventId;
+
+    public Entry(
+        String taskQueue, String workflowId, String runId, long lastWorkflowTaskStartedEventId) {
+      this.taskQueue = Objects.requireNonNull(taskQueue);
+      this.workflowId = Objects.requireNonNull(workflowId);
+      this.runId = Objects.requireNonNull(runId);
+      this.lastWorkflowTaskStartedEventId = lastWorkflowTaskStartedEventId;
+    }
+
+    public String getTaskQueue() {
+      return taskQueue;
+    }
+
+    public String getWorkflowId() {
+      return workflowId;
+    }
+
+    public String getRunId() {
+      return runId;
+    }
+
+    public long getLastWorkflowTaskStartedEventId() {
+      return lastWorkflowTaskStartedEventId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Entry entry = (Entry) o;
+      return lastWorkflowTaskStartedEventId == entry.lastWorkflowTaskStartedEventId
+          && taskQueue.equals(entry.taskQueue)
+          && workflowId.equals(entry.workflowId)
+          && runId.equals(entry.runId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(taskQueue, workflowId, runId, lastWorkflowTaskStartedEventId);
+    }
+
+    @Override
+    public String toString() {
+      return "Entry{"
+          + "taskQueue='"
+          + taskQueue
+          + '\''
+          + ", workflowId='"
+          + workflowId
+          + '\''
+          + ", runId='"
+          + runId
+          + '\''
+          + ", lastWorkflowTaskStartedEventId="
+          + lastWorkflowTaskStartedEventId
+          + '}';
+    }
+  }
+}
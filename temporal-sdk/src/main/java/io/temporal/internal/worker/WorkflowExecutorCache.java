@@ -5,13 +5,28 @@ import static io.temporal.internal.common.WorkflowExecutionUtils.isFullHistory;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
 import com.uber.m3.tally.Scope;
+import com.uber.m3.util.ImmutableMap;
 import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponseOrBuilder;
 import io.temporal.internal.replay.WorkflowRunTaskHandler;
+import io.temporal.serviceclient.MetricsTag;
+import io.temporal.worker.LruWorkflowCacheEvictionPolicy;
 import io.temporal.worker.MetricsType;
+import io.temporal.worker.WorkflowCacheEvictionPolicy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import org.slf4j.Logger;
@@ -22,41 +37,84 @@ public final class WorkflowExecutorCache {
   private final Logger log = LoggerFactory.getLogger(WorkflowExecutorCache.class);
   private final WorkflowRunLockManager runLockManager;
   private final Cache<String, WorkflowRunTaskHandler> cache;
+  private final int workflowCacheSize;
+  private final @Nullable WorkflowRunTaskHandlerWeigher weigher;
+  private final WorkflowCacheEvictionPolicy evictionPolicy;
   private final Scope metricsScope;
+  private final Scope evictionPolicyMetricsScope;
+
+  // Serializes all calls to the eviction policy and protects trackedRuns, totalWeight and
+  // warmedUpRuns. Cache hits take it only if it's free, see #recordAccess.
+  private final Lock evictionLock = new ReentrantLock();
+  private final Map<String, TrackedRun> trackedRuns = new HashMap<>();
+  private long totalWeight;
+  // runs replayed by a cache warm-up that haven't received a workflow task yet
+  private final Set<String> warmedUpRuns = new HashSet<>();
+  // Cache hits not reported to the eviction policy yet. Hits don't wait for evictionLock, they are
+  // reported by whoever holds the lock next.
+  private final ConcurrentLinkedQueue<String> pendingAccesses = new ConcurrentLinkedQueue<>();
 
   public WorkflowExecutorCache(
       int workflowCacheSize, WorkflowRunLockManager runLockManager, Scope scope) {
+    this(workflowCacheSize, 0, 0, new LruWorkflowCacheEvictionPolicy(), runLockManager, scope);
+  }
+
+  /**
+   * @param workflowCacheSize maximum number of cached workflow runs
+   * @param maxHistorySizeBytes maximum total history size of cached workflow runs, 0 means no limit
+   * @param maxThreadCount maximum total number of workflow threads owned by cached workflow runs, 0
+   *     means no limit
+   * @param evictionPolicy decides which workflow runs are evicted when the cache is over its limits
+   *     or when workflow threads are needed for another workflow run
+   */
+  public WorkflowExecutorCache(
+      int workflowCacheSize,
+      long maxHistorySizeBytes,
+      int maxThreadCount,
+      WorkflowCacheEvictionPolicy evictionPolicy,
+      WorkflowRunLockManager runLockManager,
+      Scope scope) {
     Preconditions.checkArgument(workflowCacheSize > 0, "Max cache size must be greater than 0");
     this.runLockManager = runLockManager;
+    this.workflowCacheSize = workflowCacheSize;
+    this.weigher =
+        maxHistorySizeBytes > 0 || maxThreadCount > 0
+            ? new WorkflowRunTaskHandlerWeigher(
+                workflowCacheSize, maxHistorySizeBytes, maxThreadCount)
+            : null;
+    this.evictionPolicy = Objects.requireNonNull(evictionPolicy);
+    // The limits are enforced by this class according to the eviction policy. Guava cache is not
+    // bounded and is responsible only for closing removed workflow runs.
     this.cache =
         CacheBuilder.newBuilder()
-            .maximumSize(workflowCacheSize)
             // TODO this number is taken out of the blue.
             //  This number should be calculated based on the number of all workers workflow task
             //  processors.
             .concurrencyLevel(128)
-            .removalListener(
-                e -> {
-                  WorkflowRunTaskHandler entry = (WorkflowRunTaskHandler) e.getValue();
-                  if (entry != null) {
-                    try {
-                      log.trace(
-                          "Closing workflow execution for runId {}, cause {}",
-                          e.getKey(),
-                          e.getCause());
-                      entry.close();
-                      log.trace("Workflow execution for runId {} closed", e);
-                    } catch (Throwable t) {
-                      log.error("Workflow execution closure failed with an exception", t);
-                      throw t;
-                    }
-                  }
-                })
+            .removalListener(this::onRemoval)
             .build();
     this.metricsScope = Objects.requireNonNull(scope);
+    this.evictionPolicyMetricsScope =
+        metricsScope.tagged(
+            ImmutableMap.of(MetricsTag.WORKFLOW_CACHE_EVICTION_POLICY, evictionPolicy.getName()));
     this.metricsScope.gauge(MetricsType.STICKY_CACHE_SIZE).update(size());
   }
 
+  private void onRemoval(RemovalNotification<Object, Object> e) {
+    WorkflowRunTaskHandler entry = (WorkflowRunTaskHandler) e.getValue();
+    if (entry != null) {
+      untrack((String) e.getKey(), entry);
+      try {
+        log.trace("Closing workflow execution for runId {}, cause {}", e.getKey(), e.getCause());
+        entry.close();
+        log.trace("Workflow execution for runId {} closed", e);
+      } catch (Throwable t) {
+        log.error("Workflow execution closure failed with an exception", t);
+        throw t;
+      }
+    }
+  }
+
   public WorkflowRunTaskHandler getOrCreate(
       PollWorkflowTaskQueueResponseOrBuilder workflowTask,
       Scope workflowTypeScope,
@@ -65,6 +123,17 @@ public final class WorkflowExecutorCache {
     WorkflowExecution execution = workflowTask.getWorkflowExecution();
     String runId = execution.getRunId();
     if (isFullHistory(workflowTask)) {
+      @Nullable WorkflowRunTaskHandler warmedUp = takeWarmedUp(runId);
+      if (warmedUp != null) {
+        // A warmed up executor already processed a prefix of this history. The events it has
+        // processed are skipped by the state machines.
+        log.trace(
+            "Warmed up Workflow Executor {}-{} has been used for a full history run",
+            execution.getWorkflowId(),
+            runId);
+        workflowTypeScope.counter(MetricsType.STICKY_CACHE_HIT).inc(1);
+        return warmedUp;
+      }
       invalidate(execution, metricsScope, "full history", null);
       log.trace(
           "New Workflow Executor {}-{} has been created for a full history run",
@@ -77,6 +146,7 @@ public final class WorkflowExecutorCache {
 
     if (workflowRunTaskHandler != null) {
       workflowTypeScope.counter(MetricsType.STICKY_CACHE_HIT).inc(1);
+      recordAccess(runId);
       return workflowRunTaskHandler;
     }
 
@@ -91,14 +161,255 @@ public final class WorkflowExecutorCache {
 
   public void addToCache(
       WorkflowExecution workflowExecution, WorkflowRunTaskHandler workflowRunTaskHandler) {
-    cache.put(workflowExecution.getRunId(), workflowRunTaskHandler);
+    addToCache(workflowExecution, null, workflowRunTaskHandler);
+  }
+
+  /**
+   * @param taskQueue task queue of the workflow run, runs without a task queue are not included
+   *     into {@link #snapshot()}
+   */
+  public void addToCache(
+      WorkflowExecution workflowExecution,
+      @Nullable String taskQueue,
+      WorkflowRunTaskHandler workflowRunTaskHandler) {
+    String runId = workflowExecution.getRunId();
+    cache.put(runId, workflowRunTaskHandler);
+    // calculated outside of the lock, the handler may need to take its own locks
+    int weight = weigh(runId, workflowRunTaskHandler);
+    long replayCost = workflowRunTaskHandler.getHistorySizeBytes();
+    TrackedRun run =
+        new TrackedRun(workflowExecution, taskQueue, workflowRunTaskHandler, weight, replayCost);
+    evictionLock.lock();
+    try {
+      TrackedRun previous = trackedRuns.put(runId, run);
+      if (previous != null) {
+        totalWeight -= previous.weight;
+        evictionPolicy.onRemove(runId);
+        warmedUpRuns.remove(runId);
+      }
+      totalWeight += weight;
+      evictionPolicy.onAdd(runId, replayCost);
+    } finally {
+      evictionLock.unlock();
+    }
+    if (cache.asMap().get(runId) != workflowRunTaskHandler) {
+      // concurrently invalidated before it was tracked
+      untrack(runId, workflowRunTaskHandler);
+    }
     log.trace(
         "Workflow Execution {}-{} has been added to cache",
         workflowExecution.getWorkflowId(),
-        workflowExecution.getRunId());
+        runId);
+    evictionPolicyMetricsScope
+        .counter(MetricsType.STICKY_CACHE_REPLAYED_HISTORY_SIZE)
+        .inc(replayCost);
+    evictOverLimits(runId);
     this.metricsScope.gauge(MetricsType.STICKY_CACHE_SIZE).update(size());
   }
 
+  /**
+   * Updates the replay cost and the weight of a cached workflow run after it processed a workflow
+   * task and its history or number of workflow threads changed. Noop if the run is not cached.
+   */
+  public void updateWeight(
+      WorkflowExecution workflowExecution, WorkflowRunTaskHandler workflowRunTaskHandler) {
+    String runId = workflowExecution.getRunId();
+    int weight = weigh(runId, workflowRunTaskHandler);
+    long replayCost = workflowRunTaskHandler.getHistorySizeBytes();
+    boolean updated = false;
+    evictionLock.lock();
+    try {
+      TrackedRun tracked = trackedRuns.get(runId);
+      if (tracked != null && tracked.handler == workflowRunTaskHandler) {
+        totalWeight += weight - tracked.weight;
+        tracked.weight = weight;
+        tracked.replayCost = replayCost;
+        evictionPolicy.onReplayCostUpdate(runId, replayCost);
+        updated = true;
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+    if (updated) {
+      log.trace(
+          "Weight of Workflow Execution {}-{} has been updated",
+          workflowExecution.getWorkflowId(),
+          runId);
+      evictOverLimits(runId);
+      this.metricsScope.gauge(MetricsType.STICKY_CACHE_SIZE).update(size());
+    }
+  }
+
+  /**
+   * Evicts workflow runs in the order suggested by the eviction policy until the cache is within
+   * its limits.
+   *
+   * @param protectedRunId workflow run that was just added or updated and shouldn't be evicted
+   */
+  private void evictOverLimits(String protectedRunId) {
+    List<String> victims = new ArrayList<>();
+    long evictedReplayCost = 0;
+    evictionLock.lock();
+    try {
+      drainAccessesLocked();
+      if (isOverLimitsLocked()) {
+        Iterator<String> candidates = evictionPolicy.getEvictionCandidates();
+        while (isOverLimitsLocked() && candidates.hasNext()) {
+          String candidate = candidates.next();
+          if (candidate.equals(protectedRunId)) {
+            continue;
+          }
+          TrackedRun run = trackedRuns.remove(candidate);
+          if (run == null) {
+            continue;
+          }
+          totalWeight -= run.weight;
+          warmedUpRuns.remove(candidate);
+          evictedReplayCost += run.replayCost;
+          victims.add(candidate);
+        }
+        // the policy is not modified while its iterator is in use
+        for (String victim : victims) {
+          evictionPolicy.onRemove(victim);
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+    if (victims.isEmpty()) {
+      return;
+    }
+    for (String victim : victims) {
+      log.trace("Evicting Workflow Execution with runId {} because cache is full", victim);
+      cache.invalidate(victim);
+    }
+    evictionPolicyMetricsScope.counter(MetricsType.STICKY_CACHE_EVICTION).inc(victims.size());
+    evictionPolicyMetricsScope
+        .counter(MetricsType.STICKY_CACHE_EVICTED_HISTORY_SIZE)
+        .inc(evictedReplayCost);
+  }
+
+  /**
+   * Records a cache hit for the eviction policy. The hit is reported right away only if nobody
+   * holds the eviction lock, otherwise it's left to the lock holder.
+   */
+  private void recordAccess(String runId) {
+    pendingAccesses.add(runId);
+    if (evictionLock.tryLock()) {
+      try {
+        drainAccessesLocked();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void drainAccessesLocked() {
+    String runId;
+    while ((runId = pendingAccesses.poll()) != null) {
+      if (trackedRuns.containsKey(runId)) {
+        evictionPolicy.onAccess(runId);
+      }
+    }
+  }
+
+  private boolean isOverLimitsLocked() {
+    if (weigher != null) {
+      return totalWeight > WorkflowRunTaskHandlerWeigher.MAXIMUM_WEIGHT;
+    }
+    return trackedRuns.size() > workflowCacheSize;
+  }
+
+  private int weigh(String runId, WorkflowRunTaskHandler workflowRunTaskHandler) {
+    return weigher != null ? weigher.weigh(runId, workflowRunTaskHandler) : 1;
+  }
+
+  private void untrack(String runId, WorkflowRunTaskHandler workflowRunTaskHandler) {
+    evictionLock.lock();
+    try {
+      TrackedRun tracked = trackedRuns.get(runId);
+      if (tracked != null && tracked.handler == workflowRunTaskHandler) {
+        trackedRuns.remove(runId);
+        totalWeight -= tracked.weight;
+        evictionPolicy.onRemove(runId);
+        warmedUpRuns.remove(runId);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Marks a cached workflow run as replayed by a cache warm-up. The first workflow task of such a
+   * run is allowed to reuse the cached executor even if the task comes with a full history, which
+   * is always the case for the first task after a worker restart. Must be called under the run
+   * lock.
+   *
+   * @return true if the run is cached and has been marked
+   */
+  public boolean markWarmedUp(WorkflowExecution workflowExecution) {
+    String runId = workflowExecution.getRunId();
+    evictionLock.lock();
+    try {
+      if (!trackedRuns.containsKey(runId)) {
+        return false;
+      }
+      warmedUpRuns.add(runId);
+    } finally {
+      evictionLock.unlock();
+    }
+    metricsScope.counter(MetricsType.STICKY_CACHE_WARM_UP).inc(1);
+    return true;
+  }
+
+  @Nullable
+  private WorkflowRunTaskHandler takeWarmedUp(String runId) {
+    evictionLock.lock();
+    try {
+      TrackedRun tracked = trackedRuns.get(runId);
+      if (!warmedUpRuns.remove(runId) || tracked == null) {
+        return null;
+      }
+      evictionPolicy.onAccess(runId);
+      return tracked.handler;
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public boolean contains(WorkflowExecution workflowExecution) {
+    return cache.getIfPresent(workflowExecution.getRunId()) != null;
+  }
+
+  /**
+   * @return cached workflow runs that have a known task queue, ordered from the least to the most
+   *     preferred for eviction
+   */
+  public WorkflowCacheSnapshot snapshot() {
+    List<WorkflowCacheSnapshot.Entry> entries = new ArrayList<>();
+    evictionLock.lock();
+    try {
+      drainAccessesLocked();
+      List<String> candidates = new ArrayList<>();
+      evictionPolicy.getEvictionCandidates().forEachRemaining(candidates::add);
+      for (int i = candidates.size() - 1; i >= 0; i--) {
+        TrackedRun run = trackedRuns.get(candidates.get(i));
+        if (run == null || run.taskQueue == null) {
+          continue;
+        }
+        entries.add(
+            new WorkflowCacheSnapshot.Entry(
+                run.taskQueue,
+                run.execution.getWorkflowId(),
+                run.execution.getRunId(),
+                run.handler.getLastWorkflowTaskStartedEventId()));
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+    return new WorkflowCacheSnapshot(entries);
+  }
+
   /**
    * @param workflowTypeScope accepts workflow metric scope (tagged with task queue and workflow
    *     type)
@@ -108,26 +419,36 @@ public final class WorkflowExecutorCache {
       WorkflowExecution inFavorOfExecution, Scope workflowTypeScope) {
     try {
       String inFavorOfRunId = inFavorOfExecution.getRunId();
-      for (String key : cache.asMap().keySet()) {
-        if (key.equals(inFavorOfRunId)) continue;
-        boolean locked = runLockManager.tryLock(key);
-        // if we were able to take a lock here, it means that the workflow is not in processing
-        // currently on workers of this WorkerFactory and can be evicted
-        if (locked) {
-          try {
-            log.trace(
-                "Workflow Execution {}-{} caused eviction of Workflow Execution with runId {}",
-                inFavorOfExecution.getWorkflowId(),
-                inFavorOfRunId,
-                key);
-            cache.invalidate(key);
-            workflowTypeScope.counter(MetricsType.STICKY_CACHE_THREAD_FORCED_EVICTION).inc(1);
-            workflowTypeScope.counter(MetricsType.STICKY_CACHE_TOTAL_FORCED_EVICTION).inc(1);
-            return true;
-          } finally {
-            runLockManager.unlock(key);
+      @Nullable String victim = null;
+      evictionLock.lock();
+      try {
+        drainAccessesLocked();
+        Iterator<String> candidates = evictionPolicy.getEvictionCandidates();
+        while (victim == null && candidates.hasNext()) {
+          String key = candidates.next();
+          // if we were able to take a lock here, it means that the workflow is not in processing
+          // currently on workers of this WorkerFactory and can be evicted
+          if (!key.equals(inFavorOfRunId) && runLockManager.tryLock(key)) {
+            victim = key;
           }
         }
+      } finally {
+        evictionLock.unlock();
+      }
+      if (victim != null) {
+        try {
+          log.trace(
+              "Workflow Execution {}-{} caused eviction of Workflow Execution with runId {}",
+              inFavorOfExecution.getWorkflowId(),
+              inFavorOfRunId,
+              victim);
+          cache.invalidate(victim);
+          workflowTypeScope.counter(MetricsType.STICKY_CACHE_THREAD_FORCED_EVICTION).inc(1);
+          workflowTypeScope.counter(MetricsType.STICKY_CACHE_TOTAL_FORCED_EVICTION).inc(1);
+          return true;
+        } finally {
+          runLockManager.unlock(victim);
+        }
       }
 
       log.trace("Failed to evict from Workflow Execution cache, cache size is {}", cache.size());
@@ -166,4 +487,25 @@ public final class WorkflowExecutorCache {
     cache.invalidateAll();
     metricsScope.gauge(MetricsType.STICKY_CACHE_SIZE).update(size());
   }
+
+  private static final class TrackedRun {
+    final WorkflowExecution execution;
+    final @Nullable String taskQueue;
+    final WorkflowRunTaskHandler handler;
+    int weight;
+    long replayCost;
+
+    TrackedRun(
+        WorkflowExecution execution,
+        @Nullable String taskQueue,
+        WorkflowRunTaskHandler handler,
+        int weight,
+        long replayCost) {
+      this.execution = execution;
+      this.taskQueue = taskQueue;
+      this.handler = handler;
+      this.weight = weight;
+      this.replayCost = replayCost;
+    }
+  }
 }
@@ -2,81 +2,186 @@ package io.temporal.internal.worker;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.uber.m3.tally.NoopScope;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.util.Duration;
+import io.temporal.worker.MetricsType;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Per workflow run locks making sure only one thread processes a workflow run at a time.
+ *
+ * <p>Run ids are hashed into a fixed table of stripes. Each stripe guards the owners of the runs
+ * hashed into it, so acquiring and releasing a run lock doesn't allocate a lock per run and doesn't
+ * touch any shared map. Threads waiting for a run held by another thread wait on the condition of
+ * the stripe. Run locks are reentrant and have to be released by the owning thread.
+ */
 public final class WorkflowRunLockManager {
-  private final Map<String, RefCountedLock> runIdLock = new ConcurrentHashMap<>();
+  private static final int DEFAULT_STRIPES = 64;
 
-  public boolean tryLock(String runId, long timeout, TimeUnit unit) throws InterruptedException {
-    RefCountedLock runLock = obtainLock(runId);
+  private final Stripe[] stripes;
+  private final Scope metricsScope;
+
+  public WorkflowRunLockManager() {
+    this(new NoopScope());
+  }
+
+  public WorkflowRunLockManager(Scope metricsScope) {
+    this(DEFAULT_STRIPES, metricsScope);
+  }
 
-    boolean obtained = false;
+  @VisibleForTesting
+  WorkflowRunLockManager(int stripes, Scope metricsScope) {
+    Preconditions.checkArgument(stripes > 0, "stripes should be positive: %s", stripes);
+    // power of two to compute the stripe index with a mask
+    int size = Integer.highestOneBit(stripes - 1) << 1;
+    this.stripes = new Stripe[stripes == 1 ? 1 : size];
+    for (int i = 0; i < this.stripes.length; i++) {
+      this.stripes[i] = new Stripe();
+    }
+    this.metricsScope = metricsScope;
+  }
+
+  /**
+   * Acquires the lock of the run, waiting up to the timeout if it's held by another thread. A
+   * contended acquisition is reported with {@link MetricsType#WORKFLOW_RUN_LOCK_CONTENTION_COUNTER}
+   * and the time spent waiting with {@link MetricsType#WORKFLOW_RUN_LOCK_WAIT_LATENCY}.
+   */
+  public boolean tryLock(String runId, long timeout, TimeUnit unit) throws InterruptedException {
+    Stripe stripe = stripeFor(runId);
+    Thread current = Thread.currentThread();
+    long waitStart = 0;
+    stripe.lock.lockInterruptibly();
     try {
-      obtained = runLock.lock.tryLock(timeout, unit);
-      return obtained;
+      Owner owner = stripe.owners.get(runId);
+      if (owner == null || owner.thread == current) {
+        acquire(stripe, runId, owner, current);
+        return true;
+      }
+      metricsScope.counter(MetricsType.WORKFLOW_RUN_LOCK_CONTENTION_COUNTER).inc(1);
+      waitStart = System.nanoTime();
+      long remaining = unit.toNanos(timeout);
+      stripe.waiters++;
+      try {
+        while (stripe.owners.containsKey(runId)) {
+          if (remaining <= 0) {
+            return false;
+          }
+          remaining = stripe.released.awaitNanos(remaining);
+        }
+      } finally {
+        stripe.waiters--;
+      }
+      acquire(stripe, runId, null, current);
+      return true;
     } finally {
-      if (!obtained) {
-        derefAndUnlock(runId, false);
+      stripe.lock.unlock();
+      if (waitStart != 0) {
+        metricsScope
+            .timer(MetricsType.WORKFLOW_RUN_LOCK_WAIT_LATENCY)
+            .record(Duration.ofNanos(System.nanoTime() - waitStart));
       }
     }
   }
 
+  /** Acquires the lock of the run only if it's not held by another thread. */
   public boolean tryLock(String runId) {
-    RefCountedLock runLock = obtainLock(runId);
-
-    boolean obtained = false;
+    Stripe stripe = stripeFor(runId);
+    Thread current = Thread.currentThread();
+    stripe.lock.lock();
     try {
-      obtained = runLock.lock.tryLock();
-      return obtained;
-    } finally {
-      if (!obtained) {
-        derefAndUnlock(runId, false);
+      Owner owner = stripe.owners.get(runId);
+      if (owner != null && owner.thread != current) {
+        return false;
       }
+      acquire(stripe, runId, owner, current);
+      return true;
+    } finally {
+      stripe.lock.unlock();
     }
   }
 
   public void unlock(String runId) {
-    derefAndUnlock(runId, true);
+    Stripe stripe = stripeFor(runId);
+    stripe.lock.lock();
+    try {
+      Owner owner = stripe.owners.get(runId);
+      Preconditions.checkState(
+          owner != null && owner.thread == Thread.currentThread(),
+          "Thread '%s' doesn't have an acquired lock for runId '%s'",
+          Thread.currentThread().getName(),
+          runId);
+      if (--owner.holdCount == 0) {
+        stripe.owners.remove(runId);
+        if (stripe.waiters > 0) {
+          stripe.released.signalAll();
+        }
+      }
+    } finally {
+      stripe.lock.unlock();
+    }
   }
 
-  private RefCountedLock obtainLock(String runId) {
-    return runIdLock.compute(
-        runId,
-        (id, lock) -> {
-          if (lock == null) {
-            lock = new RefCountedLock();
-          }
-          lock.refCount++;
-          return lock;
-        });
+  @VisibleForTesting
+  int totalLocks() {
+    int total = 0;
+    for (Stripe stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        total += stripe.owners.size();
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    return total;
   }
 
-  private void derefAndUnlock(String runId, boolean unlock) {
-    runIdLock.compute(
-        runId,
-        (id, runLock) -> {
-          Preconditions.checkState(
-              runLock != null,
-              "Thread '%s' doesn't have an acquired lock for runId '%s'",
-              Thread.currentThread().getName(),
-              runId);
-          if (unlock) {
-            runLock.lock.unlock();
-          }
-          return --runLock.refCount == 0 ? null : runLock;
-        });
+  @VisibleForTesting
+  int totalWaiters() {
+    int total = 0;
+    for (Stripe stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        total += stripe.waiters;
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    return total;
   }
 
-  @VisibleForTesting
-  int totalLocks() {
-    return runIdLock.size();
+  private static void acquire(Stripe stripe, String runId, Owner owner, Thread current) {
+    if (owner == null) {
+      stripe.owners.put(runId, new Owner(current));
+    } else {
+      owner.holdCount++;
+    }
+  }
+
+  private Stripe stripeFor(String runId) {
+    int h = runId.hashCode();
+    // spread the higher bits as the table is small
+    h ^= (h >>> 16);
+    return stripes[h & (stripes.length - 1)];
   }
 
-  private static class RefCountedLock {
+  private static final class Stripe {
     final ReentrantLock lock = new ReentrantLock();
-    int refCount = 0;
+    final Condition released = lock.newCondition();
+    final Map<String, Owner> owners = new HashMap<>();
+    int waiters;
+  }
+
+  private static final class Owner {
+    final Thread thread;
+    int holdCount = 1;
+
+    Owner(Thread thread) {
+      this.thread = thread;
+    }
   }
 }
@@ -0,0 +1,56 @@
+package io.temporal.internal.worker;
+
+import com.google.common.base.Preconditions;
+import io.temporal.internal.replay.WorkflowRunTaskHandler;
+
+/**
+ * Weighs cached workflow runs against several independent budgets at once: number of cached runs,
+ * size of their histories and number of workflow threads they own.
+ *
+ * <p>To track a single total weight, each budget is normalized to {@link #MAXIMUM_WEIGHT} and the
+ * weight of a run is the largest of its normalized shares. The sum of the weights of the cached
+ * runs is always greater or equal to the normalized usage of each budget, so keeping the sum under
+ * {@link #MAXIMUM_WEIGHT} keeps every budget respected.
+ */
+final class WorkflowRunTaskHandlerWeigher {
+  static final int MAXIMUM_WEIGHT = 1 << 30;
+
+  private final int maxRuns;
+  private final long maxHistorySizeBytes;
+  private final int maxThreads;
+
+  /**
+   * @param maxRuns maximum number of cached workflow runs, must be positive
+   * @param maxHistorySizeBytes maximum total size of histories of cached workflow runs, 0 means no
+   *     limit
+   * @param maxThreads maximum total number of workflow threads owned by cached workflow runs, 0
+   *     means no limit
+   */
+  WorkflowRunTaskHandlerWeigher(int maxRuns, long maxHistorySizeBytes, int maxThreads) {
+    Preconditions.checkArgument(maxRuns > 0, "maxRuns must be positive");
+    Preconditions.checkArgument(maxHistorySizeBytes >= 0, "negative maxHistorySizeBytes");
+    Preconditions.checkArgument(maxThreads >= 0, "negative maxThreads");
+    this.maxRuns = maxRuns;
+    this.maxHistorySizeBytes = maxHistorySizeBytes;
+    this.maxThreads = maxThreads;
+  }
+
+  int weigh(String runId, WorkflowRunTaskHandler handler) {
+    long weight = share(1, maxRuns);
+    if (maxHistorySizeBytes > 0) {
+      weight = Math.max(weight, share(handler.getHistorySizeBytes(), maxHistorySizeBytes));
+    }
+    if (maxThreads > 0) {
+      weight = Math.max(weight, share(handler.getWorkflowThreadCount(), maxThreads));
+    }
+    return (int) Math.min(weight, MAXIMUM_WEIGHT);
+  }
+
+  private static long share(long value, long limit) {
+    if (value >= limit) {
+      return MAXIMUM_WEIGHT;
+    }
+    // rounding up to never underestimate the usage
+    return (long) Math.ceil((double) value / limit * MAXIMUM_WEIGHT);
+  }
+}
@@ -1,5 +1,6 @@
 package io.temporal.internal.worker;
 
+import static io.temporal.internal.common.GrpcUtils.toCompletableFuture;
 import static io.temporal.serviceclient.MetricsTag.METRICS_TAGS_CALL_OPTIONS_KEY;
 import static io.temporal.serviceclient.MetricsTag.TASK_FAILURE_TYPE;
 
@@ -26,10 +27,18 @@ import io.temporal.serviceclient.RpcRetryOptions;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.worker.*;
 import io.temporal.worker.tuning.*;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -56,8 +65,14 @@ final class WorkflowWorker implements SuspendableWorker {
   private final EagerActivityDispatcher eagerActivityDispatcher;
   private final TrackingSlotSupplier<WorkflowSlotInfo> slotSupplier;
   private final AtomicBoolean serverSupportsAutoscaling;
+  private final boolean pipelining;
+  // Completions of pipelined workflow tasks which responses are not handled yet, by run id
+  private final ConcurrentMap<String, PendingCompletion> pendingCompletions =
+      new ConcurrentHashMap<>();
 
   private PollTaskExecutor<WorkflowTask> pollTaskExecutor;
+  // Sends completions of pipelined workflow tasks and handles the responses
+  @Nullable private ScheduledExecutorService completionExecutor;
 
   // TODO this ideally should be volatile or final (and NoopWorker should go away)
   //  Currently the implementation looks safe without volatile, but it's brittle.
@@ -92,6 +107,8 @@ final class WorkflowWorker implements SuspendableWorker {
     this.eagerActivityDispatcher = eagerActivityDispatcher;
     this.slotSupplier = new TrackingSlotSupplier<>(slotSupplier, this.workerMetricsScope);
     this.serverSupportsAutoscaling = serverSupportsAutoscaling;
+    this.pipelining =
+        options.isUsingWorkflowTaskPipelining() && !Strings.isNullOrEmpty(stickyTaskQueueName);
   }
 
   @Override
@@ -106,6 +123,15 @@ final class WorkflowWorker implements SuspendableWorker {
               pollerOptions,
               this.slotSupplier.maximumSlots().orElse(Integer.MAX_VALUE),
               options.isUsingVirtualThreads());
+      if (pipelining) {
+        completionExecutor =
+            Executors.newScheduledThreadPool(
+                2,
+                new ExecutorThreadFactory(
+                    WorkerThreadsNameHelper.getWorkflowTaskCompletionThreadPrefix(
+                        namespace, taskQueue),
+                    pollerOptions.getUncaughtExceptionHandler()));
+      }
 
       boolean useAsyncPoller =
           pollerOptions.getPollerBehavior() instanceof PollerBehaviorAutoscaling;
@@ -242,6 +268,7 @@ final class WorkflowWorker implements SuspendableWorker {
                     pollTaskExecutor != null
                         ? pollTaskExecutor.shutdown(shutdownManager, interruptTasks)
                         : CompletableFuture.completedFuture(null))
+            .thenCompose(ignore -> shutdownCompletionExecutor(shutdownManager, interruptTasks))
             .exceptionally(
                 e -> {
                   log.error("Unexpected exception during shutdown", e);
@@ -254,7 +281,36 @@ final class WorkflowWorker implements SuspendableWorker {
     long timeoutMillis = ShutdownManager.awaitTermination(poller, unit.toMillis(timeout));
     // relies on the fact that the pollTaskExecutor is the last one to be shutdown, no need to
     // wait separately for intermediate steps
-    ShutdownManager.awaitTermination(pollTaskExecutor, timeoutMillis);
+    timeoutMillis = ShutdownManager.awaitTermination(pollTaskExecutor, timeoutMillis);
+    ShutdownManager.awaitTermination(completionExecutor, timeoutMillis);
+  }
+
+  private CompletableFuture<Void> shutdownCompletionExecutor(
+      ShutdownManager shutdownManager, boolean interruptTasks) {
+    if (completionExecutor == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    String executorName = this + "#completionExecutor";
+    if (interruptTasks) {
+      return shutdownManager
+          .shutdownExecutorNow(completionExecutor, executorName, Duration.ofSeconds(5))
+          .thenRun(
+              () -> {
+                // responses dropped from the queue of the executor are never handled
+                for (Map.Entry<String, PendingCompletion> pending : pendingCompletions.entrySet()) {
+                  pendingCompletions.remove(pending.getKey(), pending.getValue());
+                  pending.getValue().release();
+                }
+              });
+    }
+    // The responses are handled on the executor, so it can be shut down only after all the
+    // completions sent by the already terminated task executor are handled.
+    return CompletableFuture.allOf(
+            pendingCompletions.values().stream()
+                .map(pending -> pending.handled)
+                .toArray(CompletableFuture[]::new))
+        .thenCompose(
+            ignore -> shutdownManager.shutdownExecutorUntimed(completionExecutor, executorName));
   }
 
   @Override
@@ -279,7 +335,9 @@ final class WorkflowWorker implements SuspendableWorker {
 
   @Override
   public boolean isTerminated() {
-    return poller.isTerminated() && (pollTaskExecutor == null || pollTaskExecutor.isTerminated());
+    return poller.isTerminated()
+        && (pollTaskExecutor == null || pollTaskExecutor.isTerminated())
+        && (completionExecutor == null || completionExecutor.isTerminated());
   }
 
   @Override
@@ -392,6 +450,10 @@ final class WorkflowWorker implements SuspendableWorker {
           //   worker from the general non-sticky task queue.
           //   Even in this case, this advice looks misleading, something else is going on
           //   (like an extreme network latency).
+          if (pipelining) {
+            // The response to the completion of the previous task of the run may still be in flight
+            awaitPipelinedCompletion(runId);
+          }
           locked = runLocks.tryLock(runId, 5, TimeUnit.SECONDS);
 
           if (!locked) {
@@ -437,6 +499,11 @@ final class WorkflowWorker implements SuspendableWorker {
                 sendDirectQueryCompletedResponse(
                     currentTask.getTaskToken(), queryFailedBuilder, workflowTypeScope);
               }
+            } else if (taskCompleted != null
+                && pipelining
+                && !taskCompleted.getReturnNewWorkflowTask()) {
+              // The response can't contain a new workflow task, no need to wait for it
+              sendTaskCompletedPipelined(currentTask, taskCompleted, result, workflowTypeScope);
             } else {
               try {
                 if (taskCompleted != null) {
@@ -491,23 +558,8 @@ final class WorkflowWorker implements SuspendableWorker {
                 taskFailedCause =
                     WorkflowTaskFailedCause.WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE;
 
-                String messagePrefix =
-                    String.format(
-                        "Failed to send workflow task %s",
-                        taskFailed == null ? "completion" : "failure");
-                RespondWorkflowTaskFailedRequest.Builder taskFailedBuilder =
-                    RespondWorkflowTaskFailedRequest.newBuilder()
-                        .setFailure(
-                            grpcMessageTooLargeFailure(
-                                workflowExecution.getWorkflowId(), e, messagePrefix))
-                        .setCause(
-                            WorkflowTaskFailedCause
-                                .WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE);
-                sendTaskFailed(
-                    currentTask.getTaskToken(),
-                    taskFailedBuilder,
-                    result.getRequestRetryOptions(),
-                    workflowTypeScope);
+                sendGrpcMessageTooLargeTaskFailed(
+                    e, currentTask, result, taskFailed == null, workflowTypeScope);
               }
             }
           } catch (Exception e) {
@@ -517,24 +569,9 @@ final class WorkflowWorker implements SuspendableWorker {
           }
 
           if (taskFailedCause != null) {
-            String taskFailureType;
-            switch (taskFailedCause) {
-              case WORKFLOW_TASK_FAILED_CAUSE_NON_DETERMINISTIC_ERROR:
-                taskFailureType = "NonDeterminismError";
-                break;
-              case WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE:
-                taskFailureType = "GrpcMessageTooLarge";
-                break;
-              default:
-                taskFailureType = "WorkflowError";
-            }
-            Scope workflowTaskFailureScope =
-                workflowTypeScope.tagged(ImmutableMap.of(TASK_FAILURE_TYPE, taskFailureType));
             // we don't trigger the counter in case of the legacy query
             // (which never has taskFailed set)
-            workflowTaskFailureScope
-                .counter(MetricsType.WORKFLOW_TASK_EXECUTION_FAILURE_COUNTER)
-                .inc(1);
+            reportTaskFailure(taskFailedCause, workflowTypeScope);
           }
           if (nextWFTResponse.isPresent()) {
             workflowTypeScope.counter(MetricsType.WORKFLOW_TASK_HEARTBEAT_COUNTER).inc(1);
@@ -594,7 +631,216 @@ final class WorkflowWorker implements SuspendableWorker {
       }
     }
 
-    @SuppressWarnings("deprecation")
+    private void reportTaskFailure(
+        WorkflowTaskFailedCause taskFailedCause, Scope workflowTypeMetricsScope) {
+      String taskFailureType;
+      switch (taskFailedCause) {
+        case WORKFLOW_TASK_FAILED_CAUSE_NON_DETERMINISTIC_ERROR:
+          taskFailureType = "NonDeterminismError";
+          break;
+        case WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE:
+          taskFailureType = "GrpcMessageTooLarge";
+          break;
+        default:
+          taskFailureType = "WorkflowError";
+      }
+      Scope workflowTaskFailureScope =
+          workflowTypeMetricsScope.tagged(ImmutableMap.of(TASK_FAILURE_TYPE, taskFailureType));
+      workflowTaskFailureScope.counter(MetricsType.WORKFLOW_TASK_EXECUTION_FAILURE_COUNTER).inc(1);
+    }
+
+    private void awaitPipelinedCompletion(String runId) throws InterruptedException {
+      PendingCompletion pending = pendingCompletions.get(runId);
+      if (pending == null) {
+        return;
+      }
+      try {
+        pending.handled.get(5, TimeUnit.SECONDS);
+      } catch (TimeoutException e) {
+        throw new UnableToAcquireLockException(
+            "Response to the completion of the previous workflow task of the run "
+                + "hasn't been received, consider increasing workflow task timeout.");
+      } catch (ExecutionException e) {
+        // pending completions are never completed exceptionally
+        throw new IllegalStateException(e);
+      }
+    }
+
+    /**
+     * Sends the workflow task completion without waiting for the response, so the run lock and the
+     * workflow task slot can be released right away. The next task of the run waits in {@link
+     * #awaitPipelinedCompletion} until the response is handled.
+     */
+    private void sendTaskCompletedPipelined(
+        PollWorkflowTaskQueueResponse currentTask,
+        RespondWorkflowTaskCompletedRequest taskCompleted,
+        WorkflowTaskHandler.Result result,
+        Scope workflowTypeScope) {
+      WorkflowExecution workflowExecution = currentTask.getWorkflowExecution();
+      String runId = workflowExecution.getRunId();
+      EagerActivitySlotsReservation activitySlotsReservation =
+          new EagerActivitySlotsReservation(eagerActivityDispatcher);
+      PendingCompletion pending = new PendingCompletion(activitySlotsReservation);
+      // registered before sending, so the entry is removed only after it's added
+      pendingCompletions.put(runId, pending);
+      CompletableFuture<RespondWorkflowTaskCompletedResponse> response;
+      try {
+        RespondWorkflowTaskCompletedRequest.Builder requestBuilder = taskCompleted.toBuilder();
+        activitySlotsReservation.applyToRequest(requestBuilder);
+        response =
+            sendTaskCompletedAsync(
+                currentTask.getTaskToken(),
+                requestBuilder,
+                result.getRequestRetryOptions(),
+                workflowTypeScope);
+      } catch (RuntimeException e) {
+        pendingCompletions.remove(runId, pending);
+        pending.release();
+        throw e;
+      }
+      response.whenComplete(
+          (r, e) -> {
+            try {
+              completionExecutor.execute(
+                  () -> {
+                    try {
+                      handleCompletionResponse(
+                          r, e, currentTask, result, activitySlotsReservation, workflowTypeScope);
+                    } finally {
+                      pendingCompletions.remove(runId, pending);
+                      pending.release();
+                    }
+                  });
+            } catch (RejectedExecutionException rejected) {
+              // the worker is shut down with interrupts, the response is dropped but the next
+              // task of the run and the reserved eager activity slots are released
+              pendingCompletions.remove(runId, pending);
+              pending.release();
+            }
+          });
+    }
+
+    private void handleCompletionResponse(
+        @Nullable RespondWorkflowTaskCompletedResponse response,
+        @Nullable Throwable failure,
+        PollWorkflowTaskQueueResponse currentTask,
+        WorkflowTaskHandler.Result result,
+        EagerActivitySlotsReservation activitySlotsReservation,
+        Scope workflowTypeScope) {
+      WorkflowExecution workflowExecution = currentTask.getWorkflowExecution();
+      try {
+        if (failure != null) {
+          handlePipelinedReportingFailure(
+              failure instanceof CompletionException ? failure.getCause() : failure,
+              currentTask,
+              result,
+              workflowTypeScope);
+          return;
+        }
+        long resetEventId = response.getResetHistoryEventId();
+        if (resetEventId != 0) {
+          applyResetEventId(resetEventId, result, workflowExecution, workflowTypeScope);
+        }
+        if (result.getApplyPostCompletionMetrics() != null) {
+          result.getApplyPostCompletionMetrics().run();
+        }
+        activitySlotsReservation.handleResponse(response);
+      } catch (Throwable ex) {
+        log.error(
+            "Failure handling workflow task completion response. WorkflowId={}, RunId={}",
+            workflowExecution.getWorkflowId(),
+            workflowExecution.getRunId(),
+            ex);
+      }
+    }
+
+    private void applyResetEventId(
+        long resetEventId,
+        WorkflowTaskHandler.Result result,
+        WorkflowExecution workflowExecution,
+        Scope workflowTypeScope) {
+      // The run lock was released when the completion was sent, the run may be evicted meanwhile
+      String runId = workflowExecution.getRunId();
+      if (!lockPipelinedRun(runId)) {
+        cache.invalidate(
+            workflowExecution,
+            workflowTypeScope,
+            "Unable to reset the run after a dropped workflow task",
+            null);
+        return;
+      }
+      try {
+        result.getResetEventIdHandle().apply(resetEventId);
+      } finally {
+        runLocks.unlock(runId);
+      }
+    }
+
+    private void handlePipelinedReportingFailure(
+        Throwable failure,
+        PollWorkflowTaskQueueResponse currentTask,
+        WorkflowTaskHandler.Result result,
+        Scope workflowTypeScope) {
+      Exception e =
+          failure instanceof Exception ? (Exception) failure : new RuntimeException(failure);
+      // The run lock was released when the completion was sent, the run is invalidated under the
+      // lock like a non-pipelined one, or without it like in applyResetEventId if it can't be taken
+      String runId = currentTask.getWorkflowExecution().getRunId();
+      boolean locked = lockPipelinedRun(runId);
+      try {
+        handleReportingFailure(
+            e, currentTask, result, currentTask.getWorkflowExecution(), workflowTypeScope);
+      } finally {
+        if (locked) {
+          runLocks.unlock(runId);
+        }
+      }
+      // Only fail workflow task on the first attempt, subsequent failures of the same
+      // workflow task should timeout.
+      if (e instanceof GrpcMessageTooLargeException && currentTask.getAttempt() <= 1) {
+        sendGrpcMessageTooLargeTaskFailed(
+            (GrpcMessageTooLargeException) e, currentTask, result, true, workflowTypeScope);
+        reportTaskFailure(
+            WorkflowTaskFailedCause.WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE,
+            workflowTypeScope);
+      }
+    }
+
+    /**
+     * Takes the lock of a run whose pipelined completion response is handled.
+     *
+     * @return true if the lock is taken and has to be unlocked
+     */
+    private boolean lockPipelinedRun(String runId) {
+      try {
+        return runLocks.tryLock(runId, 5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    private void sendGrpcMessageTooLargeTaskFailed(
+        GrpcMessageTooLargeException e,
+        PollWorkflowTaskQueueResponse currentTask,
+        WorkflowTaskHandler.Result result,
+        boolean completion,
+        Scope workflowTypeScope) {
+      String messagePrefix =
+          String.format("Failed to send workflow task %s", completion ? "completion" : "failure");
+      RespondWorkflowTaskFailedRequest.Builder taskFailedBuilder =
+          RespondWorkflowTaskFailedRequest.newBuilder()
+              .setFailure(
+                  grpcMessageTooLargeFailure(
+                      currentTask.getWorkflowExecution().getWorkflowId(), e, messagePrefix))
+              .setCause(WorkflowTaskFailedCause.WORKFLOW_TASK_FAILED_CAUSE_GRPC_MESSAGE_TOO_LARGE);
+      sendTaskFailed(
+          currentTask.getTaskToken(),
+          taskFailedBuilder,
+          result.getRequestRetryOptions(),
+          workflowTypeScope);
+    }
+
     private RespondWorkflowTaskCompletedResponse sendTaskCompleted(
         ByteString taskToken,
         RespondWorkflowTaskCompletedRequest.Builder taskCompleted,
@@ -604,6 +850,43 @@ final class WorkflowWorker implements SuspendableWorker {
           new GrpcRetryer.GrpcRetryerOptions(
               RpcRetryOptions.newBuilder().buildWithDefaultsFrom(retryOptions), null);
 
+      prepareTaskCompleted(taskToken, taskCompleted);
+
+      return grpcRetryer.retryWithResult(
+          () ->
+              service
+                  .blockingStub()
+                  .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, workflowTypeMetricsScope)
+                  .respondWorkflowTaskCompleted(taskCompleted.build()),
+          grpcRetryOptions);
+    }
+
+    private CompletableFuture<RespondWorkflowTaskCompletedResponse> sendTaskCompletedAsync(
+        ByteString taskToken,
+        RespondWorkflowTaskCompletedRequest.Builder taskCompleted,
+        RpcRetryOptions retryOptions,
+        Scope workflowTypeMetricsScope) {
+      GrpcRetryer.GrpcRetryerOptions grpcRetryOptions =
+          new GrpcRetryer.GrpcRetryerOptions(
+              RpcRetryOptions.newBuilder().buildWithDefaultsFrom(retryOptions), null);
+
+      prepareTaskCompleted(taskToken, taskCompleted);
+      RespondWorkflowTaskCompletedRequest request = taskCompleted.build();
+
+      return grpcRetryer.retryWithResultAsync(
+          completionExecutor,
+          () ->
+              toCompletableFuture(
+                  service
+                      .futureStub()
+                      .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, workflowTypeMetricsScope)
+                      .respondWorkflowTaskCompleted(request)),
+          grpcRetryOptions);
+    }
+
+    @SuppressWarnings("deprecation")
+    private void prepareTaskCompleted(
+        ByteString taskToken, RespondWorkflowTaskCompletedRequest.Builder taskCompleted) {
       taskCompleted
           .setIdentity(options.getIdentity())
           .setNamespace(namespace)
@@ -617,14 +900,6 @@ final class WorkflowWorker implements SuspendableWorker {
       } else {
         taskCompleted.setBinaryChecksum(options.getBuildId());
       }
-
-      return grpcRetryer.retryWithResult(
-          () ->
-              service
-                  .blockingStub()
-                  .withOption(METRICS_TAGS_CALL_OPTIONS_KEY, workflowTypeMetricsScope)
-                  .respondWorkflowTaskCompleted(taskCompleted.build()),
-          grpcRetryOptions);
     }
 
     @SuppressWarnings("deprecation")
@@ -716,4 +991,26 @@ final class WorkflowWorker implements SuspendableWorker {
           .exceptionToFailure(applicationFailure);
     }
   }
+
+  /** Completion of a pipelined workflow task which response isn't handled yet. */
+  private static final class PendingCompletion {
+    final CompletableFuture<Void> handled = new CompletableFuture<>();
+    private final EagerActivitySlotsReservation activitySlotsReservation;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    PendingCompletion(EagerActivitySlotsReservation activitySlotsReservation) {
+      this.activitySlotsReservation = activitySlotsReservation;
+    }
+
+    /** Releases the reserved eager activity slots and the next task of the run, only once. */
+    void release() {
+      if (released.compareAndSet(false, true)) {
+        try {
+          activitySlotsReservation.close();
+        } finally {
+          handled.complete(null);
+        }
+      }
+    }
+  }
 }
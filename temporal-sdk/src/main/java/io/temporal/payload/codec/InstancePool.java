@@ -0,0 +1,34 @@
+package io.temporal.payload.codec;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of the compressors and decompressors of a codec. A missing instance is created on
+ * acquire, an instance that doesn't fit into the pool is destroyed on release.
+ */
+final class InstancePool<T> {
+  private final BlockingQueue<T> idle;
+  private final Supplier<T> factory;
+  private final Consumer<T> destructor;
+
+  InstancePool(int size, Supplier<T> factory, Consumer<T> destructor) {
+    this.idle = new ArrayBlockingQueue<>(size);
+    this.factory = factory;
+    this.destructor = destructor;
+  }
+
+  T acquire() {
+    T instance = idle.poll();
+    return instance != null ? instance : factory.get();
+  }
+
+  /** The instance is expected to be reset. */
+  void release(T instance) {
+    if (!idle.offer(instance)) {
+      destructor.accept(instance);
+    }
+  }
+}
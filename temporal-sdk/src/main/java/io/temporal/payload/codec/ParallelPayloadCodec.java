@@ -0,0 +1,174 @@
+package io.temporal.payload.codec;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.Experimental;
+import io.temporal.payload.context.SerializationContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import javax.annotation.Nonnull;
+
+/**
+ * Splits the payloads encoded or decoded together, like the arguments of a signal or the details of
+ * a failure, into batches and runs the wrapped codec on the batches in parallel on the given
+ * executor. The calling thread processes batches too, including the ones the executor hasn't
+ * started yet, so a busy or rejecting executor never makes a call slower than running the codec on
+ * the calling thread alone.
+ *
+ * <p>The wrapped codec has to encode and decode every payload independently of the others, as the
+ * payloads are passed to it in separate calls. The executor is expected to be dedicated to codecs
+ * and bounded, its threads and lifecycle are owned by the caller.
+ */
+@Experimental
+public class ParallelPayloadCodec implements PayloadCodec {
+  /** Payloads smaller than this in total are processed by the calling thread alone. */
+  public static final int DEFAULT_MIN_PARALLEL_SIZE = 64 * 1024;
+
+  private final PayloadCodec codec;
+  private final Executor executor;
+  private final int parallelism;
+  private final int minParallelSize;
+
+  /**
+   * Uses the number of available processors as the parallelism and {@link
+   * #DEFAULT_MIN_PARALLEL_SIZE}.
+   */
+  public ParallelPayloadCodec(@Nonnull PayloadCodec codec, @Nonnull Executor executor) {
+    this(codec, executor, Runtime.getRuntime().availableProcessors(), DEFAULT_MIN_PARALLEL_SIZE);
+  }
+
+  /**
+   * @param codec codec to run on the batches, for example a {@link ChainCodec}
+   * @param executor executor to run the batches on
+   * @param parallelism maximum number of batches a call is split into
+   * @param minParallelSize minimum total serialized size of the payloads of a call to split them
+   *     into batches
+   */
+  public ParallelPayloadCodec(
+      @Nonnull PayloadCodec codec,
+      @Nonnull Executor executor,
+      int parallelism,
+      int minParallelSize) {
+    Preconditions.checkArgument(parallelism > 0, "parallelism should be positive");
+    Preconditions.checkArgument(minParallelSize >= 0, "minParallelSize should be non-negative");
+    this.codec = Preconditions.checkNotNull(codec, "codec");
+    this.executor = Preconditions.checkNotNull(executor, "executor");
+    this.parallelism = parallelism;
+    this.minParallelSize = minParallelSize;
+  }
+
+  @Nonnull
+  @Override
+  public List<Payload> encode(@Nonnull List<Payload> payloads) {
+    return process(payloads, PayloadCodec::encode);
+  }
+
+  @Nonnull
+  @Override
+  public List<Payload> decode(@Nonnull List<Payload> payloads) {
+    return process(payloads, PayloadCodec::decode);
+  }
+
+  @Nonnull
+  @Override
+  public PayloadCodec withContext(@Nonnull SerializationContext context) {
+    return new ParallelPayloadCodec(
+        codec.withContext(context), executor, parallelism, minParallelSize);
+  }
+
+  private List<Payload> process(
+      List<Payload> payloads, BiFunction<PayloadCodec, List<Payload>, List<Payload>> operation) {
+    int batchCount = Math.min(parallelism, payloads.size());
+    if (batchCount < 2 || getSerializedSize(payloads) < minParallelSize) {
+      return operation.apply(codec, payloads);
+    }
+    int batchSize = (payloads.size() + batchCount - 1) / batchCount;
+    Batches batches = new Batches(Lists.partition(payloads, batchSize), operation);
+    for (int i = 1; i < batches.size(); i++) {
+      try {
+        executor.execute(batches::process);
+      } catch (RejectedExecutionException e) {
+        // the calling thread processes the batches nobody took
+        break;
+      }
+    }
+    batches.process();
+    return batches.awaitResult();
+  }
+
+  private static long getSerializedSize(List<Payload> payloads) {
+    long size = 0;
+    for (Payload payload : payloads) {
+      size += payload.getSerializedSize();
+    }
+    return size;
+  }
+
+  private final class Batches {
+    private final List<List<Payload>> batches;
+    private final BiFunction<PayloadCodec, List<Payload>, List<Payload>> operation;
+    private final AtomicInteger nextBatch = new AtomicInteger();
+    private final AtomicReferenceArray<List<Payload>> results;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final CountDownLatch processed;
+
+    Batches(
+        List<List<Payload>> batches,
+        BiFunction<PayloadCodec, List<Payload>, List<Payload>> operation) {
+      this.batches = batches;
+      this.operation = operation;
+      this.results = new AtomicReferenceArray<>(batches.size());
+      this.processed = new CountDownLatch(batches.size());
+    }
+
+    int size() {
+      return batches.size();
+    }
+
+    /** Processes the batches that aren't taken by other threads yet. */
+    void process() {
+      int batch;
+      while ((batch = nextBatch.getAndIncrement()) < batches.size()) {
+        try {
+          if (failure.get() == null) {
+            results.set(batch, operation.apply(codec, batches.get(batch)));
+          }
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+        } finally {
+          processed.countDown();
+        }
+      }
+    }
+
+    List<Payload> awaitResult() {
+      try {
+        processed.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PayloadCodecException(e);
+      }
+      Throwable e = failure.get();
+      if (e instanceof RuntimeException) {
+        throw (RuntimeException) e;
+      } else if (e instanceof Error) {
+        throw (Error) e;
+      } else if (e != null) {
+        throw new PayloadCodecException(e);
+      }
+      List<Payload> result = new ArrayList<>();
+      for (int i = 0; i < batches.size(); i++) {
+        result.addAll(results.get(i));
+      }
+      return result;
+    }
+  }
+}
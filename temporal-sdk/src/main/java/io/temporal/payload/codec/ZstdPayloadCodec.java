@@ -0,0 +1,317 @@
+package io.temporal.payload.codec;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdException;
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+import com.google.common.base.Preconditions;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.Experimental;
+import io.temporal.common.converter.EncodingKeys;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Zstandard PayloadCodec, usually both faster and smaller than {@link PooledZlibPayloadCodec}. Like
+ * {@link PooledZlibPayloadCodec} it leaves the payloads smaller than a threshold as they are, can
+ * compress with a dictionary and reuses its native compression and decompression contexts.
+ *
+ * <p>Requires {@code com.github.luben:zstd-jni}, which isn't a transitive dependency of the SDK and
+ * has to be added to the application.
+ *
+ * <p>A dictionary has to be trained by zstd, for example with {@code
+ * com.github.luben.zstd.ZstdDictTrainer} on a sample of the typical payloads. Its id is stored in
+ * the compressed payload, so a replaced dictionary has to be kept in {@link
+ * Builder#addDecodingDictionary(byte[])} while the payloads compressed with it may be read.
+ *
+ * <p>The decoded size of a payload is limited by {@link Builder#setMaxDecodedSize(int)}, so a
+ * corrupt or hostile frame can't make the codec allocate more memory than that.
+ */
+@Experimental
+public class ZstdPayloadCodec implements PayloadCodec {
+  public static final int DEFAULT_LEVEL = 1;
+  public static final int DEFAULT_MIN_PAYLOAD_SIZE = 64;
+  public static final int DEFAULT_MAX_DECODED_SIZE = 64 * 1024 * 1024;
+
+  private static final int STREAM_BUFFER_SIZE = 8 * 1024;
+  // ZSTD_CONTENTSIZE_UNKNOWN, frames written by zstd streams don't store their content size
+  private static final long CONTENT_SIZE_UNKNOWN = -1;
+
+  static final ByteString METADATA_ENCODING_ZSTD = ByteString.copyFromUtf8("binary/zstd");
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  private final int minPayloadSize;
+  private final int maxDecodedSize;
+  // dictionary id -> the dictionary
+  private final Map<Long, ZstdDictDecompress> decodingDictionaries = new HashMap<>();
+  private final InstancePool<ZstdCompressCtx> compressors;
+  private final InstancePool<ZstdDecompressCtx> decompressors;
+
+  public ZstdPayloadCodec() {
+    this(newBuilder());
+  }
+
+  private ZstdPayloadCodec(Builder builder) {
+    int level = builder.level;
+    this.minPayloadSize = builder.minPayloadSize;
+    this.maxDecodedSize = builder.maxDecodedSize;
+    ZstdDictCompress dictionary =
+        builder.dictionary != null ? new ZstdDictCompress(builder.dictionary, level) : null;
+    for (byte[] decodingDictionary : builder.decodingDictionaries.values()) {
+      decodingDictionaries.put(
+          Zstd.getDictIdFromDict(decodingDictionary), new ZstdDictDecompress(decodingDictionary));
+    }
+    int poolSize =
+        builder.poolSize > 0 ? builder.poolSize : Runtime.getRuntime().availableProcessors();
+    this.compressors =
+        new InstancePool<>(
+            poolSize,
+            () -> {
+              ZstdCompressCtx compressor = new ZstdCompressCtx();
+              compressor.setLevel(level);
+              if (dictionary != null) {
+                compressor.loadDict(dictionary);
+              }
+              return compressor;
+            },
+            ZstdCompressCtx::close);
+    this.decompressors =
+        new InstancePool<>(poolSize, ZstdDecompressCtx::new, ZstdDecompressCtx::close);
+  }
+
+  @Nonnull
+  @Override
+  public List<Payload> encode(@Nonnull List<Payload> payloads) {
+    List<Payload> result = new ArrayList<>(payloads.size());
+    for (Payload payload : payloads) {
+      result.add(encodePayload(payload));
+    }
+    return result;
+  }
+
+  @Nonnull
+  @Override
+  public List<Payload> decode(@Nonnull List<Payload> payloads) {
+    List<Payload> result = new ArrayList<>(payloads.size());
+    for (Payload payload : payloads) {
+      result.add(decodePayload(payload));
+    }
+    return result;
+  }
+
+  private Payload encodePayload(Payload originalPayload) {
+    if (originalPayload.getSerializedSize() < minPayloadSize) {
+      return originalPayload;
+    }
+    byte[] input = originalPayload.toByteArray();
+    byte[] output = new byte[(int) Zstd.compressBound(input.length)];
+    int compressedLength;
+    // every compression starts a new frame keeping the level and the dictionary of the context
+    ZstdCompressCtx compressor = compressors.acquire();
+    try {
+      compressedLength =
+          compressor.compressByteArray(output, 0, output.length, input, 0, input.length);
+    } catch (ZstdException e) {
+      throw new PayloadCodecException(e);
+    } finally {
+      compressors.release(compressor);
+    }
+    // the payload is left as it is if the compressed one isn't smaller
+    if (compressedLength >= input.length) {
+      return originalPayload;
+    }
+    return Payload.newBuilder()
+        .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, METADATA_ENCODING_ZSTD)
+        .setData(ByteString.copyFrom(output, 0, compressedLength))
+        .build();
+  }
+
+  private Payload decodePayload(Payload originalPayload) {
+    if (!METADATA_ENCODING_ZSTD.equals(
+        originalPayload.getMetadataOrDefault(EncodingKeys.METADATA_ENCODING_KEY, null))) {
+      // This payload is not encoded by this codec
+      return originalPayload;
+    }
+    byte[] input = originalPayload.getData().toByteArray();
+    long contentSize = Zstd.getFrameContentSize(input);
+    if (contentSize < 0 && contentSize != CONTENT_SIZE_UNKNOWN) {
+      throw new PayloadCodecException("Compressed payload has no valid frame header");
+    }
+    if (contentSize > maxDecodedSize) {
+      throw new PayloadCodecException(
+          "Compressed payload content size "
+              + contentSize
+              + " exceeds the limit of "
+              + maxDecodedSize
+              + " bytes");
+    }
+    long dictionaryId = Zstd.getDictIdFromFrame(input);
+    ZstdDictDecompress decodingDictionary = null;
+    if (dictionaryId != 0) {
+      decodingDictionary = decodingDictionaries.get(dictionaryId);
+      if (decodingDictionary == null) {
+        throw new PayloadCodecException(
+            "Payload is compressed with an unknown dictionary with id " + dictionaryId);
+      }
+    }
+    byte[] output =
+        contentSize == CONTENT_SIZE_UNKNOWN
+            ? decompressStream(input, decodingDictionary)
+            : decompress(input, (int) contentSize, decodingDictionary);
+    try {
+      return Payload.parseFrom(output);
+    } catch (InvalidProtocolBufferException e) {
+      throw new PayloadCodecException(e);
+    }
+  }
+
+  private byte[] decompress(
+      byte[] input, int contentSize, @Nullable ZstdDictDecompress decodingDictionary) {
+    byte[] output = new byte[contentSize];
+    ZstdDecompressCtx decompressor = decompressors.acquire();
+    try {
+      if (decodingDictionary != null) {
+        decompressor.loadDict(decodingDictionary);
+      }
+      int decompressedLength =
+          decompressor.decompressByteArray(output, 0, output.length, input, 0, input.length);
+      if (decompressedLength != output.length) {
+        throw new PayloadCodecException("Compressed payload is truncated");
+      }
+    } catch (ZstdException e) {
+      throw new PayloadCodecException(e);
+    } finally {
+      // drops the dictionary
+      decompressor.reset();
+      decompressors.release(decompressor);
+    }
+    return output;
+  }
+
+  /** Decompresses a frame written without its content size, like the ones of zstd streams. */
+  private byte[] decompressStream(byte[] input, @Nullable ZstdDictDecompress decodingDictionary) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(input.length * 2);
+    byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+    try (ZstdInputStreamNoFinalizer stream =
+        new ZstdInputStreamNoFinalizer(new ByteArrayInputStream(input))) {
+      if (decodingDictionary != null) {
+        stream.setDict(decodingDictionary);
+      }
+      int length;
+      while ((length = stream.read(buffer)) != -1) {
+        if (output.size() + length > maxDecodedSize) {
+          throw new PayloadCodecException(
+              "Compressed payload exceeds the limit of " + maxDecodedSize + " bytes");
+        }
+        output.write(buffer, 0, length);
+      }
+    } catch (IOException | ZstdException e) {
+      throw new PayloadCodecException(e);
+    }
+    return output.toByteArray();
+  }
+
+  public static final class Builder {
+    private int level = DEFAULT_LEVEL;
+    private int minPayloadSize = DEFAULT_MIN_PAYLOAD_SIZE;
+    private int maxDecodedSize = DEFAULT_MAX_DECODED_SIZE;
+    private byte[] dictionary;
+    private final Map<Long, byte[]> decodingDictionaries = new HashMap<>();
+    private int poolSize;
+
+    private Builder() {}
+
+    /**
+     * Compression level, negative levels trade the size for even more speed. Default is {@link
+     * #DEFAULT_LEVEL}.
+     *
+     * @see Zstd#minCompressionLevel()
+     * @see Zstd#maxCompressionLevel()
+     */
+    public Builder setLevel(int level) {
+      Preconditions.checkArgument(
+          level >= Zstd.minCompressionLevel() && level <= Zstd.maxCompressionLevel(),
+          "invalid compression level: %s",
+          level);
+      this.level = level;
+      return this;
+    }
+
+    /**
+     * Payloads serialized into fewer bytes are left uncompressed, as the frame header of zstd
+     * rarely leaves them smaller without a dictionary. Default is {@link
+     * #DEFAULT_MIN_PAYLOAD_SIZE}.
+     */
+    public Builder setMinPayloadSize(int minPayloadSize) {
+      Preconditions.checkArgument(minPayloadSize >= 0, "minPayloadSize should be non-negative");
+      this.minPayloadSize = minPayloadSize;
+      return this;
+    }
+
+    /**
+     * Payloads that decompress into more bytes fail to decode. The content size is read from the
+     * frame header before anything is allocated, so it protects from corrupt or hostile payloads.
+     * Default is {@link #DEFAULT_MAX_DECODED_SIZE}.
+     */
+    public Builder setMaxDecodedSize(int maxDecodedSize) {
+      Preconditions.checkArgument(maxDecodedSize > 0, "maxDecodedSize should be positive");
+      this.maxDecodedSize = maxDecodedSize;
+      return this;
+    }
+
+    /**
+     * Dictionary trained by zstd to compress the payloads with. The dictionary is also used for
+     * decoding.
+     *
+     * @see com.github.luben.zstd.ZstdDictTrainer
+     */
+    public Builder setDictionary(@Nullable byte[] dictionary) {
+      this.dictionary = dictionary != null ? dictionary.clone() : null;
+      if (dictionary != null) {
+        addDecodingDictionary(dictionary);
+      }
+      return this;
+    }
+
+    /**
+     * Adds a dictionary that isn't used for compression anymore, but can still be used by the
+     * payloads to decode.
+     */
+    public Builder addDecodingDictionary(@Nonnull byte[] dictionary) {
+      Preconditions.checkNotNull(dictionary, "dictionary");
+      long dictionaryId = Zstd.getDictIdFromDict(dictionary);
+      Preconditions.checkArgument(dictionaryId != 0, "dictionary should be trained by zstd");
+      decodingDictionaries.put(dictionaryId, dictionary.clone());
+      return this;
+    }
+
+    /**
+     * Maximum number of idle compression and of idle decompression contexts kept for reuse. Default
+     * is the number of available processors.
+     */
+    public Builder setPoolSize(int poolSize) {
+      Preconditions.checkArgument(poolSize > 0, "poolSize should be positive");
+      this.poolSize = poolSize;
+      return this;
+    }
+
+    public ZstdPayloadCodec build() {
+      return new ZstdPayloadCodec(this);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package io.temporal.worker;
+
+import io.temporal.common.Experimental;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Evicts the least recently used workflow runs first. This is the default {@link
+ * WorkflowCacheEvictionPolicy}.
+ */
+@Experimental
+public final class LruWorkflowCacheEvictionPolicy implements WorkflowCacheEvictionPolicy {
+  public static final String NAME = "lru";
+
+  // access-ordered, the least recently used run is the first
+  private final LinkedHashMap<String, Boolean> runs = new LinkedHashMap<>(16, 0.75f, true);
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public void onAdd(String runId, long replayCost) {
+    runs.put(runId, Boolean.TRUE);
+  }
+
+  @Override
+  public void onAccess(String runId) {
+    runs.get(runId);
+  }
+
+  @Override
+  public void onReplayCostUpdate(String runId, long replayCost) {
+    // replay cost is not taken into account, the access itself is already recorded by #onAccess
+  }
+
+  @Override
+  public void onRemove(String runId) {
+    runs.remove(runId);
+  }
+
+  @Override
+  public Iterator<String> getEvictionCandidates() {
+    return Collections.unmodifiableSet(runs.keySet()).iterator();
+  }
+}
@@ -44,6 +44,14 @@ public final class MetricsType {
   public static final String WORKFLOW_TASK_REPLAY_LATENCY =
       TEMPORAL_METRICS_PREFIX + "workflow_task_replay_latency";
 
+  /**
+   * Time a workflow task spent in a phase like history fetching or workflow code, tagged with
+   * workflow_type and workflow_task_phase. Reported only if workflow task profiling is enabled.
+   */
+  @Experimental
+  public static final String WORKFLOW_TASK_PHASE_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "workflow_task_phase_latency";
+
   /** Workflow task failed, possibly failing workflow or reporting failure to the service. */
   public static final String WORKFLOW_TASK_EXECUTION_FAILURE_COUNTER =
       TEMPORAL_METRICS_PREFIX + "workflow_task_execution_failed";
@@ -183,6 +191,33 @@ public final class MetricsType {
       TEMPORAL_METRICS_PREFIX + "sticky_cache_thread_forced_eviction";
   // gauge, tagged with namespace
   public static final String STICKY_CACHE_SIZE = TEMPORAL_METRICS_PREFIX + "sticky_cache_size";
+  // tagged with namespace, eviction_policy
+  @Experimental
+  public static final String STICKY_CACHE_EVICTION =
+      TEMPORAL_METRICS_PREFIX + "sticky_cache_eviction";
+  // total history size in bytes of workflows replayed to be added to the cache,
+  // tagged with namespace, eviction_policy
+  @Experimental
+  public static final String STICKY_CACHE_REPLAYED_HISTORY_SIZE =
+      TEMPORAL_METRICS_PREFIX + "sticky_cache_replayed_history_size";
+  // total history size in bytes of workflows evicted because the cache is full,
+  // tagged with namespace, eviction_policy
+  @Experimental
+  public static final String STICKY_CACHE_EVICTED_HISTORY_SIZE =
+      TEMPORAL_METRICS_PREFIX + "sticky_cache_evicted_history_size";
+  // number of workflows replayed into the cache by a warm-up after a worker restart,
+  // tagged with namespace
+  @Experimental
+  public static final String STICKY_CACHE_WARM_UP =
+      TEMPORAL_METRICS_PREFIX + "sticky_cache_warm_up";
+  // number of workflow task attempts to lock a workflow run already locked by another task
+  @Experimental
+  public static final String WORKFLOW_RUN_LOCK_CONTENTION_COUNTER =
+      TEMPORAL_METRICS_PREFIX + "workflow_run_lock_contention";
+  // time spent waiting for a workflow run lock held by another task, successfully or not
+  @Experimental
+  public static final String WORKFLOW_RUN_LOCK_WAIT_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "workflow_run_lock_wait_latency";
   // gauge
   public static final String WORKFLOW_ACTIVE_THREAD_COUNT =
       TEMPORAL_METRICS_PREFIX + "workflow_active_thread_count";
@@ -199,4 +234,17 @@ public final class MetricsType {
       TEMPORAL_METRICS_PREFIX + "resource_slots_mem_pid_output";
   public static final String RESOURCE_CPU_PID =
       TEMPORAL_METRICS_PREFIX + "resource_slots_cpu_pid_output";
+
+  //
+  // Client
+  //
+  // time from the request of a page of a prefetching execution listing to its response,
+  // tagged with namespace
+  @Experimental
+  public static final String LIST_WORKFLOW_EXECUTIONS_PAGE_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "list_workflow_executions_page_latency";
+  // time the consumer of a prefetching execution listing waited for a page, tagged with namespace
+  @Experimental
+  public static final String LIST_WORKFLOW_EXECUTIONS_PAGE_WAIT_LATENCY =
+      TEMPORAL_METRICS_PREFIX + "list_workflow_executions_page_wait_latency";
 }
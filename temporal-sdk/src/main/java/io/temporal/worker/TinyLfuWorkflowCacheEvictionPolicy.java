@@ -0,0 +1,262 @@
+package io.temporal.worker;
+
+import com.google.common.base.Preconditions;
+import io.temporal.common.Experimental;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Frequency and cost aware {@link WorkflowCacheEvictionPolicy} modeled after W-TinyLFU used by
+ * Caffeine.
+ *
+ * <p>How often each workflow run is accessed is tracked by a compact count-min sketch of 4-bit
+ * counters which are periodically halved, so the frequencies reflect the recent history of accesses
+ * and the memory overhead doesn't depend on the number of runs ever seen. The score of a run is the
+ * estimated access frequency multiplied by the replay cost. Runs are kept in the order of recency
+ * and the victims are taken from the least recently used end: of the {@value #SAMPLE_SIZE} least
+ * recently used runs the one with the lowest score is evicted first, so cheap to replay and rarely
+ * used runs are evicted first and expensive hot runs stay cached. Ties are broken by recency.
+ * Finding a victim doesn't depend on the number of cached runs.
+ *
+ * <p>Recently added runs stay in a small admission window and are evicted only after all the other
+ * runs. Without the window a newly cached run would have the lowest frequency and would be evicted
+ * before it gets a chance to build up its frequency. Unlike Caffeine, this policy never rejects a
+ * new entry, because a rejected workflow run would have to be replayed again on its next workflow
+ * task.
+ */
+@Experimental
+public final class TinyLfuWorkflowCacheEvictionPolicy implements WorkflowCacheEvictionPolicy {
+  public static final String NAME = "tiny_lfu";
+
+  private static final double DEFAULT_WINDOW_RATIO = 0.01;
+  // number of the least recently used runs compared by score to find the next victim
+  private static final int SAMPLE_SIZE = 16;
+
+  private final double windowRatio;
+  private final FrequencySketch sketch = new FrequencySketch();
+  private final Map<String, Entry> runs = new HashMap<>();
+  // runs that left the window, access-ordered, the least recently used run is the first
+  private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+  // insertion-ordered, the oldest run in the window is the first
+  private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>();
+
+  public TinyLfuWorkflowCacheEvictionPolicy() {
+    this(DEFAULT_WINDOW_RATIO);
+  }
+
+  /**
+   * @param windowRatio share of cached runs that are kept in the admission window, in [0, 1)
+   */
+  public TinyLfuWorkflowCacheEvictionPolicy(double windowRatio) {
+    Preconditions.checkArgument(
+        windowRatio >= 0 && windowRatio < 1, "windowRatio should be in [0, 1): %s", windowRatio);
+    this.windowRatio = windowRatio;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public void onAdd(String runId, long replayCost) {
+    onRemove(runId);
+    sketch.ensureCapacity(runs.size() + 1);
+    sketch.increment(runId);
+    Entry entry = new Entry(runId, replayCost);
+    runs.put(runId, entry);
+    window.put(runId, entry);
+    int maxWindowSize = (int) Math.ceil(runs.size() * windowRatio);
+    Iterator<Entry> oldest = window.values().iterator();
+    while (window.size() > maxWindowSize && oldest.hasNext()) {
+      Entry admitted = oldest.next();
+      oldest.remove();
+      main.put(admitted.runId, admitted);
+    }
+  }
+
+  @Override
+  public void onAccess(String runId) {
+    if (runs.containsKey(runId)) {
+      sketch.increment(runId);
+      // moves the run to the most recently used end, noop for the runs in the window
+      main.get(runId);
+    }
+  }
+
+  @Override
+  public void onReplayCostUpdate(String runId, long replayCost) {
+    Entry entry = runs.get(runId);
+    if (entry != null) {
+      entry.replayCost = replayCost;
+    }
+  }
+
+  @Override
+  public void onRemove(String runId) {
+    if (runs.remove(runId) != null) {
+      main.remove(runId);
+      window.remove(runId);
+    }
+  }
+
+  @Override
+  public Iterator<String> getEvictionCandidates() {
+    return new EvictionCandidates();
+  }
+
+  /** Estimated access frequency of a workflow run, visible for tests. */
+  int frequency(String runId) {
+    return sketch.frequency(runId);
+  }
+
+  private long score(Entry entry) {
+    return sketch.frequency(entry.runId) * Math.max(1, entry.replayCost);
+  }
+
+  private static final class Entry {
+    final String runId;
+    long replayCost;
+
+    Entry(String runId, long replayCost) {
+      this.runId = runId;
+      this.replayCost = replayCost;
+    }
+  }
+
+  /**
+   * Takes the runs of the main region from its least recently used end into a sample and returns
+   * the lowest scored run of the sample each time. The runs of the window follow in their order.
+   */
+  private final class EvictionCandidates implements Iterator<String> {
+    private final Iterator<Entry> leastRecentlyUsed = main.values().iterator();
+    private final Iterator<String> windowRuns =
+        Collections.unmodifiableSet(window.keySet()).iterator();
+    // ordered by recency like the main region
+    private final List<Entry> sample = new ArrayList<>(SAMPLE_SIZE);
+
+    @Override
+    public boolean hasNext() {
+      fillSample();
+      return !sample.isEmpty() || windowRuns.hasNext();
+    }
+
+    @Override
+    public String next() {
+      fillSample();
+      if (sample.isEmpty()) {
+        return windowRuns.next();
+      }
+      int victim = 0;
+      long victimScore = score(sample.get(0));
+      for (int i = 1; i < sample.size(); i++) {
+        long score = score(sample.get(i));
+        if (score < victimScore) {
+          victim = i;
+          victimScore = score;
+        }
+      }
+      return sample.remove(victim).runId;
+    }
+
+    private void fillSample() {
+      while (sample.size() < SAMPLE_SIZE && leastRecentlyUsed.hasNext()) {
+        sample.add(leastRecentlyUsed.next());
+      }
+    }
+  }
+
+  /**
+   * Count-min sketch of 4-bit counters packed 16 to a {@code long}, each key is hashed by 4 hash
+   * functions into the same table. Counters are halved after the number of increments reaches 10
+   * times the expected number of entries, which ages old accesses out.
+   */
+  private static final class FrequencySketch {
+    private static final int MAX_FREQUENCY = 15;
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MIN_EXPECTED_SIZE = 16;
+    private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private long[] table;
+    private int mask;
+    private int sampleSize;
+    private int additions;
+
+    FrequencySketch() {
+      resize(MIN_EXPECTED_SIZE);
+    }
+
+    void ensureCapacity(int expectedSize) {
+      if (expectedSize * 4 > mask + 1) {
+        resize(expectedSize);
+      }
+    }
+
+    int frequency(String key) {
+      int hash = spread(key.hashCode());
+      int frequency = MAX_FREQUENCY;
+      for (int i = 0; i < SEEDS.length; i++) {
+        frequency = Math.min(frequency, counter(index(hash, i)));
+      }
+      return frequency;
+    }
+
+    void increment(String key) {
+      int hash = spread(key.hashCode());
+      boolean added = false;
+      for (int i = 0; i < SEEDS.length; i++) {
+        int index = index(hash, i);
+        if (counter(index) < MAX_FREQUENCY) {
+          table[index >>> 4] += 1L << offset(index);
+          added = true;
+        }
+      }
+      if (added && ++additions >= sampleSize) {
+        reset();
+      }
+    }
+
+    private void resize(int expectedSize) {
+      // the table is reallocated rarely and the frequencies are rebuilt by the following accesses
+      int width = Integer.highestOneBit(Math.max(expectedSize, MIN_EXPECTED_SIZE) * 4 - 1) << 1;
+      table = new long[width >>> 4];
+      mask = width - 1;
+      sampleSize = 10 * (width / 4);
+      additions = 0;
+    }
+
+    private void reset() {
+      for (int i = 0; i < table.length; i++) {
+        table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      additions /= 2;
+    }
+
+    private int counter(int index) {
+      return (int) ((table[index >>> 4] >>> offset(index)) & MAX_FREQUENCY);
+    }
+
+    private static int offset(int index) {
+      return (index & 15) << 2;
+    }
+
+    private int index(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return ((int) h) & mask;
+    }
+
+    private static int spread(int x) {
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      return (x >>> 16) ^ x;
+    }
+  }
+}
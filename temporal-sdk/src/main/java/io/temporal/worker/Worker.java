@@ -5,6 +5,8 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.util.ImmutableMap;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.history.v1.History;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowClientOptions;
 import io.temporal.common.Experimental;
@@ -13,6 +15,7 @@ import io.temporal.common.context.ContextPropagator;
 import io.temporal.common.converter.DataConverter;
 import io.temporal.common.converter.EncodedValues;
 import io.temporal.failure.TemporalFailure;
+import io.temporal.internal.sync.ProfilingDataConverter;
 import io.temporal.internal.sync.WorkflowInternal;
 import io.temporal.internal.sync.WorkflowThreadExecutor;
 import io.temporal.internal.worker.*;
@@ -536,6 +539,16 @@ public final class Worker {
     replayWorkflowExecution(history);
   }
 
+  /**
+   * Replays the history into the workflow cache shared by the workers of the factory.
+   *
+   * @return true if the workflow has been added to the cache
+   * @see SyncWorkflowWorker#warmUpWorkflowCache(WorkflowExecution, History)
+   */
+  boolean warmUpWorkflowCache(WorkflowExecution execution, History history) throws Exception {
+    return workflowWorker.warmUpWorkflowCache(execution, history);
+  }
+
   public String getTaskQueue() {
     return taskQueue;
   }
@@ -684,6 +697,14 @@ public final class Worker {
         .setStickyTaskQueueDrainTimeout(options.getStickyTaskQueueDrainTimeout())
         .setUsingVirtualThreads(options.isUsingVirtualThreadsOnWorkflowWorker())
         .setDefaultDeadlockDetectionTimeout(options.getDefaultDeadlockDetectionTimeout())
+        .setWorkflowHistoryPrefetchPages(options.getWorkflowHistoryPrefetchPages())
+        .setUsingWorkflowTaskPipelining(options.isUsingWorkflowTaskPipelining())
+        .setWorkflowTaskProfiling(options.isWorkflowTaskProfiling())
+        .setSlowWorkflowTaskLogThreshold(options.getSlowWorkflowTaskLogThreshold())
+        .setDataConverter(
+            options.isWorkflowTaskProfiling()
+                ? new ProfilingDataConverter(clientOptions.getDataConverter())
+                : clientOptions.getDataConverter())
         .setMetricsScope(metricsScope.tagged(tags))
         .build();
   }
@@ -14,9 +14,13 @@ import io.temporal.internal.common.PluginUtils;
 import io.temporal.internal.sync.WorkflowThreadExecutor;
 import io.temporal.internal.task.VirtualThreadDelegate;
 import io.temporal.internal.worker.ShutdownManager;
+import io.temporal.internal.worker.WorkflowCacheSnapshot;
 import io.temporal.internal.worker.WorkflowExecutorCache;
 import io.temporal.internal.worker.WorkflowRunLockManager;
 import io.temporal.serviceclient.MetricsTag;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -42,7 +46,7 @@ import org.slf4j.LoggerFactory;
 public final class WorkerFactory {
   private static final Logger log = LoggerFactory.getLogger(WorkerFactory.class);
 
-  private final WorkflowRunLockManager runLocks = new WorkflowRunLockManager();
+  private final WorkflowRunLockManager runLocks;
 
   private final Scope metricsScope;
 
@@ -55,6 +59,8 @@ public final class WorkerFactory {
 
   private final @Nonnull WorkflowExecutorCache cache;
 
+  private @Nullable WorkflowCacheWarmUp cacheWarmUp;
+
   /** Plugins propagated from the client and applied to this factory. */
   private final List<WorkerPlugin> plugins;
 
@@ -123,6 +129,7 @@ public final class WorkerFactory {
             .getOptions()
             .getMetricsScope()
             .tagged(MetricsTag.defaultTags(namespace));
+    this.runLocks = new WorkflowRunLockManager(this.metricsScope);
 
     if (this.factoryOptions.isUsingVirtualWorkflowThreads()) {
       this.workflowThreadPool =
@@ -146,7 +153,12 @@ public final class WorkerFactory {
 
     this.cache =
         new WorkflowExecutorCache(
-            this.factoryOptions.getWorkflowCacheSize(), runLocks, metricsScope);
+            this.factoryOptions.getWorkflowCacheSize(),
+            this.factoryOptions.getWorkflowCacheMaxHistorySizeBytes(),
+            this.factoryOptions.getWorkflowCacheMaxThreadCount(),
+            this.factoryOptions.getWorkflowCacheEvictionPolicy().get(),
+            runLocks,
+            metricsScope);
   }
 
   /**
@@ -302,6 +314,51 @@ public final class WorkerFactory {
 
     state = State.Started;
     ((WorkflowClientInternal) workflowClient.getInternal()).registerWorkerFactory(this);
+    startWorkflowCacheWarmUp();
+  }
+
+  private void startWorkflowCacheWarmUp() {
+    Path file = factoryOptions.getWorkflowCacheWarmUpFile();
+    if (file == null || !Files.exists(file)) {
+      return;
+    }
+    WorkflowCacheSnapshot snapshot;
+    try {
+      snapshot = WorkflowCacheSnapshot.read(file);
+      // the snapshot is consumed by this start, it would be stale for the next one
+      Files.delete(file);
+    } catch (IOException e) {
+      log.warn("Failed to read workflow cache snapshot from {}", file, e);
+      return;
+    }
+    log.info(
+        "Warming up workflow cache with {} workflows from {}", snapshot.getEntries().size(), file);
+    // workers can't be added after the start
+    cacheWarmUp =
+        new WorkflowCacheWarmUp(
+            workflowClient,
+            new HashMap<>(workers),
+            factoryOptions.getWorkflowCacheWarmUpConcurrency());
+    cacheWarmUp
+        .start(snapshot)
+        .thenAccept(warmedUp -> log.info("Workflow cache warm-up added {} workflows", warmedUp));
+  }
+
+  private void saveWorkflowCacheSnapshot() {
+    Path file = factoryOptions.getWorkflowCacheWarmUpFile();
+    if (file == null) {
+      return;
+    }
+    WorkflowCacheSnapshot snapshot = cache.snapshot();
+    try {
+      snapshot.write(file);
+      log.info(
+          "Saved workflow cache snapshot with {} workflows to {}",
+          snapshot.getEntries().size(),
+          file);
+    } catch (IOException e) {
+      log.warn("Failed to save workflow cache snapshot to {}", file, e);
+    }
   }
 
   /** Was {@link #start()} called. */
@@ -387,6 +444,9 @@ public final class WorkerFactory {
   /** Internal method that actually shuts down workers. Called from the plugin chain. */
   private void doShutdown(boolean interruptUserTasks) {
     ((WorkflowClientInternal) workflowClient.getInternal()).deregisterWorkerFactory(this);
+    if (cacheWarmUp != null) {
+      cacheWarmUp.shutdown();
+    }
     ShutdownManager shutdownManager = new ShutdownManager();
 
     // Shutdown each worker with plugin hooks
@@ -418,6 +478,10 @@ public final class WorkerFactory {
     CompletableFuture.allOf(shutdownFutures.toArray(new CompletableFuture[0]))
         .thenApply(
             r -> {
+              // only a graceful shutdown leaves the cached workflows in a consistent state
+              if (!interruptUserTasks) {
+                saveWorkflowCacheSnapshot();
+              }
               cache.invalidateAll();
               workflowThreadPool.shutdownNow();
               return null;
@@ -4,8 +4,10 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import io.temporal.common.Experimental;
 import io.temporal.common.interceptors.WorkerInterceptor;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
 public class WorkerFactoryOptions {
@@ -24,6 +26,7 @@ public class WorkerFactoryOptions {
 
   private static final int DEFAULT_WORKFLOW_CACHE_SIZE = 600;
   private static final int DEFAULT_MAX_WORKFLOW_THREAD_COUNT = 600;
+  private static final int DEFAULT_WORKFLOW_CACHE_WARM_UP_CONCURRENCY = 4;
 
   private static final WorkerFactoryOptions DEFAULT_INSTANCE;
 
@@ -35,6 +38,11 @@ public class WorkerFactoryOptions {
 
     private Duration workflowHostLocalTaskQueueScheduleToStartTimeout;
     private int workflowCacheSize;
+    private long workflowCacheMaxHistorySizeBytes;
+    private int workflowCacheMaxThreadCount;
+    private Supplier<WorkflowCacheEvictionPolicy> workflowCacheEvictionPolicy;
+    private Path workflowCacheWarmUpFile;
+    private int workflowCacheWarmUpConcurrency;
     private int maxWorkflowThreadCount;
     private WorkerInterceptor[] workerInterceptors;
     private WorkerPlugin[] plugins;
@@ -51,6 +59,11 @@ public class WorkerFactoryOptions {
       this.workflowHostLocalTaskQueueScheduleToStartTimeout =
           options.workflowHostLocalTaskQueueScheduleToStartTimeout;
       this.workflowCacheSize = options.workflowCacheSize;
+      this.workflowCacheMaxHistorySizeBytes = options.workflowCacheMaxHistorySizeBytes;
+      this.workflowCacheMaxThreadCount = options.workflowCacheMaxThreadCount;
+      this.workflowCacheEvictionPolicy = options.workflowCacheEvictionPolicy;
+      this.workflowCacheWarmUpFile = options.workflowCacheWarmUpFile;
+      this.workflowCacheWarmUpConcurrency = options.workflowCacheWarmUpConcurrency;
       this.maxWorkflowThreadCount = options.maxWorkflowThreadCount;
       this.workerInterceptors = options.workerInterceptors;
       this.plugins = options.plugins;
@@ -72,6 +85,90 @@ public class WorkerFactoryOptions {
       return this;
     }
 
+    /**
+     * Bounds the workflow cache by the total size of the histories of the cached workflows in
+     * addition to {@link #setWorkflowCacheSize(int)}. The history size reported by the server is
+     * used as an estimate of the memory retained by a cached workflow, which allows sizing the
+     * cache against the available heap instead of a number of entries. Workflows chosen by the
+     * {@link #setWorkflowCacheEvictionPolicy(Supplier)} are evicted when the limit is exceeded.
+     *
+     * <p>Default is 0 which means no limit
+     */
+    @Experimental
+    public Builder setWorkflowCacheMaxHistorySizeBytes(long workflowCacheMaxHistorySizeBytes) {
+      this.workflowCacheMaxHistorySizeBytes = workflowCacheMaxHistorySizeBytes;
+      return this;
+    }
+
+    /**
+     * Bounds the workflow cache by the total number of workflow threads owned by the cached
+     * workflows, including the parked ones, in addition to {@link #setWorkflowCacheSize(int)}.
+     * Workflows chosen by the eviction policy are evicted when the limit is exceeded. Should be
+     * less than {@link #setMaxWorkflowThreadCount(int)} to leave threads available for workflows
+     * that are not cached.
+     *
+     * <p>Default is 0 which means no limit
+     */
+    @Experimental
+    public Builder setWorkflowCacheMaxThreadCount(int workflowCacheMaxThreadCount) {
+      this.workflowCacheMaxThreadCount = workflowCacheMaxThreadCount;
+      return this;
+    }
+
+    /**
+     * Policy deciding which workflows are evicted from the workflow cache when it's full or when
+     * workflow threads are needed for a workflow that is not cached. {@link
+     * TinyLfuWorkflowCacheEvictionPolicy} keeps frequently used workflows and workflows with long
+     * histories that are expensive to replay in the cache, which improves the hit rate for skewed
+     * workloads.
+     *
+     * <p>The policy is stateful, so the supplier is called to create a new instance for each {@link
+     * WorkerFactory}, for example {@code TinyLfuWorkflowCacheEvictionPolicy::new}.
+     *
+     * <p>Default is {@link LruWorkflowCacheEvictionPolicy}
+     */
+    @Experimental
+    public Builder setWorkflowCacheEvictionPolicy(
+        Supplier<WorkflowCacheEvictionPolicy> workflowCacheEvictionPolicy) {
+      this.workflowCacheEvictionPolicy = workflowCacheEvictionPolicy;
+      return this;
+    }
+
+    /**
+     * Enables the workflow cache warm-up across worker restarts. On {@link
+     * WorkerFactory#shutdown()} the factory saves the run ids of the cached workflows to this file.
+     * On {@link WorkerFactory#start()} the factory reads and deletes the file, then fetches the
+     * histories of the saved workflows and replays them into the cache in the background, so the
+     * first workflow task of these workflows after the restart doesn't need a full replay.
+     *
+     * <p>The file should be on a local disk of the host and shouldn't be shared between different
+     * {@link WorkerFactory} instances.
+     *
+     * <p>Default is null which means the warm-up is disabled
+     *
+     * @see #setWorkflowCacheWarmUpConcurrency(int)
+     */
+    @Experimental
+    public Builder setWorkflowCacheWarmUpFile(Path workflowCacheWarmUpFile) {
+      this.workflowCacheWarmUpFile = workflowCacheWarmUpFile;
+      return this;
+    }
+
+    /**
+     * Maximum number of workflow histories fetched and replayed at the same time by the workflow
+     * cache warm-up. Bounds the load on the Temporal Service and the memory used by the histories
+     * during the warm-up.
+     *
+     * <p>Default is 4
+     *
+     * @see #setWorkflowCacheWarmUpFile(Path)
+     */
+    @Experimental
+    public Builder setWorkflowCacheWarmUpConcurrency(int workflowCacheWarmUpConcurrency) {
+      this.workflowCacheWarmUpConcurrency = workflowCacheWarmUpConcurrency;
+      return this;
+    }
+
     /**
      * Maximum number of threads available for workflow execution across all workers created by the
      * Factory. This includes cached workflows.
@@ -158,6 +255,11 @@ public class WorkerFactoryOptions {
     public WorkerFactoryOptions build() {
       return new WorkerFactoryOptions(
           workflowCacheSize,
+          workflowCacheMaxHistorySizeBytes,
+          workflowCacheMaxThreadCount,
+          workflowCacheEvictionPolicy,
+          workflowCacheWarmUpFile,
+          workflowCacheWarmUpConcurrency,
           maxWorkflowThreadCount,
           workflowHostLocalTaskQueueScheduleToStartTimeout,
           workerInterceptors,
@@ -182,6 +284,11 @@ public class WorkerFactoryOptions {
     public WorkerFactoryOptions validateAndBuildWithDefaults() {
       return new WorkerFactoryOptions(
           workflowCacheSize,
+          workflowCacheMaxHistorySizeBytes,
+          workflowCacheMaxThreadCount,
+          workflowCacheEvictionPolicy,
+          workflowCacheWarmUpFile,
+          workflowCacheWarmUpConcurrency,
           maxWorkflowThreadCount,
           workflowHostLocalTaskQueueScheduleToStartTimeout,
           workerInterceptors == null ? new WorkerInterceptor[0] : workerInterceptors,
@@ -194,6 +301,11 @@ public class WorkerFactoryOptions {
   }
 
   private final int workflowCacheSize;
+  private final long workflowCacheMaxHistorySizeBytes;
+  private final int workflowCacheMaxThreadCount;
+  private final Supplier<WorkflowCacheEvictionPolicy> workflowCacheEvictionPolicy;
+  private final @Nullable Path workflowCacheWarmUpFile;
+  private final int workflowCacheWarmUpConcurrency;
   private final int maxWorkflowThreadCount;
   private final @Nullable Duration workflowHostLocalTaskQueueScheduleToStartTimeout;
   private final WorkerInterceptor[] workerInterceptors;
@@ -204,6 +316,11 @@ public class WorkerFactoryOptions {
 
   private WorkerFactoryOptions(
       int workflowCacheSize,
+      long workflowCacheMaxHistorySizeBytes,
+      int workflowCacheMaxThreadCount,
+      Supplier<WorkflowCacheEvictionPolicy> workflowCacheEvictionPolicy,
+      @Nullable Path workflowCacheWarmUpFile,
+      int workflowCacheWarmUpConcurrency,
       int maxWorkflowThreadCount,
       @Nullable Duration workflowHostLocalTaskQueueScheduleToStartTimeout,
       WorkerInterceptor[] workerInterceptors,
@@ -217,6 +334,18 @@ public class WorkerFactoryOptions {
       if (workflowCacheSize <= 0) {
         workflowCacheSize = DEFAULT_WORKFLOW_CACHE_SIZE;
       }
+      Preconditions.checkState(
+          workflowCacheMaxHistorySizeBytes >= 0, "negative workflowCacheMaxHistorySizeBytes");
+      Preconditions.checkState(
+          workflowCacheMaxThreadCount >= 0, "negative workflowCacheMaxThreadCount");
+      if (workflowCacheEvictionPolicy == null) {
+        workflowCacheEvictionPolicy = LruWorkflowCacheEvictionPolicy::new;
+      }
+      Preconditions.checkState(
+          workflowCacheWarmUpConcurrency >= 0, "negative workflowCacheWarmUpConcurrency");
+      if (workflowCacheWarmUpConcurrency == 0) {
+        workflowCacheWarmUpConcurrency = DEFAULT_WORKFLOW_CACHE_WARM_UP_CONCURRENCY;
+      }
 
       Preconditions.checkState(maxWorkflowThreadCount >= 0, "negative maxWorkflowThreadCount");
       if (maxWorkflowThreadCount == 0) {
@@ -235,6 +364,11 @@ public class WorkerFactoryOptions {
       }
     }
     this.workflowCacheSize = workflowCacheSize;
+    this.workflowCacheMaxHistorySizeBytes = workflowCacheMaxHistorySizeBytes;
+    this.workflowCacheMaxThreadCount = workflowCacheMaxThreadCount;
+    this.workflowCacheEvictionPolicy = workflowCacheEvictionPolicy;
+    this.workflowCacheWarmUpFile = workflowCacheWarmUpFile;
+    this.workflowCacheWarmUpConcurrency = workflowCacheWarmUpConcurrency;
     this.maxWorkflowThreadCount = maxWorkflowThreadCount;
     this.workflowHostLocalTaskQueueScheduleToStartTimeout =
         workflowHostLocalTaskQueueScheduleToStartTimeout;
@@ -249,6 +383,35 @@ public class WorkerFactoryOptions {
     return workflowCacheSize;
   }
 
+  @Experimental
+  public long getWorkflowCacheMaxHistorySizeBytes() {
+    return workflowCacheMaxHistorySizeBytes;
+  }
+
+  @Experimental
+  public int getWorkflowCacheMaxThreadCount() {
+    return workflowCacheMaxThreadCount;
+  }
+
+  /**
+   * @return supplier of the eviction policy, called once for each {@link WorkerFactory}
+   */
+  @Experimental
+  public Supplier<WorkflowCacheEvictionPolicy> getWorkflowCacheEvictionPolicy() {
+    return workflowCacheEvictionPolicy;
+  }
+
+  @Experimental
+  @Nullable
+  public Path getWorkflowCacheWarmUpFile() {
+    return workflowCacheWarmUpFile;
+  }
+
+  @Experimental
+  public int getWorkflowCacheWarmUpConcurrency() {
+    return workflowCacheWarmUpConcurrency;
+  }
+
   public int getMaxWorkflowThreadCount() {
     return maxWorkflowThreadCount;
   }
@@ -77,6 +77,10 @@ public final class WorkerOptions {
     private PollerBehavior workflowTaskPollersBehavior;
     private PollerBehavior activityTaskPollersBehavior;
     private PollerBehavior nexusTaskPollersBehavior;
+    private int workflowHistoryPrefetchPages;
+    private boolean usingWorkflowTaskPipelining;
+    private boolean workflowTaskProfiling;
+    private Duration slowWorkflowTaskLogThreshold;
 
     private Builder() {}
 
@@ -112,6 +116,10 @@ public final class WorkerOptions {
       this.workflowTaskPollersBehavior = o.workflowTaskPollersBehavior;
       this.activityTaskPollersBehavior = o.activityTaskPollersBehavior;
       this.nexusTaskPollersBehavior = o.nexusTaskPollersBehavior;
+      this.workflowHistoryPrefetchPages = o.workflowHistoryPrefetchPages;
+      this.usingWorkflowTaskPipelining = o.usingWorkflowTaskPipelining;
+      this.workflowTaskProfiling = o.workflowTaskProfiling;
+      this.slowWorkflowTaskLogThreshold = o.slowWorkflowTaskLogThreshold;
     }
 
     /**
@@ -524,6 +532,82 @@ public final class WorkerOptions {
       return this;
     }
 
+    /**
+     * Number of workflow history pages the worker requests from the server ahead of the page that
+     * is being replayed. When a workflow task doesn't contain the full history, for example after a
+     * workflow cache miss, prefetching lets the worker replay the events it already has while the
+     * next pages are being loaded. The prefetching stops at the workflow task timeout.
+     *
+     * <p>Default is 0 which means the pages are loaded one by one when the previous page is fully
+     * replayed.
+     */
+    @Experimental
+    public Builder setWorkflowHistoryPrefetchPages(int workflowHistoryPrefetchPages) {
+      if (workflowHistoryPrefetchPages < 0) {
+        throw new IllegalArgumentException(
+            "Negative workflowHistoryPrefetchPages value: " + workflowHistoryPrefetchPages);
+      }
+      this.workflowHistoryPrefetchPages = workflowHistoryPrefetchPages;
+      return this;
+    }
+
+    /**
+     * Enables pipelining of workflow tasks of the same workflow run. When enabled, the completion
+     * of a workflow task is sent to the server asynchronously and the workflow task slot and the
+     * run lock are released as soon as the commands are handed off, so the worker can poll and
+     * queue the next workflow task without waiting for the network round trip. A following task of
+     * the same run is processed only after the completion of the previous one is acknowledged by
+     * the server. Failures to report the completion invalidate the cached run, as they do without
+     * pipelining.
+     *
+     * <p>Only workflow tasks that completed successfully and don't request a new workflow task
+     * (like the local activity heartbeat tasks) are pipelined. Pipelining has no effect if sticky
+     * execution is disabled.
+     *
+     * <p>Default is false.
+     */
+    @Experimental
+    public Builder setUsingWorkflowTaskPipelining(boolean usingWorkflowTaskPipelining) {
+      this.usingWorkflowTaskPipelining = usingWorkflowTaskPipelining;
+      return this;
+    }
+
+    /**
+     * Enables the profiling of workflow tasks. The time of every workflow task is broken down into
+     * history fetching, application of the history events, workflow code, payload conversion on the
+     * workflow threads and the rest, and reported per workflow type as the {@link
+     * MetricsType#WORKFLOW_TASK_PHASE_LATENCY} timers. When enabled, the data converter used by the
+     * workflows is wrapped to measure the payload conversion.
+     *
+     * <p>Default is false.
+     *
+     * @see #setSlowWorkflowTaskLogThreshold(Duration)
+     */
+    @Experimental
+    public Builder setWorkflowTaskProfiling(boolean workflowTaskProfiling) {
+      this.workflowTaskProfiling = workflowTaskProfiling;
+      return this;
+    }
+
+    /**
+     * Workflow tasks that take longer than this threshold are logged at warn level with their
+     * profiling breakdown. At most one slow task per workflow type is logged per minute, the log
+     * reports how many were skipped. Has no effect unless {@link
+     * #setWorkflowTaskProfiling(boolean)} is enabled.
+     *
+     * <p>Default is null, slow workflow tasks are not logged.
+     */
+    @Experimental
+    public Builder setSlowWorkflowTaskLogThreshold(
+        @Nullable Duration slowWorkflowTaskLogThreshold) {
+      Preconditions.checkArgument(
+          slowWorkflowTaskLogThreshold == null || !slowWorkflowTaskLogThreshold.isNegative(),
+          "negative slowWorkflowTaskLogThreshold: %s",
+          slowWorkflowTaskLogThreshold);
+      this.slowWorkflowTaskLogThreshold = slowWorkflowTaskLogThreshold;
+      return this;
+    }
+
     public WorkerOptions build() {
       return new WorkerOptions(
           maxWorkerActivitiesPerSecond,
@@ -553,7 +637,11 @@ public final class WorkerOptions {
           deploymentOptions,
           workflowTaskPollersBehavior,
           activityTaskPollersBehavior,
-          nexusTaskPollersBehavior);
+          nexusTaskPollersBehavior,
+          workflowHistoryPrefetchPages,
+          usingWorkflowTaskPipelining,
+          workflowTaskProfiling,
+          slowWorkflowTaskLogThreshold);
     }
 
     public WorkerOptions validateAndBuildWithDefaults() {
@@ -628,6 +716,8 @@ public final class WorkerOptions {
             maxConcurrentNexusTaskPollers == 0,
             "nexusTaskPollersBehavior and maxConcurrentNexusTaskPollers are mutually exclusive");
       }
+      Preconditions.checkState(
+          workflowHistoryPrefetchPages >= 0, "negative workflowHistoryPrefetchPages");
 
       return new WorkerOptions(
           maxWorkerActivitiesPerSecond,
@@ -681,7 +771,11 @@ public final class WorkerOptions {
           deploymentOptions,
           workflowTaskPollersBehavior,
           activityTaskPollersBehavior,
-          nexusTaskPollersBehavior);
+          nexusTaskPollersBehavior,
+          workflowHistoryPrefetchPages,
+          usingWorkflowTaskPipelining,
+          workflowTaskProfiling,
+          slowWorkflowTaskLogThreshold);
     }
   }
 
@@ -713,6 +807,10 @@ public final class WorkerOptions {
   private final PollerBehavior workflowTaskPollersBehavior;
   private final PollerBehavior activityTaskPollersBehavior;
   private final PollerBehavior nexusTaskPollersBehavior;
+  private final int workflowHistoryPrefetchPages;
+  private final boolean usingWorkflowTaskPipelining;
+  private final boolean workflowTaskProfiling;
+  private final Duration slowWorkflowTaskLogThreshold;
 
   private WorkerOptions(
       double maxWorkerActivitiesPerSecond,
@@ -742,7 +840,11 @@ public final class WorkerOptions {
       WorkerDeploymentOptions deploymentOptions,
       PollerBehavior workflowTaskPollersBehavior,
       PollerBehavior activityTaskPollersBehavior,
-      PollerBehavior nexusTaskPollersBehavior) {
+      PollerBehavior nexusTaskPollersBehavior,
+      int workflowHistoryPrefetchPages,
+      boolean usingWorkflowTaskPipelining,
+      boolean workflowTaskProfiling,
+      Duration slowWorkflowTaskLogThreshold) {
     this.maxWorkerActivitiesPerSecond = maxWorkerActivitiesPerSecond;
     this.maxConcurrentActivityExecutionSize = maxConcurrentActivityExecutionSize;
     this.maxConcurrentWorkflowTaskExecutionSize = maxConcurrentWorkflowTaskExecutionSize;
@@ -771,6 +873,10 @@ public final class WorkerOptions {
     this.workflowTaskPollersBehavior = workflowTaskPollersBehavior;
     this.activityTaskPollersBehavior = activityTaskPollersBehavior;
     this.nexusTaskPollersBehavior = nexusTaskPollersBehavior;
+    this.workflowHistoryPrefetchPages = workflowHistoryPrefetchPages;
+    this.usingWorkflowTaskPipelining = usingWorkflowTaskPipelining;
+    this.workflowTaskProfiling = workflowTaskProfiling;
+    this.slowWorkflowTaskLogThreshold = slowWorkflowTaskLogThreshold;
   }
 
   public double getMaxWorkerActivitiesPerSecond() {
@@ -908,6 +1014,27 @@ public final class WorkerOptions {
     return nexusTaskPollersBehavior;
   }
 
+  @Experimental
+  public int getWorkflowHistoryPrefetchPages() {
+    return workflowHistoryPrefetchPages;
+  }
+
+  @Experimental
+  public boolean isUsingWorkflowTaskPipelining() {
+    return usingWorkflowTaskPipelining;
+  }
+
+  @Experimental
+  public boolean isWorkflowTaskProfiling() {
+    return workflowTaskProfiling;
+  }
+
+  @Experimental
+  @Nullable
+  public Duration getSlowWorkflowTaskLogThreshold() {
+    return slowWorkflowTaskLogThreshold;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -940,7 +1067,11 @@ public final class WorkerOptions {
         && Objects.equals(deploymentOptions, that.deploymentOptions)
         && Objects.equals(workflowTaskPollersBehavior, that.workflowTaskPollersBehavior)
         && Objects.equals(activityTaskPollersBehavior, that.activityTaskPollersBehavior)
-        && Objects.equals(nexusTaskPollersBehavior, that.nexusTaskPollersBehavior);
+        && Objects.equals(nexusTaskPollersBehavior, that.nexusTaskPollersBehavior)
+        && workflowHistoryPrefetchPages == that.workflowHistoryPrefetchPages
+        && usingWorkflowTaskPipelining == that.usingWorkflowTaskPipelining
+        && workflowTaskProfiling == that.workflowTaskProfiling
+        && Objects.equals(slowWorkflowTaskLogThreshold, that.slowWorkflowTaskLogThreshold);
   }
 
   @Override
@@ -973,7 +1104,11 @@ public final class WorkerOptions {
         deploymentOptions,
         workflowTaskPollersBehavior,
         activityTaskPollersBehavior,
-        nexusTaskPollersBehavior);
+        nexusTaskPollersBehavior,
+        workflowHistoryPrefetchPages,
+        usingWorkflowTaskPipelining,
+        workflowTaskProfiling,
+        slowWorkflowTaskLogThreshold);
   }
 
   @Override
@@ -1036,6 +1171,14 @@ public final class WorkerOptions {
         + activityTaskPollersBehavior
         + ", nexusTaskPollersBehavior="
         + nexusTaskPollersBehavior
+        + ", workflowHistoryPrefetchPages="
+        + workflowHistoryPrefetchPages
+        + ", usingWorkflowTaskPipelining="
+        + usingWorkflowTaskPipelining
+        + ", workflowTaskProfiling="
+        + workflowTaskProfiling
+        + ", slowWorkflowTaskLogThreshold="
+        + slowWorkflowTaskLogThreshold
         + '}';
   }
 }
@@ -0,0 +1,70 @@
+package io.temporal.worker;
+
+import io.temporal.common.Experimental;
+import java.util.Iterator;
+
+/**
+ * Decides which workflow runs are evicted from the workflow cache shared by the workers of a {@link
+ * WorkerFactory}. The policy is consulted when the cache exceeds its limits and when a cached
+ * workflow has to be evicted to free workflow threads for another one.
+ *
+ * <p>The cache serializes all calls to the policy, implementations don't need to be thread-safe.
+ * Accesses to cached runs are recorded by the cache without blocking and are reported to {@link
+ * #onAccess(String)} in batches, before the policy is asked for eviction candidates. A policy
+ * instance holds the state of a single cache, so each {@link WorkerFactory} creates its own one.
+ *
+ * @see WorkerFactoryOptions.Builder#setWorkflowCacheEvictionPolicy(java.util.function.Supplier)
+ * @see LruWorkflowCacheEvictionPolicy
+ * @see TinyLfuWorkflowCacheEvictionPolicy
+ */
+@Experimental
+public interface WorkflowCacheEvictionPolicy {
+
+  /**
+   * @return name of the policy, used as a value of the {@code eviction_policy} metrics tag
+   */
+  String getName();
+
+  /**
+   * Called when a workflow run is added to the cache.
+   *
+   * @param runId run id of the workflow
+   * @param replayCost estimated cost of recreating the cached state of the workflow run by
+   *     replaying its history, size of the history in bytes
+   */
+  void onAdd(String runId, long replayCost);
+
+  /**
+   * Called when a cached workflow run is used to process a workflow task.
+   *
+   * @param runId run id of the workflow
+   */
+  void onAccess(String runId);
+
+  /**
+   * Called when a cached workflow run processed a workflow task and its replay cost has changed.
+   *
+   * @param runId run id of the workflow
+   * @param replayCost new replay cost of the workflow run
+   */
+  void onReplayCostUpdate(String runId, long replayCost);
+
+  /**
+   * Called when a workflow run is removed from the cache for any reason.
+   *
+   * @param runId run id of the workflow
+   */
+  void onRemove(String runId);
+
+  /**
+   * Iterates the workflow runs added and not removed from the cache, ordered from the most to the
+   * least preferred for eviction. The cache usually takes only the first few candidates, so the
+   * iterator should find them lazily instead of ordering all the cached runs upfront.
+   *
+   * <p>No other method of the policy is called while the iterator is in use, the runs evicted
+   * through it are reported to {@link #onRemove(String)} after the iteration.
+   *
+   * @return iterator over run ids of the cached workflow runs, doesn't support removal
+   */
+  Iterator<String> getEvictionCandidates();
+}
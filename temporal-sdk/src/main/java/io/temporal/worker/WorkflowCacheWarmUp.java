@@ -0,0 +1,135 @@
+package io.temporal.worker;
+
+import static io.temporal.internal.common.WorkflowExecutionUtils.isWorkflowExecutionClosedEvent;
+
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.History;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.client.WorkflowClient;
+import io.temporal.common.WorkflowExecutionHistory;
+import io.temporal.internal.worker.WorkflowCacheSnapshot;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetches the histories of the workflow runs saved in a {@link WorkflowCacheSnapshot} by a previous
+ * worker and replays them into the workflow cache in the background, so the first workflow task of
+ * these runs after a worker restart is a cache hit.
+ *
+ * <p>The number of histories fetched and replayed at the same time is bounded by the concurrency,
+ * so is the amount of memory used by the histories.
+ */
+class WorkflowCacheWarmUp {
+  private static final Logger log = LoggerFactory.getLogger(WorkflowCacheWarmUp.class);
+
+  private final WorkflowClient workflowClient;
+  private final Map<String, Worker> workers;
+  private final ExecutorService executor;
+
+  WorkflowCacheWarmUp(WorkflowClient workflowClient, Map<String, Worker> workers, int concurrency) {
+    this.workflowClient = workflowClient;
+    this.workers = workers;
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            concurrency,
+            concurrency,
+            0,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              Thread thread =
+                  new Thread(r, "workflow-cache-warm-up-" + threadCounter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Starts warming up the cache with the snapshot runs, the hottest runs first.
+   *
+   * @return future completed with the number of workflow runs added to the cache
+   */
+  CompletableFuture<Integer> start(WorkflowCacheSnapshot snapshot) {
+    List<CompletableFuture<Boolean>> results = new ArrayList<>();
+    for (WorkflowCacheSnapshot.Entry entry : snapshot.getEntries()) {
+      results.add(CompletableFuture.supplyAsync(() -> warmUp(entry), executor));
+    }
+    return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+        .handle(
+            (r, e) -> {
+              int warmedUp = 0;
+              for (CompletableFuture<Boolean> result : results) {
+                if (!result.isCompletedExceptionally() && result.getNow(false)) {
+                  warmedUp++;
+                }
+              }
+              return warmedUp;
+            })
+        .whenComplete((r, e) -> executor.shutdown());
+  }
+
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private boolean warmUp(WorkflowCacheSnapshot.Entry entry) {
+    Worker worker = workers.get(entry.getTaskQueue());
+    if (worker == null) {
+      log.debug("Skipping cache warm-up of {}, there is no worker for the task queue", entry);
+      return false;
+    }
+    try {
+      WorkflowExecutionHistory history =
+          workflowClient.fetchHistory(entry.getWorkflowId(), entry.getRunId());
+      if (isWorkflowExecutionClosedEvent(history.getLastEvent())) {
+        return false;
+      }
+      // Replay up to the last completed workflow task, the same state a sticky worker has after
+      // completing it. The events after it are processed by the next workflow task.
+      List<HistoryEvent> events = history.getEvents();
+      int lastCompleted = events.size() - 1;
+      while (lastCompleted >= 0
+          && events.get(lastCompleted).getEventType()
+              != EventType.EVENT_TYPE_WORKFLOW_TASK_COMPLETED) {
+        lastCompleted--;
+      }
+      if (lastCompleted < 0) {
+        return false;
+      }
+      long startedEventId =
+          events.get(lastCompleted).getWorkflowTaskCompletedEventAttributes().getStartedEventId();
+      if (startedEventId < entry.getLastWorkflowTaskStartedEventId()) {
+        log.debug(
+            "Skipping cache warm-up of {}, the history is behind the snapshot, "
+                + "last workflow task started event id is {}",
+            entry,
+            startedEventId);
+        return false;
+      }
+      History replayedHistory =
+          History.newBuilder().addAllEvents(events.subList(0, lastCompleted + 1)).build();
+      WorkflowExecution execution =
+          WorkflowExecution.newBuilder()
+              .setWorkflowId(entry.getWorkflowId())
+              .setRunId(entry.getRunId())
+              .build();
+      return worker.warmUpWorkflowCache(execution, replayedHistory);
+    } catch (Exception e) {
+      if (!executor.isShutdown()) {
+        log.warn("Failed to warm up the workflow cache with {}", entry, e);
+      }
+      return false;
+    }
+  }
+}
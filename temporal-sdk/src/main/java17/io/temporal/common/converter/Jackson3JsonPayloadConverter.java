@@ -105,15 +105,18 @@ public class Jackson3JsonPayloadConverter implements PayloadConverter {
 
   @Override
   public Optional<Payload> toData(Object value) throws DataConverterException {
+    PayloadOutputBuffer buffer = PayloadOutputBuffer.acquire();
     try {
-      byte[] serialized = mapper.writeValueAsBytes(value);
+      mapper.writeValue(buffer, value);
       return Optional.of(
           Payload.newBuilder()
               .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, EncodingKeys.METADATA_ENCODING_JSON)
-              .setData(ByteString.copyFrom(serialized))
+              .setData(buffer.toByteString())
               .build());
     } catch (JacksonException e) {
       throw new DataConverterException(e);
+    } finally {
+      buffer.release();
     }
   }
 
@@ -126,7 +129,7 @@ public class Jackson3JsonPayloadConverter implements PayloadConverter {
     }
     try {
       JavaType reference = mapper.getTypeFactory().constructType(valueType);
-      return mapper.readValue(content.getData().toByteArray(), reference);
+      return mapper.readValue(data.newInput(), reference);
     } catch (JacksonException e) {
       throw new DataConverterException(e);
     }
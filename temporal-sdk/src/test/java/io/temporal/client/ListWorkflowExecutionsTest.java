@@ -1,13 +1,15 @@
 package io.temporal.client;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assume.assumeTrue;
 
 import io.temporal.testing.internal.SDKTestWorkflowRule;
 import io.temporal.workflow.shared.TestWorkflows;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.Rule;
 import org.junit.Test;
 
@@ -23,10 +25,6 @@ public class ListWorkflowExecutionsTest {
     final int EXECUTIONS_COUNT = 30;
     final String QUERY = "TaskQueue='" + testWorkflowRule.getTaskQueue() + "'";
 
-    assumeTrue(
-        "Test Server doesn't support listWorkflowExecutions endpoint yet",
-        SDKTestWorkflowRule.useExternalService);
-
     for (int i = 0; i < EXECUTIONS_COUNT; i++) {
       WorkflowStub.fromTyped(testWorkflowRule.newWorkflowStub(TestWorkflows.NoArgsWorkflow.class))
           .start();
@@ -55,10 +53,6 @@ public class ListWorkflowExecutionsTest {
     final int EXECUTIONS_COUNT = 30;
     final String QUERY = "TaskQueue='" + testWorkflowRule.getTaskQueue() + "'";
 
-    assumeTrue(
-        "Test Server doesn't support listWorkflowExecutions endpoint yet",
-        SDKTestWorkflowRule.useExternalService);
-
     for (int i = 0; i < EXECUTIONS_COUNT; i++) {
       WorkflowStub.fromTyped(testWorkflowRule.newWorkflowStub(TestWorkflows.NoArgsWorkflow.class))
           .start();
@@ -87,4 +81,48 @@ public class ListWorkflowExecutionsTest {
         EXECUTIONS_COUNT,
         workflowIds.size());
   }
+
+  @Test
+  public void listWorkflowExecutions_returnsAllExecutions_prefetch() throws InterruptedException {
+    final int EXECUTIONS_COUNT = 30;
+    final String QUERY = "TaskQueue='" + testWorkflowRule.getTaskQueue() + "'";
+
+    for (int i = 0; i < EXECUTIONS_COUNT; i++) {
+      WorkflowStub.fromTyped(testWorkflowRule.newWorkflowStub(TestWorkflows.NoArgsWorkflow.class))
+          .start();
+    }
+
+    // listWorkflowExecutions is Visibility API
+    // Temporal Visibility has latency and is not transactional with the Server API call
+    Thread.sleep(4_000);
+
+    ExecutorService decodingExecutor = Executors.newFixedThreadPool(2);
+    try {
+      ListExecutionsOptions options =
+          ListExecutionsOptions.newBuilder()
+              .setPageSize(4)
+              .setPrefetchPages(3)
+              .setDecodingExecutor(decodingExecutor)
+              .build();
+      List<WorkflowExecutionMetadata> executions;
+      try (Stream<WorkflowExecutionMetadata> stream =
+          testWorkflowRule.getWorkflowClient().listExecutions(QUERY, options)) {
+        executions = stream.collect(Collectors.toList());
+      }
+      assertEquals(
+          "Should return the original amount of the workflows",
+          EXECUTIONS_COUNT,
+          executions.size());
+      Set<String> workflowIds =
+          executions.stream()
+              .map(meta -> meta.getExecution().getWorkflowId())
+              .collect(Collectors.toSet());
+      assertEquals(
+          "Each of the returned workflowIds should be different",
+          EXECUTIONS_COUNT,
+          workflowIds.size());
+    } finally {
+      decodingExecutor.shutdown();
+    }
+  }
 }
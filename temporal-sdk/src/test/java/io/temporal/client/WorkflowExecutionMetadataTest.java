@@ -0,0 +1,87 @@
+package io.temporal.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+import io.temporal.api.common.v1.Memo;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.sdk.v1.UserMetadata;
+import io.temporal.api.workflow.v1.WorkflowExecutionConfig;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.DescribeWorkflowExecutionResponse;
+import io.temporal.common.SearchAttributeKey;
+import io.temporal.common.SearchAttributes;
+import io.temporal.common.converter.DataConverter;
+import io.temporal.common.converter.DefaultDataConverter;
+import io.temporal.internal.common.SearchAttributesUtil;
+import org.junit.Test;
+
+public class WorkflowExecutionMetadataTest {
+  private static final DataConverter CONVERTER = DefaultDataConverter.STANDARD_INSTANCE;
+  private static final SearchAttributeKey<String> KEY = SearchAttributeKey.forKeyword("CustomKey");
+
+  private static final WorkflowExecutionInfo INFO =
+      WorkflowExecutionInfo.newBuilder()
+          .setExecution(WorkflowExecution.newBuilder().setWorkflowId("workflow").setRunId("run"))
+          .setStatus(WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING)
+          .setMemo(Memo.newBuilder().putFields("memoKey", CONVERTER.toPayload("memoValue").get()))
+          .setSearchAttributes(
+              SearchAttributesUtil.encodeTyped(
+                  SearchAttributes.newBuilder().set(KEY, "keyword").build()))
+          .build();
+
+  @Test
+  public void payloadsAreNotDecodedUnlessAccessed() {
+    DataConverter dataConverter = mock(DataConverter.class);
+    WorkflowExecutionMetadata metadata = new WorkflowExecutionMetadata(INFO, dataConverter);
+
+    assertEquals("workflow", metadata.getExecution().getWorkflowId());
+    assertEquals(WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING, metadata.getStatus());
+    verifyNoInteractions(dataConverter);
+  }
+
+  @Test
+  public void memoConverterIsCreatedOnce() {
+    DataConverter dataConverter = spy(CONVERTER);
+    WorkflowExecutionMetadata metadata = new WorkflowExecutionMetadata(INFO, dataConverter);
+
+    assertEquals("memoValue", metadata.getMemo("memoKey", String.class));
+    assertEquals("memoValue", metadata.getMemo("memoKey", String.class));
+    assertNull(metadata.getMemo("missing", String.class));
+    verify(dataConverter, times(1)).withContext(any());
+  }
+
+  @Test
+  public void searchAttributesAreDecodedOnce() {
+    WorkflowExecutionMetadata metadata = new WorkflowExecutionMetadata(INFO, CONVERTER);
+
+    SearchAttributes searchAttributes = metadata.getTypedSearchAttributes();
+    assertEquals("keyword", searchAttributes.get(KEY));
+    assertSame(searchAttributes, metadata.getTypedSearchAttributes());
+  }
+
+  @Test
+  public void staticSummaryIsDecodedOnce() {
+    DataConverter dataConverter = spy(CONVERTER);
+    DescribeWorkflowExecutionResponse response =
+        DescribeWorkflowExecutionResponse.newBuilder()
+            .setWorkflowExecutionInfo(INFO)
+            .setExecutionConfig(
+                WorkflowExecutionConfig.newBuilder()
+                    .setUserMetadata(
+                        UserMetadata.newBuilder()
+                            .setSummary(CONVERTER.toPayload("summary").get())))
+            .build();
+    WorkflowExecutionDescription description =
+        new WorkflowExecutionDescription(response, dataConverter);
+
+    String summary = description.getStaticSummary();
+    assertEquals("summary", summary);
+    assertSame(summary, description.getStaticSummary());
+    assertNull(description.getStaticDetails());
+    verify(dataConverter, times(1)).withContext(any());
+  }
+}
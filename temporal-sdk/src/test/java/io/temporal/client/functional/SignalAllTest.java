@@ -0,0 +1,96 @@
+package io.temporal.client.functional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.temporal.client.BulkSignal;
+import io.temporal.client.BulkSignalOptions;
+import io.temporal.client.BulkSignalResult;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowNotFoundException;
+import io.temporal.client.WorkflowStub;
+import io.temporal.testing.internal.SDKTestWorkflowRule;
+import io.temporal.workflow.Workflow;
+import io.temporal.workflow.shared.TestWorkflows;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class SignalAllTest {
+  private static final int SIGNALS_PER_WORKFLOW = 3;
+
+  @Rule
+  public SDKTestWorkflowRule testWorkflowRule =
+      SDKTestWorkflowRule.newBuilder().setWorkflowTypes(CountingSignalsWorkflowImpl.class).build();
+
+  @Test
+  public void signalAll() {
+    WorkflowClient client = testWorkflowRule.getWorkflowClient();
+    List<TestWorkflows.TestSignaledWorkflow> workflows = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      TestWorkflows.TestSignaledWorkflow workflow =
+          testWorkflowRule.newWorkflowStub(TestWorkflows.TestSignaledWorkflow.class);
+      WorkflowClient.start(workflow::execute);
+      workflows.add(workflow);
+    }
+
+    Stream<BulkSignal> signals =
+        Stream.concat(
+            workflows.stream()
+                .flatMap(
+                    w ->
+                        IntStream.range(0, SIGNALS_PER_WORKFLOW)
+                            .mapToObj(
+                                i ->
+                                    BulkSignal.of(
+                                        WorkflowStub.fromTyped(w).getExecution(),
+                                        "testSignal",
+                                        String.valueOf(i)))),
+            Stream.of(BulkSignal.of("non-existing-id", "testSignal", "0")));
+    List<BulkSignalResult> results;
+    try (Stream<BulkSignalResult> resultStream =
+        client.signalAll(signals, BulkSignalOptions.newBuilder().setMaxInFlight(2).build())) {
+      results = resultStream.collect(Collectors.toList());
+    }
+
+    assertEquals(workflows.size() * SIGNALS_PER_WORKFLOW + 1, results.size());
+    Map<String, BulkSignalResult> failed =
+        results.stream()
+            .filter(r -> !r.isSuccess())
+            .collect(
+                Collectors.toMap(
+                    r -> r.getSignal().getExecution().getWorkflowId(), Function.identity()));
+    assertEquals(1, failed.size());
+    BulkSignalResult notFound = failed.get("non-existing-id");
+    assertFalse(notFound.isSuccess());
+    assertTrue(notFound.getFailure() instanceof WorkflowNotFoundException);
+
+    for (TestWorkflows.TestSignaledWorkflow workflow : workflows) {
+      assertEquals(
+          String.valueOf(SIGNALS_PER_WORKFLOW),
+          WorkflowStub.fromTyped(workflow).getResult(String.class));
+    }
+  }
+
+  public static class CountingSignalsWorkflowImpl implements TestWorkflows.TestSignaledWorkflow {
+    private int signals;
+
+    @Override
+    public String execute() {
+      Workflow.await(() -> signals == SIGNALS_PER_WORKFLOW);
+      return String.valueOf(signals);
+    }
+
+    @Override
+    public void signal(String arg) {
+      signals++;
+    }
+  }
+}
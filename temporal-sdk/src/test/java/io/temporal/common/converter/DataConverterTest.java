@@ -1,9 +1,16 @@
 package io.temporal.common.converter;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
 import io.temporal.api.common.v1.Payloads;
+import io.temporal.payload.context.SerializationContext;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -61,4 +68,101 @@ public class DataConverterTest {
     Assert.assertEquals("test", result[0]);
     Assert.assertNull(result[1]);
   }
+
+  @Test
+  public void valueDependentConverterIsTriedForEveryValue() {
+    DataConverter dc =
+        new DefaultDataConverter(
+            new NullPayloadConverter(),
+            new ByteArrayPayloadConverter(),
+            new ShortStringPayloadConverter(),
+            new JacksonJsonPayloadConverter());
+
+    Assert.assertEquals(
+        EncodingKeys.METADATA_ENCODING_JSON_NAME, getEncoding(dc.toPayload("a long string")));
+    Assert.assertEquals(ShortStringPayloadConverter.ENCODING, getEncoding(dc.toPayload("abc")));
+    Assert.assertEquals(
+        EncodingKeys.METADATA_ENCODING_JSON_NAME, getEncoding(dc.toPayload("another long one")));
+    Assert.assertEquals(ShortStringPayloadConverter.ENCODING, getEncoding(dc.toPayload("def")));
+    Assert.assertEquals(
+        EncodingKeys.METADATA_ENCODING_RAW_NAME, getEncoding(dc.toPayload(new byte[] {1})));
+    Assert.assertEquals(EncodingKeys.METADATA_ENCODING_NULL_NAME, getEncoding(dc.toPayload(null)));
+  }
+
+  @Test
+  public void overridingConverterIsUsedAfterConversions() {
+    DefaultDataConverter dc = DefaultDataConverter.newDefaultInstance();
+    Assert.assertEquals(
+        EncodingKeys.METADATA_ENCODING_JSON_NAME, getEncoding(dc.toPayload("a long string")));
+
+    AtomicInteger conversions = new AtomicInteger();
+    dc.withPayloadConverterOverrides(
+        new JacksonJsonPayloadConverter() {
+          @Override
+          public Optional<Payload> toData(Object value) {
+            conversions.incrementAndGet();
+            return super.toData(value);
+          }
+        });
+    dc.toPayload("a long string");
+    Assert.assertEquals(1, conversions.get());
+  }
+
+  @Test
+  public void convertersAreBoundToContextOnce() {
+    AtomicInteger bindings = new AtomicInteger();
+    DataConverter dc =
+        new DefaultDataConverter(
+            new NullPayloadConverter(),
+            new ShortStringPayloadConverter() {
+              @Override
+              public PayloadConverter withContext(SerializationContext context) {
+                bindings.incrementAndGet();
+                return this;
+              }
+            },
+            new JacksonJsonPayloadConverter());
+    SerializationContext context = new SerializationContext() {};
+
+    DataConverter bound = dc.withContext(context);
+    Optional<Payloads> payloads = bound.toPayloads("abc", "def", "a long string");
+    Assert.assertEquals("def", bound.fromPayloads(1, payloads, String.class, String.class));
+    Assert.assertEquals(
+        "abc", bound.fromPayload(payloads.get().getPayloads(0), String.class, String.class));
+    Assert.assertEquals(1, bindings.get());
+
+    dc.withContext(context).toPayload("abc");
+    Assert.assertEquals(2, bindings.get());
+  }
+
+  private static String getEncoding(Optional<Payload> payload) {
+    return payload.get().getMetadataOrThrow(EncodingKeys.METADATA_ENCODING_KEY).toString(UTF_8);
+  }
+
+  /** Accepts only the strings shorter than 5 characters. */
+  private static class ShortStringPayloadConverter implements PayloadConverter {
+    static final String ENCODING = "test/short-string";
+
+    @Override
+    public String getEncodingType() {
+      return ENCODING;
+    }
+
+    @Override
+    public Optional<Payload> toData(Object value) {
+      if (!(value instanceof String) || ((String) value).length() >= 5) {
+        return Optional.empty();
+      }
+      return Optional.of(
+          Payload.newBuilder()
+              .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ByteString.copyFromUtf8(ENCODING))
+              .setData(ByteString.copyFromUtf8((String) value))
+              .build());
+    }
+
+    @Override
+    public <T> T fromData(Payload content, Class<T> valueType, Type valueGenericType) {
+      return valueType.cast(content.getData().toStringUtf8());
+    }
+  }
 }
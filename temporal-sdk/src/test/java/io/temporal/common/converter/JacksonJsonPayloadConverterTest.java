@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import com.google.common.base.Strings;
+import io.temporal.api.common.v1.Payload;
 import io.temporal.api.common.v1.Payloads;
 import java.lang.reflect.InvocationTargetException;
 import java.time.Instant;
@@ -86,6 +88,20 @@ public class JacksonJsonPayloadConverterTest {
     assertEquals("myPayload", converted.getName().get());
   }
 
+  @Test
+  public void testPayloadsDoNotShareSerializationBuffer() {
+    JacksonJsonPayloadConverter converter = new JacksonJsonPayloadConverter();
+    String large = Strings.repeat("0123456789", PayloadOutputBuffer.MAX_RETAINED_SIZE / 5);
+    Payload first = converter.toData("first").get();
+    Payload second = converter.toData(large).get();
+    Payload third = converter.toData("third").get();
+
+    assertEquals("\"first\"", first.getData().toStringUtf8());
+    assertEquals("\"third\"", third.getData().toStringUtf8());
+    assertEquals(large, converter.fromData(second, String.class, String.class));
+    assertEquals("first", converter.fromData(first, String.class, String.class));
+  }
+
   static class TestOptionalPayload {
     private Optional<Long> id;
     private Optional<Instant> timestamp;
@@ -0,0 +1,91 @@
+package io.temporal.common.converter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.Payloads;
+import java.lang.reflect.Type;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Test;
+
+public class JacksonSmilePayloadConverterTest {
+  private static final Type PAYLOAD_LIST_TYPE =
+      TypeFactory.defaultInstance()
+          .constructCollectionType(List.class, ProtoPayloadConverterTest.TestPayload.class);
+
+  private final DataConverter smileConverter =
+      new DefaultDataConverter(
+          new NullPayloadConverter(),
+          new ByteArrayPayloadConverter(),
+          new ProtobufJsonPayloadConverter(),
+          new ProtobufPayloadConverter(),
+          new JacksonSmilePayloadConverter(),
+          new JacksonJsonPayloadConverter());
+
+  @Test
+  public void testSmile() {
+    ProtoPayloadConverterTest.TestPayload payload =
+        new ProtoPayloadConverterTest.TestPayload(1L, Instant.now(), "myPayload");
+    Optional<Payloads> data = smileConverter.toPayloads(payload, "myString", null);
+
+    assertEquals(EncodingKeys.METADATA_ENCODING_SMILE_NAME, getEncoding(data.get().getPayloads(0)));
+    assertEquals(EncodingKeys.METADATA_ENCODING_SMILE_NAME, getEncoding(data.get().getPayloads(1)));
+    assertEquals(EncodingKeys.METADATA_ENCODING_NULL_NAME, getEncoding(data.get().getPayloads(2)));
+    assertEquals(
+        payload,
+        smileConverter.fromPayloads(
+            0,
+            data,
+            ProtoPayloadConverterTest.TestPayload.class,
+            ProtoPayloadConverterTest.TestPayload.class));
+    assertEquals("myString", smileConverter.fromPayloads(1, data, String.class, String.class));
+  }
+
+  @Test
+  public void testJsonPayloadsAreStillDecoded() {
+    ProtoPayloadConverterTest.TestPayload payload =
+        new ProtoPayloadConverterTest.TestPayload(1L, Instant.now(), "myPayload");
+    Optional<Payloads> data = DefaultDataConverter.newDefaultInstance().toPayloads(payload);
+
+    assertEquals(EncodingKeys.METADATA_ENCODING_JSON_NAME, getEncoding(data.get().getPayloads(0)));
+    assertEquals(
+        payload,
+        smileConverter.fromPayloads(
+            0,
+            data,
+            ProtoPayloadConverterTest.TestPayload.class,
+            ProtoPayloadConverterTest.TestPayload.class));
+  }
+
+  @Test
+  public void testSmileIsSmallerThanJson() {
+    List<ProtoPayloadConverterTest.TestPayload> payloads = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      payloads.add(
+          new ProtoPayloadConverterTest.TestPayload(i, Instant.ofEpochSecond(i), "payload" + i));
+    }
+    Payload smile = smileConverter.toPayload(payloads).get();
+    Payload json = DefaultDataConverter.newDefaultInstance().toPayload(payloads).get();
+
+    assertTrue(
+        smile.getData().size() + " >= " + json.getData().size(),
+        smile.getData().size() < json.getData().size());
+    assertEquals(payloads, smileConverter.fromPayload(smile, List.class, PAYLOAD_LIST_TYPE));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testJsonMapperIsRejected() {
+    new JacksonSmilePayloadConverter(new ObjectMapper());
+  }
+
+  private static String getEncoding(Payload payload) {
+    return payload.getMetadataOrThrow(EncodingKeys.METADATA_ENCODING_KEY).toString(UTF_8);
+  }
+}
@@ -0,0 +1,187 @@
+package io.temporal.internal.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.google.protobuf.ByteString;
+import com.uber.m3.tally.NoopScope;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nonnull;
+import org.junit.Test;
+
+public class PrefetchingPaginatorTest {
+
+  /** Page i has the elements 10 * i and 10 * i + 1, the page 0 is requested with an empty token. */
+  private static class TestPaginator extends PrefetchingPaginator<Integer, Integer, String> {
+    private final int pageCount;
+    final List<ByteString> requested = new ArrayList<>();
+    final List<CompletableFuture<Integer>> responses = new ArrayList<>();
+
+    TestPaginator(int prefetchPages, int pageCount) {
+      super(prefetchPages, Runnable::run, String::valueOf, new NoopScope());
+      this.pageCount = pageCount;
+    }
+
+    @Override
+    protected synchronized CompletableFuture<Integer> performRequest(
+        @Nonnull ByteString nextPageToken) {
+      requested.add(nextPageToken);
+      CompletableFuture<Integer> response = new CompletableFuture<>();
+      responses.add(response);
+      return response;
+    }
+
+    @Override
+    protected ByteString getNextPageToken(Integer page) {
+      return page + 1 < pageCount ? ByteString.copyFromUtf8(String.valueOf(page + 1)) : null;
+    }
+
+    @Override
+    protected List<Integer> toElements(Integer page) {
+      return Arrays.asList(10 * page, 10 * page + 1);
+    }
+
+    synchronized void respond(int page) {
+      responses.get(page).complete(page);
+    }
+
+    synchronized int requestCount() {
+      return requested.size();
+    }
+  }
+
+  @Test
+  public void pagesAreRequestedAheadOfTheConsumer() {
+    TestPaginator paginator = new TestPaginator(2, 5);
+    paginator.init();
+    assertEquals(1, paginator.requestCount());
+    paginator.respond(0);
+    // the next page is requested without waiting for the consumer
+    assertEquals(2, paginator.requestCount());
+    assertEquals(ByteString.copyFromUtf8("1"), paginator.requested.get(1));
+    paginator.respond(1);
+    // two pages are buffered, the third one waits for the consumer
+    assertEquals(2, paginator.requestCount());
+
+    assertEquals("0", paginator.next());
+    assertEquals(3, paginator.requestCount());
+    assertEquals("1", paginator.next());
+    assertEquals("10", paginator.next());
+    paginator.respond(2);
+    assertEquals(4, paginator.requestCount());
+    paginator.respond(3);
+    assertEquals(4, paginator.requestCount());
+    assertEquals("11", paginator.next());
+    assertEquals("20", paginator.next());
+    assertEquals(5, paginator.requestCount());
+    paginator.respond(4);
+
+    List<String> rest = new ArrayList<>();
+    paginator.forEachRemaining(rest::add);
+    assertEquals(Arrays.asList("21", "30", "31", "40", "41"), rest);
+    assertFalse(paginator.hasNext());
+  }
+
+  @Test
+  public void closeStopsThePrefetching() {
+    TestPaginator paginator = new TestPaginator(1, 5);
+    paginator.init();
+    paginator.respond(0);
+    assertEquals(1, paginator.requestCount());
+    paginator.close();
+    assertEquals("0", paginator.next());
+    assertEquals("1", paginator.next());
+    assertEquals(1, paginator.requestCount());
+  }
+
+  @Test(timeout = 10_000)
+  public void iterationEndsAfterClose() {
+    TestPaginator paginator = new TestPaginator(1, 5);
+    paginator.init();
+    paginator.respond(0);
+    paginator.close();
+    List<String> rest = new ArrayList<>();
+    paginator.forEachRemaining(rest::add);
+    assertEquals(Arrays.asList("0", "1"), rest);
+    assertFalse(paginator.hasNext());
+    assertEquals(1, paginator.requestCount());
+  }
+
+  @Test(timeout = 10_000)
+  public void iterationEndsAfterCloseWithARequestInFlight() {
+    TestPaginator paginator = new TestPaginator(2, 5);
+    paginator.init();
+    paginator.respond(0);
+    assertEquals(2, paginator.requestCount());
+    paginator.close();
+    paginator.respond(1);
+    List<String> rest = new ArrayList<>();
+    paginator.forEachRemaining(rest::add);
+    assertEquals(Arrays.asList("0", "1", "10", "11"), rest);
+    assertFalse(paginator.hasNext());
+    assertEquals(2, paginator.requestCount());
+  }
+
+  @Test
+  public void failureOfARequestIsThrownToTheConsumer() {
+    TestPaginator paginator = new TestPaginator(2, 5);
+    paginator.init();
+    paginator.respond(0);
+    RuntimeException failure = new RuntimeException("test");
+    paginator.responses.get(1).completeExceptionally(failure);
+    assertEquals("0", paginator.next());
+    assertEquals("1", paginator.next());
+    try {
+      paginator.hasNext();
+      fail("unreachable");
+    } catch (RuntimeException e) {
+      assertSame(failure, e);
+    }
+    assertFalse(paginator.hasNext());
+  }
+
+  @Test
+  public void pagesAreConvertedOnTheExecutorInOrder() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      int pageCount = 100;
+      PrefetchingPaginator<Integer, Integer, String> paginator =
+          new PrefetchingPaginator<Integer, Integer, String>(
+              8, executor, String::valueOf, new NoopScope()) {
+            @Override
+            protected CompletableFuture<Integer> performRequest(@Nonnull ByteString token) {
+              int page = token.isEmpty() ? 0 : Integer.parseInt(token.toStringUtf8());
+              return CompletableFuture.supplyAsync(() -> page);
+            }
+
+            @Override
+            protected ByteString getNextPageToken(Integer page) {
+              return page + 1 < pageCount
+                  ? ByteString.copyFromUtf8(String.valueOf(page + 1))
+                  : ByteString.EMPTY;
+            }
+
+            @Override
+            protected List<Integer> toElements(Integer page) {
+              return Arrays.asList(2 * page, 2 * page + 1);
+            }
+          };
+      paginator.init();
+      int expected = 0;
+      while (paginator.hasNext()) {
+        assertEquals(String.valueOf(expected++), paginator.next());
+      }
+      assertEquals(2 * pageCount, expected);
+      assertFalse(paginator.hasNext());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -4,11 +4,18 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.*;
 
 import com.google.common.io.CharStreams;
+import com.google.protobuf.util.JsonFormat;
+import io.temporal.api.history.v1.History;
+import io.temporal.api.history.v1.HistoryEvent;
 import io.temporal.common.WorkflowExecutionHistory;
+import io.temporal.common.converter.DataConverterException;
 import io.temporal.testing.WorkflowHistoryLoader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringReader;
 import java.net.URL;
 import java.nio.file.Files;
 import org.junit.Test;
@@ -49,17 +56,36 @@ public class WorkflowExecutionHistoryTest {
         "ff28c127-56ff-416f-8630-53fa4f4cf79a", history.getWorkflowExecution().getWorkflowId());
   }
 
+  @Test
+  public void streamingParserMatchesWholeDocumentConversion() throws IOException {
+    for (String resourceName : new String[] {"simpleHistory1.json", "complexHistory1.json"}) {
+      String json = readResource(resourceName);
+      History.Builder expected = History.newBuilder();
+      JsonFormat.parser()
+          .ignoringUnknownFields()
+          .merge(HistoryJsonUtils.historyFormatJsonToProtoJson(json), expected);
+
+      try (HistoryJsonReader reader = new HistoryJsonReader(new StringReader(json))) {
+        for (HistoryEvent event : expected.getEventsList()) {
+          assertTrue(reader.hasNext());
+          assertEquals(event, reader.next());
+        }
+        assertFalse(reader.hasNext());
+      }
+      try (InputStream in = new ByteArrayInputStream(json.getBytes(UTF_8))) {
+        assertEquals(expected.build(), WorkflowExecutionHistory.fromJson(in).getHistory());
+      }
+    }
+  }
+
+  @Test(expected = DataConverterException.class)
+  public void streamingParserFailsOnTruncatedJson() {
+    WorkflowExecutionHistory.fromJson("{\"events\": [{\"eventId\": \"1\"");
+  }
+
   public void deserializeAndSerializeBack(String resourceName) throws IOException {
     // Load legacy-format history
-    ClassLoader classLoader = WorkflowExecutionUtils.class.getClassLoader();
-    URL resource = classLoader.getResource(resourceName);
-    String historyUrl = resource.getFile();
-    File historyFile = new File(historyUrl);
-    String originalSerializedJsonHistory;
-    try (Reader reader = Files.newBufferedReader(historyFile.toPath(), UTF_8)) {
-      originalSerializedJsonHistory = CharStreams.toString(reader);
-    }
-    originalSerializedJsonHistory = originalSerializedJsonHistory.replace("\r\n", "\n");
+    String originalSerializedJsonHistory = readResource(resourceName).replace("\r\n", "\n");
 
     // Confirm original history is legacy format
     assertTrue(
@@ -85,4 +111,14 @@ public class WorkflowExecutionHistoryTest {
         WorkflowExecutionHistory.fromJson(newFormatSerializedHistory);
     assertEquals(history.getHistory(), newFormatHistory.getHistory());
   }
+
+  private static String readResource(String resourceName) throws IOException {
+    ClassLoader classLoader = WorkflowExecutionUtils.class.getClassLoader();
+    URL resource = classLoader.getResource(resourceName);
+    String historyUrl = resource.getFile();
+    File historyFile = new File(historyUrl);
+    try (Reader reader = Files.newBufferedReader(historyFile.toPath(), UTF_8)) {
+      return CharStreams.toString(reader);
+    }
+  }
 }
@@ -1,12 +1,20 @@
 package io.temporal.internal.replay;
 
 import com.google.protobuf.ByteString;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.temporal.api.history.v1.History;
 import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryResponse;
 import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
 import io.temporal.testUtils.HistoryUtils;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Assert;
 import org.junit.Test;
@@ -84,4 +92,92 @@ public class ServiceWorkflowHistoryIteratorTest {
     Assert.assertThrows(NoSuchElementException.class, iterator::next);
     Assert.assertEquals(4, timesCalledServer.get());
   }
+
+  @Test
+  public void prefetchesNextPagesUpToTheLimit() {
+    History history = HistoryUtils.generateWorkflowTaskWithInitialHistory().getHistory();
+    PollWorkflowTaskQueueResponse workflowTask =
+        PollWorkflowTaskQueueResponse.newBuilder()
+            .setHistory(history)
+            .setNextPageToken(NEXT_PAGE_TOKEN)
+            .build();
+
+    List<ByteString> requestedPages = new ArrayList<>();
+    ServiceWorkflowHistoryIterator iterator =
+        new ServiceWorkflowHistoryIterator(null, "default", workflowTask, null, 2) {
+          @Override
+          CompletableFuture<GetWorkflowExecutionHistoryResponse>
+              queryWorkflowExecutionHistoryAsync(ByteString pageToken) {
+            requestedPages.add(pageToken);
+            GetWorkflowExecutionHistoryResponse.Builder response =
+                GetWorkflowExecutionHistoryResponse.newBuilder().setHistory(history);
+            if (NEXT_PAGE_TOKEN.equals(pageToken)) {
+              response.setNextPageToken(EMPTY_HISTORY_PAGE);
+            } else if (EMPTY_HISTORY_PAGE.equals(pageToken)) {
+              response.clearHistory().setNextPageToken(NEXT_NEXT_PAGE_TOKEN);
+            }
+            return CompletableFuture.completedFuture(response.build());
+          }
+        };
+
+    iterator.initDeadline(Deadline.after(10, TimeUnit.SECONDS));
+    Assert.assertEquals(Arrays.asList(NEXT_PAGE_TOKEN, EMPTY_HISTORY_PAGE), requestedPages);
+
+    int events = 0;
+    while (iterator.hasNext()) {
+      iterator.next();
+      events++;
+    }
+    Assert.assertEquals(history.getEventsCount() * 3, events);
+    Assert.assertEquals(
+        Arrays.asList(NEXT_PAGE_TOKEN, EMPTY_HISTORY_PAGE, NEXT_NEXT_PAGE_TOKEN), requestedPages);
+  }
+
+  @Test
+  public void prefetchFailureIsThrownWhenThePageIsReached() {
+    PollWorkflowTaskQueueResponse workflowTask =
+        PollWorkflowTaskQueueResponse.newBuilder().setNextPageToken(NEXT_PAGE_TOKEN).build();
+
+    ServiceWorkflowHistoryIterator iterator =
+        new ServiceWorkflowHistoryIterator(null, "default", workflowTask, null, 2) {
+          @Override
+          CompletableFuture<GetWorkflowExecutionHistoryResponse>
+              queryWorkflowExecutionHistoryAsync(ByteString pageToken) {
+            CompletableFuture<GetWorkflowExecutionHistoryResponse> result =
+                new CompletableFuture<>();
+            result.completeExceptionally(Status.UNAVAILABLE.asRuntimeException());
+            return result;
+          }
+        };
+
+    iterator.initDeadline(Deadline.after(10, TimeUnit.SECONDS));
+    StatusRuntimeException e = Assert.assertThrows(StatusRuntimeException.class, iterator::hasNext);
+    Assert.assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+  }
+
+  @Test
+  public void closeCancelsPrefetchedPages() {
+    PollWorkflowTaskQueueResponse workflowTask =
+        PollWorkflowTaskQueueResponse.newBuilder().setNextPageToken(NEXT_PAGE_TOKEN).build();
+
+    List<CompletableFuture<GetWorkflowExecutionHistoryResponse>> requests = new ArrayList<>();
+    ServiceWorkflowHistoryIterator iterator =
+        new ServiceWorkflowHistoryIterator(null, "default", workflowTask, null, 2) {
+          @Override
+          CompletableFuture<GetWorkflowExecutionHistoryResponse>
+              queryWorkflowExecutionHistoryAsync(ByteString pageToken) {
+            CompletableFuture<GetWorkflowExecutionHistoryResponse> result =
+                new CompletableFuture<>();
+            requests.add(result);
+            return result;
+          }
+        };
+
+    iterator.initDeadline(Deadline.after(10, TimeUnit.SECONDS));
+    Assert.assertEquals(1, requests.size());
+    iterator.close();
+    Assert.assertTrue(requests.get(0).isCancelled());
+    // the request of the page following the cancelled one is never sent
+    Assert.assertEquals(1, requests.size());
+  }
 }
@@ -0,0 +1,72 @@
+package io.temporal.internal.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.common.reporter.TestStatsReporter;
+import io.temporal.internal.replay.WorkflowTaskProfile.Phase;
+import io.temporal.serviceclient.MetricsTag;
+import io.temporal.worker.MetricsType;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class WorkflowTaskProfileTest {
+  private static final WorkflowExecution EXECUTION =
+      WorkflowExecution.newBuilder().setWorkflowId("workflow").setRunId("run").build();
+
+  @Test
+  public void innerPhaseIsNotCountedInOuterOne() throws InterruptedException {
+    TestStatsReporter reporter = new TestStatsReporter();
+    Scope scope =
+        new RootScopeBuilder()
+            .reporter(reporter)
+            .reportEvery(com.uber.m3.util.Duration.ofSeconds(10));
+    WorkflowTaskProfile profile =
+        new WorkflowTaskProfile("TestWorkflow", EXECUTION, scope, Duration.ZERO);
+
+    profile.startTask();
+    Phase outer = profile.enter(Phase.WORKFLOW_CODE);
+    assertEquals(Phase.OTHER, outer);
+    Phase inner = profile.enter(Phase.PAYLOAD_CONVERSION);
+    assertEquals(Phase.WORKFLOW_CODE, inner);
+    Thread.sleep(50);
+    profile.exit(inner);
+    profile.exit(outer);
+    profile.endTask();
+
+    long conversionMillis =
+        TimeUnit.NANOSECONDS.toMillis(profile.getNanos(Phase.PAYLOAD_CONVERSION));
+    long workflowCodeMillis = TimeUnit.NANOSECONDS.toMillis(profile.getNanos(Phase.WORKFLOW_CODE));
+    assertTrue(String.valueOf(conversionMillis), conversionMillis >= 50);
+    assertTrue(String.valueOf(workflowCodeMillis), workflowCodeMillis < 50);
+    assertEquals(0, profile.getNanos(Phase.HISTORY_FETCH));
+
+    scope.close();
+    for (Phase phase : Phase.values()) {
+      reporter.assertTimer(
+          MetricsType.WORKFLOW_TASK_PHASE_LATENCY,
+          ImmutableMap.of(MetricsTag.WORKFLOW_TASK_PHASE, phase.getTagValue()));
+    }
+  }
+
+  @Test
+  public void phasesOutsideOfATaskAreIgnored() {
+    WorkflowTaskProfile profile =
+        new WorkflowTaskProfile(
+            "TestWorkflow", EXECUTION, new RootScopeBuilder().build(), Duration.ZERO);
+
+    assertNull(profile.enter(Phase.PAYLOAD_CONVERSION));
+    profile.exit(null);
+
+    profile.startTask();
+    profile.endTask();
+    assertNull(profile.enter(Phase.PAYLOAD_CONVERSION));
+    assertEquals(0, profile.getNanos(Phase.PAYLOAD_CONVERSION));
+  }
+}
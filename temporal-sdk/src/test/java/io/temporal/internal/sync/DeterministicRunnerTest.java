@@ -30,6 +30,7 @@ import io.temporal.workflow.Promise;
 import io.temporal.workflow.Workflow;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -102,6 +103,37 @@ public class DeterministicRunnerTest {
     assertTrue(d.isDone());
   }
 
+  @Test
+  public void testThreadAgnosticYieldIsEvaluatedWithoutResumingTheThread() {
+    Thread testThread = Thread.currentThread();
+    List<Boolean> evaluatedByRunner = new ArrayList<>();
+    DeterministicRunner d =
+        new DeterministicRunnerImpl(
+            threadPool::submit,
+            DummySyncWorkflowContext.newDummySyncWorkflowContext(),
+            () -> {
+              status = "started";
+              WorkflowThread.awaitThreadAgnostic(
+                  "reason1",
+                  () -> {
+                    evaluatedByRunner.add(Thread.currentThread() == testThread);
+                    return unblock1;
+                  });
+              status = "done";
+            });
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    assertEquals("started", status);
+    evaluatedByRunner.clear();
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    assertEquals("started", status);
+    // The blocked thread wasn't resumed to check the condition
+    assertEquals(Collections.singletonList(true), evaluatedByRunner);
+    unblock1 = true;
+    d.runUntilAllBlocked(DeterministicRunner.DEFAULT_DEADLOCK_DETECTION_TIMEOUT_MS);
+    assertEquals("done", status);
+    assertTrue(d.isDone());
+  }
+
   /**
    * Async retry cannot be tested here as it relies on timer that is implemented outside of
    * Dispatcher.
@@ -791,6 +823,21 @@ public class DeterministicRunnerTest {
     @Override
     public void resetStartedEventId(Long event) {}
 
+    @Override
+    public long getHistorySizeBytes() {
+      return 0;
+    }
+
+    @Override
+    public int getWorkflowThreadCount() {
+      return runner.getWorkflowThreadCount();
+    }
+
+    @Override
+    public long getLastWorkflowTaskStartedEventId() {
+      return 0;
+    }
+
     @Override
     public void close() {
       runner.close();
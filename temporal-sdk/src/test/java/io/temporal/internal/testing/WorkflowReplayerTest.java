@@ -7,6 +7,7 @@ import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryResponse;
 import io.temporal.api.workflowservice.v1.ListClosedWorkflowExecutionsRequest;
 import io.temporal.api.workflowservice.v1.ListClosedWorkflowExecutionsResponse;
 import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc;
+import io.temporal.client.HistoryExportOptions;
 import io.temporal.client.WorkflowClient;
 import io.temporal.client.WorkflowOptions;
 import io.temporal.client.WorkflowStub;
@@ -21,12 +22,18 @@ import io.temporal.workflow.WorkflowInterface;
 import io.temporal.workflow.WorkflowMethod;
 import io.temporal.workflow.shared.TestActivities.NoArgsActivity;
 import io.temporal.workflow.shared.TestWorkflows;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.*;
 import org.junit.rules.Timeout;
 
@@ -115,6 +122,141 @@ public class WorkflowReplayerTest {
     Assert.assertEquals(5, errors.size());
   }
 
+  @Test
+  public void testMultipleHistoryReplayReportsTimings() throws Exception {
+    ReplayResults results =
+        WorkflowReplayer.replayWorkflowExecutions(
+            histories, true, TestWorkflowA.class, TestWorkflowB.class, TestWorkflowC.class);
+    Assert.assertEquals(15, results.allTimings().size());
+  }
+
+  @Test
+  public void testParallelHistoryReplayOk() throws Exception {
+    ReplayResults results =
+        WorkflowReplayer.replayWorkflowExecutionsInParallel(
+            histories.iterator(),
+            4,
+            true,
+            TestWorkflowA.class,
+            TestWorkflowB.class,
+            TestWorkflowC.class);
+    Assert.assertFalse(results.hadAnyError());
+    Assert.assertEquals(15, results.allTimings().size());
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testParallelHistoryReplayFailFast() throws Exception {
+    WorkflowReplayer.replayWorkflowExecutionsInParallel(
+        histories.iterator(),
+        4,
+        true,
+        TestWorkflowAIncompatible.class,
+        TestWorkflowB.class,
+        TestWorkflowC.class);
+  }
+
+  @Test
+  public void testParallelHistoryReplayFromDirectoryFailSlow() throws Exception {
+    Path dir = Files.createTempDirectory("workflow-replayer-test");
+    try {
+      for (int i = 0; i < histories.size(); i++) {
+        Files.write(
+            dir.resolve("history" + i + ".json"),
+            histories.get(i).toJson(false).getBytes(StandardCharsets.UTF_8));
+      }
+      Files.write(dir.resolve("broken.json"), "{".getBytes(StandardCharsets.UTF_8));
+      Files.write(dir.resolve("ignored.txt"), "{".getBytes(StandardCharsets.UTF_8));
+
+      ReplayResults results =
+          WorkflowReplayer.replayWorkflowExecutionsInParallel(
+              dir,
+              4,
+              false,
+              TestWorkflowAIncompatible.class,
+              TestWorkflowB.class,
+              TestWorkflowC.class);
+      Assert.assertEquals(6, results.allErrors().size());
+      Assert.assertTrue(
+          results.allErrors().stream().anyMatch(e -> e.workflowId.equals("broken.json")));
+      Assert.assertEquals(15, results.allTimings().size());
+    } finally {
+      try (Stream<Path> files = Files.list(dir)) {
+        for (Path file : files.collect(Collectors.toList())) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(dir);
+    }
+  }
+
+  @Test
+  public void testParallelHistoryReplayFromExport() throws Exception {
+    Path dir = Files.createTempDirectory("workflow-replayer-test");
+    try {
+      WorkflowClient client = testEnvironment.getWorkflowClient();
+      long exported =
+          client.exportHistories(
+              "TaskQueue='" + TASK_QUEUE + "'",
+              dir,
+              HistoryExportOptions.newBuilder().setMaxConcurrency(2).build());
+      Assert.assertEquals(15, exported);
+
+      ReplayResults results =
+          WorkflowReplayer.replayExportedWorkflowExecutionsInParallel(
+              dir, 4, true, TestWorkflowA.class, TestWorkflowB.class, TestWorkflowC.class);
+      Assert.assertFalse(results.hadAnyError());
+      Assert.assertEquals(15, results.allTimings().size());
+    } finally {
+      try (Stream<Path> files = Files.list(dir)) {
+        for (Path file : files.collect(Collectors.toList())) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(dir);
+    }
+  }
+
+  @Test
+  public void testExportReplacesEarlierExport() throws Exception {
+    Path dir = Files.createTempDirectory("workflow-replayer-test");
+    try {
+      WorkflowClient client = testEnvironment.getWorkflowClient();
+      String query = "TaskQueue='" + TASK_QUEUE + "'";
+      Assert.assertEquals(
+          15,
+          client.exportHistories(
+              query, dir, HistoryExportOptions.newBuilder().setMaxConcurrency(8).build()));
+      // a file no thread of the next export writes to
+      Files.write(dir.resolve("histories-20.binpb.gz"), new byte[] {1, 2, 3});
+      Files.write(dir.resolve("notes.txt"), "kept".getBytes(StandardCharsets.UTF_8));
+
+      Assert.assertEquals(
+          15,
+          client.exportHistories(
+              query, dir, HistoryExportOptions.newBuilder().setMaxConcurrency(2).build()));
+
+      try (Stream<Path> files = Files.list(dir)) {
+        // a thread that exported nothing has no file
+        List<String> fileNames =
+            files.map(file -> file.getFileName().toString()).collect(Collectors.toList());
+        fileNames.removeAll(Arrays.asList("histories-0.binpb.gz", "histories-1.binpb.gz"));
+        Assert.assertEquals(Collections.singletonList("notes.txt"), fileNames);
+      }
+      ReplayResults results =
+          WorkflowReplayer.replayExportedWorkflowExecutionsInParallel(
+              dir, 4, true, TestWorkflowA.class, TestWorkflowB.class, TestWorkflowC.class);
+      Assert.assertFalse(results.hadAnyError());
+      Assert.assertEquals(15, results.allTimings().size());
+    } finally {
+      try (Stream<Path> files = Files.list(dir)) {
+        for (Path file : files.collect(Collectors.toList())) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(dir);
+    }
+  }
+
   public static class TestWorkflowA implements TestWorkflows.NoArgsWorkflow {
     @Override
     public void execute() {
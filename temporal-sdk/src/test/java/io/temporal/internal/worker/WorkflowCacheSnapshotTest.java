@@ -0,0 +1,126 @@
+package io.temporal.internal.worker;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import com.uber.m3.tally.NoopScope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.history.v1.History;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
+import io.temporal.internal.replay.WorkflowRunTaskHandler;
+import io.temporal.worker.LruWorkflowCacheEvictionPolicy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WorkflowCacheSnapshotTest {
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("workflow-cache-snapshot");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+      for (Path file : files) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(dir);
+  }
+
+  @Test
+  public void writeAndRead() throws IOException {
+    List<WorkflowCacheSnapshot.Entry> entries =
+        Arrays.asList(
+            new WorkflowCacheSnapshot.Entry("queue", "workflow\twith\nspecial chars", "run1", 7),
+            new WorkflowCacheSnapshot.Entry("queue", "workflow2", "run2", 42));
+    Path file = dir.resolve("snapshot");
+
+    new WorkflowCacheSnapshot(entries).write(file);
+
+    assertEquals(entries, WorkflowCacheSnapshot.read(file).getEntries());
+  }
+
+  @Test(expected = IOException.class)
+  public void readFailsOnUnexpectedFormat() throws IOException {
+    Path file = dir.resolve("snapshot");
+    Files.write(file, Collections.singletonList("something else"), StandardCharsets.UTF_8);
+
+    WorkflowCacheSnapshot.read(file);
+  }
+
+  @Test
+  public void cacheSnapshotStartsWithHottestRuns() {
+    WorkflowExecutorCache cache = newCache();
+    cache.addToCache(execution("run1"), "queue", handler(3));
+    cache.addToCache(execution("run2"), "queue", handler(5));
+    cache.addToCache(execution("run3"), null, handler(7));
+
+    assertEquals(
+        Arrays.asList(
+            new WorkflowCacheSnapshot.Entry("queue", "workflow-run2", "run2", 5),
+            new WorkflowCacheSnapshot.Entry("queue", "workflow-run1", "run1", 3)),
+        cache.snapshot().getEntries());
+  }
+
+  @Test
+  public void warmedUpRunIsReusedByFullHistoryTaskOnce() throws Exception {
+    WorkflowExecutorCache cache = newCache();
+    WorkflowRunTaskHandler warmedUp = handler(3);
+    WorkflowRunTaskHandler created = handler(3);
+    cache.addToCache(execution("run1"), "queue", warmedUp);
+    assertTrue(cache.markWarmedUp(execution("run1")));
+
+    PollWorkflowTaskQueueResponse fullHistoryTask = fullHistoryTask("run1");
+    assertSame(warmedUp, cache.getOrCreate(fullHistoryTask, new NoopScope(), () -> created));
+    assertSame(created, cache.getOrCreate(fullHistoryTask, new NoopScope(), () -> created));
+    verify(warmedUp).close();
+  }
+
+  @Test
+  public void notCachedRunIsNotMarkedWarmedUp() {
+    assertFalse(newCache().markWarmedUp(execution("run1")));
+  }
+
+  private static WorkflowExecutorCache newCache() {
+    return new WorkflowExecutorCache(
+        10,
+        0,
+        0,
+        new LruWorkflowCacheEvictionPolicy(),
+        new WorkflowRunLockManager(),
+        new NoopScope());
+  }
+
+  private static WorkflowRunTaskHandler handler(long lastWorkflowTaskStartedEventId) {
+    WorkflowRunTaskHandler handler = mock(WorkflowRunTaskHandler.class);
+    when(handler.getLastWorkflowTaskStartedEventId()).thenReturn(lastWorkflowTaskStartedEventId);
+    return handler;
+  }
+
+  private static PollWorkflowTaskQueueResponse fullHistoryTask(String runId) {
+    return PollWorkflowTaskQueueResponse.newBuilder()
+        .setWorkflowExecution(execution(runId))
+        .setHistory(History.newBuilder().addEvents(HistoryEvent.newBuilder().setEventId(1)))
+        .build();
+  }
+
+  private static WorkflowExecution execution(String runId) {
+    return WorkflowExecution.newBuilder()
+        .setWorkflowId("workflow-" + runId)
+        .setRunId(runId)
+        .build();
+  }
+}
@@ -0,0 +1,162 @@
+package io.temporal.internal.worker;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import com.uber.m3.tally.NoopScope;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.workflowservice.v1.PollWorkflowTaskQueueResponse;
+import io.temporal.internal.replay.WorkflowRunTaskHandler;
+import io.temporal.worker.LruWorkflowCacheEvictionPolicy;
+import io.temporal.worker.TinyLfuWorkflowCacheEvictionPolicy;
+import io.temporal.worker.WorkflowCacheEvictionPolicy;
+import org.junit.Test;
+
+public class WorkflowExecutorCacheEvictionTest {
+
+  @Test
+  public void evictsWhenHistorySizeLimitIsExceeded() {
+    WorkflowExecutorCache cache = newCache(100, 1000, 0, new LruWorkflowCacheEvictionPolicy());
+    WorkflowRunTaskHandler first = handler(600, 1);
+    WorkflowRunTaskHandler second = handler(600, 1);
+
+    cache.addToCache(execution("run1"), first);
+    assertEquals(1, cache.size());
+    cache.addToCache(execution("run2"), second);
+
+    assertEquals(1, cache.size());
+    verify(first).close();
+    verify(second, never()).close();
+  }
+
+  @Test
+  public void evictsWhenThreadCountLimitIsExceeded() {
+    WorkflowExecutorCache cache = newCache(100, 0, 10, new LruWorkflowCacheEvictionPolicy());
+    WorkflowRunTaskHandler first = handler(1_000_000, 4);
+    WorkflowRunTaskHandler second = handler(1_000_000, 4);
+    WorkflowRunTaskHandler third = handler(1_000_000, 4);
+
+    cache.addToCache(execution("run1"), first);
+    cache.addToCache(execution("run2"), second);
+    assertEquals(2, cache.size());
+    cache.addToCache(execution("run3"), third);
+
+    assertEquals(2, cache.size());
+    verify(first).close();
+    verify(second, never()).close();
+    verify(third, never()).close();
+  }
+
+  @Test
+  public void entryCountLimitIsRespectedInWeightedMode() {
+    WorkflowExecutorCache cache = newCache(2, 1000, 100, new LruWorkflowCacheEvictionPolicy());
+
+    cache.addToCache(execution("run1"), handler(1, 1));
+    cache.addToCache(execution("run2"), handler(1, 1));
+    cache.addToCache(execution("run3"), handler(1, 1));
+
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void updateWeightEvictsOtherEntriesAndKeepsUpdatedOne() {
+    WorkflowExecutorCache cache = newCache(100, 1000, 0, new LruWorkflowCacheEvictionPolicy());
+    WorkflowRunTaskHandler growing = handler(100, 1);
+    WorkflowRunTaskHandler other = handler(100, 1);
+    cache.addToCache(execution("run1"), growing);
+    cache.addToCache(execution("run2"), other);
+
+    when(growing.getHistorySizeBytes()).thenReturn(950L);
+    cache.updateWeight(execution("run1"), growing);
+
+    assertEquals(1, cache.size());
+    verify(growing, never()).close();
+    verify(other).close();
+  }
+
+  @Test
+  public void updateWeightIsNoopForNotCachedRuns() {
+    WorkflowExecutorCache cache = newCache(100, 1000, 0, new LruWorkflowCacheEvictionPolicy());
+    WorkflowRunTaskHandler notCached = handler(100, 1);
+
+    cache.updateWeight(execution("run1"), notCached);
+
+    assertEquals(0, cache.size());
+    verify(notCached, never()).close();
+  }
+
+  @Test
+  public void tinyLfuPolicyEvictsCheapToReplayRunsFirst() {
+    WorkflowExecutorCache cache = newCache(2, 0, 0, new TinyLfuWorkflowCacheEvictionPolicy());
+    WorkflowRunTaskHandler expensive = handler(900, 1);
+    WorkflowRunTaskHandler cheap = handler(10, 1);
+    WorkflowRunTaskHandler added = handler(10, 1);
+
+    cache.addToCache(execution("run1"), expensive);
+    cache.addToCache(execution("run2"), cheap);
+    cache.addToCache(execution("run3"), added);
+
+    assertEquals(2, cache.size());
+    verify(expensive, never()).close();
+    verify(cheap).close();
+    verify(added, never()).close();
+  }
+
+  @Test
+  public void lruPolicyEvictsLeastRecentlyAddedRun() {
+    WorkflowExecutorCache cache = newCache(2, 0, 0, new LruWorkflowCacheEvictionPolicy());
+    WorkflowRunTaskHandler expensive = handler(900, 1);
+    WorkflowRunTaskHandler cheap = handler(10, 1);
+
+    cache.addToCache(execution("run1"), expensive);
+    cache.addToCache(execution("run2"), cheap);
+    cache.addToCache(execution("run3"), handler(10, 1));
+
+    assertEquals(2, cache.size());
+    verify(expensive).close();
+    verify(cheap, never()).close();
+  }
+
+  @Test
+  public void cacheHitIsReportedToThePolicy() throws Exception {
+    WorkflowExecutorCache cache = newCache(2, 0, 0, new LruWorkflowCacheEvictionPolicy());
+    WorkflowRunTaskHandler used = handler(10, 1);
+    WorkflowRunTaskHandler unused = handler(10, 1);
+    cache.addToCache(execution("run1"), used);
+    cache.addToCache(execution("run2"), unused);
+
+    PollWorkflowTaskQueueResponse task =
+        PollWorkflowTaskQueueResponse.newBuilder().setWorkflowExecution(execution("run1")).build();
+    assertSame(used, cache.getOrCreate(task, new NoopScope(), () -> handler(10, 1)));
+    cache.addToCache(execution("run3"), handler(10, 1));
+
+    assertEquals(2, cache.size());
+    verify(used, never()).close();
+    verify(unused).close();
+  }
+
+  private static WorkflowExecutorCache newCache(
+      int size, long maxHistorySizeBytes, int maxThreadCount, WorkflowCacheEvictionPolicy policy) {
+    return new WorkflowExecutorCache(
+        size,
+        maxHistorySizeBytes,
+        maxThreadCount,
+        policy,
+        new WorkflowRunLockManager(),
+        new NoopScope());
+  }
+
+  private static WorkflowRunTaskHandler handler(long historySizeBytes, int threadCount) {
+    WorkflowRunTaskHandler handler = mock(WorkflowRunTaskHandler.class);
+    when(handler.getHistorySizeBytes()).thenReturn(historySizeBytes);
+    when(handler.getWorkflowThreadCount()).thenReturn(threadCount);
+    return handler;
+  }
+
+  private static WorkflowExecution execution(String runId) {
+    return WorkflowExecution.newBuilder()
+        .setWorkflowId("workflow-" + runId)
+        .setRunId(runId)
+        .build();
+  }
+}
@@ -2,6 +2,12 @@ package io.temporal.internal.worker;
 
 import static org.junit.Assert.*;
 
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import io.temporal.common.reporter.TestStatsReporter;
+import io.temporal.worker.MetricsType;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.concurrent.*;
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -34,6 +40,75 @@ public class WorkflowRunLockManagerTest {
     assertArrayEquals(expectedTasks, finishedTasks.toArray(processedTasks));
   }
 
+  @Test
+  public void lockIsReentrant() {
+    assertTrue(runLockManager.tryLock("run1"));
+    assertTrue(runLockManager.tryLock("run1"));
+    runLockManager.unlock("run1");
+    assertEquals(1, runLockManager.totalLocks());
+    runLockManager.unlock("run1");
+    assertEquals(0, runLockManager.totalLocks());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void unlockByNotOwningThreadFails() throws Exception {
+    assertTrue(runLockManager.tryLock("run1"));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(() -> runLockManager.unlock("run1")).get();
+    } catch (ExecutionException e) {
+      throw (Exception) e.getCause();
+    } finally {
+      executor.shutdown();
+      runLockManager.unlock("run1");
+    }
+  }
+
+  @Test
+  public void contendedLockIsReportedInMetrics() throws Exception {
+    TestStatsReporter reporter = new TestStatsReporter();
+    Scope scope =
+        new RootScopeBuilder()
+            .reporter(reporter)
+            .reportEvery(com.uber.m3.util.Duration.ofMillis(10));
+    // a single stripe shared by all the runs
+    WorkflowRunLockManager lockManager = new WorkflowRunLockManager(1, scope);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    long holdMillis = 200;
+    try {
+      assertTrue(lockManager.tryLock("run1", 1, TimeUnit.SECONDS));
+      assertFalse(
+          executor
+              .submit(() -> lockManager.tryLock("run1", holdMillis, TimeUnit.MILLISECONDS))
+              .get());
+      Future<Boolean> waiting =
+          executor.submit(() -> lockManager.tryLock("run1", 10, TimeUnit.SECONDS));
+      while (lockManager.totalWaiters() == 0) {
+        Thread.sleep(1);
+      }
+      // runs sharing the stripe are not blocked by the lock or the waiting thread
+      assertTrue(lockManager.tryLock("run2", 1, TimeUnit.SECONDS));
+      lockManager.unlock("run2");
+      Thread.sleep(holdMillis);
+      lockManager.unlock("run1");
+      assertTrue(waiting.get());
+      assertFalse(lockManager.tryLock("run1"));
+      executor.submit(() -> lockManager.unlock("run1")).get();
+      assertEquals(0, lockManager.totalLocks());
+    } finally {
+      executor.shutdown();
+    }
+
+    scope.close();
+    reporter.assertCounter(
+        MetricsType.WORKFLOW_RUN_LOCK_CONTENTION_COUNTER, Collections.emptyMap(), 2);
+    // both the timed out wait and the one ended by the release lasted at least holdMillis
+    reporter.assertTimerMinDuration(
+        MetricsType.WORKFLOW_RUN_LOCK_WAIT_LATENCY,
+        Collections.emptyMap(),
+        Duration.ofMillis(holdMillis));
+  }
+
   private String processTask(String runId, int taskId) {
     try {
       log.info("trying to get a lock runId " + runId + " taskId " + taskId);
@@ -7,13 +7,17 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.protobuf.ByteString;
 import com.uber.m3.tally.NoopScope;
 import com.uber.m3.tally.RootScopeBuilder;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.util.ImmutableMap;
+import io.temporal.api.command.v1.Command;
+import io.temporal.api.command.v1.ScheduleActivityTaskCommandAttributes;
 import io.temporal.api.common.v1.WorkflowExecution;
 import io.temporal.api.common.v1.WorkflowType;
+import io.temporal.api.enums.v1.CommandType;
 import io.temporal.api.workflowservice.v1.*;
 import io.temporal.common.reporter.TestStatsReporter;
 import io.temporal.internal.common.InternalUtils;
@@ -26,9 +30,11 @@ import io.temporal.testUtils.HistoryUtils;
 import io.temporal.worker.MetricsType;
 import io.temporal.worker.tuning.FixedSizeSlotSupplier;
 import io.temporal.worker.tuning.PollerBehaviorSimpleMaximum;
+import io.temporal.worker.tuning.SlotPermit;
 import io.temporal.worker.tuning.SlotSupplier;
 import io.temporal.worker.tuning.WorkflowSlotInfo;
 import java.time.Duration;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -325,6 +331,242 @@ public class WorkflowWorkerTest {
         ImmutableMap.of("worker_type", "WorkflowWorker", "workflow_type", "test-workflow-type"));
   }
 
+  @Test
+  public void pipelinedCompletionReleasesRunLockBeforeResponseTest() throws Exception {
+    // Test that with pipelining the run lock and the slot are released as soon as the completion
+    // is sent, but the next task of the run is processed only after the response is received.
+    WorkflowServiceStubs client = mock(WorkflowServiceStubs.class);
+    when(client.getServerCapabilities())
+        .thenReturn(() -> GetSystemInfoResponse.Capabilities.newBuilder().build());
+
+    WorkflowRunLockManager runLockManager = new WorkflowRunLockManager();
+
+    Scope metricsScope =
+        new RootScopeBuilder()
+            .reporter(reporter)
+            .reportEvery(com.uber.m3.util.Duration.ofMillis(1));
+    WorkflowExecutorCache cache = new WorkflowExecutorCache(10, runLockManager, metricsScope);
+    SlotSupplier<WorkflowSlotInfo> slotSupplier = new FixedSizeSlotSupplier<>(10);
+
+    WorkflowTaskHandler taskHandler = mock(WorkflowTaskHandler.class);
+    when(taskHandler.isAnyTypeSupported()).thenReturn(true);
+
+    EagerActivityDispatcher eagerActivityDispatcher = mock(EagerActivityDispatcher.class);
+    WorkflowWorker worker =
+        new WorkflowWorker(
+            client,
+            "default",
+            "task_queue",
+            "sticky_task_queue",
+            SingleWorkerOptions.newBuilder()
+                .setIdentity("test_identity")
+                .setBuildId(UUID.randomUUID().toString())
+                .setPollerOptions(
+                    PollerOptions.newBuilder()
+                        .setPollerBehavior(new PollerBehaviorSimpleMaximum(1))
+                        .build())
+                .setMetricsScope(metricsScope)
+                .setUsingWorkflowTaskPipelining(true)
+                .build(),
+            runLockManager,
+            cache,
+            taskHandler,
+            eagerActivityDispatcher,
+            slotSupplier,
+            new AtomicBoolean(false));
+
+    SettableFuture<RespondWorkflowTaskCompletedResponse> firstResponse = SettableFuture.create();
+    WorkflowServiceGrpc.WorkflowServiceFutureStub futureStub =
+        mock(WorkflowServiceGrpc.WorkflowServiceFutureStub.class);
+    when(futureStub.withOption(any(), any())).thenReturn(futureStub);
+    when(futureStub.shutdownWorker(any(ShutdownWorkerRequest.class)))
+        .thenReturn(Futures.immediateFuture(ShutdownWorkerResponse.newBuilder().build()));
+    when(futureStub.respondWorkflowTaskCompleted(any(RespondWorkflowTaskCompletedRequest.class)))
+        .thenReturn(firstResponse)
+        .thenReturn(
+            Futures.immediateFuture(RespondWorkflowTaskCompletedResponse.newBuilder().build()));
+
+    WorkflowServiceGrpc.WorkflowServiceBlockingStub blockingStub =
+        mock(WorkflowServiceGrpc.WorkflowServiceBlockingStub.class);
+    when(client.blockingStub()).thenReturn(blockingStub);
+    when(client.futureStub()).thenReturn(futureStub);
+    when(blockingStub.withOption(any(), any())).thenReturn(blockingStub);
+
+    PollWorkflowTaskQueueResponse pollResponse =
+        PollWorkflowTaskQueueResponse.newBuilder()
+            .setTaskToken(ByteString.copyFrom("token", UTF_8))
+            .setWorkflowExecution(
+                WorkflowExecution.newBuilder().setWorkflowId(WORKFLOW_ID).setRunId(RUN_ID).build())
+            .setWorkflowType(WorkflowType.newBuilder().setName(WORKFLOW_TYPE).build())
+            .build();
+
+    CountDownLatch secondPollLatch = new CountDownLatch(1);
+    CountDownLatch blockPollTaskQueueLatch = new CountDownLatch(1);
+
+    when(blockingStub.pollWorkflowTaskQueue(any(PollWorkflowTaskQueueRequest.class)))
+        .thenReturn(pollResponse)
+        .thenAnswer(
+            (Answer<PollWorkflowTaskQueueResponse>)
+                invocation -> {
+                  secondPollLatch.countDown();
+                  return pollResponse;
+                })
+        .thenAnswer(
+            (Answer<PollWorkflowTaskQueueResponse>)
+                invocation -> {
+                  blockPollTaskQueueLatch.await();
+                  return null;
+                });
+
+    when(taskHandler.handleWorkflowTask(any(PollWorkflowTaskQueueResponse.class)))
+        .thenAnswer(
+            (Answer<WorkflowTaskHandler.Result>)
+                invocation ->
+                    new WorkflowTaskHandler.Result(
+                        WORKFLOW_TYPE,
+                        RespondWorkflowTaskCompletedRequest.newBuilder().build(),
+                        null,
+                        null,
+                        null,
+                        false,
+                        null,
+                        null));
+
+    assertTrue(worker.start());
+    // The second task is polled while the response to the first completion is still in flight
+    secondPollLatch.await();
+    Eventually.assertEventually(
+        Duration.ofSeconds(5),
+        () -> {
+          assertEquals(0, runLockManager.totalLocks());
+          reporter.assertGauge(
+              MetricsType.WORKER_TASK_SLOTS_AVAILABLE,
+              ImmutableMap.of("worker_type", "WorkflowWorker"),
+              9.0);
+        });
+    verify(taskHandler, times(1)).handleWorkflowTask(any());
+
+    firstResponse.set(RespondWorkflowTaskCompletedResponse.newBuilder().build());
+    Eventually.assertEventually(
+        Duration.ofSeconds(5),
+        () -> verify(futureStub, times(2)).respondWorkflowTaskCompleted(any()));
+    verify(taskHandler, times(2)).handleWorkflowTask(any());
+    verify(blockingStub, never()).respondWorkflowTaskCompleted(any());
+    // Cleanup
+    worker.shutdown(new ShutdownManager(), false).get();
+  }
+
+  @Test
+  public void pipelinedCompletionReleasesEagerSlotsOnShutdownNowTest() throws Exception {
+    // Test that the eager activity slots reserved by a pipelined completion are released when the
+    // worker is shut down with interrupts before the response is received.
+    WorkflowServiceStubs client = mock(WorkflowServiceStubs.class);
+    when(client.getServerCapabilities())
+        .thenReturn(() -> GetSystemInfoResponse.Capabilities.newBuilder().build());
+
+    WorkflowRunLockManager runLockManager = new WorkflowRunLockManager();
+
+    Scope metricsScope =
+        new RootScopeBuilder()
+            .reporter(reporter)
+            .reportEvery(com.uber.m3.util.Duration.ofMillis(1));
+    WorkflowExecutorCache cache = new WorkflowExecutorCache(10, runLockManager, metricsScope);
+    SlotSupplier<WorkflowSlotInfo> slotSupplier = new FixedSizeSlotSupplier<>(10);
+
+    WorkflowTaskHandler taskHandler = mock(WorkflowTaskHandler.class);
+    when(taskHandler.isAnyTypeSupported()).thenReturn(true);
+
+    EagerActivityDispatcher eagerActivityDispatcher = mock(EagerActivityDispatcher.class);
+    when(eagerActivityDispatcher.tryReserveActivitySlot(any()))
+        .thenReturn(Optional.of(new SlotPermit()));
+    WorkflowWorker worker =
+        new WorkflowWorker(
+            client,
+            "default",
+            "task_queue",
+            "sticky_task_queue",
+            SingleWorkerOptions.newBuilder()
+                .setIdentity("test_identity")
+                .setBuildId(UUID.randomUUID().toString())
+                .setPollerOptions(
+                    PollerOptions.newBuilder()
+                        .setPollerBehavior(new PollerBehaviorSimpleMaximum(1))
+                        .build())
+                .setMetricsScope(metricsScope)
+                .setUsingWorkflowTaskPipelining(true)
+                .build(),
+            runLockManager,
+            cache,
+            taskHandler,
+            eagerActivityDispatcher,
+            slotSupplier,
+            new AtomicBoolean(false));
+
+    SettableFuture<RespondWorkflowTaskCompletedResponse> response = SettableFuture.create();
+    WorkflowServiceGrpc.WorkflowServiceFutureStub futureStub =
+        mock(WorkflowServiceGrpc.WorkflowServiceFutureStub.class);
+    when(futureStub.withOption(any(), any())).thenReturn(futureStub);
+    when(futureStub.shutdownWorker(any(ShutdownWorkerRequest.class)))
+        .thenReturn(Futures.immediateFuture(ShutdownWorkerResponse.newBuilder().build()));
+    when(futureStub.respondWorkflowTaskCompleted(any(RespondWorkflowTaskCompletedRequest.class)))
+        .thenReturn(response);
+
+    WorkflowServiceGrpc.WorkflowServiceBlockingStub blockingStub =
+        mock(WorkflowServiceGrpc.WorkflowServiceBlockingStub.class);
+    when(client.blockingStub()).thenReturn(blockingStub);
+    when(client.futureStub()).thenReturn(futureStub);
+    when(blockingStub.withOption(any(), any())).thenReturn(blockingStub);
+
+    PollWorkflowTaskQueueResponse pollResponse =
+        PollWorkflowTaskQueueResponse.newBuilder()
+            .setTaskToken(ByteString.copyFrom("token", UTF_8))
+            .setWorkflowExecution(
+                WorkflowExecution.newBuilder().setWorkflowId(WORKFLOW_ID).setRunId(RUN_ID).build())
+            .setWorkflowType(WorkflowType.newBuilder().setName(WORKFLOW_TYPE).build())
+            .build();
+
+    CountDownLatch blockPollTaskQueueLatch = new CountDownLatch(1);
+    when(blockingStub.pollWorkflowTaskQueue(any(PollWorkflowTaskQueueRequest.class)))
+        .thenReturn(pollResponse)
+        .thenAnswer(
+            (Answer<PollWorkflowTaskQueueResponse>)
+                invocation -> {
+                  blockPollTaskQueueLatch.await();
+                  return null;
+                });
+
+    RespondWorkflowTaskCompletedRequest completion =
+        RespondWorkflowTaskCompletedRequest.newBuilder()
+            .addCommands(
+                Command.newBuilder()
+                    .setCommandType(CommandType.COMMAND_TYPE_SCHEDULE_ACTIVITY_TASK)
+                    .setScheduleActivityTaskCommandAttributes(
+                        ScheduleActivityTaskCommandAttributes.newBuilder()
+                            .setRequestEagerExecution(true)))
+            .build();
+    when(taskHandler.handleWorkflowTask(any(PollWorkflowTaskQueueResponse.class)))
+        .thenAnswer(
+            (Answer<WorkflowTaskHandler.Result>)
+                invocation ->
+                    new WorkflowTaskHandler.Result(
+                        WORKFLOW_TYPE, completion, null, null, null, false, null, null));
+
+    assertTrue(worker.start());
+    Eventually.assertEventually(
+        Duration.ofSeconds(5),
+        () -> verify(futureStub, times(1)).respondWorkflowTaskCompleted(any()));
+    verify(eagerActivityDispatcher, never()).releaseActivitySlotReservations(any());
+
+    worker.shutdown(new ShutdownManager(), true).get();
+    // the completion executor is terminated, the response can't be handled on it anymore
+    response.set(RespondWorkflowTaskCompletedResponse.newBuilder().build());
+    Eventually.assertEventually(
+        Duration.ofSeconds(5),
+        () -> verify(eagerActivityDispatcher, times(1)).releaseActivitySlotReservations(any()));
+    verify(eagerActivityDispatcher, never()).dispatchActivity(any(), any());
+    blockPollTaskQueueLatch.countDown();
+  }
+
   @Test
   public void resetWorkflowIdFromWorkflowTaskTest() throws Throwable {
     WorkflowServiceStubs client = mock(WorkflowServiceStubs.class);
@@ -0,0 +1,150 @@
+package io.temporal.payload.codec;
+
+import static org.junit.Assert.*;
+
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import org.junit.After;
+import org.junit.Test;
+
+public class ParallelPayloadCodecTest {
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+  private final Set<Thread> codecThreads = ConcurrentHashMap.newKeySet();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void batchesAreProcessedInParallel() {
+    CountDownLatch started = new CountDownLatch(2);
+    PayloadCodec codec =
+        new ParallelPayloadCodec(
+            new SuffixCodec() {
+              @Nonnull
+              @Override
+              public List<Payload> encode(@Nonnull List<Payload> payloads) {
+                started.countDown();
+                try {
+                  started.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                  throw new RuntimeException(e);
+                }
+                return super.encode(payloads);
+              }
+            },
+            executor,
+            4,
+            0);
+    List<Payload> payloads = newPayloads(10);
+
+    List<Payload> encoded = codec.encode(payloads);
+    assertEquals(10, encoded.size());
+    for (int i = 0; i < encoded.size(); i++) {
+      assertEquals("payload" + i + "!", encoded.get(i).getData().toStringUtf8());
+    }
+    assertTrue(codecThreads.size() > 1);
+    assertEquals(payloads, codec.decode(encoded));
+  }
+
+  @Test
+  public void smallPayloadsAreProcessedByCallingThread() {
+    PayloadCodec codec = new ParallelPayloadCodec(new SuffixCodec(), executor);
+
+    List<Payload> payloads = newPayloads(10);
+    assertEquals(payloads, codec.decode(codec.encode(payloads)));
+    assertEquals(Collections.singleton(Thread.currentThread()), codecThreads);
+  }
+
+  @Test
+  public void rejectedBatchesAreProcessedByCallingThread() {
+    PayloadCodec codec =
+        new ParallelPayloadCodec(
+            new SuffixCodec(),
+            command -> {
+              throw new RejectedExecutionException();
+            },
+            4,
+            0);
+
+    List<Payload> payloads = newPayloads(10);
+    assertEquals(payloads, codec.decode(codec.encode(payloads)));
+    assertEquals(Collections.singleton(Thread.currentThread()), codecThreads);
+  }
+
+  @Test
+  public void failureOfBatchIsThrown() {
+    PayloadCodec codec =
+        new ParallelPayloadCodec(
+            new SuffixCodec() {
+              @Nonnull
+              @Override
+              public List<Payload> encode(@Nonnull List<Payload> payloads) {
+                if (payloads.contains(newPayload("payload7"))) {
+                  throw new PayloadCodecException("failed batch");
+                }
+                return super.encode(payloads);
+              }
+            },
+            executor,
+            4,
+            0);
+
+    try {
+      codec.encode(newPayloads(10));
+      fail("unreachable");
+    } catch (PayloadCodecException e) {
+      assertEquals("failed batch", e.getMessage());
+    }
+  }
+
+  private static List<Payload> newPayloads(int count) {
+    List<Payload> payloads = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      payloads.add(newPayload("payload" + i));
+    }
+    return payloads;
+  }
+
+  private static Payload newPayload(String data) {
+    return Payload.newBuilder().setData(ByteString.copyFromUtf8(data)).build();
+  }
+
+  /** Appends "!" to every payload. */
+  private class SuffixCodec implements PayloadCodec {
+    @Nonnull
+    @Override
+    public List<Payload> encode(@Nonnull List<Payload> payloads) {
+      codecThreads.add(Thread.currentThread());
+      List<Payload> result = new ArrayList<>(payloads.size());
+      for (Payload payload : payloads) {
+        result.add(newPayload(payload.getData().toStringUtf8() + "!"));
+      }
+      return result;
+    }
+
+    @Nonnull
+    @Override
+    public List<Payload> decode(@Nonnull List<Payload> payloads) {
+      codecThreads.add(Thread.currentThread());
+      List<Payload> result = new ArrayList<>(payloads.size());
+      for (Payload payload : payloads) {
+        String data = payload.getData().toStringUtf8();
+        result.add(newPayload(data.substring(0, data.length() - 1)));
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package io.temporal.payload.codec;
+
+import static org.junit.Assert.*;
+
+import com.google.common.base.Strings;
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.junit.Test;
+
+public class PooledZlibPayloadCodecTest {
+  private static final String DICTIONARY =
+      "{\"customer\":\"customer@example.com\",\"items\":[{\"sku\":\"sku-\",\"quantity\":";
+
+  @Test
+  public void normalDeflation() {
+    PayloadCodec codec = new PooledZlibPayloadCodec();
+    Payload originalPayload = newPayload(Strings.repeat("1", 100));
+
+    Payload encodedPayload = encode(codec, originalPayload);
+    assertEquals(ZlibPayloadCodec.METADATA_ENCODING_ZLIB, getEncoding(encodedPayload));
+    assertEquals(originalPayload, decode(codec, encodedPayload));
+    // pooled instances are reset between payloads
+    assertEquals(originalPayload, decode(codec, encode(codec, originalPayload)));
+  }
+
+  @Test
+  public void smallPayloadIsNotCompressed() {
+    PayloadCodec codec = PooledZlibPayloadCodec.newBuilder().setMinPayloadSize(1000).build();
+    Payload originalPayload = newPayload(Strings.repeat("1", 100));
+
+    Payload encodedPayload = encode(codec, originalPayload);
+    assertSame(originalPayload, encodedPayload);
+    assertSame(originalPayload, decode(codec, encodedPayload));
+  }
+
+  @Test
+  public void compatibleWithZlibPayloadCodec() {
+    PayloadCodec codec = new PooledZlibPayloadCodec();
+    PayloadCodec zlibCodec = new ZlibPayloadCodec();
+    Payload originalPayload = newPayload(Strings.repeat("12345", 100));
+
+    assertEquals(originalPayload, decode(zlibCodec, encode(codec, originalPayload)));
+    assertEquals(originalPayload, decode(codec, encode(zlibCodec, originalPayload)));
+  }
+
+  @Test
+  public void dictionaryCompressesSmallPayloads() {
+    byte[] dictionary = DICTIONARY.getBytes(StandardCharsets.UTF_8);
+    PayloadCodec codec =
+        PooledZlibPayloadCodec.newBuilder().setMinPayloadSize(0).setDictionary(dictionary).build();
+    Payload originalPayload = newPayload(DICTIONARY + "1}]}");
+
+    Payload encodedPayload = encode(codec, originalPayload);
+    Payload withoutDictionary =
+        encode(PooledZlibPayloadCodec.newBuilder().setMinPayloadSize(0).build(), originalPayload);
+    assertTrue(
+        encodedPayload.getData().size() < withoutDictionary.getSerializedSize()
+            && encodedPayload.getData().size() < originalPayload.getSerializedSize());
+    assertEquals(originalPayload, decode(codec, encodedPayload));
+
+    PayloadCodec rotatedCodec =
+        PooledZlibPayloadCodec.newBuilder()
+            .setDictionary("another dictionary".getBytes(StandardCharsets.UTF_8))
+            .addDecodingDictionary(dictionary)
+            .build();
+    assertEquals(originalPayload, decode(rotatedCodec, encodedPayload));
+  }
+
+  @Test(expected = PayloadCodecException.class)
+  public void unknownDictionaryFails() {
+    PayloadCodec codec =
+        PooledZlibPayloadCodec.newBuilder()
+            .setDictionary(DICTIONARY.getBytes(StandardCharsets.UTF_8))
+            .build();
+    Payload encodedPayload = encode(codec, newPayload(DICTIONARY + DICTIONARY));
+
+    decode(new PooledZlibPayloadCodec(), encodedPayload);
+  }
+
+  private static Payload newPayload(String data) {
+    return Payload.newBuilder().setData(ByteString.copyFrom(data, StandardCharsets.UTF_8)).build();
+  }
+
+  private static Payload encode(PayloadCodec codec, Payload payload) {
+    return codec.encode(Collections.singletonList(payload)).get(0);
+  }
+
+  private static Payload decode(PayloadCodec codec, Payload payload) {
+    return codec.decode(Collections.singletonList(payload)).get(0);
+  }
+
+  private static ByteString getEncoding(Payload payload) {
+    return payload.getMetadataOrDefault(EncodingKeys.METADATA_ENCODING_KEY, null);
+  }
+}
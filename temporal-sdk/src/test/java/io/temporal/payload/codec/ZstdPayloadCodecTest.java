@@ -0,0 +1,177 @@
+package io.temporal.payload.codec;
+
+import static org.junit.Assert.*;
+
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.google.common.base.Strings;
+import com.google.protobuf.ByteString;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.common.converter.EncodingKeys;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.junit.Test;
+
+public class ZstdPayloadCodecTest {
+  @Test
+  public void normalCompression() {
+    PayloadCodec codec = new ZstdPayloadCodec();
+    Payload originalPayload = newPayload(Strings.repeat("1", 100));
+
+    Payload encodedPayload = encode(codec, originalPayload);
+    assertEquals(ZstdPayloadCodec.METADATA_ENCODING_ZSTD, getEncoding(encodedPayload));
+    assertEquals(originalPayload, decode(codec, encodedPayload));
+    // pooled contexts are reused between payloads
+    assertEquals(originalPayload, decode(codec, encode(codec, originalPayload)));
+  }
+
+  @Test
+  public void typicalPayloadIsCompressed() {
+    StringBuilder orders = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      orders.append(newOrder("customer" + i + "@example.com", i));
+    }
+    Payload originalPayload = newPayload(orders.toString());
+    int originalSize = originalPayload.getSerializedSize();
+
+    Payload zstdPayload = encode(new ZstdPayloadCodec(), originalPayload);
+    Payload zlibPayload = encode(new PooledZlibPayloadCodec(), originalPayload);
+    assertTrue(
+        zstdPayload.getData().size() + " of " + originalSize,
+        zstdPayload.getData().size() < originalSize / 4);
+    assertTrue(
+        zlibPayload.getData().size() + " of " + originalSize,
+        zlibPayload.getData().size() < originalSize / 4);
+    assertEquals(originalPayload, decode(new ZstdPayloadCodec(), zstdPayload));
+  }
+
+  @Test
+  public void smallPayloadIsNotCompressed() {
+    PayloadCodec codec = ZstdPayloadCodec.newBuilder().setMinPayloadSize(1000).build();
+    Payload originalPayload = newPayload(Strings.repeat("1", 100));
+
+    Payload encodedPayload = encode(codec, originalPayload);
+    assertSame(originalPayload, encodedPayload);
+    assertSame(originalPayload, decode(codec, encodedPayload));
+  }
+
+  @Test
+  public void zlibPayloadIsNotDecoded() {
+    Payload zlibPayload = encode(new ZlibPayloadCodec(), newPayload(Strings.repeat("1", 100)));
+
+    assertSame(zlibPayload, decode(new ZstdPayloadCodec(), zlibPayload));
+  }
+
+  @Test
+  public void dictionaryCompressesSmallPayloads() {
+    byte[] dictionary = trainDictionary("customer@example.com");
+    PayloadCodec codec =
+        ZstdPayloadCodec.newBuilder().setMinPayloadSize(0).setDictionary(dictionary).build();
+    Payload originalPayload = newPayload(newOrder("customer@example.com", 1001));
+
+    Payload encodedPayload = encode(codec, originalPayload);
+    Payload withoutDictionary =
+        encode(ZstdPayloadCodec.newBuilder().setMinPayloadSize(0).build(), originalPayload);
+    assertTrue(
+        encodedPayload.getData().size() < withoutDictionary.getSerializedSize()
+            && encodedPayload.getData().size() < originalPayload.getSerializedSize());
+    assertEquals(originalPayload, decode(codec, encodedPayload));
+    // the dictionary doesn't stay in a pooled context
+    Payload plainPayload = newPayload(Strings.repeat("12345", 100));
+    assertEquals(plainPayload, decode(codec, encode(new ZstdPayloadCodec(), plainPayload)));
+
+    PayloadCodec rotatedCodec =
+        ZstdPayloadCodec.newBuilder()
+            .setDictionary(trainDictionary("another@example.com"))
+            .addDecodingDictionary(dictionary)
+            .build();
+    assertEquals(originalPayload, decode(rotatedCodec, encodedPayload));
+  }
+
+  @Test(expected = PayloadCodecException.class)
+  public void unknownDictionaryFails() {
+    PayloadCodec codec =
+        ZstdPayloadCodec.newBuilder()
+            .setDictionary(trainDictionary("customer@example.com"))
+            .build();
+    Payload encodedPayload = encode(codec, newPayload(newOrder("customer@example.com", 1001)));
+
+    decode(new ZstdPayloadCodec(), encodedPayload);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void untrainedDictionaryIsRejected() {
+    ZstdPayloadCodec.newBuilder()
+        .setDictionary(newOrder("customer@example.com", 1).getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void frameWithoutContentSizeIsDecoded() {
+    Payload originalPayload = newPayload(Strings.repeat("12345", 1000));
+    Payload encodedPayload = compressWithoutContentSize(originalPayload);
+
+    assertEquals(originalPayload, decode(new ZstdPayloadCodec(), encodedPayload));
+  }
+
+  @Test(expected = PayloadCodecException.class)
+  public void contentSizeAboveTheLimitIsRejected() {
+    Payload encodedPayload =
+        encode(new ZstdPayloadCodec(), newPayload(Strings.repeat("12345", 1000)));
+
+    decode(ZstdPayloadCodec.newBuilder().setMaxDecodedSize(1000).build(), encodedPayload);
+  }
+
+  @Test(expected = PayloadCodecException.class)
+  public void streamAboveTheLimitIsRejected() {
+    Payload encodedPayload =
+        compressWithoutContentSize(newPayload(Strings.repeat("12345", 100_000)));
+
+    decode(ZstdPayloadCodec.newBuilder().setMaxDecodedSize(100_000).build(), encodedPayload);
+  }
+
+  private static Payload compressWithoutContentSize(Payload payload) {
+    try (ZstdCompressCtx compressor = new ZstdCompressCtx()) {
+      compressor.setContentSize(false);
+      return Payload.newBuilder()
+          .putMetadata(EncodingKeys.METADATA_ENCODING_KEY, ZstdPayloadCodec.METADATA_ENCODING_ZSTD)
+          .setData(ByteString.copyFrom(compressor.compress(payload.toByteArray())))
+          .build();
+    }
+  }
+
+  private static byte[] trainDictionary(String customer) {
+    ZstdDictTrainer trainer = new ZstdDictTrainer(1024 * 1024, 4 * 1024);
+    for (int i = 0; i < 1000; i++) {
+      trainer.addSample(newPayload(newOrder(customer, i)).toByteArray());
+    }
+    return trainer.trainSamples();
+  }
+
+  private static String newOrder(String customer, int i) {
+    return "{\"customer\":\""
+        + customer
+        + "\",\"items\":[{\"sku\":\"sku-"
+        + i
+        + "\",\"quantity\":"
+        + (i % 7 + 1)
+        + "}],\"status\":\""
+        + (i % 2 == 0 ? "CREATED" : "SHIPPED")
+        + "\"}";
+  }
+
+  private static Payload newPayload(String data) {
+    return Payload.newBuilder().setData(ByteString.copyFrom(data, StandardCharsets.UTF_8)).build();
+  }
+
+  private static Payload encode(PayloadCodec codec, Payload payload) {
+    return codec.encode(Collections.singletonList(payload)).get(0);
+  }
+
+  private static Payload decode(PayloadCodec codec, Payload payload) {
+    return codec.decode(Collections.singletonList(payload)).get(0);
+  }
+
+  private static ByteString getEncoding(Payload payload) {
+    return payload.getMetadataOrDefault(EncodingKeys.METADATA_ENCODING_KEY, null);
+  }
+}
@@ -0,0 +1,132 @@
+package io.temporal.worker;
+
+import static org.junit.Assert.*;
+
+import com.google.common.collect.Lists;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+
+public class TinyLfuWorkflowCacheEvictionPolicyTest {
+
+  @Test
+  public void cheapToReplayRunsAreEvictedFirst() {
+    TinyLfuWorkflowCacheEvictionPolicy policy = new TinyLfuWorkflowCacheEvictionPolicy();
+    policy.onAdd("expensive", 900);
+    policy.onAdd("cheap", 10);
+    policy.onAdd("recent", 10);
+
+    assertEquals(Arrays.asList("cheap", "expensive", "recent"), candidates(policy));
+  }
+
+  @Test
+  public void frequentlyAccessedRunsAreEvictedLast() {
+    TinyLfuWorkflowCacheEvictionPolicy policy = new TinyLfuWorkflowCacheEvictionPolicy();
+    for (int i = 0; i < 100; i++) {
+      policy.onAdd("run" + i, 100);
+    }
+    for (int j = 0; j < 5; j++) {
+      for (int i = 0; i < 10; i++) {
+        policy.onAccess("run" + i);
+      }
+    }
+
+    List<String> candidates = candidates(policy);
+    assertEquals(100, candidates.size());
+    // the last one is the most recently added run kept in the admission window
+    assertEquals("run99", candidates.get(99));
+    for (int i = 0; i < 10; i++) {
+      assertTrue(candidates.indexOf("run" + i) >= 89);
+    }
+  }
+
+  @Test
+  public void replayCostUpdateChangesEvictionOrder() {
+    TinyLfuWorkflowCacheEvictionPolicy policy = new TinyLfuWorkflowCacheEvictionPolicy(0);
+    policy.onAdd("run1", 100);
+    policy.onAdd("run2", 200);
+    assertEquals(Arrays.asList("run1", "run2"), candidates(policy));
+
+    policy.onReplayCostUpdate("run1", 1000);
+
+    assertEquals(Arrays.asList("run2", "run1"), candidates(policy));
+  }
+
+  @Test
+  public void onlyLeastRecentlyUsedRunsAreComparedByScore() {
+    TinyLfuWorkflowCacheEvictionPolicy policy = new TinyLfuWorkflowCacheEvictionPolicy(0);
+    policy.onAdd("expensive", 1000);
+    for (int i = 0; i < 20; i++) {
+      policy.onAdd("run" + i, 100);
+    }
+    policy.onAdd("cheap", 1);
+    // the sketch was resized by the adds, an access gives all the runs a non-zero frequency
+    policy.onAccess("expensive");
+    for (int i = 0; i < 20; i++) {
+      policy.onAccess("run" + i);
+    }
+    policy.onAccess("cheap");
+
+    Iterator<String> candidates = policy.getEvictionCandidates();
+    // the most recently added cheap run is not among the least recently used runs yet
+    assertEquals("run0", candidates.next());
+    List<String> rest = Lists.newArrayList(candidates);
+    assertEquals(21, rest.size());
+    assertTrue(rest.indexOf("cheap") < rest.indexOf("expensive"));
+  }
+
+  @Test
+  public void accessedRunsAreEvictedLater() {
+    TinyLfuWorkflowCacheEvictionPolicy policy = new TinyLfuWorkflowCacheEvictionPolicy(0);
+    for (int i = 0; i < 40; i++) {
+      policy.onAdd("run" + i, 100);
+    }
+    policy.onAccess("run0");
+
+    List<String> candidates = candidates(policy);
+    assertEquals("run1", candidates.get(0));
+    assertEquals("run0", candidates.get(39));
+  }
+
+  @Test
+  public void removedRunsAreNotEvictionCandidates() {
+    TinyLfuWorkflowCacheEvictionPolicy policy = new TinyLfuWorkflowCacheEvictionPolicy();
+    policy.onAdd("run1", 100);
+    policy.onAdd("run2", 100);
+    policy.onRemove("run1");
+    policy.onRemove("run2");
+    policy.onAccess("run1");
+
+    assertFalse(policy.getEvictionCandidates().hasNext());
+  }
+
+  @Test
+  public void frequenciesAreAged() {
+    TinyLfuWorkflowCacheEvictionPolicy policy = new TinyLfuWorkflowCacheEvictionPolicy();
+    for (int i = 0; i < 100; i++) {
+      policy.onAdd("run" + i, 100);
+    }
+    for (int i = 0; i < 20; i++) {
+      policy.onAccess("run0");
+    }
+    assertEquals(15, policy.frequency("run0"));
+
+    for (int j = 0; j < 50; j++) {
+      for (int i = 1; i < 100; i++) {
+        policy.onAccess("run" + i);
+      }
+    }
+
+    assertTrue(policy.frequency("run0") < 15);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void windowRatioIsValidated() {
+    new TinyLfuWorkflowCacheEvictionPolicy(1);
+  }
+
+  private static List<String> candidates(WorkflowCacheEvictionPolicy policy) {
+    return Lists.newArrayList(policy.getEvictionCandidates());
+  }
+}
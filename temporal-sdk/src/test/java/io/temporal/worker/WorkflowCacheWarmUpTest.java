@@ -0,0 +1,165 @@
+package io.temporal.worker;
+
+import static io.temporal.testing.internal.SDKTestWorkflowRule.NAMESPACE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.uber.m3.tally.RootScopeBuilder;
+import com.uber.m3.tally.Scope;
+import com.uber.m3.util.ImmutableMap;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowClientOptions;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.client.WorkflowStub;
+import io.temporal.common.reporter.TestStatsReporter;
+import io.temporal.serviceclient.MetricsTag;
+import io.temporal.testing.TestEnvironmentOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.workflow.SignalMethod;
+import io.temporal.workflow.Workflow;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+public class WorkflowCacheWarmUpTest {
+  private static final String TASK_QUEUE = "workflow-cache-warm-up-test";
+
+  @Rule public Timeout testTimeout = Timeout.seconds(30);
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private TestStatsReporter reporter;
+  private Scope metricsScope;
+  private TestWorkflowEnvironment testEnvironment;
+
+  @Before
+  public void setUp() {
+    reporter = new TestStatsReporter();
+    metricsScope =
+        new RootScopeBuilder()
+            .reporter(reporter)
+            .reportEvery(com.uber.m3.util.Duration.ofSeconds(10));
+    testEnvironment =
+        TestWorkflowEnvironment.newInstance(
+            TestEnvironmentOptions.newBuilder()
+                .setMetricsScope(metricsScope)
+                .setWorkflowClientOptions(
+                    WorkflowClientOptions.newBuilder().setNamespace(NAMESPACE).build())
+                .build());
+  }
+
+  @After
+  public void tearDown() {
+    testEnvironment.close();
+  }
+
+  @Test
+  public void warmedUpWorkflowIsReusedAfterRestart() throws Exception {
+    Path snapshotFile = folder.getRoot().toPath().resolve("workflow-cache.snapshot");
+    WorkerFactoryOptions factoryOptions =
+        WorkerFactoryOptions.newBuilder().setWorkflowCacheWarmUpFile(snapshotFile).build();
+    WorkflowClient client = testEnvironment.getWorkflowClient();
+
+    WorkerFactory factory = startFactory(client, factoryOptions);
+    GreetingWorkflow workflow =
+        client.newWorkflowStub(
+            GreetingWorkflow.class,
+            WorkflowOptions.newBuilder()
+                .setTaskQueue(TASK_QUEUE)
+                .setWorkflowTaskTimeout(Duration.ofSeconds(30))
+                .build());
+    String workflowId = WorkflowClient.start(workflow::greet).getWorkflowId();
+    waitFor(() -> countCompletedWorkflowTasks(client, workflowId) == 1);
+    workflow.addName("Alice");
+    // the first signal is processed by the cached workflow before the shutdown
+    waitFor(() -> countCompletedWorkflowTasks(client, workflowId) == 2);
+
+    factory.shutdown();
+    factory.awaitTermination(10, TimeUnit.SECONDS);
+    waitFor(() -> Files.exists(snapshotFile));
+
+    WorkerFactory restarted = startFactory(client, factoryOptions);
+    // the warm-up holds the run lock until the replayed workflow is marked as warmed up
+    waitFor(() -> restarted.getCache().size() == 1);
+    workflow.addName("Bob");
+
+    assertEquals("Hello Alice and Bob!", WorkflowStub.fromTyped(workflow).getResult(String.class));
+    // no nondeterminism or other failure of the workflow task served by the warmed up workflow
+    assertTrue(
+        client.fetchHistory(workflowId).getEvents().stream()
+            .noneMatch(e -> e.getEventType() == EventType.EVENT_TYPE_WORKFLOW_TASK_FAILED));
+    assertFalse(Files.exists(snapshotFile));
+    restarted.shutdown();
+    restarted.awaitTermination(10, TimeUnit.SECONDS);
+
+    Map<String, String> tags =
+        new ImmutableMap.Builder<String, String>(9)
+            .putAll(MetricsTag.defaultTags(NAMESPACE))
+            .put(MetricsTag.TASK_QUEUE, TASK_QUEUE)
+            .put(MetricsTag.WORKFLOW_TYPE, "GreetingWorkflow")
+            .build();
+    metricsScope.close(); // Flush metrics
+    // one hit before the restart, one of the full history task served by the warmed up workflow
+    reporter.assertCounter(MetricsType.STICKY_CACHE_HIT, tags, 2);
+    reporter.assertNoMetric(MetricsType.STICKY_CACHE_MISS, tags);
+  }
+
+  private static WorkerFactory startFactory(WorkflowClient client, WorkerFactoryOptions options) {
+    WorkerFactory factory = WorkerFactory.newInstance(client, options);
+    factory.newWorker(TASK_QUEUE).registerWorkflowImplementationTypes(GreetingWorkflowImpl.class);
+    factory.start();
+    return factory;
+  }
+
+  private static long countCompletedWorkflowTasks(WorkflowClient client, String workflowId) {
+    List<HistoryEvent> events = client.fetchHistory(workflowId).getEvents();
+    return events.stream()
+        .filter(e -> e.getEventType() == EventType.EVENT_TYPE_WORKFLOW_TASK_COMPLETED)
+        .count();
+  }
+
+  private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+    while (!condition.getAsBoolean()) {
+      Thread.sleep(10);
+    }
+  }
+
+  @WorkflowInterface
+  public interface GreetingWorkflow {
+    @WorkflowMethod
+    String greet();
+
+    @SignalMethod
+    void addName(String name);
+  }
+
+  public static class GreetingWorkflowImpl implements GreetingWorkflow {
+    private final List<String> names = new ArrayList<>();
+
+    @Override
+    public String greet() {
+      Workflow.await(() -> names.size() == 2);
+      return "Hello " + String.join(" and ", names) + "!";
+    }
+
+    @Override
+    public void addName(String name) {
+      names.add(name);
+    }
+  }
+}
@@ -25,6 +25,8 @@ public class MetricsTag {
   public static final String OPERATION_NAME = "operation";
   public static final String TASK_FAILURE_TYPE = "failure_reason";
   public static final String POLLER_TYPE = "poller_type";
+  public static final String WORKFLOW_CACHE_EVICTION_POLICY = "eviction_policy";
+  public static final String WORKFLOW_TASK_PHASE = "workflow_task_phase";
 
   /** Used to pass metrics scope to the interceptor */
   public static final CallOptions.Key<Scope> METRICS_TAGS_CALL_OPTIONS_KEY =
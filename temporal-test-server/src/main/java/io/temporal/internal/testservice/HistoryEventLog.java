@@ -0,0 +1,311 @@
+package io.temporal.internal.testservice;
+
+import com.google.common.base.Preconditions;
+import io.temporal.api.history.v1.HistoryEvent;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of history events stored in segment files of a directory.
+ *
+ * <p>Every {@link #append} writes one record with the events added to a history by a single update
+ * and returns the position of the record. A position is the index of the segment in the upper bits
+ * and the offset of the record in the lower {@link #OFFSET_BITS} bits. Records are never modified,
+ * segments that reached {@link #segmentSize} are sealed and memory mapped for reads.
+ *
+ * <p>A record is
+ *
+ * <pre>
+ * int     length of the rest of the record
+ * int     length of the namespace, namespace UTF-8 bytes
+ * int     length of the workflow id, workflow id UTF-8 bytes
+ * int     length of the run id, run id UTF-8 bytes
+ * int     number of events
+ * repeated: int length of the serialized event, event bytes
+ * </pre>
+ *
+ * <p>The log isn't flushed to the disk on every append. A record partially written by a crash of
+ * the process is truncated by {@link #open} which also replays the existing records to rebuild the
+ * index of the store.
+ */
+final class HistoryEventLog implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(HistoryEventLog.class);
+
+  static final long DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  static final int OFFSET_BITS = 32;
+  private static final String SEGMENT_PREFIX = "history-";
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  interface RecordConsumer {
+    void accept(ExecutionId executionId, long position, List<HistoryEvent> events);
+  }
+
+  private final Path directory;
+  private final long segmentSize;
+  private final List<Segment> segments = new CopyOnWriteArrayList<>();
+  private final Lock appendLock = new ReentrantLock();
+  // guarded by appendLock
+  private Segment active;
+  private volatile boolean closed;
+
+  HistoryEventLog(Path directory, long segmentSize) {
+    // sealed segments are mapped into a single buffer
+    Preconditions.checkArgument(
+        segmentSize > 0 && segmentSize <= Integer.MAX_VALUE,
+        "segmentSize should be positive and fit into an int: %s",
+        segmentSize);
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Opens the log in the directory, creating the directory if needed, and passes every stored
+   * record to the consumer in the order they were appended. Has to be called once before {@link
+   * #append}.
+   */
+  void open(RecordConsumer consumer) throws IOException {
+    Preconditions.checkState(active == null, "already open");
+    Files.createDirectories(directory);
+    recover(consumer);
+  }
+
+  /**
+   * @return position of the appended record
+   */
+  long append(ExecutionId executionId, List<HistoryEvent> events) throws IOException {
+    ByteBuffer record = encode(executionId, events);
+    appendLock.lock();
+    try {
+      Preconditions.checkState(active != null && !closed, "not open");
+      if (active.size > 0 && active.size + record.remaining() > segmentSize) {
+        active.seal();
+        active = createSegment(segments.size());
+      }
+      long offset = active.size;
+      while (record.hasRemaining()) {
+        active.channel.write(record, active.size + record.position());
+      }
+      active.size += record.limit();
+      return ((long) active.index << OFFSET_BITS) | offset;
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  /**
+   * @return events of the record at the position returned by {@link #append}
+   */
+  List<HistoryEvent> read(long position) throws IOException {
+    Segment segment = segments.get((int) (position >>> OFFSET_BITS));
+    long offset = position & ((1L << OFFSET_BITS) - 1);
+    ByteBuffer mapped = segment.mapped;
+    ByteBuffer record;
+    if (mapped != null) {
+      // duplicate to not share the position of the buffer with the concurrent readers
+      record = mapped.duplicate();
+      record.position((int) offset + Integer.BYTES);
+      record.limit((int) offset + Integer.BYTES + mapped.getInt((int) offset));
+    } else {
+      ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+      readFully(segment.channel, length, offset);
+      record = ByteBuffer.allocate(length.getInt(0));
+      readFully(segment.channel, record, offset + Integer.BYTES);
+      record.flip();
+    }
+    skipExecutionId(record);
+    return decodeEvents(record);
+  }
+
+  @Override
+  public void close() throws IOException {
+    appendLock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      for (Segment segment : segments) {
+        if (segment.channel.isOpen()) {
+          segment.channel.force(false);
+          segment.channel.close();
+        }
+      }
+    } finally {
+      appendLock.unlock();
+    }
+  }
+
+  private void recover(RecordConsumer consumer) throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      stream.forEach(files::add);
+    }
+    files.sort(null);
+    for (int i = 0; i < files.size(); i++) {
+      Path expected = segmentPath(i);
+      if (!files.get(i).equals(expected)) {
+        throw new IOException("Missing history log segment " + expected);
+      }
+      Segment segment = openSegment(i);
+      segments.add(segment);
+      long validSize = replay(segment, consumer);
+      if (validSize < segment.channel.size()) {
+        log.warn("Truncating a partially written record of {} at offset {}", expected, validSize);
+        segment.channel.truncate(validSize);
+      }
+      segment.size = validSize;
+      if (i < files.size() - 1) {
+        segment.seal();
+      }
+    }
+    if (segments.isEmpty()) {
+      active = createSegment(0);
+    } else {
+      active = segments.get(segments.size() - 1);
+    }
+  }
+
+  /**
+   * @return size of the segment up to the end of the last complete record
+   */
+  private static long replay(Segment segment, RecordConsumer consumer) throws IOException {
+    long size = segment.channel.size();
+    long offset = 0;
+    ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+    while (offset + Integer.BYTES <= size) {
+      length.clear();
+      readFully(segment.channel, length, offset);
+      int recordLength = length.getInt(0);
+      if (recordLength <= 0 || offset + Integer.BYTES + recordLength > size) {
+        break;
+      }
+      ByteBuffer record = ByteBuffer.allocate(recordLength);
+      readFully(segment.channel, record, offset + Integer.BYTES);
+      record.flip();
+      ExecutionId executionId =
+          new ExecutionId(readString(record), readString(record), readString(record));
+      long position = ((long) segment.index << OFFSET_BITS) | offset;
+      consumer.accept(executionId, position, decodeEvents(record));
+      offset += Integer.BYTES + recordLength;
+    }
+    return offset;
+  }
+
+  private Segment createSegment(int index) throws IOException {
+    Segment segment = openSegment(index);
+    segments.add(segment);
+    return segment;
+  }
+
+  private Segment openSegment(int index) throws IOException {
+    FileChannel channel =
+        FileChannel.open(
+            segmentPath(index),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    return new Segment(index, channel);
+  }
+
+  private Path segmentPath(int index) {
+    return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+  }
+
+  private static ByteBuffer encode(ExecutionId executionId, List<HistoryEvent> events)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    // placeholder for the length of the record
+    out.writeInt(0);
+    writeString(out, executionId.getNamespace());
+    writeString(out, executionId.getWorkflowId().getWorkflowId());
+    writeString(out, executionId.getExecution().getRunId());
+    out.writeInt(events.size());
+    for (HistoryEvent event : events) {
+      out.writeInt(event.getSerializedSize());
+      event.writeTo(out);
+    }
+    out.flush();
+    ByteBuffer result = ByteBuffer.wrap(bytes.toByteArray());
+    result.putInt(0, result.limit() - Integer.BYTES);
+    return result;
+  }
+
+  private static List<HistoryEvent> decodeEvents(ByteBuffer record) throws IOException {
+    int count = record.getInt();
+    List<HistoryEvent> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int eventLength = record.getInt();
+      ByteBuffer event = record.slice();
+      event.limit(eventLength);
+      result.add(HistoryEvent.parseFrom(event));
+      record.position(record.position() + eventLength);
+    }
+    return result;
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void skipExecutionId(ByteBuffer record) {
+    for (int i = 0; i < 3; i++) {
+      int length = record.getInt();
+      record.position(record.position() + length);
+    }
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position + buffer.position());
+      if (read < 0) {
+        throw new IOException("Unexpected end of the history log segment at " + position);
+      }
+    }
+  }
+
+  private static final class Segment {
+    final int index;
+    final FileChannel channel;
+    // written by the appending thread
+    volatile long size;
+    // null while the segment is appended to
+    volatile MappedByteBuffer mapped;
+
+    Segment(int index, FileChannel channel) {
+      this.index = index;
+      this.channel = channel;
+    }
+
+    void seal() throws IOException {
+      mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+  }
+}
@@ -97,6 +97,8 @@ final class RequestContext {
   private final long initialEventId;
 
   private final List<HistoryEvent> events = new ArrayList<>();
+  // The events with the ids and timestamps assigned by the store, set on a commit
+  private List<HistoryEvent> committedEvents = Collections.emptyList();
   private final List<CommitCallback> commitCallbacks = new ArrayList<>();
   // Contains a workflow task created by the updater that needs to be persisted into a task queue on
   // a commit.
@@ -273,6 +275,18 @@ final class RequestContext {
     return store.save(this);
   }
 
+  /**
+   * @return the events added to the history by {@link #commitChanges}, empty before the commit
+   */
+  List<HistoryEvent> getCommittedEvents() {
+    return committedEvents;
+  }
+
+  /** Called by {@link TestWorkflowStore#save(RequestContext)} */
+  void setCommittedEvents(List<HistoryEvent> committedEvents) {
+    this.committedEvents = committedEvents;
+  }
+
   /** Called by {@link TestWorkflowStore#save(RequestContext)} */
   void fireCallbacks(int historySize) {
     for (CommitCallback callback : commitCallbacks) {
@@ -12,6 +12,7 @@ import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -26,7 +27,6 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
     private final long executionTime;
     private final Runnable runnable;
     private final String taskInfo;
-    private boolean canceled;
 
     TimerTask(long executionTime, Runnable runnable, String taskInfo) {
       this.executionTime = executionTime;
@@ -50,14 +50,6 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
     public String toString() {
       return "TimerTask{" + "executionTime=" + executionTime + '}';
     }
-
-    public boolean isCanceled() {
-      return canceled;
-    }
-
-    public void cancel() {
-      canceled = true;
-    }
   }
 
   private class TimerPump implements Runnable {
@@ -87,65 +79,24 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
               lockTimeSkippingLocked("SelfAdvancingTimerImpl runLocked empty-queue");
           emptyQueue = true;
         }
-        TimerTask peekedTask = tasks.peek();
-        if (peekedTask != null) {
-          log.trace(
-              "peekedTask="
-                  + peekedTask.getTaskInfo()
-                  + ", executionTime="
-                  + peekedTask.getExecutionTime()
-                  + ", canceled="
-                  + peekedTask.isCanceled());
-        }
-        if (peekedTask != null
-            && (peekedTask.getExecutionTime() <= currentTimeMs || peekedTask.isCanceled())) {
+        List<TimerTask> expired = tasks.pollExpired(currentTimeMs);
+        if (!expired.isEmpty()) {
           try {
-            TimerTask polledTask = tasks.poll();
-            if (polledTask.isCanceled()) {
-              log.trace("Removed canceled task from the task queue: {}", polledTask.getTaskInfo());
-            } else {
-              LockHandle lockHandle =
-                  lockTimeSkippingLocked("[TimerPump] runnable " + peekedTask.getTaskInfo());
-              log.trace(
-                  "running task="
-                      + polledTask.getTaskInfo()
-                      + ", executionTime="
-                      + polledTask.getExecutionTime());
-              Runnable runnable = polledTask.getRunnable();
-              executor.execute(
-                  () -> {
-                    try {
-                      runnable.run();
-                    } catch (Throwable e) {
-                      log.error("Unexpected failure in timer callback", e);
-                    } finally {
-                      try {
-                        lockHandle.unlock();
-                      } catch (Throwable e) {
-                        log.error("Failed to unlock the timer", e);
-                      }
-                    }
-                  });
-            }
+            runExpiredLocked(expired);
           } catch (RuntimeException e) {
             log.error("Timer task failure", e);
           }
           continue;
         }
 
+        long nextExpirationTime = tasks.nextExpirationTime();
         final long timeToAwait;
-        if (peekedTask != null) {
-          timeToAwait = peekedTask.getExecutionTime() - currentTimeMs;
-          if (log.isTraceEnabled()) {
-            log.trace("Waiting for {} with outstanding tasks:", Duration.ofMillis(timeToAwait));
-            for (TimerTask task : tasks) {
-              log.trace(
-                  "    +{} <{}>, cancelled: {}",
-                  Duration.ofMillis(task.executionTime - currentTimeMs),
-                  task.taskInfo,
-                  task.canceled);
-            }
-          }
+        if (nextExpirationTime != TimerWheel.NO_TIMERS) {
+          timeToAwait = nextExpirationTime - currentTimeMs;
+          log.trace(
+              "Waiting for {} with {} outstanding tasks",
+              Duration.ofMillis(timeToAwait),
+              tasks.size());
         } else {
           timeToAwait = Long.MAX_VALUE;
         }
@@ -158,6 +109,42 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
         }
       }
     }
+
+    /**
+     * Runs the expired tasks as one batch. While time skipping is unlocked a batch holds all the
+     * tasks due at the skipped-to instant. The batch takes a single time skipping lock that is
+     * released when the last of its tasks completes.
+     */
+    private void runExpiredLocked(List<TimerTask> expired) {
+      LockHandle lockHandle =
+          lockTimeSkippingLocked(
+              "[TimerPump] "
+                  + expired.size()
+                  + " runnable(s), first "
+                  + expired.get(0).getTaskInfo());
+      AtomicInteger remaining = new AtomicInteger(expired.size());
+      for (TimerTask task : expired) {
+        log.trace(
+            "running task=" + task.getTaskInfo() + ", executionTime=" + task.getExecutionTime());
+        Runnable runnable = task.getRunnable();
+        executor.execute(
+            () -> {
+              try {
+                runnable.run();
+              } catch (Throwable e) {
+                log.error("Unexpected failure in timer callback", e);
+              } finally {
+                if (remaining.decrementAndGet() == 0) {
+                  try {
+                    lockHandle.unlock();
+                  } catch (Throwable e) {
+                    log.error("Failed to unlock the timer", e);
+                  }
+                }
+              }
+            });
+      }
+    }
   }
 
   private class LockEvent {
@@ -245,18 +232,18 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
   private long systemTimeMsLastAdvancedWhileLocked = -1;
   private boolean emptyQueue = true;
 
-  private final PriorityQueue<TimerTask> tasks =
-      new PriorityQueue<>(Comparator.comparing(TimerTask::getExecutionTime));
+  private final TimerWheel<TimerTask> tasks;
   private final Thread timerPump = new Thread(new TimerPump(), "SelfAdvancingTimer Pump");
   private LockHandle timeLockOnEmptyQueueHandle;
 
   // outstanding (unpaired) lock / unlock events. Debugging purposes only.
-  private final LinkedList<LockEvent> lockEvents = new LinkedList<>();
+  private final Set<LockEvent> lockEvents = new LinkedHashSet<>();
 
   public SelfAdvancingTimerImpl(long initialTimeMs, Clock systemClock) {
     this.systemClock = systemClock;
     currentTimeMs = initialTimeMs == 0 ? systemClock.millis() : initialTimeMs;
     log.trace("Current time on start: {}", currentTimeMs);
+    tasks = new TimerWheel<>(currentTimeMs);
     executor.setRejectedExecutionHandler(new CallerRunsPolicy());
     // Queue is initially empty. The code assumes that in this case skipping is already locked.
     timeLockOnEmptyQueueHandle = lockTimeSkipping("SelfAdvancingTimerImpl constructor empty-queue");
@@ -272,9 +259,9 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
       currentTimeMs = currentTimeMs + (systemTime - systemTimeMsLastAdvancedWhileLocked);
       systemTimeMsLastAdvancedWhileLocked = systemTime;
     } else {
-      TimerTask task = tasks.peek();
-      if (task != null && !task.isCanceled() && task.getExecutionTime() > currentTimeMs) {
-        currentTimeMs = task.getExecutionTime();
+      long nextExpirationTime = tasks.nextExpirationTime();
+      if (nextExpirationTime != TimerWheel.NO_TIMERS && nextExpirationTime > currentTimeMs) {
+        currentTimeMs = nextExpirationTime;
         log.trace("Jumping to the time of the next timer task: {}", currentTimeMs);
       }
     }
@@ -326,8 +313,8 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
 
   private Functions.Proc scheduleAtLocked(long timestampMs, Runnable task, String taskInfo) {
     TimerTask timerTask = new TimerTask(timestampMs, task, taskInfo);
-    Functions.Proc cancellationHandle = timerTask::cancel;
-    tasks.add(timerTask);
+    TimerWheel.Timer<TimerTask> timer = tasks.add(timestampMs, timerTask);
+    Functions.Proc cancellationHandle = () -> cancel(timer);
     // Locked when queue became empty
     if (tasks.size() == 1 && emptyQueue) {
       if (timeLockOnEmptyQueueHandle == null) {
@@ -343,6 +330,18 @@ final class SelfAdvancingTimerImpl implements SelfAdvancingTimer {
     return cancellationHandle;
   }
 
+  private void cancel(TimerWheel.Timer<TimerTask> timer) {
+    lock.lock();
+    try {
+      if (tasks.cancel(timer)) {
+        log.trace("Canceled task: {}", timer.getValue().getTaskInfo());
+        condition.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
   /**
    * @return Supplier that returns time in milliseconds when called.
    */
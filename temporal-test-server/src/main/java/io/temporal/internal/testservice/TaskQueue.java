@@ -1,68 +1,43 @@
 package io.temporal.internal.testservice;
 
-import com.google.common.base.Preconditions;
 import io.temporal.api.common.v1.Priority;
-import java.util.Comparator;
-import java.util.LinkedList;
-import java.util.PriorityQueue;
-import java.util.concurrent.CancellationException;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import javax.annotation.Nonnull;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.Nullable;
 
 /**
- * A specialized unbounded queue that requires blocking poll operations to happen through a Future
- * so that they can be cancelled (i.e. cancelling the future breaks out of the poll via a
- * j.u.c.CancellationException).
+ * A specialized unbounded multi-priority queue with asynchronous polls. A poll returns a future
+ * that is completed with an element as soon as one is available, no thread has to wait for it.
+ * Cancelling the future removes the poll from the queue.
+ *
+ * <p>Elements are dispatched in the order of their priority key, the lowest first, and in the order
+ * they were added within the same priority key. The queue doesn't lock: adders and pollers publish
+ * into the backlog or the waiters and then match the waiters with the backlog elements until one of
+ * them is empty. A matcher that took a waiter but found no element puts the waiter back at the head,
+ * so the oldest poll keeps its place, and checks again, so an element added concurrently is never
+ * left in the backlog while a poll waits.
  *
  * @param <E>
  */
 class TaskQueue<E> {
-  private static class TaskQueueElement<E> {
-    private final E value;
-    private final Priority priority;
-
-    TaskQueueElement(E value, Priority priority) {
-      this.value = value;
-      // TODO(Quinn): make this configurable
-      this.priority =
-          priority == Priority.getDefaultInstance()
-              ? Priority.newBuilder().setPriorityKey(3).build()
-              : priority;
-    }
-
-    TaskQueueElement(E value) {
-      this.value = value;
-      this.priority = Priority.newBuilder().setPriorityKey(3).build();
-    }
-
-    public E getValue() {
-      return value;
-    }
-
-    public Priority getPriority() {
-      return priority;
-    }
-  }
+  // TODO(Quinn): make this configurable
+  private static final int DEFAULT_PRIORITY_KEY = 3;
 
-  private final PriorityQueue<TaskQueueElement<E>> backlog =
-      new PriorityQueue<>(Comparator.comparingInt(o -> o.getPriority().getPriorityKey()));
-  private final LinkedList<PollFuture> waiters = new LinkedList<>();
+  private final ConcurrentNavigableMap<Integer, ConcurrentLinkedDeque<E>> backlog =
+      new ConcurrentSkipListMap<>();
+  private final ConcurrentLinkedDeque<PollFuture> waiters = new ConcurrentLinkedDeque<>();
 
   /**
    * Adds the provided element to the queue at the default priority.
    *
    * @param element the value to add
    */
-  synchronized void add(E element) {
-    for (PollFuture future = waiters.poll(); future != null; future = waiters.pop()) {
-      if (future.set(element)) {
-        return;
-      }
-    }
-    backlog.add(new TaskQueueElement(element));
+  void add(E element) {
+    add(element, Priority.getDefaultInstance());
   }
 
   /**
@@ -71,102 +46,79 @@ class TaskQueue<E> {
    * @param element the value to add
    * @param priority the priority of the element
    */
-  synchronized void add(E element, Priority priority) {
-    for (PollFuture future = waiters.poll(); future != null; future = waiters.pop()) {
-      if (future.set(element)) {
-        return;
-      }
-    }
-    backlog.add(new TaskQueueElement(element, priority));
+  void add(E element, Priority priority) {
+    int priorityKey =
+        priority.getPriorityKey() == 0 ? DEFAULT_PRIORITY_KEY : priority.getPriorityKey();
+    backlog.computeIfAbsent(priorityKey, k -> new ConcurrentLinkedDeque<>()).addLast(element);
+    dispatch();
   }
 
   /**
-   * Creates a new j.u.c.Future whose get() method will eventually return a value from the head of
-   * this queue. Note that failing to call get() on the returned Future can result in missed queue
-   * updates.
+   * Creates a new future which is completed with a value from the head of this queue. The future
+   * has to be cancelled if the value isn't needed anymore, otherwise the value is lost.
    *
-   * @return a Future providing one-shot access to the head of this queue.
+   * @return a future providing one-shot access to the head of this queue.
    */
-  synchronized Future<E> poll() {
-    final PollFuture future = new PollFuture();
-    E element;
-    synchronized (this) {
-      if (backlog.isEmpty()) {
-        waiters.push(future);
-        return future;
-      }
-      element = backlog.poll().getValue();
-    }
-    future.set(element);
+  CompletableFuture<E> poll() {
+    PollFuture future = new PollFuture();
+    waiters.addLast(future);
+    dispatch();
     return future;
   }
 
-  /**
-   * A Future implementation specifically for consuming from the enclosing TaskQueue type. The get
-   * method on this class blocks until a value is available from the queue but unlike
-   * BlockingQueue#take, a blocked consumer can be "interrupted" without the use of thread
-   * interruption by calling #cancel() on this Future.
-   */
-  private class PollFuture implements Future<E> {
-    boolean cancelled = false;
-    E value;
-
-    private synchronized boolean set(E element) {
-      Preconditions.checkState(value == null);
-      if (cancelled) {
-        return false;
+  private void dispatch() {
+    while (!waiters.isEmpty() && hasBacklog()) {
+      PollFuture waiter = waiters.pollFirst();
+      if (waiter == null) {
+        return;
       }
-      value = element;
-      notifyAll();
-      return true;
-    }
-
-    @Override
-    public boolean cancel(boolean ignored) {
-      synchronized (TaskQueue.this) {
-        TaskQueue.this.waiters.remove(this);
+      if (waiter.isDone()) {
+        // cancelled
+        continue;
       }
-      synchronized (this) {
-        if (value != null) {
-          return false;
-        }
-        cancelled = true;
-        notifyAll();
-        return true;
+      Map.Entry<Integer, E> element = pollBacklog();
+      if (element == null) {
+        // taken by a concurrent dispatch, the waiter keeps its place at the head and the loop
+        // condition checks again after putting it back
+        waiters.addFirst(waiter);
+        continue;
+      }
+      if (!waiter.complete(element.getValue())) {
+        // cancelled concurrently, the element keeps its place
+        backlog.get(element.getKey()).addFirst(element.getValue());
       }
     }
+  }
 
-    @Override
-    public synchronized boolean isCancelled() {
-      return cancelled;
-    }
-
-    @Override
-    public synchronized boolean isDone() {
-      return value != null;
+  private boolean hasBacklog() {
+    for (ConcurrentLinkedDeque<E> elements : backlog.values()) {
+      if (!elements.isEmpty()) {
+        return true;
+      }
     }
+    return false;
+  }
 
-    @Override
-    public synchronized E get() throws InterruptedException, ExecutionException {
-      while (value == null && !cancelled) {
-        this.wait();
-      }
-      if (cancelled) {
-        throw new CancellationException();
+  @Nullable
+  private Map.Entry<Integer, E> pollBacklog() {
+    for (Map.Entry<Integer, ConcurrentLinkedDeque<E>> elements : backlog.entrySet()) {
+      E element = elements.getValue().pollFirst();
+      if (element != null) {
+        return new AbstractMap.SimpleImmutableEntry<>(elements.getKey(), element);
       }
-      return value;
     }
+    return null;
+  }
 
+  /** Removes itself from the waiters when cancelled. */
+  private class PollFuture extends CompletableFuture<E> {
     @Override
-    public synchronized E get(long timeout, @Nonnull TimeUnit unit)
-        throws InterruptedException, ExecutionException, TimeoutException {
-      while (value == null && !cancelled) {
-        unit.timedWait(this, timeout);
-      }
-      if (cancelled) {
-        throw new CancellationException();
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean result = super.cancel(mayInterruptIfRunning);
+      if (result) {
+        waiters.remove(this);
       }
-      return value;
+      return result;
     }
   }
 }
@@ -2,10 +2,12 @@ package io.temporal.internal.testservice;
 
 import io.grpc.BindableService;
 import java.io.Closeable;
+import java.nio.file.Path;
 import java.time.Clock;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import javax.annotation.Nullable;
 
 public class TestServicesStarter implements Closeable {
   private final SelfAdvancingTimerImpl selfAdvancingTimer;
@@ -24,9 +26,26 @@ public class TestServicesStarter implements Closeable {
    *     System#currentTimeMillis()} will be used if 0.
    */
   public TestServicesStarter(boolean lockTimeSkipping, long initialTimeMillis) {
+    this(lockTimeSkipping, initialTimeMillis, null);
+  }
+
+  /**
+   * @param lockTimeSkipping true if the time skipping should be locked (disabled) by default after
+   *     creation of the server
+   * @param initialTimeMillis initial timestamp for the test server, {@link
+   *     System#currentTimeMillis()} will be used if 0.
+   * @param historyDirectory directory to persist the workflow histories to, the histories are kept
+   *     in memory only if null
+   */
+  public TestServicesStarter(
+      boolean lockTimeSkipping, long initialTimeMillis, @Nullable Path historyDirectory) {
     this.selfAdvancingTimer =
         new SelfAdvancingTimerImpl(initialTimeMillis, Clock.systemDefaultZone());
-    this.workflowStore = new TestWorkflowStoreImpl(this.selfAdvancingTimer);
+    this.workflowStore =
+        historyDirectory == null
+            ? new TestWorkflowStoreImpl(this.selfAdvancingTimer)
+            : new TestWorkflowStoreImpl(
+                this.selfAdvancingTimer, historyDirectory, this.visibilityStore);
     this.operatorService = new TestOperatorService(this.visibilityStore, this.nexusEndpointStore);
     this.testService =
         new TestService(this.workflowStore, this.selfAdvancingTimer, lockTimeSkipping);
@@ -2,9 +2,15 @@ package io.temporal.internal.testservice;
 
 import io.temporal.api.common.v1.SearchAttributes;
 import io.temporal.api.enums.v1.IndexedValueType;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsResponse;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
 import java.io.Closeable;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public interface TestVisibilityStore extends Closeable {
   void addSearchAttribute(String name, IndexedValueType type);
@@ -20,6 +26,27 @@ public interface TestVisibilityStore extends Closeable {
 
   void validateSearchAttributes(SearchAttributes searchAttributes);
 
+  /** Replaces the visibility record of the execution that is matched by the list queries. */
+  void upsertExecution(ExecutionId executionId, WorkflowExecutionInfo info);
+
+  /**
+   * @return visibility record of the execution, the running or the last closed run of the workflow
+   *     if the run id is empty, null if there is no record
+   */
+  @Nullable
+  WorkflowExecutionInfo getExecution(ExecutionId executionId);
+
+  /**
+   * @throws io.grpc.StatusRuntimeException INVALID_ARGUMENT if the query or the page token is
+   *     invalid
+   */
+  ListWorkflowExecutionsResponse listExecutions(ListWorkflowExecutionsRequest request);
+
+  /**
+   * @throws io.grpc.StatusRuntimeException INVALID_ARGUMENT if the query is invalid
+   */
+  CountWorkflowExecutionsResponse countExecutions(CountWorkflowExecutionsRequest request);
+
   @Override
   void close();
 }
@@ -6,12 +6,21 @@ import io.grpc.Status;
 import io.temporal.api.common.v1.Payload;
 import io.temporal.api.common.v1.SearchAttributes;
 import io.temporal.api.enums.v1.IndexedValueType;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsResponse;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
 import io.temporal.internal.common.ProtoEnumNameUtils;
 import io.temporal.internal.common.SearchAttributesUtil;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 class TestVisibilityStoreImpl implements TestVisibilityStore {
 
@@ -24,6 +33,7 @@ class TestVisibilityStoreImpl implements TestVisibilityStore {
   private static final String DEFAULT_KEY_DOUBLE = "CustomDoubleField";
   private static final String DEFAULT_KEY_BOOL = "CustomBoolField";
   private static final String TEMPORAL_CHANGE_VERSION = "TemporalChangeVersion";
+  private static final int DEFAULT_PAGE_SIZE = 1000;
 
   private final Map<String, IndexedValueType> searchAttributes =
       new ConcurrentHashMap<>(
@@ -41,6 +51,10 @@ class TestVisibilityStoreImpl implements TestVisibilityStore {
   private final Map<ExecutionId, SearchAttributes> executionSearchAttributes =
       new ConcurrentHashMap<>();
 
+  private final ReadWriteLock visibilityLock = new ReentrantReadWriteLock();
+  // guarded by visibilityLock
+  private final Map<String, VisibilityIndex> namespaces = new HashMap<>();
+
   @Override
   public void addSearchAttribute(String name, IndexedValueType type) {
     if (type == IndexedValueType.INDEXED_VALUE_TYPE_UNSPECIFIED) {
@@ -143,6 +157,75 @@ class TestVisibilityStoreImpl implements TestVisibilityStore {
     }
   }
 
+  @Override
+  public void upsertExecution(ExecutionId executionId, WorkflowExecutionInfo info) {
+    visibilityLock.writeLock().lock();
+    try {
+      namespaces
+          .computeIfAbsent(executionId.getNamespace(), n -> new VisibilityIndex())
+          .upsert(executionId, info, getRegisteredSearchAttributes());
+    } finally {
+      visibilityLock.writeLock().unlock();
+    }
+  }
+
+  @Nullable
+  @Override
+  public WorkflowExecutionInfo getExecution(ExecutionId executionId) {
+    visibilityLock.readLock().lock();
+    try {
+      VisibilityIndex index = namespaces.get(executionId.getNamespace());
+      if (index == null) {
+        return null;
+      }
+      return executionId.getExecution().getRunId().isEmpty()
+          ? index.getLatestExecution(executionId.getWorkflowId().getWorkflowId())
+          : index.getExecution(executionId);
+    } finally {
+      visibilityLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public ListWorkflowExecutionsResponse listExecutions(ListWorkflowExecutionsRequest request) {
+    VisibilityQuery query = parseQuery(request.getQuery());
+    int pageSize = request.getPageSize() > 0 ? request.getPageSize() : DEFAULT_PAGE_SIZE;
+    visibilityLock.readLock().lock();
+    try {
+      VisibilityIndex index = namespaces.get(request.getNamespace());
+      if (index == null) {
+        return ListWorkflowExecutionsResponse.getDefaultInstance();
+      }
+      return index.list(query, pageSize, request.getNextPageToken());
+    } finally {
+      visibilityLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public CountWorkflowExecutionsResponse countExecutions(CountWorkflowExecutionsRequest request) {
+    VisibilityQuery query = parseQuery(request.getQuery());
+    visibilityLock.readLock().lock();
+    try {
+      VisibilityIndex index = namespaces.get(request.getNamespace());
+      if (index == null) {
+        return CountWorkflowExecutionsResponse.getDefaultInstance();
+      }
+      return index.count(query);
+    } finally {
+      visibilityLock.readLock().unlock();
+    }
+  }
+
+  private VisibilityQuery parseQuery(String query) {
+    return VisibilityQuery.parse(
+        query,
+        name -> {
+          IndexedValueType type = VisibilityIndex.SYSTEM_ATTRIBUTES.get(name);
+          return type != null ? type : searchAttributes.get(name);
+        });
+  }
+
   @Override
   public void close() {}
 }
@@ -138,6 +138,9 @@ interface TestWorkflowMutableState {
 
   StickyExecutionAttributes getStickyExecutionAttributes();
 
+  /** Routes the next workflow tasks to the normal task queue if the run sticks to this one. */
+  void resetStickyTaskQueue(String stickyTaskQueue);
+
   Optional<TestWorkflowMutableState> getParent();
 
   @Nonnull
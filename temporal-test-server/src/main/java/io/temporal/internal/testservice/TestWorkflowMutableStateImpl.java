@@ -101,6 +101,9 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
 
   private final StartWorkflowExecutionRequest startRequest;
   private long nextEventId = 1;
+  // kept for the visibility records, so they are updated without reading the history
+  private HistoryEvent startedEvent;
+  private HistoryEvent closedEvent;
   private final Map<Long, StateMachine<ActivityTaskData>> activities = new HashMap<>();
   private final Map<String, Long> activityById = new HashMap<>();
   private final Map<Long, StateMachine<ChildWorkflowData>> childWorkflows = new HashMap<>();
@@ -345,6 +348,7 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
         // in-progress even if there is one,
         // but instead we apply them to the history immediately.
         nextEventId = ctx.commitChanges(store);
+        updateVisibility(ctx);
       } else if (concurrentWorkflowTask) {
         // if there is a concurrent workflow task in progress and the workflow wasn't terminated and
         // considered timed out,
@@ -355,6 +359,7 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
       } else {
         // if there is no concurrent workflow task in progress - apply events to the history
         nextEventId = ctx.commitChanges(store);
+        updateVisibility(ctx);
       }
 
       if (ctx.getException() != null) {
@@ -370,6 +375,35 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
     }
   }
 
+  /**
+   * Updates the visibility record of the execution if the committed events changed the attributes
+   * matched by the list queries, and lets the service retire the mutable state once it's closed.
+   */
+  private void updateVisibility(RequestContext ctx) {
+    boolean changed = false;
+    boolean closed = false;
+    for (HistoryEvent event : ctx.getCommittedEvents()) {
+      EventType eventType = event.getEventType();
+      if (eventType == EVENT_TYPE_WORKFLOW_EXECUTION_STARTED) {
+        startedEvent = event;
+        changed = true;
+      } else if (WorkflowExecutionUtils.isWorkflowExecutionClosedEvent(event)) {
+        closedEvent = event;
+        changed = true;
+        closed = true;
+      } else if (eventType == EVENT_TYPE_UPSERT_WORKFLOW_SEARCH_ATTRIBUTES
+          || eventType == EVENT_TYPE_WORKFLOW_PROPERTIES_MODIFIED) {
+        changed = true;
+      }
+    }
+    if (changed) {
+      visibilityStore.upsertExecution(executionId, getWorkflowExecutionInfoInsideLock());
+    }
+    if (closed) {
+      service.executionClosed(this);
+    }
+  }
+
   @Override
   public ExecutionId getExecutionId() {
     return executionId;
@@ -414,6 +448,19 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
     return stickyExecutionAttributes;
   }
 
+  @Override
+  public void resetStickyTaskQueue(String stickyTaskQueue) {
+    lock.lock();
+    try {
+      if (stickyExecutionAttributes != null
+          && stickyExecutionAttributes.getWorkerTaskQueue().getName().equals(stickyTaskQueue)) {
+        stickyExecutionAttributes = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
   @Override
   public Optional<TestWorkflowMutableState> getParent() {
     return parent;
@@ -3284,36 +3331,7 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
             .setDefaultWorkflowTaskTimeout(this.startRequest.getWorkflowTaskTimeout())
             .setUserMetadata(this.startRequest.getUserMetadata());
 
-    GetWorkflowExecutionHistoryRequest getRequest =
-        GetWorkflowExecutionHistoryRequest.newBuilder()
-            .setNamespace(this.startRequest.getNamespace())
-            .setExecution(this.executionId.getExecution())
-            .build();
-    List<HistoryEvent> fullHistory =
-        store
-            .getWorkflowExecutionHistory(this.executionId, getRequest, null)
-            .getHistory()
-            .getEventsList();
-
-    WorkflowExecutionInfo.Builder executionInfo = WorkflowExecutionInfo.newBuilder();
-    executionInfo
-        .setExecution(this.executionId.getExecution())
-        .setType(this.getStartRequest().getWorkflowType())
-        .setMemo(this.getCurrentMemo())
-        // No setAutoResetPoints - the test environment doesn't support that feature
-        .setSearchAttributes(visibilityStore.getSearchAttributesForExecution(executionId))
-        .setStatus(this.getWorkflowExecutionStatus())
-        .setRootExecution(this.getRoot().getExecutionId().getExecution())
-        .setHistoryLength(fullHistory.size())
-        .setTaskQueue(this.getStartRequest().getTaskQueue().getName());
-
-    populateWorkflowExecutionInfoFromHistory(executionInfo, fullHistory);
-
-    this.parent.ifPresent(
-        p ->
-            executionInfo
-                .setParentNamespaceId(p.getExecutionId().getNamespace())
-                .setParentExecution(p.getExecutionId().getExecution()));
+    WorkflowExecutionInfo executionInfo = getWorkflowExecutionInfoInsideLock();
 
     List<CallbackInfo> callbacks =
         this.completionCallbacks.stream()
@@ -3360,6 +3378,30 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
         .build();
   }
 
+  private WorkflowExecutionInfo getWorkflowExecutionInfoInsideLock() {
+    WorkflowExecutionInfo.Builder executionInfo = WorkflowExecutionInfo.newBuilder();
+    executionInfo
+        .setExecution(this.executionId.getExecution())
+        .setType(this.getStartRequest().getWorkflowType())
+        .setMemo(this.getCurrentMemo())
+        // No setAutoResetPoints - the test environment doesn't support that feature
+        .setSearchAttributes(visibilityStore.getSearchAttributesForExecution(executionId))
+        .setStatus(this.getWorkflowExecutionStatus())
+        .setRootExecution(this.getRoot().getExecutionId().getExecution())
+        // the committed history, the events buffered during a workflow task aren't added yet
+        .setHistoryLength(nextEventId - 1)
+        .setTaskQueue(this.getStartRequest().getTaskQueue().getName());
+
+    populateWorkflowExecutionInfoFromHistory(executionInfo, startedEvent, closedEvent);
+
+    this.parent.ifPresent(
+        p ->
+            executionInfo
+                .setParentNamespaceId(p.getExecutionId().getNamespace())
+                .setParentExecution(p.getExecutionId().getExecution()));
+    return executionInfo.build();
+  }
+
   private static PendingChildExecutionInfo constructPendingChildExecutionInfo(
       StateMachine<ChildWorkflowData> sm) {
     ChildWorkflowData data = sm.getData();
@@ -3547,60 +3589,37 @@ class TestWorkflowMutableStateImpl implements TestWorkflowMutableState {
         .build();
   }
 
+  /**
+   * @param startEvent null between the construction of the TestWorkflowMutableState and the
+   *     ctx.commitChanges at the end of startWorkflow, as the history is still empty then
+   * @param completionEvent null if the execution isn't closed
+   */
   private static void populateWorkflowExecutionInfoFromHistory(
-      WorkflowExecutionInfo.Builder executionInfo, List<HistoryEvent> fullHistory) {
-    getStartEvent(fullHistory)
-        .ifPresent(
-            startEvent -> {
-              Timestamp startTime = startEvent.getEventTime();
-              executionInfo.setStartTime(startEvent.getEventTime());
-
-              WorkflowExecutionStartedEventAttributes attribute =
-                  startEvent.getWorkflowExecutionStartedEventAttributes();
-              if (attribute.hasFirstWorkflowTaskBackoff()) {
-                executionInfo.setExecutionTime(
-                    Timestamps.add(
-                        startTime,
-                        startEvent
-                            .getWorkflowExecutionStartedEventAttributes()
-                            .getFirstWorkflowTaskBackoff()));
-              } else {
-                // Some (most) workflows don't have firstWorkflowTaskBackoff.
-                executionInfo.setExecutionTime(startTime);
-              }
-              executionInfo.setFirstRunId(attribute.getFirstExecutionRunId());
-
-              getCompletionEvent(fullHistory)
-                  .ifPresent(
-                      completionEvent -> {
-                        executionInfo.setExecutionDuration(
-                            Timestamps.between(startTime, completionEvent.getEventTime()));
-                        executionInfo.setCloseTime(completionEvent.getEventTime());
-                      });
-            });
-  }
-
-  // Has an analog in the golang codebase: MutableState.GetStartEvent(). This could become public
-  // if needed.
-  private static Optional<HistoryEvent> getStartEvent(List<HistoryEvent> history) {
-    if (history.size() == 0) {
-      // It's theoretically possible for the TestWorkflowMutableState to exist, but
-      // for the history to still be empty. This is the case between construction and
-      // the ctx.commitChanges at the end of startWorkflow.
-      return Optional.empty();
+      WorkflowExecutionInfo.Builder executionInfo,
+      @Nullable HistoryEvent startEvent,
+      @Nullable HistoryEvent completionEvent) {
+    if (startEvent == null) {
+      return;
     }
+    Timestamp startTime = startEvent.getEventTime();
+    executionInfo.setStartTime(startEvent.getEventTime());
 
-    HistoryEvent firstEvent = history.get(0);
-
-    // This is true today (see StateMachines.startWorkflow), even in the signalWithStartCase (signal
-    // is the _second_ event). But if it becomes untrue in the future, we'd rather fail than lie.
-    Preconditions.checkState(
-        firstEvent.getEventType() == EVENT_TYPE_WORKFLOW_EXECUTION_STARTED,
-        "The first event in a workflow's history should be %s, but was %s",
-        EVENT_TYPE_WORKFLOW_EXECUTION_STARTED.name(),
-        firstEvent.getEventType().name());
+    WorkflowExecutionStartedEventAttributes attribute =
+        startEvent.getWorkflowExecutionStartedEventAttributes();
+    if (attribute.hasFirstWorkflowTaskBackoff()) {
+      executionInfo.setExecutionTime(
+          Timestamps.add(startTime, attribute.getFirstWorkflowTaskBackoff()));
+    } else {
+      // Some (most) workflows don't have firstWorkflowTaskBackoff.
+      executionInfo.setExecutionTime(startTime);
+    }
+    executionInfo.setFirstRunId(attribute.getFirstExecutionRunId());
 
-    return Optional.of(firstEvent);
+    if (completionEvent != null) {
+      executionInfo.setExecutionDuration(
+          Timestamps.between(startTime, completionEvent.getEventTime()));
+      executionInfo.setCloseTime(completionEvent.getEventTime());
+    }
   }
 
   // Has an analog in the golang codebase: MutableState.GetCompletionEvent(). This could become
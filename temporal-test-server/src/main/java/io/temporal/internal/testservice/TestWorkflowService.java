@@ -74,11 +74,22 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
 
   private static final String FAILURE_TYPE_STRING = Failure.getDescriptor().getFullName();
 
+  /**
+   * Number of the last closed executions that keep their mutable state if the histories are
+   * written to a history directory, so they can still be queried or reset.
+   */
+  static final int CLOSED_EXECUTIONS_RETAINED = 1000;
+
   private final Map<ExecutionId, TestWorkflowMutableState> executions = new HashMap<>();
   // key->WorkflowId
   private final Map<WorkflowId, TestWorkflowMutableState> executionsByWorkflowId = new HashMap<>();
   private final Map<WorkflowChainId, TestWorkflowMutableState> executionsByFirstExecutionRunId =
       new HashMap<>();
+  // Closed executions whose mutable state is dropped from the maps above once more than
+  // CLOSED_EXECUTIONS_RETAINED executions closed after them. Only used with a history log, that
+  // serves their histories, while the visibility store serves their descriptions.
+  private final Queue<TestWorkflowMutableState> closedExecutions = new ConcurrentLinkedQueue<>();
+  private final Deque<TestWorkflowMutableState> retainedClosedExecutions = new ArrayDeque<>();
   private final ExecutorService executor = Executors.newCachedThreadPool();
   private final Lock lock = new ReentrantLock();
 
@@ -238,6 +249,62 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
     }
   }
 
+  /**
+   * @return visibility record of a closed execution without a mutable state, either restored from
+   *     the history directory of a previous run of the server or retired after it closed. The last
+   *     run of the workflow if the run id is empty.
+   */
+  private @Nullable WorkflowExecutionInfo getClosedExecution(ExecutionId executionId) {
+    WorkflowExecutionInfo info = visibilityStore.getExecution(executionId);
+    return info != null && info.getStatus() != WORKFLOW_EXECUTION_STATUS_RUNNING ? info : null;
+  }
+
+  /**
+   * Called by the mutable state of an execution when it closes, under the lock of the mutable
+   * state, so it doesn't take the service lock.
+   */
+  void executionClosed(TestWorkflowMutableState mutableState) {
+    if (store.hasHistoryLog()) {
+      closedExecutions.add(mutableState);
+    }
+  }
+
+  /**
+   * Drops the mutable state of the executions that closed before the last {@link
+   * #CLOSED_EXECUTIONS_RETAINED} closed ones. A mutable state replaced in a map by a newer run of
+   * the workflow stays there.
+   */
+  private void retireClosedExecutionsLocked() {
+    TestWorkflowMutableState closed;
+    while ((closed = closedExecutions.poll()) != null) {
+      retainedClosedExecutions.addLast(closed);
+    }
+    while (retainedClosedExecutions.size() > CLOSED_EXECUTIONS_RETAINED) {
+      TestWorkflowMutableState retired = retainedClosedExecutions.removeFirst();
+      ExecutionId executionId = retired.getExecutionId();
+      executions.remove(executionId, retired);
+      executionsByWorkflowId.remove(executionId.getWorkflowId(), retired);
+      executionsByFirstExecutionRunId.remove(
+          new WorkflowChainId(
+              executionId.getNamespace(),
+              executionId.getWorkflowId().getWorkflowId(),
+              retired.getFirstExecutionRunId()),
+          retired);
+    }
+  }
+
+  /**
+   * @return number of the executions that have a mutable state
+   */
+  int getMutableStateCount() {
+    lock.lock();
+    try {
+      return executions.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
   private TestWorkflowMutableState getMutableState(WorkflowId workflowId, boolean failNotExists) {
     lock.lock();
     try {
@@ -419,6 +486,26 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
           case WORKFLOW_ID_REUSE_POLICY_REJECT_DUPLICATE:
             return throwDuplicatedWorkflow(startRequest, existing);
         }
+      } else {
+        // the last run may be closed and have no mutable state
+        WorkflowExecutionInfo closed =
+            getClosedExecution(
+                new ExecutionId(startRequest.getNamespace(), workflowId.getWorkflowId(), ""));
+        if (closed != null) {
+          WorkflowExecutionStatus status = closed.getStatus();
+          switch (reusePolicy) {
+            case WORKFLOW_ID_REUSE_POLICY_ALLOW_DUPLICATE_FAILED_ONLY:
+              if (status == WORKFLOW_EXECUTION_STATUS_COMPLETED
+                  || status == WORKFLOW_EXECUTION_STATUS_CONTINUED_AS_NEW) {
+                return throwDuplicatedWorkflow(startRequest, closed.getExecution());
+              }
+              break;
+            case WORKFLOW_ID_REUSE_POLICY_REJECT_DUPLICATE:
+              return throwDuplicatedWorkflow(startRequest, closed.getExecution());
+            default:
+              break;
+          }
+        }
       }
 
       Optional<TestServiceRetryState> retryState;
@@ -466,7 +553,11 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
 
   private StartWorkflowExecutionResponse throwDuplicatedWorkflow(
       StartWorkflowExecutionRequest startRequest, TestWorkflowMutableState existing) {
-    WorkflowExecution execution = existing.getExecutionId().getExecution();
+    return throwDuplicatedWorkflow(startRequest, existing.getExecutionId().getExecution());
+  }
+
+  private StartWorkflowExecutionResponse throwDuplicatedWorkflow(
+      StartWorkflowExecutionRequest startRequest, WorkflowExecution execution) {
     WorkflowExecutionAlreadyStartedFailure error =
         WorkflowExecutionAlreadyStartedFailure.newBuilder()
             .setRunId(execution.getRunId())
@@ -539,6 +630,7 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
             selfAdvancingTimer);
     WorkflowExecution execution = mutableState.getExecutionId().getExecution();
     ExecutionId executionId = new ExecutionId(namespace, execution);
+    retireClosedExecutionsLocked();
     executionsByWorkflowId.put(workflowId, mutableState);
     if (!firstExecutionRunId.isEmpty()) {
       executionsByFirstExecutionRunId.put(
@@ -586,10 +678,23 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
             .wrap(
                 () -> {
                   try {
-                    TestWorkflowMutableState mutableState = getMutableState(executionId);
+                    // Histories restored from the history log of a previous run of the server
+                    // or retired after they closed have no mutable state, the store reports
+                    // them missing if they aren't there.
+                    TestWorkflowMutableState mutableState = getMutableState(executionId, false);
+                    ExecutionId historyId = executionId;
+                    if (mutableState != null) {
+                      historyId = mutableState.getExecutionId();
+                    } else {
+                      WorkflowExecutionInfo closed = getClosedExecution(executionId);
+                      if (closed != null) {
+                        historyId =
+                            new ExecutionId(executionId.getNamespace(), closed.getExecution());
+                      }
+                    }
                     responseObserver.onNext(
                         store.getWorkflowExecutionHistory(
-                            mutableState.getExecutionId(),
+                            historyId,
                             getRequest,
                             // We explicitly don't try to respond inside the context deadline.
                             // If we try to fit into the context deadline, the deadline may be not
@@ -614,66 +719,90 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
                 }));
   }
 
-  private <T> T pollTaskQueue(Context ctx, Future<T> futureValue)
-      throws ExecutionException, InterruptedException {
-    final Context.CancellationListener canceler = context -> futureValue.cancel(true);
+  /**
+   * Long polls a task queue without holding a thread while the poll waits. {@code onTask} is called
+   * on the {@link #executor} when the poll gets a task. The poll responds with {@code
+   * emptyResponse} if the long poll deadline expires or the call is cancelled first.
+   */
+  private <T, R> void pollTaskQueue(
+      CompletableFuture<T> pollFuture,
+      StreamObserver<R> responseObserver,
+      R emptyResponse,
+      Consumer<T> onTask) {
+    Context callContext = Context.current();
+    Context.CancellableContext ctx = deadlineCtx(getLongPollDeadline());
+    final Context.CancellationListener canceler = context -> pollFuture.cancel(true);
     ctx.addListener(canceler, this.backgroundScheduler);
-    try {
-      return futureValue.get();
-    } finally {
-      ctx.removeListener(canceler);
-    }
+    // The poll future is completed by the thread adding the task while it holds the locks of the
+    // store, so the task is started on another thread.
+    pollFuture.whenCompleteAsync(
+        (task, e) -> {
+          ctx.removeListener(canceler);
+          ctx.cancel(null);
+          try {
+            if (e instanceof CancellationException) {
+              responseObserver.onNext(emptyResponse);
+              responseObserver.onCompleted();
+            } else if (e != null) {
+              responseObserver.onError(e);
+            } else {
+              onTask.accept(task);
+            }
+          } catch (StatusRuntimeException ex) {
+            handleStatusRuntimeException(ex, responseObserver);
+          } catch (Throwable ex) {
+            log.error("unexpected", ex);
+            responseObserver.onError(
+                Status.INTERNAL
+                    .withDescription(ex.getMessage())
+                    .withCause(ex)
+                    .asRuntimeException());
+          }
+        },
+        callContext.fixedContextExecutor(executor));
   }
 
   @Override
   public void pollWorkflowTaskQueue(
       PollWorkflowTaskQueueRequest pollRequest,
       StreamObserver<PollWorkflowTaskQueueResponse> responseObserver) {
-    try (Context.CancellableContext ctx = deadlineCtx(getLongPollDeadline())) {
-      PollWorkflowTaskQueueResponse.Builder task;
-      try {
-        task = pollTaskQueue(ctx, store.pollWorkflowTaskQueue(pollRequest));
-      } catch (ExecutionException e) {
-        responseObserver.onError(e);
-        return;
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        responseObserver.onNext(PollWorkflowTaskQueueResponse.getDefaultInstance());
-        responseObserver.onCompleted();
-        return;
-      } catch (CancellationException e) {
-        responseObserver.onNext(PollWorkflowTaskQueueResponse.getDefaultInstance());
-        responseObserver.onCompleted();
-        return;
-      }
+    pollTaskQueue(
+        store.pollWorkflowTaskQueue(pollRequest),
+        responseObserver,
+        PollWorkflowTaskQueueResponse.getDefaultInstance(),
+        task -> startWorkflowTask(pollRequest, task, responseObserver));
+  }
 
-      ExecutionId executionId =
-          new ExecutionId(pollRequest.getNamespace(), task.getWorkflowExecution());
-      TestWorkflowMutableState mutableState = getMutableState(executionId);
-      try {
-        mutableState.startWorkflowTask(task, pollRequest);
-        // The task always has the original task queue that was created as part of the response.
-        // This may be a different task queue than the task queue it was scheduled on, as in the
-        // case of sticky execution.
-        task.setWorkflowExecutionTaskQueue(mutableState.getStartRequest().getTaskQueue());
-        PollWorkflowTaskQueueResponse response = task.build();
-        responseObserver.onNext(response);
+  private void startWorkflowTask(
+      PollWorkflowTaskQueueRequest pollRequest,
+      PollWorkflowTaskQueueResponse.Builder task,
+      StreamObserver<PollWorkflowTaskQueueResponse> responseObserver) {
+    ExecutionId executionId =
+        new ExecutionId(pollRequest.getNamespace(), task.getWorkflowExecution());
+    TestWorkflowMutableState mutableState = getMutableState(executionId);
+    try {
+      mutableState.startWorkflowTask(task, pollRequest);
+      // The task always has the original task queue that was created as part of the response.
+      // This may be a different task queue than the task queue it was scheduled on, as in the
+      // case of sticky execution.
+      task.setWorkflowExecutionTaskQueue(mutableState.getStartRequest().getTaskQueue());
+      PollWorkflowTaskQueueResponse response = task.build();
+      responseObserver.onNext(response);
+      responseObserver.onCompleted();
+    } catch (StatusRuntimeException e) {
+      if (e.getStatus().getCode() == Status.Code.NOT_FOUND) {
+        if (log.isDebugEnabled()) {
+          log.debug("Skipping outdated workflow task for " + executionId, e);
+        }
+        // The real service doesn't return this call on outdated task.
+        // For simplicity, we return an empty result here.
+        responseObserver.onNext(PollWorkflowTaskQueueResponse.getDefaultInstance());
         responseObserver.onCompleted();
-      } catch (StatusRuntimeException e) {
-        if (e.getStatus().getCode() == Status.Code.NOT_FOUND) {
-          if (log.isDebugEnabled()) {
-            log.debug("Skipping outdated workflow task for " + executionId, e);
-          }
-          // The real service doesn't return this call on outdated task.
-          // For simplicity, we return an empty result here.
-          responseObserver.onNext(PollWorkflowTaskQueueResponse.getDefaultInstance());
-          responseObserver.onCompleted();
-        } else {
-          if (e.getStatus().getCode() == Status.Code.INTERNAL) {
-            log.error("unexpected", e);
-          }
-          responseObserver.onError(e);
+      } else {
+        if (e.getStatus().getCode() == Status.Code.INTERNAL) {
+          log.error("unexpected", e);
         }
+        responseObserver.onError(e);
       }
     }
   }
@@ -741,45 +870,36 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
   public void pollActivityTaskQueue(
       PollActivityTaskQueueRequest pollRequest,
       StreamObserver<PollActivityTaskQueueResponse> responseObserver) {
-    try (Context.CancellableContext ctx = deadlineCtx(getLongPollDeadline())) {
+    pollTaskQueue(
+        store.pollActivityTaskQueue(pollRequest),
+        responseObserver,
+        PollActivityTaskQueueResponse.getDefaultInstance(),
+        task -> startActivityTask(pollRequest, task, responseObserver));
+  }
 
-      PollActivityTaskQueueResponse.Builder task;
-      try {
-        task = pollTaskQueue(ctx, store.pollActivityTaskQueue(pollRequest));
-      } catch (ExecutionException e) {
-        responseObserver.onError(e);
-        return;
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        responseObserver.onNext(PollActivityTaskQueueResponse.getDefaultInstance());
-        responseObserver.onCompleted();
-        return;
-      } catch (CancellationException e) {
+  private void startActivityTask(
+      PollActivityTaskQueueRequest pollRequest,
+      PollActivityTaskQueueResponse.Builder task,
+      StreamObserver<PollActivityTaskQueueResponse> responseObserver) {
+    ExecutionId executionId =
+        new ExecutionId(pollRequest.getNamespace(), task.getWorkflowExecution());
+    TestWorkflowMutableState mutableState = getMutableState(executionId);
+    try {
+      mutableState.startActivityTask(task, pollRequest);
+      responseObserver.onNext(task.build());
+      responseObserver.onCompleted();
+    } catch (StatusRuntimeException e) {
+      if (e.getStatus().getCode() == Status.Code.NOT_FOUND) {
+        if (log.isDebugEnabled()) {
+          log.debug("Skipping outdated activity task for " + executionId, e);
+        }
         responseObserver.onNext(PollActivityTaskQueueResponse.getDefaultInstance());
         responseObserver.onCompleted();
-        return;
-      }
-
-      ExecutionId executionId =
-          new ExecutionId(pollRequest.getNamespace(), task.getWorkflowExecution());
-      TestWorkflowMutableState mutableState = getMutableState(executionId);
-      try {
-        mutableState.startActivityTask(task, pollRequest);
-        responseObserver.onNext(task.build());
-        responseObserver.onCompleted();
-      } catch (StatusRuntimeException e) {
-        if (e.getStatus().getCode() == Status.Code.NOT_FOUND) {
-          if (log.isDebugEnabled()) {
-            log.debug("Skipping outdated activity task for " + executionId, e);
-          }
-          responseObserver.onNext(PollActivityTaskQueueResponse.getDefaultInstance());
-          responseObserver.onCompleted();
-        } else {
-          if (e.getStatus().getCode() == Status.Code.INTERNAL) {
-            log.error("unexpected", e);
-          }
-          responseObserver.onError(e);
+      } else {
+        if (e.getStatus().getCode() == Status.Code.INTERNAL) {
+          log.error("unexpected", e);
         }
+        responseObserver.onError(e);
       }
     }
   }
@@ -937,82 +1057,74 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
   public void pollNexusTaskQueue(
       PollNexusTaskQueueRequest request,
       StreamObserver<PollNexusTaskQueueResponse> responseObserver) {
-    try (Context.CancellableContext ctx = deadlineCtx(getLongPollDeadline())) {
-      TestWorkflowStore.NexusTask task;
-      try {
-        task = pollTaskQueue(ctx, store.pollNexusTaskQueue(request));
-      } catch (ExecutionException e) {
-        responseObserver.onError(e);
-        return;
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
-        responseObserver.onNext(PollNexusTaskQueueResponse.getDefaultInstance());
-        responseObserver.onCompleted();
-        return;
-      } catch (CancellationException e) {
-        responseObserver.onNext(PollNexusTaskQueueResponse.getDefaultInstance());
-        responseObserver.onCompleted();
-        return;
-      }
-
-      String taskTimeout =
-          String.valueOf(Timestamps.between(store.currentTime(), task.getDeadline()).getSeconds());
-      Request.Builder req =
-          task.getTask()
-              .getRequestBuilder()
-              .putHeader(Header.REQUEST_TIMEOUT.toLowerCase(), taskTimeout + "s");
-
-      // Calculate and set OPERATION_TIMEOUT header if not already present and operation has
-      // timeouts
-      if (req.hasStartOperation()
-          && !req.getHeaderMap().containsKey(Header.OPERATION_TIMEOUT.toLowerCase())) {
-        NexusTaskToken token = NexusTaskToken.fromBytes(task.getTask().getTaskToken());
-        TestWorkflowMutableState mutableState =
-            getMutableState(token.getOperationRef().getExecutionId());
-        long scheduledEventId = token.getOperationRef().getScheduledEventId();
-        NexusOperationScheduledEventAttributes scheduledEvent =
-            mutableState.getNexusOperationScheduledEventAttributes(scheduledEventId);
-        boolean isStarted = mutableState.isNexusOperationStarted(scheduledEventId);
-
-        Timestamp scheduledTime = req.getScheduledTime();
-        Timestamp currentTime = store.currentTime();
-        long elapsedMillis =
-            com.google.protobuf.util.Durations.toMillis(
-                Timestamps.between(scheduledTime, currentTime));
-
-        // Calculate minimum of all applicable timeouts
-        Long remainingMillis = null;
+    pollTaskQueue(
+        store.pollNexusTaskQueue(request),
+        responseObserver,
+        PollNexusTaskQueueResponse.getDefaultInstance(),
+        task -> startNexusTask(request, task, responseObserver));
+  }
 
-        if (scheduledEvent.hasStartToCloseTimeout()) {
-          long startToCloseMillis =
-              com.google.protobuf.util.Durations.toMillis(scheduledEvent.getStartToCloseTimeout());
-          if (startToCloseMillis > 0) {
-            remainingMillis = startToCloseMillis;
-          }
+  private void startNexusTask(
+      PollNexusTaskQueueRequest request,
+      TestWorkflowStore.NexusTask task,
+      StreamObserver<PollNexusTaskQueueResponse> responseObserver) {
+    String taskTimeout =
+        String.valueOf(Timestamps.between(store.currentTime(), task.getDeadline()).getSeconds());
+    Request.Builder req =
+        task.getTask()
+            .getRequestBuilder()
+            .putHeader(Header.REQUEST_TIMEOUT.toLowerCase(), taskTimeout + "s");
+
+    // Calculate and set OPERATION_TIMEOUT header if not already present and operation has
+    // timeouts
+    if (req.hasStartOperation()
+        && !req.getHeaderMap().containsKey(Header.OPERATION_TIMEOUT.toLowerCase())) {
+      NexusTaskToken token = NexusTaskToken.fromBytes(task.getTask().getTaskToken());
+      TestWorkflowMutableState mutableState =
+          getMutableState(token.getOperationRef().getExecutionId());
+      long scheduledEventId = token.getOperationRef().getScheduledEventId();
+      NexusOperationScheduledEventAttributes scheduledEvent =
+          mutableState.getNexusOperationScheduledEventAttributes(scheduledEventId);
+      boolean isStarted = mutableState.isNexusOperationStarted(scheduledEventId);
+
+      Timestamp scheduledTime = req.getScheduledTime();
+      Timestamp currentTime = store.currentTime();
+      long elapsedMillis =
+          com.google.protobuf.util.Durations.toMillis(
+              Timestamps.between(scheduledTime, currentTime));
+
+      // Calculate minimum of all applicable timeouts
+      Long remainingMillis = null;
+
+      if (scheduledEvent.hasStartToCloseTimeout()) {
+        long startToCloseMillis =
+            com.google.protobuf.util.Durations.toMillis(scheduledEvent.getStartToCloseTimeout());
+        if (startToCloseMillis > 0) {
+          remainingMillis = startToCloseMillis;
         }
-        if (scheduledEvent.hasScheduleToCloseTimeout()) {
-          long scheduleToCloseMillis =
-              com.google.protobuf.util.Durations.toMillis(
-                  scheduledEvent.getScheduleToCloseTimeout());
-          if (scheduleToCloseMillis > 0) {
-            // Ensure the value is positive.
-            long remaining = Math.max(1, scheduleToCloseMillis - elapsedMillis);
-            remainingMillis =
-                (remainingMillis == null) ? remaining : Math.min(remainingMillis, remaining);
-          }
+      }
+      if (scheduledEvent.hasScheduleToCloseTimeout()) {
+        long scheduleToCloseMillis =
+            com.google.protobuf.util.Durations.toMillis(
+                scheduledEvent.getScheduleToCloseTimeout());
+        if (scheduleToCloseMillis > 0) {
+          // Ensure the value is positive.
+          long remaining = Math.max(1, scheduleToCloseMillis - elapsedMillis);
+          remainingMillis =
+              (remainingMillis == null) ? remaining : Math.min(remainingMillis, remaining);
         }
+      }
 
-        if (remainingMillis != null && remainingMillis > 0) {
-          req.putHeader(
-              Header.OPERATION_TIMEOUT.toLowerCase(), Long.toString(remainingMillis) + "ms");
-        }
+      if (remainingMillis != null && remainingMillis > 0) {
+        req.putHeader(
+            Header.OPERATION_TIMEOUT.toLowerCase(), Long.toString(remainingMillis) + "ms");
       }
+    }
 
-      PollNexusTaskQueueResponse.Builder resp = task.getTask().setRequest(req);
+    PollNexusTaskQueueResponse.Builder resp = task.getTask().setRequest(req);
 
-      responseObserver.onNext(resp.build());
-      responseObserver.onCompleted();
-    }
+    responseObserver.onNext(resp.build());
+    responseObserver.onCompleted();
   }
 
   private static Failure wrapNexusOperationFailure(Failure cause) {
@@ -1297,6 +1409,37 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
     mutableState.terminateWorkflowExecution(request);
   }
 
+  /**
+   * Like the real service, sends the next workflow tasks of the runs sticking to the task queue of
+   * the stopped worker to their normal task queues. Tasks already queued to the sticky task queue
+   * stay there.
+   */
+  @Override
+  public void shutdownWorker(
+      ShutdownWorkerRequest request, StreamObserver<ShutdownWorkerResponse> responseObserver) {
+    try {
+      if (!request.getStickyTaskQueue().isEmpty()) {
+        List<TestWorkflowMutableState> mutableStates;
+        lock.lock();
+        try {
+          mutableStates = new ArrayList<>(executions.values());
+        } finally {
+          lock.unlock();
+        }
+        for (TestWorkflowMutableState mutableState : mutableStates) {
+          if (mutableState.getExecutionId().getNamespace().equals(request.getNamespace())
+              && !mutableState.isTerminalState()) {
+            mutableState.resetStickyTaskQueue(request.getStickyTaskQueue());
+          }
+        }
+      }
+      responseObserver.onNext(ShutdownWorkerResponse.getDefaultInstance());
+      responseObserver.onCompleted();
+    } catch (StatusRuntimeException e) {
+      handleStatusRuntimeException(e, responseObserver);
+    }
+  }
+
   @Override
   public void signalWorkflowExecution(
       SignalWorkflowExecutionRequest signalRequest,
@@ -1820,6 +1963,30 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
     }
   }
 
+  @Override
+  public void listWorkflowExecutions(
+      ListWorkflowExecutionsRequest request,
+      StreamObserver<ListWorkflowExecutionsResponse> responseObserver) {
+    try {
+      responseObserver.onNext(visibilityStore.listExecutions(request));
+      responseObserver.onCompleted();
+    } catch (StatusRuntimeException e) {
+      handleStatusRuntimeException(e, responseObserver);
+    }
+  }
+
+  @Override
+  public void countWorkflowExecutions(
+      CountWorkflowExecutionsRequest request,
+      StreamObserver<CountWorkflowExecutionsResponse> responseObserver) {
+    try {
+      responseObserver.onNext(visibilityStore.countExecutions(request));
+      responseObserver.onCompleted();
+    } catch (StatusRuntimeException e) {
+      handleStatusRuntimeException(e, responseObserver);
+    }
+  }
+
   @Override
   public void respondQueryTaskCompleted(
       RespondQueryTaskCompletedRequest completeRequest,
@@ -1867,8 +2034,16 @@ public final class TestWorkflowService extends WorkflowServiceGrpc.WorkflowServi
       }
 
       ExecutionId executionId = new ExecutionId(request.getNamespace(), request.getExecution());
-      TestWorkflowMutableState mutableState = getMutableState(executionId);
-      DescribeWorkflowExecutionResponse result = mutableState.describeWorkflowExecution();
+      // executions restored from the history directory of a previous run or retired after they
+      // closed have no mutable state
+      WorkflowExecutionInfo closed =
+          getMutableState(executionId, false) == null ? getClosedExecution(executionId) : null;
+      DescribeWorkflowExecutionResponse result =
+          closed != null
+              ? DescribeWorkflowExecutionResponse.newBuilder()
+                  .setWorkflowExecutionInfo(closed)
+                  .build()
+              : getMutableState(executionId).describeWorkflowExecution();
       responseObserver.onNext(result);
       responseObserver.onCompleted();
     } catch (StatusRuntimeException e) {
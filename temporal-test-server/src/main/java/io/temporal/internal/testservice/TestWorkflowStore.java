@@ -9,7 +9,7 @@ import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 
 interface TestWorkflowStore {
 
@@ -154,16 +154,16 @@ interface TestWorkflowStore {
   /**
    * @return empty if this store is closed or thread interrupted
    */
-  Future<PollWorkflowTaskQueueResponse.Builder> pollWorkflowTaskQueue(
+  CompletableFuture<PollWorkflowTaskQueueResponse.Builder> pollWorkflowTaskQueue(
       PollWorkflowTaskQueueRequest pollRequest);
 
   /**
    * @return empty if this store is closed or thread interrupted
    */
-  Future<PollActivityTaskQueueResponse.Builder> pollActivityTaskQueue(
+  CompletableFuture<PollActivityTaskQueueResponse.Builder> pollActivityTaskQueue(
       PollActivityTaskQueueRequest pollRequest);
 
-  Future<NexusTask> pollNexusTaskQueue(PollNexusTaskQueueRequest pollRequest);
+  CompletableFuture<NexusTask> pollNexusTaskQueue(PollNexusTaskQueueRequest pollRequest);
 
   void sendQueryTask(
       ExecutionId executionId,
@@ -180,5 +180,11 @@ interface TestWorkflowStore {
 
   List<WorkflowExecutionInfo> listWorkflows(WorkflowState state, Optional<String> workflowId);
 
+  /**
+   * @return true if the histories are written to a history directory, the histories of closed
+   *     executions are read back from it then and don't need their mutable state
+   */
+  boolean hasHistoryLog();
+
   void close();
 }
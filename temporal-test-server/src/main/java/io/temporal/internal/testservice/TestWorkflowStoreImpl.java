@@ -6,13 +6,18 @@ import com.google.protobuf.Timestamp;
 import com.google.protobuf.util.Timestamps;
 import io.grpc.Deadline;
 import io.grpc.Status;
+import io.temporal.api.common.v1.Memo;
+import io.temporal.api.common.v1.Payload;
 import io.temporal.api.common.v1.Priority;
 import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.common.v1.WorkflowType;
 import io.temporal.api.enums.v1.EventType;
 import io.temporal.api.enums.v1.HistoryEventFilterType;
 import io.temporal.api.enums.v1.WorkflowExecutionStatus;
 import io.temporal.api.history.v1.History;
 import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
+import io.temporal.api.history.v1.WorkflowExecutionTerminatedEventAttributes;
 import io.temporal.api.taskqueue.v1.StickyExecutionAttributes;
 import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
 import io.temporal.api.workflowservice.v1.*;
@@ -21,65 +26,118 @@ import io.temporal.failure.ApplicationFailure;
 import io.temporal.internal.common.WorkflowExecutionUtils;
 import io.temporal.internal.testservice.RequestContext.Timer;
 import io.temporal.workflow.Functions;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * In-memory store of the test server.
+ *
+ * <p>There is no store wide lock. Each history is guarded by its own lock, so requests to different
+ * executions don't contend with each other, and task queues are synchronized internally and looked
+ * up in concurrent maps. The time skipping locks are guarded by the {@link SelfAdvancingTimer}.
+ *
+ * <p>If the store is created with a history directory, the histories are also appended to a {@link
+ * HistoryEventLog} in that directory. Completed histories are evicted from the heap and read back
+ * from the log when requested, and the histories written before a restart of the server are
+ * restored from the log. The mutable state of the executions isn't persisted, so the executions
+ * left open by the previous run of the server are terminated when they are restored.
+ */
 class TestWorkflowStoreImpl implements TestWorkflowStore {
 
   private static final Logger log = LoggerFactory.getLogger(TestWorkflowStoreImpl.class);
 
-  private final Lock lock = new ReentrantLock();
-  private final Map<ExecutionId, HistoryStore> histories = new HashMap<>();
-  private final Map<TaskQueueId, TaskQueue<PollActivityTaskQueueResponse.Builder>>
-      activityTaskQueues = new HashMap<>();
-  private final Map<TaskQueueId, TaskQueue<PollWorkflowTaskQueueResponse.Builder>>
-      workflowTaskQueues = new HashMap<>();
-  private final Map<TaskQueueId, TaskQueue<NexusTask>> nexusTaskQueues = new HashMap<>();
+  static final String RESTART_TERMINATION_REASON = "Test server restarted";
+
+  private final ConcurrentMap<ExecutionId, HistoryStore> histories = new ConcurrentHashMap<>();
+  private final ConcurrentMap<TaskQueueId, TaskQueue<PollActivityTaskQueueResponse.Builder>>
+      activityTaskQueues = new ConcurrentHashMap<>();
+  private final ConcurrentMap<TaskQueueId, TaskQueue<PollWorkflowTaskQueueResponse.Builder>>
+      workflowTaskQueues = new ConcurrentHashMap<>();
+  private final ConcurrentMap<TaskQueueId, TaskQueue<NexusTask>> nexusTaskQueues =
+      new ConcurrentHashMap<>();
   private final SelfAdvancingTimer selfAdvancingTimer;
+  private final @Nullable HistoryEventLog eventLog;
 
   private static class HistoryStore {
 
     private final ExecutionId id;
-    private final Lock lock;
-    private final Condition newEventsCondition;
-    private final List<HistoryEvent> history = new ArrayList<>();
+    private final @Nullable HistoryEventLog eventLog;
+    private final Lock lock = new ReentrantLock();
+    private final Condition newEventsCondition = lock.newCondition();
+    // null if the history is evicted, the events are read back from the event log then
+    private List<HistoryEvent> history = new ArrayList<>();
+    // positions of the event log records of this history
+    private long[] records = new long[0];
+    private int recordCount;
+    private int length;
+    // the listed attributes of the execution, the started and the closing events themselves aren't
+    // kept as they carry the payloads
+    private Timestamp startTime;
+    private WorkflowType workflowType;
+    private Timestamp closeTime;
+    private WorkflowExecutionStatus closeStatus;
     private boolean completed;
 
-    private HistoryStore(ExecutionId id, Lock lock) {
+    private HistoryStore(ExecutionId id, @Nullable HistoryEventLog eventLog) {
       this.id = id;
-      this.lock = lock;
-      this.newEventsCondition = lock.newCondition();
+      this.eventLog = eventLog;
     }
 
     public boolean isCompleted() {
       return completed;
     }
 
-    public List<HistoryEvent> getHistory() {
-      return history;
+    int getLengthLocked() {
+      return length;
+    }
+
+    Timestamp getStartTimeLocked() {
+      return startTime;
+    }
+
+    WorkflowType getWorkflowTypeLocked() {
+      return workflowType;
+    }
+
+    Timestamp getCloseTimeLocked() {
+      return closeTime;
+    }
+
+    WorkflowExecutionStatus getCloseStatusLocked() {
+      return closeStatus;
     }
 
     private void checkNextEventId(long nextEventId) {
-      if (nextEventId != history.size() + 1L && (nextEventId != 0 && history.size() != 0)) {
+      if (nextEventId != length + 1L && (nextEventId != 0 && length != 0)) {
         throw new IllegalStateException(
-            "NextEventId=" + nextEventId + ", historySize=" + history.size() + " for " + id);
+            "NextEventId=" + nextEventId + ", historySize=" + length + " for " + id);
       }
     }
 
     List<HistoryEvent> addAllLocked(List<HistoryEvent> events, Timestamp eventTime) {
+      if (history == null) {
+        history = new ArrayList<>(readEventsLocked());
+      }
       int currentSize = history.size();
       for (HistoryEvent event : events) {
         HistoryEvent.Builder eBuilder = event.toBuilder();
@@ -91,19 +149,86 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
         if (Timestamps.toMillis(eBuilder.getEventTime()) == 0) {
           eBuilder.setEventTime(eventTime);
         }
-        history.add(eBuilder.build());
-        completed = completed || WorkflowExecutionUtils.isWorkflowExecutionClosedEvent(eBuilder);
+        HistoryEvent added = eBuilder.build();
+        history.add(added);
+        length = history.size();
+        updateAttributesLocked(added);
+      }
+      List<HistoryEvent> newEvents = history.subList(currentSize, history.size());
+      if (eventLog != null && !newEvents.isEmpty()) {
+        try {
+          addRecord(eventLog.append(id, newEvents));
+        } catch (IOException e) {
+          throw Status.INTERNAL
+              .withDescription("Failure writing the history of " + id)
+              .withCause(e)
+              .asRuntimeException();
+        }
       }
       newEventsCondition.signalAll();
-      return history.subList(currentSize, history.size());
+      return newEvents;
+    }
+
+    /** Restores the events of a record written to the event log before a restart. */
+    void recoverLocked(long position, List<HistoryEvent> events) {
+      addRecord(position);
+      history = null;
+      length += events.size();
+      for (HistoryEvent event : events) {
+        updateAttributesLocked(event);
+      }
+    }
+
+    private void updateAttributesLocked(HistoryEvent event) {
+      if (startTime == null) {
+        startTime = event.getEventTime();
+        workflowType = event.getWorkflowExecutionStartedEventAttributes().getWorkflowType();
+      }
+      if (WorkflowExecutionUtils.isWorkflowExecutionClosedEvent(event)) {
+        completed = true;
+        closeTime = event.getEventTime();
+        closeStatus = WorkflowExecutionUtils.getCloseStatus(event);
+      }
+    }
+
+    /**
+     * Drops the events of a completed history from the heap. They are appended to the event log
+     * already and a completed history doesn't change anymore.
+     */
+    void evictIfCompletedLocked() {
+      if (completed && eventLog != null) {
+        history = null;
+      }
     }
 
     long getNextEventIdLocked() {
-      return history.size() + 1L;
+      return length + 1L;
     }
 
     List<HistoryEvent> getEventsLocked() {
-      return history;
+      return history != null ? history : readEventsLocked();
+    }
+
+    private List<HistoryEvent> readEventsLocked() {
+      List<HistoryEvent> result = new ArrayList<>(length);
+      try {
+        for (int i = 0; i < recordCount; i++) {
+          result.addAll(eventLog.read(records[i]));
+        }
+      } catch (IOException e) {
+        throw Status.INTERNAL
+            .withDescription("Failure reading the history of " + id)
+            .withCause(e)
+            .asRuntimeException();
+      }
+      return result;
+    }
+
+    private void addRecord(long position) {
+      if (recordCount == records.length) {
+        records = Arrays.copyOf(records, Math.max(4, recordCount * 2));
+      }
+      records[recordCount++] = position;
     }
 
     List<HistoryEvent> waitForNewEvents(
@@ -114,17 +239,19 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
           if (completed || getNextEventIdLocked() > expectedNextEventId) {
             if (filterType == HistoryEventFilterType.HISTORY_EVENT_FILTER_TYPE_CLOSE_EVENT) {
               if (completed) {
+                // read back from the event log if the history is evicted
                 List<HistoryEvent> result = new ArrayList<>(1);
-                result.add(history.get(history.size() - 1));
+                result.add(getEventsLocked().get(length - 1));
                 return result;
               }
               expectedNextEventId = getNextEventIdLocked();
               continue;
             }
+            List<HistoryEvent> events = getEventsLocked();
             List<HistoryEvent> result =
                 new ArrayList<>(((int) (getNextEventIdLocked() - expectedNextEventId)));
             for (int i = (int) expectedNextEventId; i < getNextEventIdLocked(); i++) {
-              result.add(history.get(i));
+              result.add(events.get(i));
             }
             return result;
           }
@@ -152,6 +279,151 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
 
   public TestWorkflowStoreImpl(SelfAdvancingTimer selfAdvancingTimer) {
     this.selfAdvancingTimer = selfAdvancingTimer;
+    this.eventLog = null;
+  }
+
+  /**
+   * @param historyDirectory directory of the event log, the histories stored in it by a previous
+   *     instance of the server are restored and the executions they left open are terminated
+   * @param visibilityStore receives the visibility records of the restored executions, they
+   *     aren't kept by the store
+   */
+  public TestWorkflowStoreImpl(
+      SelfAdvancingTimer selfAdvancingTimer,
+      Path historyDirectory,
+      TestVisibilityStore visibilityStore) {
+    this.selfAdvancingTimer = selfAdvancingTimer;
+    this.eventLog = new HistoryEventLog(historyDirectory, HistoryEventLog.DEFAULT_SEGMENT_SIZE);
+    Map<ExecutionId, WorkflowExecutionInfo.Builder> restored = new HashMap<>();
+    try {
+      eventLog.open(
+          (executionId, position, events) ->
+              recoverHistory(executionId, position, events, restored));
+    } catch (IOException e) {
+      throw new RuntimeException("Failure opening the history log in " + historyDirectory, e);
+    }
+    int terminated = 0;
+    for (Entry<ExecutionId, WorkflowExecutionInfo.Builder> entry : restored.entrySet()) {
+      HistoryStore history = histories.get(entry.getKey());
+      history.lock.lock();
+      try {
+        if (!history.isCompleted()) {
+          terminateRestoredLocked(history);
+          terminated++;
+        }
+        visibilityStore.upsertExecution(
+            entry.getKey(), closeRestoredExecution(history, entry.getValue()));
+      } finally {
+        history.lock.unlock();
+      }
+    }
+    log.info(
+        "Restored {} histories from {}, terminated {} open executions",
+        histories.size(),
+        historyDirectory,
+        terminated);
+  }
+
+  private void recoverHistory(
+      ExecutionId executionId,
+      long position,
+      List<HistoryEvent> events,
+      Map<ExecutionId, WorkflowExecutionInfo.Builder> restored) {
+    HistoryStore history =
+        histories.computeIfAbsent(executionId, id -> new HistoryStore(id, eventLog));
+    history.lock.lock();
+    try {
+      history.recoverLocked(position, events);
+    } finally {
+      history.lock.unlock();
+    }
+    WorkflowExecutionInfo.Builder info =
+        restored.computeIfAbsent(
+            executionId, id -> WorkflowExecutionInfo.newBuilder().setExecution(id.getExecution()));
+    for (HistoryEvent event : events) {
+      restoreVisibility(info, event);
+    }
+  }
+
+  /** Applies the attributes of a restored event matched by the list queries. */
+  private static void restoreVisibility(WorkflowExecutionInfo.Builder info, HistoryEvent event) {
+    switch (event.getEventType()) {
+      case EVENT_TYPE_WORKFLOW_EXECUTION_STARTED:
+        WorkflowExecutionStartedEventAttributes started =
+            event.getWorkflowExecutionStartedEventAttributes();
+        info.setType(started.getWorkflowType())
+            .setTaskQueue(started.getTaskQueue().getName())
+            .setStartTime(event.getEventTime())
+            .setExecutionTime(
+                started.hasFirstWorkflowTaskBackoff()
+                    ? Timestamps.add(event.getEventTime(), started.getFirstWorkflowTaskBackoff())
+                    : event.getEventTime())
+            .setFirstRunId(started.getFirstExecutionRunId())
+            .setMemo(started.getMemo())
+            .setSearchAttributes(started.getSearchAttributes())
+            .setRootExecution(
+                started.hasRootWorkflowExecution()
+                    ? started.getRootWorkflowExecution()
+                    : info.getExecution());
+        if (started.hasParentWorkflowExecution()) {
+          info.setParentNamespaceId(started.getParentWorkflowNamespace())
+              .setParentExecution(started.getParentWorkflowExecution());
+        }
+        break;
+      case EVENT_TYPE_UPSERT_WORKFLOW_SEARCH_ATTRIBUTES:
+        info.getSearchAttributesBuilder()
+            .putAllIndexedFields(
+                event
+                    .getUpsertWorkflowSearchAttributesEventAttributes()
+                    .getSearchAttributes()
+                    .getIndexedFieldsMap());
+        break;
+      case EVENT_TYPE_WORKFLOW_PROPERTIES_MODIFIED:
+        Map<String, Payload> memo =
+            StateUtils.mergeMemo(
+                info.getMemo().getFieldsMap(),
+                event
+                    .getWorkflowPropertiesModifiedEventAttributes()
+                    .getUpsertedMemo()
+                    .getFieldsMap());
+        info.setMemo(Memo.newBuilder().putAllFields(memo));
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Terminates an execution left open by the previous run of the server, as its mutable state is
+   * lost and nothing would ever close it.
+   */
+  private void terminateRestoredLocked(HistoryStore history) {
+    HistoryEvent terminated =
+        HistoryEvent.newBuilder()
+            .setEventType(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_TERMINATED)
+            .setWorkflowExecutionTerminatedEventAttributes(
+                WorkflowExecutionTerminatedEventAttributes.newBuilder()
+                    .setReason(RESTART_TERMINATION_REASON))
+            .build();
+    history.addAllLocked(Collections.singletonList(terminated), currentTime());
+    history.evictIfCompletedLocked();
+  }
+
+  private static WorkflowExecutionInfo closeRestoredExecution(
+      HistoryStore history, WorkflowExecutionInfo.Builder info) {
+    Timestamp closeTime = history.getCloseTimeLocked();
+    info.setStatus(history.getCloseStatusLocked())
+        .setHistoryLength(history.getLengthLocked())
+        .setCloseTime(closeTime);
+    if (info.hasStartTime()) {
+      info.setExecutionDuration(Timestamps.between(info.getStartTime(), closeTime));
+    }
+    return info.build();
+  }
+
+  @Override
+  public boolean hasHistoryLog() {
+    return eventLog != null;
   }
 
   @Override
@@ -162,24 +434,25 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
   @Override
   public long save(RequestContext ctx) {
     long result;
-    lock.lock();
-    try {
-      ExecutionId executionId = ctx.getExecutionId();
-      HistoryStore history = histories.get(executionId);
-      List<HistoryEvent> events = ctx.getEvents();
-      if (history == null) {
-        if (events.isEmpty()
-            || events.get(0).getEventType() != EventType.EVENT_TYPE_WORKFLOW_EXECUTION_STARTED) {
-          throw new IllegalStateException("No history found for " + executionId);
-        }
-        history = new HistoryStore(executionId, lock);
-        histories.put(executionId, history);
+    ExecutionId executionId = ctx.getExecutionId();
+    List<HistoryEvent> events = ctx.getEvents();
+    HistoryStore history = histories.get(executionId);
+    if (history == null) {
+      if (events.isEmpty()
+          || events.get(0).getEventType() != EventType.EVENT_TYPE_WORKFLOW_EXECUTION_STARTED) {
+        throw new IllegalStateException("No history found for " + executionId);
       }
+      history = histories.computeIfAbsent(executionId, id -> new HistoryStore(id, eventLog));
+    }
+    history.lock.lock();
+    try {
       history.checkNextEventId(ctx.getInitialEventId());
       List<HistoryEvent> newEvents = history.addAllLocked(events, ctx.currentTime());
+      // the history list keeps growing, so the view of the new events isn't kept
+      ctx.setCommittedEvents(new ArrayList<>(newEvents));
       result = history.getNextEventIdLocked();
       selfAdvancingTimer.updateLocks(ctx.getTimerLocks());
-      ctx.fireCallbacks(history.getEventsLocked().size());
+      ctx.fireCallbacks(history.getLengthLocked());
 
       TestWorkflowMutableState mutableState = ctx.getWorkflowMutableState();
       for (HistoryEvent event : newEvents) {
@@ -189,8 +462,9 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
           mutableState.attachRequestId(requestId, event.getEventType(), event.getEventId());
         }
       }
+      history.evictIfCompletedLocked();
     } finally {
-      lock.unlock();
+      history.lock.unlock();
     }
     // Push tasks to the queues out of locks
     WorkflowTask workflowTask = ctx.getWorkflowTaskForMatching();
@@ -245,12 +519,7 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
 
   @Override
   public void applyTimersAndLocks(RequestContext ctx) {
-    lock.lock();
-    try {
-      selfAdvancingTimer.updateLocks(ctx.getTimerLocks());
-    } finally {
-      lock.unlock();
-    }
+    selfAdvancingTimer.updateLocks(ctx.getTimerLocks());
 
     List<Timer> timers = ctx.getTimers();
     if (timers != null) {
@@ -271,52 +540,20 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
 
   private TaskQueue<PollActivityTaskQueueResponse.Builder> getActivityTaskQueueQueue(
       TaskQueueId taskQueueId) {
-    lock.lock();
-    try {
-      TaskQueue<PollActivityTaskQueueResponse.Builder> activityTaskQueue =
-          activityTaskQueues.get(taskQueueId);
-      if (activityTaskQueue == null) {
-        activityTaskQueue = new TaskQueue<>();
-        activityTaskQueues.put(taskQueueId, activityTaskQueue);
-      }
-      return activityTaskQueue;
-    } finally {
-      lock.unlock();
-    }
+    return activityTaskQueues.computeIfAbsent(taskQueueId, id -> new TaskQueue<>());
   }
 
   private TaskQueue<PollWorkflowTaskQueueResponse.Builder> getWorkflowTaskQueueQueue(
       TaskQueueId taskQueueId) {
-    lock.lock();
-    try {
-      TaskQueue<PollWorkflowTaskQueueResponse.Builder> workflowTaskQueue =
-          workflowTaskQueues.get(taskQueueId);
-      if (workflowTaskQueue == null) {
-        workflowTaskQueue = new TaskQueue<>();
-        workflowTaskQueues.put(taskQueueId, workflowTaskQueue);
-      }
-      return workflowTaskQueue;
-    } finally {
-      lock.unlock();
-    }
+    return workflowTaskQueues.computeIfAbsent(taskQueueId, id -> new TaskQueue<>());
   }
 
   private TaskQueue<NexusTask> getNexusTaskQueueQueue(TaskQueueId taskQueueId) {
-    lock.lock();
-    try {
-      TaskQueue<NexusTask> nexusTaskQueue = nexusTaskQueues.get(taskQueueId);
-      if (nexusTaskQueue == null) {
-        nexusTaskQueue = new TaskQueue<>();
-        nexusTaskQueues.put(taskQueueId, nexusTaskQueue);
-      }
-      return nexusTaskQueue;
-    } finally {
-      lock.unlock();
-    }
+    return nexusTaskQueues.computeIfAbsent(taskQueueId, id -> new TaskQueue<>());
   }
 
   @Override
-  public Future<PollWorkflowTaskQueueResponse.Builder> pollWorkflowTaskQueue(
+  public CompletableFuture<PollWorkflowTaskQueueResponse.Builder> pollWorkflowTaskQueue(
       PollWorkflowTaskQueueRequest pollRequest) {
     final TaskQueueId taskQueueId =
         new TaskQueueId(pollRequest.getNamespace(), pollRequest.getTaskQueue().getName());
@@ -324,7 +561,7 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
   }
 
   @Override
-  public Future<PollActivityTaskQueueResponse.Builder> pollActivityTaskQueue(
+  public CompletableFuture<PollActivityTaskQueueResponse.Builder> pollActivityTaskQueue(
       PollActivityTaskQueueRequest pollRequest) {
     final TaskQueueId taskQueueId =
         new TaskQueueId(pollRequest.getNamespace(), pollRequest.getTaskQueue().getName());
@@ -332,7 +569,8 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
   }
 
   @Override
-  public Future<NexusTask> pollNexusTaskQueue(PollNexusTaskQueueRequest pollRequest) {
+  public CompletableFuture<NexusTask> pollNexusTaskQueue(
+      PollNexusTaskQueueRequest pollRequest) {
     final TaskQueueId taskQueueId =
         new TaskQueueId(pollRequest.getNamespace(), pollRequest.getTaskQueue().getName());
     return getNexusTaskQueueQueue(taskQueueId).poll();
@@ -344,9 +582,9 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
       TaskQueueId taskQueue,
       PollWorkflowTaskQueueResponse.Builder task,
       Priority priority) {
-    lock.lock();
+    HistoryStore historyStore = getHistoryStore(executionId);
+    historyStore.lock.lock();
     try {
-      HistoryStore historyStore = getHistoryStore(executionId);
       List<HistoryEvent> events = new ArrayList<>(historyStore.getEventsLocked());
       History.Builder history = History.newBuilder();
       PeekingIterator<HistoryEvent> iterator = Iterators.peekingIterator(events.iterator());
@@ -377,7 +615,7 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
       }
       task.setHistory(history);
     } finally {
-      lock.unlock();
+      historyStore.lock.unlock();
     }
     TaskQueue<PollWorkflowTaskQueueResponse.Builder> workflowTaskQueue =
         getWorkflowTaskQueueQueue(taskQueue);
@@ -389,12 +627,11 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
       ExecutionId executionId,
       GetWorkflowExecutionHistoryRequest getRequest,
       Deadline deadlineToReturnEmptyResponse) {
-    HistoryStore history;
+    HistoryStore history = getHistoryStore(executionId);
     // Used to eliminate the race condition on waitForNewEvents
     long expectedNextEventId;
-    lock.lock();
+    history.lock.lock();
     try {
-      history = getHistoryStore(executionId);
       if (!getRequest.getWaitNewEvent()) {
         List<HistoryEvent> events = history.getEventsLocked();
         // Copy the list as it is mutable. Individual events assumed immutable.
@@ -418,7 +655,7 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
       }
       expectedNextEventId = history.getNextEventIdLocked();
     } finally {
-      lock.unlock();
+      history.lock.unlock();
     }
     List<HistoryEvent> events =
         history.waitForNewEvents(
@@ -450,21 +687,19 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
   @Override
   public void getDiagnostics(StringBuilder result) {
     result.append("Stored Workflows:\n");
-    lock.lock();
-    try {
-      {
-        for (Entry<ExecutionId, HistoryStore> entry : this.histories.entrySet()) {
-          result.append(entry.getKey());
-          result.append("\n\n");
-          result.append(
-              new WorkflowExecutionHistory(
-                      History.newBuilder().addAllEvents(entry.getValue().getEventsLocked()).build())
-                  .toProtoText(true));
-          result.append("\n");
-        }
+    for (Entry<ExecutionId, HistoryStore> entry : this.histories.entrySet()) {
+      HistoryStore historyStore = entry.getValue();
+      History history;
+      historyStore.lock.lock();
+      try {
+        history = History.newBuilder().addAllEvents(historyStore.getEventsLocked()).build();
+      } finally {
+        historyStore.lock.unlock();
       }
-    } finally {
-      lock.unlock();
+      result.append(entry.getKey());
+      result.append("\n\n");
+      result.append(new WorkflowExecutionHistory(history).toProtoText(true));
+      result.append("\n");
     }
     // Uncomment to troubleshoot time skipping issues.
     //    timerService.getDiagnostics(result);
@@ -481,37 +716,46 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
         continue;
       }
 
-      if (state == WorkflowState.OPEN) {
-        if (entry.getValue().isCompleted()) {
+      // the history is appended concurrently
+      HistoryStore historyStore = entry.getValue();
+      historyStore.lock.lock();
+      try {
+        if (historyStore.getLengthLocked() == 0) {
+          // created by a concurrent save which didn't add the started event yet
           continue;
         }
-        result.add(
-            constructWorkflowExecutionInfo(
-                entry, executionId, WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING));
-      } else {
-        if (!entry.getValue().isCompleted()) {
-          continue;
+        if (state == WorkflowState.OPEN) {
+          if (historyStore.isCompleted()) {
+            continue;
+          }
+          result.add(
+              constructWorkflowExecutionInfo(
+                  historyStore,
+                  executionId,
+                  WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING));
+        } else {
+          if (!historyStore.isCompleted()) {
+            continue;
+          }
+          result.add(
+              constructWorkflowExecutionInfo(
+                  historyStore, executionId, historyStore.getCloseStatusLocked()));
         }
-        List<HistoryEvent> history = entry.getValue().getHistory();
-        WorkflowExecutionStatus status =
-            WorkflowExecutionUtils.getCloseStatus(history.get(history.size() - 1));
-        result.add(constructWorkflowExecutionInfo(entry, executionId, status));
+      } finally {
+        historyStore.lock.unlock();
       }
     }
     return result;
   }
 
   private WorkflowExecutionInfo constructWorkflowExecutionInfo(
-      Entry<ExecutionId, HistoryStore> entry,
-      ExecutionId executionId,
-      WorkflowExecutionStatus status) {
-    List<HistoryEvent> history = entry.getValue().getHistory();
+      HistoryStore history, ExecutionId executionId, WorkflowExecutionStatus status) {
     WorkflowExecutionInfo.Builder info =
         WorkflowExecutionInfo.newBuilder()
             .setExecution(executionId.getExecution())
-            .setHistoryLength(history.size())
-            .setStartTime(history.get(0).getEventTime())
-            .setType(history.get(0).getWorkflowExecutionStartedEventAttributes().getWorkflowType());
+            .setHistoryLength(history.getLengthLocked())
+            .setStartTime(history.getStartTimeLocked())
+            .setType(history.getWorkflowTypeLocked());
     if (status != null) {
       info.setStatus(status);
     }
@@ -521,5 +765,12 @@ class TestWorkflowStoreImpl implements TestWorkflowStore {
   @Override
   public void close() {
     selfAdvancingTimer.shutdown();
+    if (eventLog != null) {
+      try {
+        eventLog.close();
+      } catch (IOException e) {
+        log.warn("Failure closing the history log", e);
+      }
+    }
   }
 }
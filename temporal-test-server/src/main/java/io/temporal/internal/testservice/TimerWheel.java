@@ -0,0 +1,249 @@
+package io.temporal.internal.testservice;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timer wheel with millisecond resolution. Not thread safe, {@link
+ * SelfAdvancingTimerImpl} guards it with its own lock.
+ *
+ * <p>The wheel has {@link #LEVELS} levels of {@link #SLOTS} slots each, a level covering {@link
+ * #SLOT_BITS} bits of the expiration time, so any 64-bit timestamp fits without an overflow list. A
+ * timer is placed at the level of the highest bit group in which its expiration time differs from
+ * the wheel time, in the slot of that group's value. Timers of the lowest level slot expire at
+ * exactly the same millisecond, timers of a higher level slot are cascaded to the lower levels when
+ * the wheel time reaches the start of the slot. Insertion and cancellation are O(1), the earliest
+ * non-empty slot is found with one bitmap lookup per level.
+ *
+ * <p>The wheel time is only advanced to the start of a slot that is being expired. It may lag
+ * behind the time passed to {@link #pollExpired(long)}, which keeps every placement valid for
+ * timers added later with an expiration time between the two.
+ *
+ * @param <T> type of the timer values
+ */
+final class TimerWheel<T> {
+
+  static final long NO_TIMERS = Long.MAX_VALUE;
+
+  private static final int SLOT_BITS = 6;
+  private static final int SLOTS = 1 << SLOT_BITS;
+  private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+  /** Handle of a scheduled timer, used to cancel it. */
+  static final class Timer<T> {
+    private final long expirationTime;
+    private final T value;
+    // Slot lists are doubly linked, the prev of the head points to the tail.
+    private Timer<T> prev;
+    private Timer<T> next;
+    private int level = -1;
+    private int slot;
+
+    private Timer(long expirationTime, T value) {
+      this.expirationTime = expirationTime;
+      this.value = value;
+    }
+
+    long getExpirationTime() {
+      return expirationTime;
+    }
+
+    T getValue() {
+      return value;
+    }
+
+    boolean isScheduled() {
+      return level >= 0;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private final Timer<T>[][] slots = new Timer[LEVELS][SLOTS];
+
+  private final long[] occupied = new long[LEVELS];
+  private long wheelTime;
+  private int size;
+  private long nextExpirationTime = NO_TIMERS;
+  private boolean nextExpirationTimeValid = true;
+
+  TimerWheel(long startTime) {
+    this.wheelTime = startTime;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Schedules a value. An expiration time in the past makes the timer expire on the next {@link
+   * #pollExpired(long)}.
+   */
+  Timer<T> add(long expirationTime, T value) {
+    Timer<T> timer = new Timer<>(expirationTime, value);
+    link(timer);
+    size++;
+    if (nextExpirationTimeValid) {
+      nextExpirationTime = Math.min(nextExpirationTime, placementTime(timer));
+    }
+    return timer;
+  }
+
+  /**
+   * @return true if the timer was cancelled, false if it already expired or was cancelled before
+   */
+  boolean cancel(Timer<T> timer) {
+    if (!timer.isScheduled()) {
+      return false;
+    }
+    unlink(timer);
+    size--;
+    if (placementTime(timer) == nextExpirationTime) {
+      nextExpirationTimeValid = false;
+    }
+    return true;
+  }
+
+  /**
+   * @return the earliest expiration time of the scheduled timers, or {@link #NO_TIMERS}. A timer
+   *     scheduled in the past reports the time the wheel is at instead of its expiration time.
+   */
+  long nextExpirationTime() {
+    if (!nextExpirationTimeValid) {
+      nextExpirationTime = computeNextExpirationTime();
+      nextExpirationTimeValid = true;
+    }
+    return nextExpirationTime;
+  }
+
+  /**
+   * Removes all the timers expiring at or before {@code now}.
+   *
+   * @return values of the expired timers ordered by their expiration time, the timers of the same
+   *     expiration time in the order they were added
+   */
+  List<T> pollExpired(long now) {
+    List<T> result = new ArrayList<>();
+    while (size > 0) {
+      int level = firstOccupiedLevel();
+      int slot = Long.numberOfTrailingZeros(occupied[level]);
+      long slotStart = slotStart(level, slot);
+      if (slotStart > now) {
+        break;
+      }
+      Timer<T> timer = slots[level][slot];
+      slots[level][slot] = null;
+      occupied[level] &= ~(1L << slot);
+      wheelTime = slotStart;
+      nextExpirationTimeValid = false;
+      while (timer != null) {
+        Timer<T> next = timer.next;
+        timer.prev = null;
+        timer.next = null;
+        timer.level = -1;
+        if (level == 0) {
+          size--;
+          result.add(timer.value);
+        } else {
+          // cascade, the timer lands on a lower level
+          link(timer);
+        }
+        timer = next;
+      }
+    }
+    if (size == 0 && now > wheelTime) {
+      wheelTime = now;
+      nextExpirationTime = NO_TIMERS;
+      nextExpirationTimeValid = true;
+    }
+    return result;
+  }
+
+  private long computeNextExpirationTime() {
+    if (size == 0) {
+      return NO_TIMERS;
+    }
+    int level = firstOccupiedLevel();
+    int slot = Long.numberOfTrailingZeros(occupied[level]);
+    if (level == 0) {
+      return slotStart(level, slot);
+    }
+    long result = NO_TIMERS;
+    for (Timer<T> timer = slots[level][slot]; timer != null; timer = timer.next) {
+      result = Math.min(result, placementTime(timer));
+    }
+    return result;
+  }
+
+  private int firstOccupiedLevel() {
+    for (int level = 0; level < LEVELS; level++) {
+      if (occupied[level] != 0) {
+        return level;
+      }
+    }
+    throw new IllegalStateException("empty wheel");
+  }
+
+  /**
+   * All the slots of a level that hold timers are at or after the wheel time value of the level, so
+   * the lowest occupied slot of the lowest occupied level holds the earliest timers.
+   */
+  private long slotStart(int level, int slot) {
+    int shift = SLOT_BITS * (level + 1);
+    long high = shift >= Long.SIZE ? 0 : wheelTime & (-1L << shift);
+    return high | ((long) slot << (SLOT_BITS * level));
+  }
+
+  private long placementTime(Timer<T> timer) {
+    return Math.max(timer.expirationTime, wheelTime);
+  }
+
+  private void link(Timer<T> timer) {
+    long time = placementTime(timer);
+    long diff = time ^ wheelTime;
+    int level = diff == 0 ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+    int slot = (int) ((time >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    timer.level = level;
+    timer.slot = slot;
+    Timer<T> head = slots[level][slot];
+    if (head == null) {
+      timer.prev = timer;
+      slots[level][slot] = timer;
+      occupied[level] |= 1L << slot;
+    } else {
+      Timer<T> tail = head.prev;
+      tail.next = timer;
+      timer.prev = tail;
+      head.prev = timer;
+    }
+  }
+
+  private void unlink(Timer<T> timer) {
+    int level = timer.level;
+    int slot = timer.slot;
+    Timer<T> head = slots[level][slot];
+    if (timer == head) {
+      Timer<T> next = timer.next;
+      if (next == null) {
+        slots[level][slot] = null;
+        occupied[level] &= ~(1L << slot);
+      } else {
+        next.prev = timer.prev;
+        slots[level][slot] = next;
+      }
+    } else {
+      timer.prev.next = timer.next;
+      if (timer.next == null) {
+        head.prev = timer.prev;
+      } else {
+        timer.next.prev = timer.prev;
+      }
+    }
+    timer.prev = null;
+    timer.next = null;
+    timer.level = -1;
+  }
+}
@@ -0,0 +1,364 @@
+package io.temporal.internal.testservice;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+import io.grpc.Status;
+import io.temporal.api.common.v1.Payload;
+import io.temporal.api.common.v1.SearchAttributes;
+import io.temporal.api.enums.v1.IndexedValueType;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsResponse;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
+import io.temporal.internal.common.SearchAttributesUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+
+/**
+ * Visibility records of the executions of a single namespace.
+ *
+ * <p>Records are kept in the order of the ListWorkflowExecutions results: running executions first,
+ * then by close time and start time, the latest first. Values of every search attribute but {@code
+ * Text} ones are indexed by a sorted map from the value to the sort keys of the executions having
+ * it, so queries with an equality or a range condition on an attribute don't test every record.
+ * Page tokens are the sort key of the last returned record, a page is read from the index sets
+ * starting after it.
+ *
+ * <p>Not thread safe, guarded by the lock of {@link TestVisibilityStoreImpl}.
+ */
+final class VisibilityIndex implements VisibilityQuery.Index<VisibilityIndex.SortKey> {
+  static final Map<String, IndexedValueType> SYSTEM_ATTRIBUTES =
+      ImmutableMap.<String, IndexedValueType>builder()
+          .put("WorkflowId", IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD)
+          .put("RunId", IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD)
+          .put("WorkflowType", IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD)
+          .put(VisibilityQuery.EXECUTION_STATUS, IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD)
+          .put("TaskQueue", IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD)
+          .put("StartTime", IndexedValueType.INDEXED_VALUE_TYPE_DATETIME)
+          .put("ExecutionTime", IndexedValueType.INDEXED_VALUE_TYPE_DATETIME)
+          .put("CloseTime", IndexedValueType.INDEXED_VALUE_TYPE_DATETIME)
+          .build();
+
+  /**
+   * Orders values of different types by the type, the values of an attribute may have different
+   * types if the attribute was removed and registered again with another type.
+   */
+  @SuppressWarnings("unchecked")
+  private static final Comparator<Object> VALUE_ORDER =
+      (o1, o2) ->
+          o1.getClass() == o2.getClass()
+              ? ((Comparable<Object>) o1).compareTo(o2)
+              : o1.getClass().getName().compareTo(o2.getClass().getName());
+
+  private final Map<ExecutionId, Record> records = new HashMap<>();
+  private final TreeMap<SortKey, Record> ordered = new TreeMap<>();
+  private final Map<String, NavigableMap<Object, NavigableSet<SortKey>>> indexes =
+      new HashMap<>();
+
+  /**
+   * @param types types of the search attributes registered at the time of the update
+   */
+  void upsert(
+      ExecutionId executionId, WorkflowExecutionInfo info, Map<String, IndexedValueType> types) {
+    Record previous = records.remove(executionId);
+    if (previous != null) {
+      ordered.remove(previous.sortKey);
+      updateIndexes(previous, false);
+    }
+    Record record = new Record(info, types);
+    records.put(executionId, record);
+    ordered.put(record.sortKey, record);
+    updateIndexes(record, true);
+  }
+
+  @Nullable
+  WorkflowExecutionInfo getExecution(ExecutionId executionId) {
+    Record record = records.get(executionId);
+    return record != null ? record.info : null;
+  }
+
+  /**
+   * @return the running execution of the workflow, the last closed one if none is running
+   */
+  @Nullable
+  WorkflowExecutionInfo getLatestExecution(String workflowId) {
+    NavigableSet<SortKey> executions =
+        indexes.getOrDefault("WorkflowId", Collections.emptyNavigableMap()).get(workflowId);
+    return executions != null ? ordered.get(executions.first()).info : null;
+  }
+
+  @Nullable
+  @Override
+  public NavigableMap<Object, NavigableSet<SortKey>> get(String attribute, IndexedValueType type) {
+    if (type == IndexedValueType.INDEXED_VALUE_TYPE_TEXT) {
+      return null;
+    }
+    return indexes.getOrDefault(attribute, Collections.emptyNavigableMap());
+  }
+
+  ListWorkflowExecutionsResponse list(
+      VisibilityQuery query, int pageSize, ByteString nextPageToken) {
+    SortKey after = nextPageToken.isEmpty() ? null : SortKey.fromToken(nextPageToken);
+    VisibilityQuery.Candidates<SortKey> candidates = query.candidates(this);
+    Iterator<Record> scanned;
+    if (candidates == null) {
+      scanned =
+          (after == null ? ordered.values() : ordered.tailMap(after, false).values()).iterator();
+    } else {
+      scanned = Iterators.transform(candidates.iterator(after), ordered::get);
+    }
+
+    ListWorkflowExecutionsResponse.Builder result = ListWorkflowExecutionsResponse.newBuilder();
+    Record last = null;
+    while (scanned.hasNext()) {
+      Record record = scanned.next();
+      if (!query.matches(record)) {
+        continue;
+      }
+      if (result.getExecutionsCount() == pageSize) {
+        // there is at least one more matching record
+        result.setNextPageToken(last.sortKey.toToken());
+        break;
+      }
+      result.addExecutions(record.info);
+      last = record;
+    }
+    return result.build();
+  }
+
+  CountWorkflowExecutionsResponse count(VisibilityQuery query) {
+    VisibilityQuery.Candidates<SortKey> candidates = query.candidates(this);
+    Iterator<Record> scanned =
+        candidates == null
+            ? records.values().iterator()
+            : Iterators.transform(candidates.iterator(null), ordered::get);
+    long count = 0;
+    Map<Object, Long> groups = new TreeMap<>(VALUE_ORDER);
+    String groupBy = query.getGroupBy();
+    while (scanned.hasNext()) {
+      Record record = scanned.next();
+      if (query.matches(record)) {
+        count++;
+        if (groupBy != null) {
+          List<Object> values = record.get(groupBy);
+          if (values != null) {
+            for (Object value : values) {
+              groups.merge(value, 1L, Long::sum);
+            }
+          }
+        }
+      }
+    }
+
+    CountWorkflowExecutionsResponse.Builder result =
+        CountWorkflowExecutionsResponse.newBuilder().setCount(count);
+    for (Map.Entry<Object, Long> group : groups.entrySet()) {
+      Payload groupValue =
+          SearchAttributesUtil.encode(Collections.singletonMap(groupBy, group.getKey()))
+              .getIndexedFieldsOrThrow(groupBy);
+      result.addGroups(
+          CountWorkflowExecutionsResponse.AggregationGroup.newBuilder()
+              .addGroupValues(groupValue)
+              .setCount(group.getValue()));
+    }
+    return result.build();
+  }
+
+  private void updateIndexes(Record record, boolean add) {
+    for (Map.Entry<String, List<Object>> attribute : record.values.entrySet()) {
+      if (record.textAttributes.contains(attribute.getKey())) {
+        continue;
+      }
+      NavigableMap<Object, NavigableSet<SortKey>> index =
+          indexes.computeIfAbsent(attribute.getKey(), k -> new TreeMap<>(VALUE_ORDER));
+      for (Object value : attribute.getValue()) {
+        if (add) {
+          index.computeIfAbsent(value, k -> new TreeSet<>()).add(record.sortKey);
+        } else {
+          NavigableSet<SortKey> executions = index.get(value);
+          if (executions != null) {
+            executions.remove(record.sortKey);
+            if (executions.isEmpty()) {
+              index.remove(value);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static Map<String, List<Object>> extractValues(
+      WorkflowExecutionInfo info, Map<String, IndexedValueType> types) {
+    Map<String, List<Object>> values = new HashMap<>();
+    values.put("WorkflowId", Collections.singletonList(info.getExecution().getWorkflowId()));
+    values.put("RunId", Collections.singletonList(info.getExecution().getRunId()));
+    values.put("WorkflowType", Collections.singletonList(info.getType().getName()));
+    values.put(
+        VisibilityQuery.EXECUTION_STATUS,
+        Collections.singletonList(VisibilityQuery.executionStatusName(info.getStatus())));
+    values.put("TaskQueue", Collections.singletonList(info.getTaskQueue()));
+    if (info.hasStartTime()) {
+      values.put("StartTime", Collections.singletonList(toInstant(info.getStartTime())));
+    }
+    if (info.hasExecutionTime()) {
+      values.put("ExecutionTime", Collections.singletonList(toInstant(info.getExecutionTime())));
+    }
+    if (info.hasCloseTime()) {
+      values.put("CloseTime", Collections.singletonList(toInstant(info.getCloseTime())));
+    }
+
+    SearchAttributes searchAttributes = info.getSearchAttributes();
+    for (String name : searchAttributes.getIndexedFieldsMap().keySet()) {
+      IndexedValueType type = types.get(name);
+      if (type == null || SYSTEM_ATTRIBUTES.containsKey(name)) {
+        continue;
+      }
+      List<?> decoded;
+      try {
+        decoded = SearchAttributesUtil.decodeAsType(searchAttributes, name, type);
+      } catch (Exception e) {
+        // validated on upsert, may fail only if the attribute was registered again with a new type
+        continue;
+      }
+      if (decoded == null) {
+        continue;
+      }
+      List<Object> attributeValues = new ArrayList<>(decoded.size());
+      for (Object value : decoded) {
+        if (value instanceof OffsetDateTime) {
+          attributeValues.add(((OffsetDateTime) value).toInstant());
+        } else if (value instanceof Comparable) {
+          attributeValues.add(value);
+        }
+      }
+      if (!attributeValues.isEmpty()) {
+        values.put(name, attributeValues);
+      }
+    }
+    return values;
+  }
+
+  private static Instant toInstant(Timestamp timestamp) {
+    return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos());
+  }
+
+  private static final class Record implements VisibilityQuery.Values {
+    final WorkflowExecutionInfo info;
+    final SortKey sortKey;
+    final Map<String, List<Object>> values;
+    final Set<String> textAttributes;
+
+    Record(WorkflowExecutionInfo info, Map<String, IndexedValueType> types) {
+      this.info = info;
+      this.values = extractValues(info, types);
+      this.sortKey =
+          new SortKey(
+              info.hasCloseTime() ? toInstant(info.getCloseTime()) : null,
+              info.hasStartTime() ? toInstant(info.getStartTime()) : Instant.EPOCH,
+              info.getExecution().getWorkflowId(),
+              info.getExecution().getRunId());
+      this.textAttributes = new HashSet<>();
+      for (String name : values.keySet()) {
+        if (!SYSTEM_ATTRIBUTES.containsKey(name)
+            && types.get(name) == IndexedValueType.INDEXED_VALUE_TYPE_TEXT) {
+          textAttributes.add(name);
+        }
+      }
+    }
+
+    @Nullable
+    @Override
+    public List<Object> get(String attribute) {
+      return values.get(attribute);
+    }
+  }
+
+  /** Running executions first, then the latest closed, the latest started. */
+  static final class SortKey implements Comparable<SortKey> {
+    // null for running executions
+    @Nullable private final Instant closeTime;
+    private final Instant startTime;
+    private final String workflowId;
+    private final String runId;
+
+    SortKey(@Nullable Instant closeTime, Instant startTime, String workflowId, String runId) {
+      this.closeTime = closeTime;
+      this.startTime = startTime;
+      this.workflowId = workflowId;
+      this.runId = runId;
+    }
+
+    @Override
+    public int compareTo(SortKey o) {
+      if (!Objects.equals(closeTime, o.closeTime)) {
+        if (closeTime == null) {
+          return -1;
+        }
+        if (o.closeTime == null) {
+          return 1;
+        }
+        return o.closeTime.compareTo(closeTime);
+      }
+      int result = o.startTime.compareTo(startTime);
+      if (result != 0) {
+        return result;
+      }
+      result = workflowId.compareTo(o.workflowId);
+      return result != 0 ? result : runId.compareTo(o.runId);
+    }
+
+    ByteString toToken() {
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeBoolean(closeTime != null);
+        if (closeTime != null) {
+          out.writeLong(closeTime.getEpochSecond());
+          out.writeInt(closeTime.getNano());
+        }
+        out.writeLong(startTime.getEpochSecond());
+        out.writeInt(startTime.getNano());
+        out.writeUTF(workflowId);
+        out.writeUTF(runId);
+        out.flush();
+        return ByteString.copyFrom(bytes.toByteArray());
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    static SortKey fromToken(ByteString token) {
+      try {
+        DataInputStream in = new DataInputStream(token.newInput());
+        Instant closeTime =
+            in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+        Instant startTime = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        return new SortKey(closeTime, startTime, in.readUTF(), in.readUTF());
+      } catch (IOException | RuntimeException e) {
+        throw Status.INVALID_ARGUMENT
+            .withDescription("Invalid next page token")
+            .asRuntimeException();
+      }
+    }
+  }
+}
@@ -0,0 +1,892 @@
+package io.temporal.internal.testservice;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import io.grpc.Status;
+import io.temporal.api.enums.v1.IndexedValueType;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.internal.common.ProtoEnumNameUtils;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * List filter of ListWorkflowExecutions and CountWorkflowExecutions requests.
+ *
+ * <p>Supports the subset of the SQL-like visibility query language of the Temporal Server that can
+ * be evaluated against an in-memory store:
+ *
+ * <pre>
+ * query     := [condition] [GROUP BY ExecutionStatus]
+ * condition := and {OR and}
+ * and       := unary {AND unary}
+ * unary     := NOT unary | '(' condition ')' | predicate
+ * predicate := name (= | != | &lt;&gt; | &lt; | &lt;= | &gt; | &gt;=) literal
+ *            | name [NOT] IN '(' literal {',' literal} ')'
+ *            | name [NOT] BETWEEN literal AND literal
+ *            | name STARTS_WITH literal
+ *            | name IS [NOT] NULL
+ * </pre>
+ *
+ * <p>Names are search attributes, optionally quoted with backticks. Literals are single or double
+ * quoted strings, numbers and {@code true}/{@code false}. Datetime literals are RFC 3339 strings.
+ * Values of a {@code Text} attribute match {@code =} if they contain all the words of the literal.
+ */
+final class VisibilityQuery {
+  static final String EXECUTION_STATUS = "ExecutionStatus";
+
+  private static final String EXECUTION_STATUS_PREFIX = "WORKFLOW_EXECUTION_STATUS_";
+
+  /** Values of the attributes of a single execution. */
+  interface Values {
+    /**
+     * @return values of the attribute, {@code null} if the execution doesn't have the attribute
+     */
+    @Nullable
+    List<Object> get(String attribute);
+  }
+
+  /**
+   * Sorted indexes of the attribute values.
+   *
+   * @param <K> keys of the executions in the order of the results
+   */
+  interface Index<K extends Comparable<K>> {
+    /**
+     * @return sorted keys of the executions by the attribute value, {@code null} if the attribute
+     *     isn't indexed
+     */
+    @Nullable
+    NavigableMap<Object, NavigableSet<K>> get(String attribute, IndexedValueType type);
+  }
+
+  /**
+   * Executions which may match a query, a union of the sets of an index. The sets aren't copied, so
+   * a page of the results is read without visiting the candidates before it.
+   */
+  static final class Candidates<K extends Comparable<K>> {
+    private final List<NavigableSet<K>> sets;
+
+    private Candidates(List<NavigableSet<K>> sets) {
+      this.sets = sets;
+    }
+
+    private static <K extends Comparable<K>> Candidates<K> of(@Nullable NavigableSet<K> set) {
+      return set == null
+          ? new Candidates<>(Collections.emptyList())
+          : new Candidates<>(Collections.singletonList(set));
+    }
+
+    private static <K extends Comparable<K>> Candidates<K> union(
+        Collection<NavigableSet<K>> sets) {
+      return new Candidates<>(new ArrayList<>(sets));
+    }
+
+    /** Upper bound of the number of the candidates, the sets may overlap. */
+    int size() {
+      int result = 0;
+      for (NavigableSet<K> set : sets) {
+        result += set.size();
+      }
+      return result;
+    }
+
+    /**
+     * @param after key to start after, {@code null} to start from the first candidate
+     * @return the candidates in ascending order, without duplicates
+     */
+    Iterator<K> iterator(@Nullable K after) {
+      List<Iterator<K>> iterators = new ArrayList<>(sets.size());
+      for (NavigableSet<K> set : sets) {
+        iterators.add((after == null ? set : set.tailSet(after, false)).iterator());
+      }
+      if (iterators.size() == 1) {
+        return iterators.get(0);
+      }
+      PeekingIterator<K> merged =
+          Iterators.peekingIterator(Iterators.mergeSorted(iterators, Comparator.naturalOrder()));
+      return new AbstractIterator<K>() {
+        @Override
+        protected K computeNext() {
+          if (!merged.hasNext()) {
+            return endOfData();
+          }
+          K next = merged.next();
+          while (merged.hasNext() && merged.peek().compareTo(next) == 0) {
+            merged.next();
+          }
+          return next;
+        }
+      };
+    }
+  }
+
+  private static final VisibilityQuery ALL = new VisibilityQuery(null, null);
+
+  @Nullable private final Node condition;
+  @Nullable private final String groupBy;
+
+  private VisibilityQuery(@Nullable Node condition, @Nullable String groupBy) {
+    this.condition = condition;
+    this.groupBy = groupBy;
+  }
+
+  /**
+   * @param query list filter, empty to match all the executions
+   * @param types types of the search attributes, returns {@code null} for unknown attributes
+   * @throws io.grpc.StatusRuntimeException INVALID_ARGUMENT if the query can't be parsed
+   */
+  static VisibilityQuery parse(String query, Function<String, IndexedValueType> types) {
+    if (query.trim().isEmpty()) {
+      return ALL;
+    }
+    return new Parser(query, types).parse();
+  }
+
+  boolean matches(Values values) {
+    return condition == null || condition.matches(values);
+  }
+
+  /**
+   * @return executions which may match the query, {@code null} if the query can't use the index and
+   *     all the executions have to be tested with {@link #matches}
+   */
+  @Nullable
+  <K extends Comparable<K>> Candidates<K> candidates(Index<K> index) {
+    return condition == null ? null : condition.candidates(index);
+  }
+
+  /**
+   * @return name of the attribute to group the count by, {@code null} if not grouped
+   */
+  @Nullable
+  String getGroupBy() {
+    return groupBy;
+  }
+
+  static String executionStatusName(WorkflowExecutionStatus status) {
+    return ProtoEnumNameUtils.uniqueToSimplifiedName(status.name(), EXECUTION_STATUS_PREFIX);
+  }
+
+  private static RuntimeException invalidQuery(String message) {
+    return Status.INVALID_ARGUMENT
+        .withDescription("invalid query: " + message)
+        .asRuntimeException();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(Object value, Object literal) {
+    return ((Comparable<Object>) value).compareTo(literal);
+  }
+
+  private abstract static class Node {
+    abstract boolean matches(Values values);
+
+    @Nullable
+    <K extends Comparable<K>> Candidates<K> candidates(Index<K> index) {
+      return null;
+    }
+  }
+
+  private static final class And extends Node {
+    private final List<Node> children;
+
+    And(List<Node> children) {
+      this.children = children;
+    }
+
+    @Override
+    boolean matches(Values values) {
+      for (Node child : children) {
+        if (!child.matches(values)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** The most selective indexed child, the rest of the children are tested by matches. */
+    @Nullable
+    @Override
+    <K extends Comparable<K>> Candidates<K> candidates(Index<K> index) {
+      Candidates<K> result = null;
+      for (Node child : children) {
+        Candidates<K> candidates = child.candidates(index);
+        if (candidates != null && (result == null || candidates.size() < result.size())) {
+          result = candidates;
+          if (result.size() == 0) {
+            break;
+          }
+        }
+      }
+      return result;
+    }
+  }
+
+  private static final class Or extends Node {
+    private final List<Node> children;
+
+    Or(List<Node> children) {
+      this.children = children;
+    }
+
+    @Override
+    boolean matches(Values values) {
+      for (Node child : children) {
+        if (child.matches(values)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Nullable
+    @Override
+    <K extends Comparable<K>> Candidates<K> candidates(Index<K> index) {
+      List<NavigableSet<K>> result = new ArrayList<>();
+      for (Node child : children) {
+        Candidates<K> candidates = child.candidates(index);
+        if (candidates == null) {
+          return null;
+        }
+        result.addAll(candidates.sets);
+      }
+      return new Candidates<>(result);
+    }
+  }
+
+  private static final class Not extends Node {
+    private final Node child;
+
+    Not(Node child) {
+      this.child = child;
+    }
+
+    @Override
+    boolean matches(Values values) {
+      return !child.matches(values);
+    }
+  }
+
+  private enum Operator {
+    EQ,
+    NE,
+    LT,
+    LE,
+    GT,
+    GE
+  }
+
+  private static final class Comparison extends Node {
+    private final String attribute;
+    private final IndexedValueType type;
+    private final Operator operator;
+    private final Object literal;
+
+    Comparison(String attribute, IndexedValueType type, Operator operator, Object literal) {
+      this.attribute = attribute;
+      this.type = type;
+      this.operator = operator;
+      this.literal = literal;
+    }
+
+    @Override
+    boolean matches(Values values) {
+      List<Object> attributeValues = values.get(attribute);
+      if (attributeValues == null) {
+        return false;
+      }
+      if (operator == Operator.NE) {
+        for (Object value : attributeValues) {
+          if (equalTo(value)) {
+            return false;
+          }
+        }
+        return true;
+      }
+      for (Object value : attributeValues) {
+        if (operator == Operator.EQ ? equalTo(value) : inRange(value)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean equalTo(Object value) {
+      if (type == IndexedValueType.INDEXED_VALUE_TYPE_TEXT && value instanceof String) {
+        return containsWords((String) value, (String) literal);
+      }
+      return value.equals(literal);
+    }
+
+    private boolean inRange(Object value) {
+      if (value.getClass() != literal.getClass()) {
+        return false;
+      }
+      int c = compare(value, literal);
+      switch (operator) {
+        case LT:
+          return c < 0;
+        case LE:
+          return c <= 0;
+        case GT:
+          return c > 0;
+        case GE:
+          return c >= 0;
+        default:
+          throw new IllegalStateException("unexpected operator " + operator);
+      }
+    }
+
+    @Nullable
+    @Override
+    <K extends Comparable<K>> Candidates<K> candidates(Index<K> index) {
+      NavigableMap<Object, NavigableSet<K>> values = index.get(attribute, type);
+      if (values == null || operator == Operator.NE) {
+        return null;
+      }
+      switch (operator) {
+        case EQ:
+          return Candidates.of(values.get(literal));
+        case LT:
+          return Candidates.union(values.headMap(literal, false).values());
+        case LE:
+          return Candidates.union(values.headMap(literal, true).values());
+        case GT:
+          return Candidates.union(values.tailMap(literal, false).values());
+        case GE:
+          return Candidates.union(values.tailMap(literal, true).values());
+        default:
+          throw new IllegalStateException("unexpected operator " + operator);
+      }
+    }
+  }
+
+  private static final class In extends Node {
+    private final String attribute;
+    private final IndexedValueType type;
+    private final List<Object> literals;
+
+    In(String attribute, IndexedValueType type, List<Object> literals) {
+      this.attribute = attribute;
+      this.type = type;
+      this.literals = literals;
+    }
+
+    @Override
+    boolean matches(Values values) {
+      List<Object> attributeValues = values.get(attribute);
+      if (attributeValues == null) {
+        return false;
+      }
+      for (Object value : attributeValues) {
+        if (literals.contains(value)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Nullable
+    @Override
+    <K extends Comparable<K>> Candidates<K> candidates(Index<K> index) {
+      NavigableMap<Object, NavigableSet<K>> values = index.get(attribute, type);
+      if (values == null) {
+        return null;
+      }
+      List<NavigableSet<K>> result = new ArrayList<>();
+      for (Object literal : literals) {
+        NavigableSet<K> executions = values.get(literal);
+        if (executions != null) {
+          result.add(executions);
+        }
+      }
+      return new Candidates<>(result);
+    }
+  }
+
+  private static final class Between extends Node {
+    private final String attribute;
+    private final IndexedValueType type;
+    private final Object from;
+    private final Object to;
+
+    Between(String attribute, IndexedValueType type, Object from, Object to) {
+      this.attribute = attribute;
+      this.type = type;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    boolean matches(Values values) {
+      List<Object> attributeValues = values.get(attribute);
+      if (attributeValues == null) {
+        return false;
+      }
+      for (Object value : attributeValues) {
+        if (value.getClass() == from.getClass()
+            && compare(value, from) >= 0
+            && compare(value, to) <= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Nullable
+    @Override
+    <K extends Comparable<K>> Candidates<K> candidates(Index<K> index) {
+      NavigableMap<Object, NavigableSet<K>> values = index.get(attribute, type);
+      if (values == null) {
+        return null;
+      }
+      if (compare(from, to) > 0) {
+        return Candidates.of(null);
+      }
+      return Candidates.union(values.subMap(from, true, to, true).values());
+    }
+  }
+
+  private static final class StartsWith extends Node {
+    private final String attribute;
+    private final IndexedValueType type;
+    private final String prefix;
+
+    StartsWith(String attribute, IndexedValueType type, String prefix) {
+      this.attribute = attribute;
+      this.type = type;
+      this.prefix = prefix;
+    }
+
+    @Override
+    boolean matches(Values values) {
+      List<Object> attributeValues = values.get(attribute);
+      if (attributeValues == null) {
+        return false;
+      }
+      for (Object value : attributeValues) {
+        if (value instanceof String && ((String) value).startsWith(prefix)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Nullable
+    @Override
+    <K extends Comparable<K>> Candidates<K> candidates(Index<K> index) {
+      NavigableMap<Object, NavigableSet<K>> values = index.get(attribute, type);
+      if (values == null) {
+        return null;
+      }
+      return Candidates.union(
+          values.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values());
+    }
+  }
+
+  private static final class IsNull extends Node {
+    private final String attribute;
+
+    IsNull(String attribute) {
+      this.attribute = attribute;
+    }
+
+    @Override
+    boolean matches(Values values) {
+      return values.get(attribute) == null;
+    }
+  }
+
+  private static boolean containsWords(String value, String words) {
+    List<String> valueWords = Arrays.asList(splitWords(value));
+    for (String word : splitWords(words)) {
+      if (!word.isEmpty() && !valueWords.contains(word)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String[] splitWords(String text) {
+    return text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+  }
+
+  private enum TokenType {
+    NAME,
+    STRING,
+    NUMBER,
+    OPERATOR,
+    LEFT_PAREN,
+    RIGHT_PAREN,
+    COMMA,
+    END
+  }
+
+  private static final class Token {
+    final TokenType type;
+    final String text;
+    final boolean quoted;
+
+    Token(TokenType type, String text, boolean quoted) {
+      this.type = type;
+      this.text = text;
+      this.quoted = quoted;
+    }
+
+    boolean isKeyword(String keyword) {
+      return type == TokenType.NAME && !quoted && text.equalsIgnoreCase(keyword);
+    }
+  }
+
+  private static final class Parser {
+    private final String query;
+    private final Function<String, IndexedValueType> types;
+    private final List<Token> tokens;
+    private int position;
+
+    Parser(String query, Function<String, IndexedValueType> types) {
+      this.query = query;
+      this.types = types;
+      this.tokens = tokenize(query);
+    }
+
+    VisibilityQuery parse() {
+      Node condition = null;
+      if (!peek().isKeyword("GROUP")) {
+        condition = parseOr();
+      }
+      String groupBy = null;
+      if (peek().isKeyword("GROUP")) {
+        next();
+        expectKeyword("BY");
+        groupBy = expect(TokenType.NAME).text;
+        if (!EXECUTION_STATUS.equals(groupBy)) {
+          throw invalidQuery("GROUP BY is supported only for " + EXECUTION_STATUS);
+        }
+      }
+      if (peek().isKeyword("ORDER")) {
+        throw invalidQuery("ORDER BY is not supported");
+      }
+      if (peek().type != TokenType.END) {
+        throw unexpected(peek());
+      }
+      return new VisibilityQuery(condition, groupBy);
+    }
+
+    private Node parseOr() {
+      List<Node> children = new ArrayList<>();
+      children.add(parseAnd());
+      while (peek().isKeyword("OR")) {
+        next();
+        children.add(parseAnd());
+      }
+      return children.size() == 1 ? children.get(0) : new Or(children);
+    }
+
+    private Node parseAnd() {
+      List<Node> children = new ArrayList<>();
+      children.add(parseUnary());
+      while (peek().isKeyword("AND")) {
+        next();
+        children.add(parseUnary());
+      }
+      return children.size() == 1 ? children.get(0) : new And(children);
+    }
+
+    private Node parseUnary() {
+      Token token = peek();
+      if (token.isKeyword("NOT")) {
+        next();
+        return new Not(parseUnary());
+      }
+      if (token.type == TokenType.LEFT_PAREN) {
+        next();
+        Node result = parseOr();
+        expect(TokenType.RIGHT_PAREN);
+        return result;
+      }
+      return parsePredicate();
+    }
+
+    private Node parsePredicate() {
+      String attribute = expect(TokenType.NAME).text;
+      IndexedValueType type = types.apply(attribute);
+      if (type == null) {
+        throw invalidQuery("unknown search attribute " + attribute);
+      }
+      Token token = next();
+      if (token.type == TokenType.OPERATOR) {
+        Operator operator = toOperator(token.text);
+        Object literal = parseLiteral(attribute, type);
+        if (operator != Operator.EQ && operator != Operator.NE) {
+          checkOrdered(attribute, type);
+        }
+        return new Comparison(attribute, type, operator, literal);
+      }
+      if (token.isKeyword("STARTS_WITH")) {
+        checkKeyword(attribute, type);
+        return new StartsWith(attribute, type, (String) parseLiteral(attribute, type));
+      }
+      if (token.isKeyword("IS")) {
+        boolean negated = peek().isKeyword("NOT");
+        if (negated) {
+          next();
+        }
+        expectKeyword("NULL");
+        Node result = new IsNull(attribute);
+        return negated ? new Not(result) : result;
+      }
+      boolean negated = token.isKeyword("NOT");
+      if (negated) {
+        token = next();
+      }
+      Node result;
+      if (token.isKeyword("IN")) {
+        expect(TokenType.LEFT_PAREN);
+        List<Object> literals = new ArrayList<>();
+        literals.add(parseLiteral(attribute, type));
+        while (peek().type == TokenType.COMMA) {
+          next();
+          literals.add(parseLiteral(attribute, type));
+        }
+        expect(TokenType.RIGHT_PAREN);
+        result = new In(attribute, type, literals);
+      } else if (token.isKeyword("BETWEEN")) {
+        checkOrdered(attribute, type);
+        Object from = parseLiteral(attribute, type);
+        expectKeyword("AND");
+        result = new Between(attribute, type, from, parseLiteral(attribute, type));
+      } else {
+        throw unexpected(token);
+      }
+      return negated ? new Not(result) : result;
+    }
+
+    private Object parseLiteral(String attribute, IndexedValueType type) {
+      Token token = next();
+      if (token.type != TokenType.STRING && token.type != TokenType.NUMBER) {
+        if (!token.isKeyword("true") && !token.isKeyword("false")) {
+          throw unexpected(token);
+        }
+      }
+      try {
+        switch (type) {
+          case INDEXED_VALUE_TYPE_KEYWORD:
+          case INDEXED_VALUE_TYPE_TEXT:
+          case INDEXED_VALUE_TYPE_KEYWORD_LIST:
+            if (token.type != TokenType.STRING) {
+              break;
+            }
+            if (EXECUTION_STATUS.equals(attribute)) {
+              checkExecutionStatus(token.text);
+            }
+            return token.text;
+          case INDEXED_VALUE_TYPE_INT:
+            if (token.type == TokenType.NAME) {
+              break;
+            }
+            return Long.parseLong(token.text);
+          case INDEXED_VALUE_TYPE_DOUBLE:
+            if (token.type == TokenType.NAME) {
+              break;
+            }
+            return Double.parseDouble(token.text);
+          case INDEXED_VALUE_TYPE_BOOL:
+            if (token.type == TokenType.NUMBER) {
+              break;
+            }
+            if (token.text.equalsIgnoreCase("true") || token.text.equalsIgnoreCase("false")) {
+              return Boolean.parseBoolean(token.text);
+            }
+            break;
+          case INDEXED_VALUE_TYPE_DATETIME:
+            if (token.type == TokenType.NUMBER) {
+              // nanoseconds since the epoch
+              long nanos = Long.parseLong(token.text);
+              return Instant.ofEpochSecond(0, nanos);
+            }
+            if (token.type == TokenType.STRING) {
+              return OffsetDateTime.parse(token.text).toInstant();
+            }
+            break;
+          default:
+            break;
+        }
+      } catch (NumberFormatException | DateTimeParseException e) {
+        // reported below
+      }
+      throw invalidQuery(
+          "invalid value "
+              + token.text
+              + " for search attribute "
+              + attribute
+              + " of type "
+              + ProtoEnumNameUtils.uniqueToSimplifiedName(type));
+    }
+
+    private void checkExecutionStatus(String status) {
+      for (WorkflowExecutionStatus value : WorkflowExecutionStatus.values()) {
+        if (value != WorkflowExecutionStatus.UNRECOGNIZED
+            && value != WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_UNSPECIFIED
+            && executionStatusName(value).equals(status)) {
+          return;
+        }
+      }
+      throw invalidQuery("invalid " + EXECUTION_STATUS + " value " + status);
+    }
+
+    private void checkOrdered(String attribute, IndexedValueType type) {
+      if (type == IndexedValueType.INDEXED_VALUE_TYPE_TEXT
+          || type == IndexedValueType.INDEXED_VALUE_TYPE_BOOL) {
+        throw invalidQuery(
+            "range operators are not supported for search attribute "
+                + attribute
+                + " of type "
+                + ProtoEnumNameUtils.uniqueToSimplifiedName(type));
+      }
+    }
+
+    private void checkKeyword(String attribute, IndexedValueType type) {
+      if (type != IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD
+          && type != IndexedValueType.INDEXED_VALUE_TYPE_KEYWORD_LIST) {
+        throw invalidQuery(
+            "STARTS_WITH is supported only for Keyword search attributes, "
+                + attribute
+                + " is "
+                + ProtoEnumNameUtils.uniqueToSimplifiedName(type));
+      }
+    }
+
+    private Operator toOperator(String text) {
+      switch (text) {
+        case "=":
+          return Operator.EQ;
+        case "!=":
+        case "<>":
+          return Operator.NE;
+        case "<":
+          return Operator.LT;
+        case "<=":
+          return Operator.LE;
+        case ">":
+          return Operator.GT;
+        case ">=":
+          return Operator.GE;
+        default:
+          throw invalidQuery("unknown operator " + text);
+      }
+    }
+
+    private Token peek() {
+      return tokens.get(position);
+    }
+
+    private Token next() {
+      Token result = tokens.get(position);
+      if (result.type != TokenType.END) {
+        position++;
+      }
+      return result;
+    }
+
+    private Token expect(TokenType type) {
+      Token token = next();
+      if (token.type != type) {
+        throw unexpected(token);
+      }
+      return token;
+    }
+
+    private void expectKeyword(String keyword) {
+      Token token = next();
+      if (!token.isKeyword(keyword)) {
+        throw unexpected(token);
+      }
+    }
+
+    private RuntimeException unexpected(Token token) {
+      if (token.type == TokenType.END) {
+        return invalidQuery("unexpected end of query: " + query);
+      }
+      return invalidQuery("unexpected " + token.text + " in query: " + query);
+    }
+
+    private static List<Token> tokenize(String query) {
+      List<Token> result = new ArrayList<>();
+      int i = 0;
+      int length = query.length();
+      while (i < length) {
+        char c = query.charAt(i);
+        if (Character.isWhitespace(c)) {
+          i++;
+        } else if (c == '(') {
+          result.add(new Token(TokenType.LEFT_PAREN, "(", false));
+          i++;
+        } else if (c == ')') {
+          result.add(new Token(TokenType.RIGHT_PAREN, ")", false));
+          i++;
+        } else if (c == ',') {
+          result.add(new Token(TokenType.COMMA, ",", false));
+          i++;
+        } else if (c == '\'' || c == '"' || c == '`') {
+          int end = query.indexOf(c, i + 1);
+          if (end < 0) {
+            throw invalidQuery("unterminated " + c + " in query: " + query);
+          }
+          TokenType type = c == '`' ? TokenType.NAME : TokenType.STRING;
+          result.add(new Token(type, query.substring(i + 1, end), true));
+          i = end + 1;
+        } else if (c == '=' || c == '!' || c == '<' || c == '>') {
+          int end = i + 1;
+          if (end < length
+              && (query.charAt(end) == '=' || (c == '<' && query.charAt(end) == '>'))) {
+            end++;
+          }
+          String operator = query.substring(i, end);
+          if (operator.equals("!")) {
+            throw invalidQuery("unexpected ! in query: " + query);
+          }
+          result.add(new Token(TokenType.OPERATOR, operator, false));
+          i = end;
+        } else if (Character.isDigit(c) || c == '-' || c == '+' || c == '.') {
+          int end = i + 1;
+          while (end < length && isNumberPart(query.charAt(end))) {
+            end++;
+          }
+          result.add(new Token(TokenType.NUMBER, query.substring(i, end), false));
+          i = end;
+        } else if (Character.isLetter(c) || c == '_') {
+          int end = i + 1;
+          while (end < length
+              && (Character.isLetterOrDigit(query.charAt(end)) || query.charAt(end) == '_')) {
+            end++;
+          }
+          result.add(new Token(TokenType.NAME, query.substring(i, end), false));
+          i = end;
+        } else {
+          throw invalidQuery("unexpected " + c + " in query: " + query);
+        }
+      }
+      result.add(new Token(TokenType.END, "", false));
+      return result;
+    }
+
+    private static boolean isNumberPart(char c) {
+      return Character.isDigit(c) || c == '.' || c == 'e' || c == 'E' || c == '-' || c == '+';
+    }
+  }
+}
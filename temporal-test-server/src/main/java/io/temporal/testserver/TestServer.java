@@ -5,7 +5,10 @@ import io.grpc.*;
 import io.temporal.internal.testservice.*;
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,26 +16,32 @@ public class TestServer {
   private static final Logger log = LoggerFactory.getLogger(TestServer.class);
 
   public static void main(String[] args) throws IOException {
-    if (args.length < 1 || args.length > 2) {
+    if (args.length < 1 || args.length > 3) {
       System.err.println("Usage: <command> <port> <flags>");
       System.err.println("Flags:");
       System.err.println("--enable-time-skipping - to enable time skipping on start");
+      System.err.println(
+          "--closed-history-dir=<directory> - to keep the histories of closed workflows in the"
+              + " directory across restarts, workflows still running on restart are terminated");
       return;
     }
     int port = Integer.parseInt(args[0]);
     boolean enableTimeSkipping = false;
+    Path historyDirectory = null;
 
     // we can't continue doing this. If there is at least one more flag or parameter we should
     // incorporate a framework like picocli
-    if (args.length > 1) {
-      if ("--enable-time-skipping".equalsIgnoreCase(args[1])) {
+    for (int i = 1; i < args.length; i++) {
+      if ("--enable-time-skipping".equalsIgnoreCase(args[i])) {
         enableTimeSkipping = true;
+      } else if (args[i].startsWith("--closed-history-dir=")) {
+        historyDirectory = Paths.get(args[i].substring("--closed-history-dir=".length()));
       } else {
-        System.err.println("Unknown flag " + args[1]);
+        System.err.println("Unknown flag " + args[i]);
         return;
       }
     }
-    PortBoundTestServer server = createPortBoundServer(port, !enableTimeSkipping);
+    PortBoundTestServer server = createPortBoundServer(port, !enableTimeSkipping, historyDirectory);
     Runtime.getRuntime().addShutdownHook(new Thread(server::close));
   }
 
@@ -56,7 +65,29 @@ public class TestServer {
    * @param port the port to listen on
    */
   public static PortBoundTestServer createPortBoundServer(int port, boolean lockTimeSkipping) {
-    TestServicesStarter testServicesStarter = new TestServicesStarter(lockTimeSkipping, 0);
+    return createPortBoundServer(port, lockTimeSkipping, null);
+  }
+
+  /**
+   * Creates an out-of-process rather than in-process server, and does not set up a client. Useful,
+   * for example, if you want to use the test service from other SDKs.
+   *
+   * <p>If {@code historyDirectory} is set, the workflow histories are appended to segment files in
+   * the directory and completed histories are kept on the disk only, so long running servers don't
+   * accumulate them in the heap. Only closed workflows survive a restart: their histories are
+   * restored when a server is started with the same directory and can be read, described and
+   * listed. The state of running workflows isn't persisted, they are terminated on restart.
+   *
+   * @param port the port to listen on
+   * @param lockTimeSkipping true if the time skipping should be locked (disabled) by default after
+   *     creation of the server
+   * @param historyDirectory directory to persist the workflow histories to, the histories are kept
+   *     in memory only if null
+   */
+  public static PortBoundTestServer createPortBoundServer(
+      int port, boolean lockTimeSkipping, @Nullable Path historyDirectory) {
+    TestServicesStarter testServicesStarter =
+        new TestServicesStarter(lockTimeSkipping, 0, historyDirectory);
     try {
       ServerBuilder<?> serverBuilder =
           Grpc.newServerBuilderForPort(port, InsecureServerCredentials.create());
@@ -0,0 +1,122 @@
+package io.temporal.internal.testservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.history.v1.WorkflowExecutionSignaledEventAttributes;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HistoryEventLogTest {
+  // a few records per segment
+  private static final long SEGMENT_SIZE = 512;
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final ExecutionId executionId1 = new ExecutionId("namespace", "workflow1", "run1");
+  private final ExecutionId executionId2 = new ExecutionId("namespace", "workflow2", "run2");
+
+  @Test
+  public void appendedRecordsAreReadFromActiveAndSealedSegments() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    try (HistoryEventLog eventLog = new HistoryEventLog(directory, SEGMENT_SIZE)) {
+      eventLog.open((id, position, events) -> {});
+      List<Long> positions = new ArrayList<>();
+      List<List<HistoryEvent>> records = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        List<HistoryEvent> events = Arrays.asList(signal("a" + i), signal("b" + i));
+        positions.add(eventLog.append(i % 2 == 0 ? executionId1 : executionId2, events));
+        records.add(events);
+      }
+      assertTrue("records span several segments", listSegments(directory).size() > 1);
+      for (int i = 0; i < positions.size(); i++) {
+        assertEquals(records.get(i), eventLog.read(positions.get(i)));
+      }
+    }
+  }
+
+  @Test
+  public void recordsAreRestoredOnOpen() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    List<Long> positions = new ArrayList<>();
+    try (HistoryEventLog eventLog = new HistoryEventLog(directory, SEGMENT_SIZE)) {
+      eventLog.open((id, position, events) -> {});
+      for (int i = 0; i < 10; i++) {
+        positions.add(eventLog.append(executionId1, Arrays.asList(signal(String.valueOf(i)))));
+      }
+    }
+
+    List<Long> restoredPositions = new ArrayList<>();
+    List<HistoryEvent> restoredEvents = new ArrayList<>();
+    try (HistoryEventLog eventLog = new HistoryEventLog(directory, SEGMENT_SIZE)) {
+      eventLog.open(
+          (id, position, events) -> {
+            assertEquals(executionId1, id);
+            restoredPositions.add(position);
+            restoredEvents.addAll(events);
+          });
+      assertEquals(positions, restoredPositions);
+      assertEquals(10, restoredEvents.size());
+      assertEquals(signal("9"), restoredEvents.get(9));
+      assertEquals(Arrays.asList(signal("3")), eventLog.read(positions.get(3)));
+
+      long appended = eventLog.append(executionId2, Arrays.asList(signal("after restart")));
+      assertEquals(Arrays.asList(signal("after restart")), eventLog.read(appended));
+    }
+  }
+
+  @Test
+  public void partiallyWrittenRecordIsTruncated() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    long position;
+    try (HistoryEventLog eventLog = new HistoryEventLog(directory, SEGMENT_SIZE)) {
+      eventLog.open((id, p, events) -> {});
+      position = eventLog.append(executionId1, Arrays.asList(signal("complete")));
+    }
+    Path segment = listSegments(directory).get(0);
+    long validSize = Files.size(segment);
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+      // a record of 100 bytes which was not written fully
+      channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 100, 1, 2}));
+    }
+
+    List<HistoryEvent> restoredEvents = new ArrayList<>();
+    try (HistoryEventLog eventLog = new HistoryEventLog(directory, SEGMENT_SIZE)) {
+      eventLog.open((id, p, events) -> restoredEvents.addAll(events));
+      assertEquals(Arrays.asList(signal("complete")), restoredEvents);
+      assertEquals(validSize, Files.size(segment));
+
+      long appended = eventLog.append(executionId1, Arrays.asList(signal("next")));
+      assertEquals(Arrays.asList(signal("complete")), eventLog.read(position));
+      assertEquals(Arrays.asList(signal("next")), eventLog.read(appended));
+    }
+  }
+
+  private static List<Path> listSegments(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.sorted().collect(Collectors.toList());
+    }
+  }
+
+  private static HistoryEvent signal(String name) {
+    return HistoryEvent.newBuilder()
+        .setEventType(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_SIGNALED)
+        .setWorkflowExecutionSignaledEventAttributes(
+            WorkflowExecutionSignaledEventAttributes.newBuilder().setSignalName(name))
+        .build();
+  }
+}
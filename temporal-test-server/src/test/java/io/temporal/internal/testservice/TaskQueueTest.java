@@ -0,0 +1,148 @@
+package io.temporal.internal.testservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.temporal.api.common.v1.Priority;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class TaskQueueTest {
+
+  @Test
+  public void elementsArePolledInPriorityOrder() throws Exception {
+    TaskQueue<String> queue = new TaskQueue<>();
+    queue.add("default1");
+    queue.add("low", priority(5));
+    queue.add("high", priority(1));
+    queue.add("default2", Priority.getDefaultInstance());
+
+    List<String> polled = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      polled.add(queue.poll().get());
+    }
+    assertEquals(Arrays.asList("high", "default1", "default2", "low"), polled);
+    assertFalse(queue.poll().isDone());
+  }
+
+  @Test
+  public void pollIsCompletedByAdd() throws Exception {
+    TaskQueue<String> queue = new TaskQueue<>();
+    CompletableFuture<String> first = queue.poll();
+    CompletableFuture<String> second = queue.poll();
+    assertFalse(first.isDone());
+
+    queue.add("a");
+    queue.add("b");
+    assertEquals("a", first.get(1, TimeUnit.SECONDS));
+    assertEquals("b", second.get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void cancelledPollDoesNotTakeElements() throws Exception {
+    TaskQueue<String> queue = new TaskQueue<>();
+    CompletableFuture<String> cancelled = queue.poll();
+    assertTrue(cancelled.cancel(true));
+
+    queue.add("a");
+    assertTrue(cancelled.isCancelled());
+    assertEquals("a", queue.poll().get(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void concurrentAddsAndPollsDeliverEveryElementOnce() throws Exception {
+    int threads = 4;
+    int elementsPerThread = 10_000;
+    TaskQueue<Integer> queue = new TaskQueue<>();
+    Set<Integer> received = ConcurrentHashMap.newKeySet();
+    CountDownLatch done = new CountDownLatch(threads * elementsPerThread);
+    ExecutorService executor = Executors.newFixedThreadPool(threads * 2);
+    try {
+      for (int t = 0; t < threads; t++) {
+        int base = t * elementsPerThread;
+        executor.execute(
+            () -> {
+              for (int i = 0; i < elementsPerThread; i++) {
+                queue.add(base + i, priority(1 + i % 5));
+              }
+            });
+        executor.execute(
+            () -> {
+              for (int i = 0; i < elementsPerThread; i++) {
+                CompletableFuture<Integer> poll = queue.poll();
+                if (i % 7 == 0 && poll.cancel(true)) {
+                  // the element goes to another poll
+                  poll = queue.poll();
+                }
+                poll.thenAccept(
+                    element -> {
+                      assertTrue(received.add(element));
+                      done.countDown();
+                    });
+              }
+            });
+      }
+      assertTrue(done.await(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+    Set<Integer> expected = new HashSet<>();
+    for (int i = 0; i < threads * elementsPerThread; i++) {
+      expected.add(i);
+    }
+    assertEquals(expected, received);
+  }
+
+  @Test
+  public void concurrentAddsCompleteTheOldestPollsFirst() throws Exception {
+    int threads = 4;
+    int elementsPerThread = 1_000;
+    TaskQueue<Integer> queue = new TaskQueue<>();
+    List<CompletableFuture<Integer>> polls = new ArrayList<>();
+    for (int i = 0; i < threads * elementsPerThread * 2; i++) {
+      polls.add(queue.poll());
+    }
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (int t = 0; t < threads; t++) {
+        int base = t * elementsPerThread;
+        executor.execute(
+            () -> {
+              try {
+                start.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+              }
+              for (int i = 0; i < elementsPerThread; i++) {
+                queue.add(base + i);
+              }
+            });
+      }
+      start.countDown();
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+    for (int i = 0; i < polls.size(); i++) {
+      assertEquals("poll " + i, i < threads * elementsPerThread, polls.get(i).isDone());
+    }
+  }
+
+  private static Priority priority(int priorityKey) {
+    return Priority.newBuilder().setPriorityKey(priorityKey).build();
+  }
+}
@@ -0,0 +1,233 @@
+package io.temporal.internal.testservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableMap;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.common.v1.WorkflowType;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.enums.v1.WorkflowIdReusePolicy;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.taskqueue.v1.TaskQueue;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.DescribeWorkflowExecutionRequest;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.SignalWorkflowExecutionRequest;
+import io.temporal.api.workflowservice.v1.StartWorkflowExecutionRequest;
+import io.temporal.api.workflowservice.v1.TerminateWorkflowExecutionRequest;
+import io.temporal.api.workflowservice.v1.WorkflowServiceGrpc;
+import io.temporal.internal.common.SearchAttributesUtil;
+import io.temporal.serviceclient.WorkflowServiceStubs;
+import io.temporal.serviceclient.WorkflowServiceStubsOptions;
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestServerRestartTest {
+  private static final String NAMESPACE = "namespace";
+  private static final String WORKFLOW_ID = "open-at-restart";
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void workflowsOpenAtRestartAreTerminated() {
+    Path directory = folder.getRoot().toPath();
+    try (Server server = new Server(directory)) {
+      server.stub().startWorkflowExecution(startRequest());
+    }
+
+    try (Server server = new Server(directory)) {
+      WorkflowServiceGrpc.WorkflowServiceBlockingStub stub = server.stub();
+      WorkflowExecution execution =
+          WorkflowExecution.newBuilder().setWorkflowId(WORKFLOW_ID).build();
+
+      WorkflowExecutionInfo described =
+          stub.describeWorkflowExecution(
+                  DescribeWorkflowExecutionRequest.newBuilder()
+                      .setNamespace(NAMESPACE)
+                      .setExecution(execution)
+                      .build())
+              .getWorkflowExecutionInfo();
+      assertEquals(
+          WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_TERMINATED, described.getStatus());
+      assertEquals(2, described.getHistoryLength());
+      assertTrue(described.hasCloseTime());
+
+      List<HistoryEvent> events =
+          stub.getWorkflowExecutionHistory(
+                  GetWorkflowExecutionHistoryRequest.newBuilder()
+                      .setNamespace(NAMESPACE)
+                      .setExecution(execution)
+                      .build())
+              .getHistory()
+              .getEventsList();
+      assertEquals(2, events.size());
+      HistoryEvent terminated = events.get(1);
+      assertEquals(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_TERMINATED, terminated.getEventType());
+      assertEquals(
+          TestWorkflowStoreImpl.RESTART_TERMINATION_REASON,
+          terminated.getWorkflowExecutionTerminatedEventAttributes().getReason());
+
+      // the visibility records are restored with the search attributes
+      List<WorkflowExecutionInfo> listed =
+          stub.listWorkflowExecutions(
+                  ListWorkflowExecutionsRequest.newBuilder()
+                      .setNamespace(NAMESPACE)
+                      .setQuery("CustomKeywordField = 'restart' AND ExecutionStatus = 'Terminated'")
+                      .build())
+              .getExecutionsList();
+      assertEquals(1, listed.size());
+      assertEquals(described.getExecution(), listed.get(0).getExecution());
+
+      try {
+        stub.signalWorkflowExecution(
+            SignalWorkflowExecutionRequest.newBuilder()
+                .setNamespace(NAMESPACE)
+                .setWorkflowExecution(execution)
+                .setSignalName("signal")
+                .build());
+        fail("terminated workflow shouldn't accept signals");
+      } catch (StatusRuntimeException e) {
+        assertEquals(Status.Code.NOT_FOUND, e.getStatus().getCode());
+      }
+    }
+
+    // terminated only once
+    try (Server server = new Server(directory)) {
+      WorkflowExecutionInfo described =
+          server
+              .stub()
+              .describeWorkflowExecution(
+                  DescribeWorkflowExecutionRequest.newBuilder()
+                      .setNamespace(NAMESPACE)
+                      .setExecution(WorkflowExecution.newBuilder().setWorkflowId(WORKFLOW_ID))
+                      .build())
+              .getWorkflowExecutionInfo();
+      assertEquals(2, described.getHistoryLength());
+    }
+  }
+
+  @Test
+  public void closedWorkflowsDropTheirMutableState() {
+    int workflowCount = TestWorkflowService.CLOSED_EXECUTIONS_RETAINED + 200;
+    try (Server server = new Server(folder.getRoot().toPath())) {
+      WorkflowServiceGrpc.WorkflowServiceBlockingStub stub = server.stub();
+      WorkflowExecution first = null;
+      for (int i = 0; i < workflowCount; i++) {
+        String workflowId = "workflow-" + i;
+        String runId = stub.startWorkflowExecution(startRequest(workflowId)).getRunId();
+        WorkflowExecution execution =
+            WorkflowExecution.newBuilder().setWorkflowId(workflowId).setRunId(runId).build();
+        stub.terminateWorkflowExecution(
+            TerminateWorkflowExecutionRequest.newBuilder()
+                .setNamespace(NAMESPACE)
+                .setWorkflowExecution(execution)
+                .build());
+        if (first == null) {
+          first = execution;
+        }
+        assertTrue(
+            server.service().getMutableStateCount()
+                <= TestWorkflowService.CLOSED_EXECUTIONS_RETAINED + 1);
+      }
+
+      // the first workflow has no mutable state anymore
+      WorkflowExecutionInfo described =
+          stub.describeWorkflowExecution(
+                  DescribeWorkflowExecutionRequest.newBuilder()
+                      .setNamespace(NAMESPACE)
+                      .setExecution(first)
+                      .build())
+              .getWorkflowExecutionInfo();
+      assertEquals(
+          WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_TERMINATED, described.getStatus());
+      assertEquals(2, described.getHistoryLength());
+
+      List<HistoryEvent> events =
+          stub.getWorkflowExecutionHistory(
+                  GetWorkflowExecutionHistoryRequest.newBuilder()
+                      .setNamespace(NAMESPACE)
+                      .setExecution(first.toBuilder().clearRunId())
+                      .build())
+              .getHistory()
+              .getEventsList();
+      assertEquals(2, events.size());
+      assertEquals(
+          EventType.EVENT_TYPE_WORKFLOW_EXECUTION_TERMINATED, events.get(1).getEventType());
+
+      // the reuse policy is still applied to it
+      StartWorkflowExecutionRequest duplicate =
+          startRequest(first.getWorkflowId())
+              .toBuilder()
+              .setWorkflowIdReusePolicy(
+                  WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_REJECT_DUPLICATE)
+              .build();
+      try {
+        stub.startWorkflowExecution(duplicate);
+        fail("duplicate workflow shouldn't start");
+      } catch (StatusRuntimeException e) {
+        assertEquals(Status.Code.ALREADY_EXISTS, e.getStatus().getCode());
+      }
+    }
+  }
+
+  private static StartWorkflowExecutionRequest startRequest() {
+    return startRequest(WORKFLOW_ID);
+  }
+
+  private static StartWorkflowExecutionRequest startRequest(String workflowId) {
+    return StartWorkflowExecutionRequest.newBuilder()
+        .setRequestId(UUID.randomUUID().toString())
+        .setNamespace(NAMESPACE)
+        .setWorkflowId(workflowId)
+        .setWorkflowType(WorkflowType.newBuilder().setName("TestWorkflow"))
+        .setTaskQueue(TaskQueue.newBuilder().setName("queue"))
+        .setSearchAttributes(
+            SearchAttributesUtil.encode(ImmutableMap.of("CustomKeywordField", "restart")))
+        .build();
+  }
+
+  private static final class Server implements Closeable {
+    private final TestServicesStarter starter;
+    private final InProcessGRPCServer grpcServer;
+    private final WorkflowServiceStubs stubs;
+
+    Server(Path historyDirectory) {
+      starter = new TestServicesStarter(true, 0, historyDirectory);
+      grpcServer = new InProcessGRPCServer(starter.getServices());
+      stubs =
+          WorkflowServiceStubs.newServiceStubs(
+              WorkflowServiceStubsOptions.newBuilder()
+                  .setChannel(grpcServer.getChannel())
+                  .validateAndBuildWithDefaults());
+    }
+
+    WorkflowServiceGrpc.WorkflowServiceBlockingStub stub() {
+      return stubs.blockingStub();
+    }
+
+    TestWorkflowService service() {
+      return starter.getWorkflowService();
+    }
+
+    @Override
+    public void close() {
+      stubs.shutdownNow();
+      stubs.awaitTermination(1, TimeUnit.SECONDS);
+      grpcServer.shutdown();
+      grpcServer.awaitTermination(5, TimeUnit.SECONDS);
+      starter.close();
+    }
+  }
+}
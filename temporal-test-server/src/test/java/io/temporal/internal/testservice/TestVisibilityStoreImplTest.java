@@ -1,17 +1,38 @@
 package io.temporal.internal.testservice;
 
+import static io.temporal.api.enums.v1.WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_COMPLETED;
+import static io.temporal.api.enums.v1.WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_FAILED;
+import static io.temporal.api.enums.v1.WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_RUNNING;
 import static org.junit.Assert.*;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import io.temporal.api.common.v1.Payload;
 import io.temporal.api.common.v1.SearchAttributes;
+import io.temporal.api.common.v1.WorkflowExecution;
+import io.temporal.api.common.v1.WorkflowType;
 import io.temporal.api.enums.v1.IndexedValueType;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.CountWorkflowExecutionsResponse;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsRequest;
+import io.temporal.api.workflowservice.v1.ListWorkflowExecutionsResponse;
 import io.temporal.internal.common.ProtoEnumNameUtils;
+import io.temporal.internal.common.SearchAttributesUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.Test;
 
 public class TestVisibilityStoreImplTest {
   private static final String METADATA_TYPE_KEY = "type";
   private static final String DEFAULT_KEY_INTEGER = "CustomIntField";
+  private static final String NAMESPACE = "namespace";
 
   @Test
   public void testTypeMetadataIsAddedToPayloads() {
@@ -89,4 +110,195 @@ public class TestVisibilityStoreImplTest {
       assertTrue("Should be a validation error", e.getMessage().contains("invalid value"));
     }
   }
+
+  @Test
+  public void listExecutionsFiltersByQuery() {
+    TestVisibilityStoreImpl visibilityStore = newStoreWithExecutions();
+
+    assertEquals(
+        Arrays.asList("running", "failed"),
+        listWorkflowIds(visibilityStore, "CustomKeywordField = 'b' OR CustomIntField >= 30"));
+    assertEquals(
+        Arrays.asList("running", "failed", "completed"),
+        listWorkflowIds(visibilityStore, "WorkflowType = 'TestWorkflow'"));
+    assertEquals(
+        Arrays.asList("failed", "completed"),
+        listWorkflowIds(
+            visibilityStore, "ExecutionStatus != 'Running' AND CustomIntField BETWEEN 10 AND 30"));
+    assertEquals(
+        Arrays.asList("running"),
+        listWorkflowIds(
+            visibilityStore,
+            "`CustomKeywordField` IN ('b', 'c') AND NOT CloseTime IS NOT NULL"));
+    assertEquals(
+        Arrays.asList("completed"),
+        listWorkflowIds(
+            visibilityStore,
+            "WorkflowId STARTS_WITH 'comp' AND CloseTime < '1970-01-01T00:01:00Z'"));
+    assertEquals(
+        Arrays.asList("failed"), listWorkflowIds(visibilityStore, "CustomTextField = 'QUICK fox'"));
+    assertTrue(listWorkflowIds(visibilityStore, "CustomKeywordField = 'unknown'").isEmpty());
+  }
+
+  @Test
+  public void listExecutionsReturnsPages() {
+    TestVisibilityStoreImpl visibilityStore = newStoreWithExecutions();
+    List<String> workflowIds = new ArrayList<>();
+    ByteString nextPageToken = ByteString.EMPTY;
+    int pages = 0;
+    do {
+      ListWorkflowExecutionsResponse response =
+          visibilityStore.listExecutions(
+              ListWorkflowExecutionsRequest.newBuilder()
+                  .setNamespace(NAMESPACE)
+                  .setPageSize(2)
+                  .setNextPageToken(nextPageToken)
+                  .build());
+      response.getExecutionsList().forEach(e -> workflowIds.add(e.getExecution().getWorkflowId()));
+      nextPageToken = response.getNextPageToken();
+      pages++;
+    } while (!nextPageToken.isEmpty());
+
+    assertEquals(2, pages);
+    // running first, then the latest closed
+    assertEquals(Arrays.asList("running", "failed", "completed"), workflowIds);
+  }
+
+  @Test
+  public void listExecutionsReturnsPagesOfIndexedQuery() {
+    TestVisibilityStoreImpl visibilityStore = newStoreWithExecutions();
+    // "completed" is in the index sets of both conditions
+    String query = "CustomKeywordField IN ('a', 'b') OR CustomIntField >= 10";
+    List<String> workflowIds = new ArrayList<>();
+    ByteString nextPageToken = ByteString.EMPTY;
+    do {
+      ListWorkflowExecutionsResponse response =
+          visibilityStore.listExecutions(
+              ListWorkflowExecutionsRequest.newBuilder()
+                  .setNamespace(NAMESPACE)
+                  .setQuery(query)
+                  .setPageSize(1)
+                  .setNextPageToken(nextPageToken)
+                  .build());
+      response.getExecutionsList().forEach(e -> workflowIds.add(e.getExecution().getWorkflowId()));
+      nextPageToken = response.getNextPageToken();
+    } while (!nextPageToken.isEmpty());
+    assertEquals(Arrays.asList("running", "failed", "completed"), workflowIds);
+
+    // the index sets are kept in the order of the new sort key
+    upsert(
+        visibilityStore,
+        info("running", "run3", WORKFLOW_EXECUTION_STATUS_COMPLETED, 0, 1),
+        ImmutableMap.of("CustomKeywordField", "b"));
+    assertEquals(
+        Arrays.asList("failed", "completed", "running"), listWorkflowIds(visibilityStore, query));
+  }
+
+  @Test
+  public void countExecutionsGroupsByExecutionStatus() {
+    TestVisibilityStoreImpl visibilityStore = newStoreWithExecutions();
+    visibilityStore.upsertExecution(
+        new ExecutionId(NAMESPACE, "completed2", "run4"),
+        info("completed2", "run4", WORKFLOW_EXECUTION_STATUS_COMPLETED, 4, 5).build());
+
+    CountWorkflowExecutionsResponse response =
+        visibilityStore.countExecutions(
+            CountWorkflowExecutionsRequest.newBuilder()
+                .setNamespace(NAMESPACE)
+                .setQuery("TaskQueue = 'queue' GROUP BY ExecutionStatus")
+                .build());
+
+    assertEquals(4, response.getCount());
+    Map<Object, Long> groups =
+        response.getGroupsList().stream()
+            .collect(
+                Collectors.toMap(
+                    g -> SearchAttributesUtil.decode(g.getGroupValues(0)).get(0),
+                    CountWorkflowExecutionsResponse.AggregationGroup::getCount));
+    assertEquals(ImmutableMap.of("Completed", 2L, "Failed", 1L, "Running", 1L), groups);
+  }
+
+  @Test
+  public void invalidQueryIsRejected() {
+    TestVisibilityStoreImpl visibilityStore = newStoreWithExecutions();
+    for (String query :
+        Arrays.asList(
+            "UnknownField = 'a'",
+            "CustomIntField = 'a'",
+            "CustomKeywordField = ",
+            "(CustomKeywordField = 'a'",
+            "CustomTextField > 'a'",
+            "ExecutionStatus = 'Sleeping'",
+            "CustomKeywordField = 'a' ORDER BY StartTime")) {
+      try {
+        listWorkflowIds(visibilityStore, query);
+        fail("query should be rejected: " + query);
+      } catch (StatusRuntimeException e) {
+        assertEquals(query, Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+      }
+    }
+  }
+
+  private static TestVisibilityStoreImpl newStoreWithExecutions() {
+    TestVisibilityStoreImpl visibilityStore = new TestVisibilityStoreImpl();
+    upsert(
+        visibilityStore,
+        info("completed", "run1", WORKFLOW_EXECUTION_STATUS_COMPLETED, 1, 2),
+        ImmutableMap.of("CustomKeywordField", "a", "CustomIntField", 10L));
+    upsert(
+        visibilityStore,
+        info("failed", "run2", WORKFLOW_EXECUTION_STATUS_FAILED, 2, 3),
+        ImmutableMap.of("CustomIntField", 30L, "CustomTextField", "The quick brown fox"));
+    upsert(
+        visibilityStore,
+        info("running", "run3", WORKFLOW_EXECUTION_STATUS_RUNNING, 3, 0),
+        ImmutableMap.of("CustomKeywordField", "b"));
+    return visibilityStore;
+  }
+
+  private static void upsert(
+      TestVisibilityStoreImpl visibilityStore,
+      WorkflowExecutionInfo.Builder info,
+      Map<String, Object> searchAttributes) {
+    ExecutionId executionId = new ExecutionId(NAMESPACE, info.getExecution());
+    SearchAttributes upserted =
+        visibilityStore.upsertSearchAttributesForExecution(
+            executionId, SearchAttributesUtil.encode(searchAttributes));
+    visibilityStore.upsertExecution(executionId, info.setSearchAttributes(upserted).build());
+  }
+
+  private static WorkflowExecutionInfo.Builder info(
+      String workflowId,
+      String runId,
+      WorkflowExecutionStatus status,
+      long startSeconds,
+      long closeSeconds) {
+    WorkflowExecutionInfo.Builder result =
+        WorkflowExecutionInfo.newBuilder()
+            .setExecution(
+                WorkflowExecution.newBuilder().setWorkflowId(workflowId).setRunId(runId))
+            .setType(WorkflowType.newBuilder().setName("TestWorkflow"))
+            .setStatus(status)
+            .setTaskQueue("queue")
+            .setStartTime(Timestamp.newBuilder().setSeconds(startSeconds))
+            .setExecutionTime(Timestamp.newBuilder().setSeconds(startSeconds));
+    if (closeSeconds > 0) {
+      result.setCloseTime(Timestamp.newBuilder().setSeconds(closeSeconds));
+    }
+    return result;
+  }
+
+  private static List<String> listWorkflowIds(
+      TestVisibilityStoreImpl visibilityStore, String query) {
+    return visibilityStore
+        .listExecutions(
+            ListWorkflowExecutionsRequest.newBuilder()
+                .setNamespace(NAMESPACE)
+                .setQuery(query)
+                .build())
+        .getExecutionsList()
+        .stream()
+        .map(e -> e.getExecution().getWorkflowId())
+        .collect(Collectors.toList());
+  }
 }
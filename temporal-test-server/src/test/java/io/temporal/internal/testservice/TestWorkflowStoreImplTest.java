@@ -0,0 +1,234 @@
+package io.temporal.internal.testservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.grpc.Deadline;
+import io.temporal.api.common.v1.WorkflowType;
+import io.temporal.api.enums.v1.EventType;
+import io.temporal.api.enums.v1.HistoryEventFilterType;
+import io.temporal.api.enums.v1.WorkflowExecutionStatus;
+import io.temporal.api.history.v1.HistoryEvent;
+import io.temporal.api.history.v1.WorkflowExecutionCompletedEventAttributes;
+import io.temporal.api.history.v1.WorkflowExecutionSignaledEventAttributes;
+import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
+import io.temporal.api.workflow.v1.WorkflowExecutionInfo;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryRequest;
+import io.temporal.api.workflowservice.v1.GetWorkflowExecutionHistoryResponse;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestWorkflowStoreImplTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final ExecutionId completedId = new ExecutionId("namespace", "completed", "run1");
+  private final ExecutionId runningId = new ExecutionId("namespace", "running", "run2");
+
+  @Test
+  public void historiesAreRestoredFromHistoryDirectory() {
+    Path directory = folder.getRoot().toPath();
+    TestWorkflowStoreImpl store = newStore(directory, new TestVisibilityStoreImpl());
+    try {
+      save(store, completedId, 1, started());
+      save(store, runningId, 1, started());
+      save(store, completedId, 2, completed());
+      // read back from the history log as the completed history is evicted from the heap
+      assertEquals(2, getHistory(store, completedId).getHistory().getEventsCount());
+    } finally {
+      store.close();
+    }
+
+    TestVisibilityStore visibilityStore = new TestVisibilityStoreImpl();
+    store = newStore(directory, visibilityStore);
+    try {
+      GetWorkflowExecutionHistoryResponse history = getHistory(store, completedId);
+      assertEquals(2, history.getHistory().getEventsCount());
+      assertEquals(
+          EventType.EVENT_TYPE_WORKFLOW_EXECUTION_COMPLETED,
+          history.getHistory().getEvents(1).getEventType());
+      // the mutable state of the running execution is lost, it is terminated
+      history = getHistory(store, runningId);
+      assertEquals(2, history.getHistory().getEventsCount());
+      assertEquals(
+          EventType.EVENT_TYPE_WORKFLOW_EXECUTION_TERMINATED,
+          history.getHistory().getEvents(1).getEventType());
+
+      List<WorkflowExecutionInfo> closed =
+          store.listWorkflows(TestWorkflowStore.WorkflowState.CLOSED, Optional.of("completed"));
+      assertEquals(1, closed.size());
+      assertEquals(completedId.getExecution(), closed.get(0).getExecution());
+      assertEquals(
+          WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_COMPLETED, closed.get(0).getStatus());
+      assertEquals(2, closed.get(0).getHistoryLength());
+      assertTrue(
+          store.listWorkflows(TestWorkflowStore.WorkflowState.OPEN, Optional.empty()).isEmpty());
+
+      // the visibility records are handed over to the visibility store
+      assertEquals(
+          WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_COMPLETED,
+          visibilityStore.getExecution(completedId).getStatus());
+      WorkflowExecutionInfo terminated = visibilityStore.getExecution(runningId);
+      assertEquals(
+          WorkflowExecutionStatus.WORKFLOW_EXECUTION_STATUS_TERMINATED, terminated.getStatus());
+      assertEquals(2, terminated.getHistoryLength());
+      assertEquals("TestWorkflow", terminated.getType().getName());
+    } finally {
+      store.close();
+    }
+  }
+
+  @Test
+  public void concurrentSavesAndReads() throws Exception {
+    int writers = 4;
+    int executionsPerWriter = 50;
+    int signals = 5;
+    TestWorkflowStoreImpl store =
+        new TestWorkflowStoreImpl(new SelfAdvancingTimerImpl(0, Clock.systemDefaultZone()));
+    ExecutorService executor = Executors.newCachedThreadPool();
+    AtomicBoolean writing = new AtomicBoolean(true);
+    try {
+      // listWorkflows and getDiagnostics run while histories are created and appended, they skip
+      // the histories without events created by a concurrent save
+      Future<?> reader =
+          executor.submit(
+              () -> {
+                while (writing.get()) {
+                  for (WorkflowExecutionInfo info :
+                      store.listWorkflows(TestWorkflowStore.WorkflowState.OPEN, Optional.empty())) {
+                    assertEquals("TestWorkflow", info.getType().getName());
+                  }
+                  store.listWorkflows(TestWorkflowStore.WorkflowState.CLOSED, Optional.empty());
+                  store.getDiagnostics(new StringBuilder());
+                }
+              });
+      List<Future<?>> writes = new ArrayList<>();
+      List<CompletableFuture<GetWorkflowExecutionHistoryResponse>> closeEvents =
+          new ArrayList<>();
+      for (int w = 0; w < writers; w++) {
+        List<ExecutionId> executionIds = new ArrayList<>();
+        for (int i = 0; i < executionsPerWriter; i++) {
+          executionIds.add(new ExecutionId("namespace", "workflow-" + w + "-" + i, "run"));
+        }
+        CompletableFuture<Void> allStarted = new CompletableFuture<>();
+        for (ExecutionId executionId : executionIds) {
+          // waits for the close event while the history is appended
+          closeEvents.add(
+              allStarted.thenApplyAsync(
+                  ignore ->
+                      store.getWorkflowExecutionHistory(
+                          executionId,
+                          GetWorkflowExecutionHistoryRequest.newBuilder()
+                              .setWaitNewEvent(true)
+                              .setHistoryEventFilterType(
+                                  HistoryEventFilterType.HISTORY_EVENT_FILTER_TYPE_CLOSE_EVENT)
+                              .build(),
+                          Deadline.after(10, TimeUnit.SECONDS)),
+                  executor));
+        }
+        writes.add(
+            executor.submit(
+                () -> {
+                  for (ExecutionId executionId : executionIds) {
+                    save(store, executionId, 1, started());
+                  }
+                  allStarted.complete(null);
+                  for (int i = 0; i < signals; i++) {
+                    for (ExecutionId executionId : executionIds) {
+                      save(store, executionId, i + 2, signaled());
+                    }
+                  }
+                  for (ExecutionId executionId : executionIds) {
+                    save(store, executionId, signals + 2, completed());
+                  }
+                }));
+      }
+      for (Future<?> write : writes) {
+        write.get(10, TimeUnit.SECONDS);
+      }
+      writing.set(false);
+      reader.get(10, TimeUnit.SECONDS);
+
+      for (CompletableFuture<GetWorkflowExecutionHistoryResponse> closeEvent : closeEvents) {
+        List<HistoryEvent> events =
+            closeEvent.get(10, TimeUnit.SECONDS).getHistory().getEventsList();
+        assertEquals(1, events.size());
+        assertEquals(
+            EventType.EVENT_TYPE_WORKFLOW_EXECUTION_COMPLETED, events.get(0).getEventType());
+        assertEquals(signals + 2, events.get(0).getEventId());
+      }
+      List<WorkflowExecutionInfo> closed =
+          store.listWorkflows(TestWorkflowStore.WorkflowState.CLOSED, Optional.empty());
+      assertEquals(writers * executionsPerWriter, closed.size());
+      for (WorkflowExecutionInfo info : closed) {
+        assertEquals(signals + 2, info.getHistoryLength());
+      }
+      assertTrue(
+          store.listWorkflows(TestWorkflowStore.WorkflowState.OPEN, Optional.empty()).isEmpty());
+    } finally {
+      writing.set(false);
+      executor.shutdownNow();
+      store.close();
+    }
+  }
+
+  private static TestWorkflowStoreImpl newStore(
+      Path directory, TestVisibilityStore visibilityStore) {
+    return new TestWorkflowStoreImpl(
+        new SelfAdvancingTimerImpl(0, Clock.systemDefaultZone()), directory, visibilityStore);
+  }
+
+  private static long save(
+      TestWorkflowStoreImpl store, ExecutionId executionId, long nextEventId, HistoryEvent event) {
+    TestWorkflowMutableState mutableState = mock(TestWorkflowMutableState.class);
+    when(mutableState.getExecutionId()).thenReturn(executionId);
+    RequestContext ctx = new RequestContext(() -> 0L, mutableState, nextEventId);
+    ctx.addEvent(event);
+    return store.save(ctx);
+  }
+
+  private static GetWorkflowExecutionHistoryResponse getHistory(
+      TestWorkflowStoreImpl store, ExecutionId executionId) {
+    return store.getWorkflowExecutionHistory(
+        executionId, GetWorkflowExecutionHistoryRequest.getDefaultInstance(), null);
+  }
+
+  private static HistoryEvent started() {
+    return HistoryEvent.newBuilder()
+        .setEventType(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_STARTED)
+        .setWorkflowExecutionStartedEventAttributes(
+            WorkflowExecutionStartedEventAttributes.newBuilder()
+                .setWorkflowType(WorkflowType.newBuilder().setName("TestWorkflow")))
+        .build();
+  }
+
+  private static HistoryEvent signaled() {
+    return HistoryEvent.newBuilder()
+        .setEventType(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_SIGNALED)
+        .setWorkflowExecutionSignaledEventAttributes(
+            WorkflowExecutionSignaledEventAttributes.newBuilder().setSignalName("signal"))
+        .build();
+  }
+
+  private static HistoryEvent completed() {
+    return HistoryEvent.newBuilder()
+        .setEventType(EventType.EVENT_TYPE_WORKFLOW_EXECUTION_COMPLETED)
+        .setWorkflowExecutionCompletedEventAttributes(
+            WorkflowExecutionCompletedEventAttributes.getDefaultInstance())
+        .build();
+  }
+}
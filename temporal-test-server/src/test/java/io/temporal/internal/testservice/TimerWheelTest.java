@@ -0,0 +1,118 @@
+package io.temporal.internal.testservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+public class TimerWheelTest {
+
+  private static final long START = 1_700_000_000_000L;
+
+  @Test
+  public void expiresInTimeOrder() {
+    TimerWheel<String> wheel = new TimerWheel<>(START);
+    wheel.add(START + Duration.ofDays(1).toMillis(), "day");
+    wheel.add(START + 5, "5ms-1");
+    wheel.add(START + Duration.ofMinutes(1).toMillis(), "minute");
+    wheel.add(START + 5, "5ms-2");
+    wheel.add(START + 100, "100ms");
+
+    assertEquals(START + 5, wheel.nextExpirationTime());
+    assertEquals(Collections.emptyList(), wheel.pollExpired(START + 4));
+    assertEquals(Arrays.asList("5ms-1", "5ms-2"), wheel.pollExpired(START + 5));
+    assertEquals(START + 100, wheel.nextExpirationTime());
+    assertEquals(
+        Arrays.asList("100ms", "minute"),
+        wheel.pollExpired(START + Duration.ofMinutes(1).toMillis()));
+    assertEquals(START + Duration.ofDays(1).toMillis(), wheel.nextExpirationTime());
+    assertEquals(
+        Collections.singletonList("day"), wheel.pollExpired(START + Duration.ofDays(2).toMillis()));
+    assertTrue(wheel.isEmpty());
+    assertEquals(TimerWheel.NO_TIMERS, wheel.nextExpirationTime());
+  }
+
+  @Test
+  public void timersDueAtTheSameInstantExpireTogether() {
+    TimerWheel<Integer> wheel = new TimerWheel<>(START);
+    long due = START + Duration.ofHours(3).toMillis();
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      wheel.add(due, i);
+      expected.add(i);
+    }
+    wheel.add(due + 1, -1);
+    assertEquals(expected, wheel.pollExpired(wheel.nextExpirationTime()));
+    assertEquals(due + 1, wheel.nextExpirationTime());
+  }
+
+  @Test
+  public void cancel() {
+    TimerWheel<String> wheel = new TimerWheel<>(START);
+    TimerWheel.Timer<String> first = wheel.add(START + 10, "first");
+    TimerWheel.Timer<String> second = wheel.add(START + Duration.ofHours(1).toMillis(), "second");
+    wheel.add(START + Duration.ofDays(3).toMillis(), "third");
+
+    assertTrue(wheel.cancel(first));
+    assertFalse(wheel.cancel(first));
+    assertEquals(START + Duration.ofHours(1).toMillis(), wheel.nextExpirationTime());
+    assertTrue(wheel.cancel(second));
+    assertEquals(1, wheel.size());
+    assertEquals(START + Duration.ofDays(3).toMillis(), wheel.nextExpirationTime());
+    assertEquals(
+        Collections.singletonList("third"),
+        wheel.pollExpired(START + Duration.ofDays(3).toMillis()));
+    assertFalse(first.isScheduled());
+  }
+
+  @Test
+  public void timerInThePastExpiresOnNextPoll() {
+    TimerWheel<String> wheel = new TimerWheel<>(START);
+    wheel.pollExpired(START + 1000);
+    wheel.add(START + 10, "past");
+    assertEquals(Collections.singletonList("past"), wheel.pollExpired(START + 1000));
+  }
+
+  @Test
+  public void matchesSortedMap() {
+    Random random = new Random(1234);
+    TimerWheel<Integer> wheel = new TimerWheel<>(START);
+    TreeMap<Long, List<Integer>> expected = new TreeMap<>();
+    List<TimerWheel.Timer<Integer>> scheduled = new ArrayList<>();
+    long now = START;
+    for (int i = 0; i < 100_000; i++) {
+      int operation = random.nextInt(10);
+      if (operation < 6) {
+        long expirationTime = now + (long) (random.nextDouble() * (1L << random.nextInt(40)));
+        scheduled.add(wheel.add(expirationTime, i));
+        expected.computeIfAbsent(expirationTime, k -> new ArrayList<>()).add(i);
+      } else if (operation < 8 && !scheduled.isEmpty()) {
+        TimerWheel.Timer<Integer> timer = scheduled.remove(random.nextInt(scheduled.size()));
+        if (wheel.cancel(timer)) {
+          expected.get(timer.getExpirationTime()).remove(timer.getValue());
+          expected.remove(timer.getExpirationTime(), Collections.emptyList());
+        }
+      } else {
+        long next = expected.isEmpty() ? TimerWheel.NO_TIMERS : expected.firstKey();
+        assertEquals(next, wheel.nextExpirationTime());
+        now = random.nextBoolean() && !expected.isEmpty() ? next : now + random.nextInt(1000);
+        List<Integer> expired = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> entry : expected.headMap(now, true).entrySet()) {
+          expired.addAll(entry.getValue());
+        }
+        expected.headMap(now, true).clear();
+        assertEquals(expired, wheel.pollExpired(now));
+      }
+      assertEquals(expected.values().stream().mapToInt(List::size).sum(), wheel.size());
+    }
+  }
+}
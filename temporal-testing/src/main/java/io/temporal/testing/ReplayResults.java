@@ -1,5 +1,7 @@
 package io.temporal.testing;
 
+import io.temporal.common.Experimental;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -16,21 +18,51 @@ public class ReplayResults {
     }
   }
 
+  /** Time it took to replay a single history, whether the replay succeeded or not. */
+  @Experimental
+  public static final class ReplayTiming {
+    public final String workflowId;
+    public final Duration duration;
+
+    public ReplayTiming(String workflowId, Duration duration) {
+      this.workflowId = workflowId;
+      this.duration = duration;
+    }
+  }
+
   private final List<ReplayError> replayErrors;
+  private final List<ReplayTiming> replayTimings;
 
   ReplayResults() {
     replayErrors = new ArrayList<>();
+    replayTimings = new ArrayList<>();
   }
 
-  public Collection<ReplayError> allErrors() {
-    return replayErrors;
+  /**
+   * @return a snapshot of the replay errors collected so far
+   */
+  public synchronized Collection<ReplayError> allErrors() {
+    return new ArrayList<>(replayErrors);
   }
 
   public boolean hadAnyError() {
     return !allErrors().isEmpty();
   }
 
-  void addError(String workflowId, Exception err) {
+  /**
+   * @return a snapshot of the replay duration of every replayed history in the order the replays
+   *     completed
+   */
+  @Experimental
+  public synchronized Collection<ReplayTiming> allTimings() {
+    return new ArrayList<>(replayTimings);
+  }
+
+  synchronized void addError(String workflowId, Exception err) {
     replayErrors.add(new ReplayError(workflowId, err));
   }
+
+  synchronized void addTiming(String workflowId, Duration duration) {
+    replayTimings.add(new ReplayTiming(workflowId, duration));
+  }
 }
@@ -1,15 +1,12 @@
 package io.temporal.testing;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
 import com.google.common.base.Preconditions;
-import com.google.common.io.CharStreams;
 import io.temporal.common.Experimental;
 import io.temporal.common.WorkflowExecutionHistory;
 import io.temporal.internal.common.WorkflowExecutionUtils;
 import java.io.File;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 
@@ -34,10 +31,12 @@ public final class WorkflowHistoryLoader {
     return readHistory(historyFile);
   }
 
+  /**
+   * Parses the history one event at a time, so the json file is never held in memory as a whole.
+   */
   public static WorkflowExecutionHistory readHistory(File historyFile) throws IOException {
-    try (Reader reader = Files.newBufferedReader(historyFile.toPath(), UTF_8)) {
-      String jsonHistory = CharStreams.toString(reader);
-      return WorkflowExecutionHistory.fromJson(jsonHistory);
+    try (InputStream in = Files.newInputStream(historyFile.toPath())) {
+      return WorkflowExecutionHistory.fromJson(in);
     }
   }
 }
@@ -1,11 +1,34 @@
 package io.temporal.testing;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.ObjectArrays;
 import io.temporal.api.history.v1.WorkflowExecutionStartedEventAttributes;
 import io.temporal.api.taskqueue.v1.TaskQueue;
+import io.temporal.common.Experimental;
 import io.temporal.common.WorkflowExecutionHistory;
+import io.temporal.common.WorkflowHistoryReader;
+import io.temporal.common.WorkflowHistoryWriter;
 import io.temporal.worker.Worker;
+import io.temporal.worker.WorkerFactory;
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /** Replays a workflow given its history. Useful for backwards compatibility testing. */
 public final class WorkflowReplayer {
@@ -201,6 +224,7 @@ public final class WorkflowReplayer {
       throws Exception {
     ReplayResults results = new ReplayResults();
     for (io.temporal.internal.common.WorkflowExecutionHistory history : histories) {
+      long start = System.nanoTime();
       try {
         replayWorkflowExecution(history, worker);
       } catch (Exception e) {
@@ -209,11 +233,271 @@ public final class WorkflowReplayer {
         } else {
           throw e;
         }
+      } finally {
+        results.addTiming(
+            history.getWorkflowExecution().getWorkflowId(),
+            Duration.ofNanos(System.nanoTime() - start));
       }
     }
     return results;
   }
 
+  /**
+   * Replays workflows provided by an iterator concurrently. Each of the {@code parallelism}
+   * concurrent replays uses its own worker with its own workflow thread pool and workflow cache.
+   *
+   * <p>The iterator is advanced only when one of the workers is free, so at most {@code
+   * parallelism} histories are held in memory by the replayer at the same time. This makes it
+   * possible to replay a large number of histories by passing an iterator that loads them lazily.
+   *
+   * @param histories The histories to be replayed
+   * @param parallelism Maximum number of histories replayed at the same time
+   * @param failFast If true, stops scheduling new replays upon the first error encountered (if any)
+   *     and throws it once the replays in progress are done. If false, all histories will be
+   *     replayed and the returned object contains information about any failures.
+   * @param workflowClasses Workflow implementation classes used to replay the histories
+   * @return Replay duration of each replayed history and, if `failFast` is false, any replay
+   *     failures encountered.
+   * @throws Exception If replay failed and `failFast` is true.
+   */
+  @Experimental
+  public static ReplayResults replayWorkflowExecutionsInParallel(
+      Iterator<? extends WorkflowExecutionHistory> histories,
+      int parallelism,
+      boolean failFast,
+      Class<?>... workflowClasses)
+      throws Exception {
+    Iterator<HistorySource> sources =
+        Iterators.transform(
+            histories,
+            history ->
+                new HistorySource() {
+                  @Override
+                  public String getName() {
+                    return history.getWorkflowExecution().getWorkflowId();
+                  }
+
+                  @Override
+                  public WorkflowExecutionHistory load() {
+                    return history;
+                  }
+                });
+    return replayInParallel(sources, parallelism, failFast, workflowClasses);
+  }
+
+  /**
+   * Replays concurrently the json serialized histories stored in the {@code .json} files of a
+   * directory. Each of the {@code parallelism} concurrent replays uses its own worker with its own
+   * workflow thread pool and workflow cache.
+   *
+   * <p>The files are listed lazily and each file is read by the worker that replays it, so at most
+   * {@code parallelism} histories are held in memory at the same time regardless of the number of
+   * files in the directory.
+   *
+   * @param historiesDirectory Directory with the json serialized histories, one history per file
+   * @param parallelism Maximum number of histories replayed at the same time
+   * @param failFast If true, stops scheduling new replays upon the first error encountered (if any)
+   *     and throws it once the replays in progress are done. If false, all histories will be
+   *     replayed and the returned object contains information about any failures. A file that can't
+   *     be read is reported as a failure with the file name in place of the workflow id.
+   * @param workflowClasses Workflow implementation classes used to replay the histories
+   * @return Replay duration of each replayed history and, if `failFast` is false, any replay
+   *     failures encountered.
+   * @throws Exception If replay failed and `failFast` is true.
+   */
+  @Experimental
+  public static ReplayResults replayWorkflowExecutionsInParallel(
+      Path historiesDirectory, int parallelism, boolean failFast, Class<?>... workflowClasses)
+      throws Exception {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(historiesDirectory, "*.json")) {
+      Iterator<HistorySource> sources =
+          Iterators.transform(
+              files.iterator(),
+              file ->
+                  new HistorySource() {
+                    @Override
+                    public String getName() {
+                      return String.valueOf(file.getFileName());
+                    }
+
+                    @Override
+                    public WorkflowExecutionHistory load() throws IOException {
+                      return WorkflowHistoryLoader.readHistory(file.toFile());
+                    }
+                  });
+      return replayInParallel(sources, parallelism, failFast, workflowClasses);
+    }
+  }
+
+  /**
+   * Replays concurrently the histories exported by {@link
+   * io.temporal.client.WorkflowClient#exportHistories}, read from the {@link
+   * WorkflowHistoryWriter#FILE_EXTENSION} files of a directory. Each of the {@code parallelism}
+   * concurrent replays uses its own worker with its own workflow thread pool and workflow cache.
+   *
+   * <p>The files are read lazily one history at a time when a worker is free, so at most {@code
+   * parallelism} histories are held in memory at the same time regardless of the size of the files.
+   * A file that can't be read fails the replay.
+   *
+   * @param exportDirectory Directory with the exported histories
+   * @param parallelism Maximum number of histories replayed at the same time
+   * @param failFast If true, stops scheduling new replays upon the first error encountered (if any)
+   *     and throws it once the replays in progress are done. If false, all histories will be
+   *     replayed and the returned object contains information about any failures.
+   * @param workflowClasses Workflow implementation classes used to replay the histories
+   * @return Replay duration of each replayed history and, if `failFast` is false, any replay
+   *     failures encountered.
+   * @throws Exception If replay failed and `failFast` is true.
+   */
+  @Experimental
+  public static ReplayResults replayExportedWorkflowExecutionsInParallel(
+      Path exportDirectory, int parallelism, boolean failFast, Class<?>... workflowClasses)
+      throws Exception {
+    try (DirectoryStream<Path> files =
+            Files.newDirectoryStream(exportDirectory, "*" + WorkflowHistoryWriter.FILE_EXTENSION);
+        ExportedHistories histories = new ExportedHistories(files.iterator())) {
+      return replayWorkflowExecutionsInParallel(histories, parallelism, failFast, workflowClasses);
+    }
+  }
+
+  /** Reads the histories of the export files one after another. */
+  private static class ExportedHistories implements Iterator<WorkflowExecutionHistory>, Closeable {
+    private final Iterator<Path> files;
+    private WorkflowHistoryReader reader;
+
+    ExportedHistories(Iterator<Path> files) {
+      this.files = files;
+    }
+
+    @Override
+    public boolean hasNext() {
+      try {
+        while (reader == null || !reader.hasNext()) {
+          close();
+          if (!files.hasNext()) {
+            return false;
+          }
+          reader = WorkflowHistoryReader.open(files.next());
+        }
+        return true;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public WorkflowExecutionHistory next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return reader.next();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (reader != null) {
+        reader.close();
+        reader = null;
+      }
+    }
+  }
+
+  private interface HistorySource {
+    /** Used to report a failure when the history can't be loaded. */
+    String getName();
+
+    WorkflowExecutionHistory load() throws Exception;
+  }
+
+  private static ReplayResults replayInParallel(
+      Iterator<HistorySource> sources,
+      int parallelism,
+      boolean failFast,
+      Class<?>[] workflowClasses)
+      throws Exception {
+    Preconditions.checkArgument(parallelism > 0, "parallelism must be positive: %s", parallelism);
+    ReplayResults results = new ReplayResults();
+    AtomicReference<Exception> firstFailure = new AtomicReference<>();
+    try (TestWorkflowEnvironment testEnv = TestWorkflowEnvironment.newInstance()) {
+      // Every worker gets its own factory, so replays don't share workflow threads or cache.
+      List<WorkerFactory> factories = new ArrayList<>(parallelism);
+      BlockingQueue<Worker> freeWorkers = new ArrayBlockingQueue<>(parallelism);
+      AtomicInteger threadCounter = new AtomicInteger();
+      ExecutorService executor =
+          Executors.newFixedThreadPool(
+              parallelism,
+              r -> {
+                Thread thread =
+                    new Thread(r, "workflow-replayer-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+              });
+      try {
+        for (int i = 0; i < parallelism; i++) {
+          WorkerFactory factory = WorkerFactory.newInstance(testEnv.getWorkflowClient());
+          factories.add(factory);
+          Worker worker = factory.newWorker("replay-task-queue-name");
+          worker.registerWorkflowImplementationTypes(workflowClasses);
+          freeWorkers.add(worker);
+        }
+        while (firstFailure.get() == null && sources.hasNext()) {
+          // Take the worker before advancing the iterator to bound the number of loaded histories
+          Worker worker = freeWorkers.take();
+          if (firstFailure.get() != null) {
+            freeWorkers.add(worker);
+            break;
+          }
+          HistorySource source = sources.next();
+          executor.execute(
+              () -> {
+                try {
+                  replay(source, worker, failFast, results, firstFailure);
+                } finally {
+                  freeWorkers.add(worker);
+                }
+              });
+        }
+        // Wait for the replays in progress
+        for (int i = 0; i < parallelism; i++) {
+          freeWorkers.take();
+        }
+      } finally {
+        executor.shutdownNow();
+        factories.forEach(WorkerFactory::shutdownNow);
+      }
+    }
+    Exception failure = firstFailure.get();
+    if (failure != null) {
+      throw failure;
+    }
+    return results;
+  }
+
+  private static void replay(
+      HistorySource source,
+      Worker worker,
+      boolean failFast,
+      ReplayResults results,
+      AtomicReference<Exception> firstFailure) {
+    String workflowId = source.getName();
+    try {
+      WorkflowExecutionHistory history = source.load();
+      workflowId = history.getWorkflowExecution().getWorkflowId();
+      long start = System.nanoTime();
+      try {
+        worker.replayWorkflowExecution(history);
+      } finally {
+        results.addTiming(workflowId, Duration.ofNanos(System.nanoTime() - start));
+      }
+    } catch (Exception e) {
+      if (failFast) {
+        firstFailure.compareAndSet(null, e);
+      } else {
+        results.addError(workflowId, e);
+      }
+    }
+  }
+
   @SuppressWarnings("deprecation")
   private static String getQueueName(io.temporal.internal.common.WorkflowExecutionHistory history) {
     WorkflowExecutionStartedEventAttributes attr =